@@ -0,0 +1,21 @@
+// Launches one Playwright browser server for the backend's browser pool and keeps it
+// running until the backend stops it. Usage: node browser-server.js <browser> <port> <wsPath>
+const playwright = require('@playwright/test');
+
+const [browserName, port, wsPath] = process.argv.slice(2);
+
+(async () => {
+    const server = await playwright[browserName].launchServer({
+        headless: true,
+        host: '127.0.0.1',
+        port: Number(port),
+        wsPath,
+        args: browserName === 'chromium' ? ['--lang=de-DE'] : [],
+    });
+    const close = () => server.close().finally(() => process.exit(0));
+    process.on('SIGTERM', close);
+    process.on('SIGINT', close);
+})().catch(error => {
+    console.error(error);
+    process.exit(1);
+});
@@ -7,8 +7,10 @@ export default defineConfig({
     retries: 0,
     workers: 1,
     reporter: [
-        ['json'],
-        ['html', {outputFolder: 'playwright-report', open: 'never'}], // saves HTML report
+        ['list'], // streamed live by the backend
+        ['json'], // written to PLAYWRIGHT_JSON_OUTPUT_FILE when set by the backend
+        // the backend sets PLAYWRIGHT_HTML_OUTPUT_DIR per run, so concurrent runs keep their reports apart
+        ['html', {outputFolder: process.env.PLAYWRIGHT_HTML_OUTPUT_DIR || 'playwright-report', open: 'never'}],
     ],
     use: {
         trace: 'on-first-retry',
@@ -23,10 +25,19 @@ export default defineConfig({
     expect: {
         timeout: 5000,
     },
+    // the backend selects one browser per run with --project
     projects: [
         {
             name: 'chromium',
             use: {...devices['Desktop Chrome']},
         },
+        {
+            name: 'firefox',
+            use: {...devices['Desktop Firefox']},
+        },
+        {
+            name: 'webkit',
+            use: {...devices['Desktop Safari']},
+        },
     ],
 });
@@ -0,0 +1,90 @@
+// Warm runner for the backend. Keeps one node process with the Playwright CLI already loaded
+// in reserve and hands each run to it, which saves the shell, npx and most of the node and
+// Playwright start-up of a run. Playwright keeps global state per invocation, so every run
+// still gets a process of its own; the next spare is loaded while the run executes.
+//
+// Requests are read as JSON lines from stdin, events are written as JSON lines to stdout:
+//   {"id": 1, "args": ["test", "12.spec.ts"], "env": {"KEY": "value"}, "log": "/tmp/process-1.log"}
+//   {"id": 1, "event": "started", "pid": 4711}
+//   {"id": 1, "event": "exit", "code": 0}
+const {fork} = require('child_process');
+const fs = require('fs');
+const os = require('os');
+const readline = require('readline');
+
+const MAX_SPARE_FAILURES = 3;
+
+if (process.argv[2] === '--spare') {
+    // the listener is in place before loading, so a run assigned meanwhile is not lost
+    process.once('message', ({args, env}) => {
+        process.disconnect();
+        Object.assign(process.env, env);
+        require('playwright/lib/program').program.parse([process.argv[0], 'playwright', ...args]);
+    });
+    require('playwright/lib/program');
+    return;
+}
+
+let spare = null;
+let spareFailures = 0;
+
+function send(event) {
+    process.stdout.write(JSON.stringify(event) + '\n');
+}
+
+function startSpare() {
+    const child = fork(__filename, ['--spare'], {cwd: __dirname, stdio: ['ignore', 'pipe', 'pipe', 'ipc']});
+    child.once('exit', () => {
+        if (spare !== child) {
+            return;
+        }
+        // a spare that exits before it got a run cannot load Playwright
+        spare = null;
+        if (++spareFailures >= MAX_SPARE_FAILURES) {
+            console.error('Spare runner exited ' + spareFailures + ' times, stopping the daemon');
+            process.exit(1);
+        }
+        setTimeout(startSpare, 1000);
+    });
+    spare = child;
+}
+
+function run({id, args, env, log}) {
+    const child = spare;
+    if (!child) {
+        send({id, event: 'error', message: 'No spare runner ready'});
+        return;
+    }
+    spare = null;
+    spareFailures = 0;
+
+    const out = fs.createWriteStream(log, {flags: 'a'});
+    child.stdout.pipe(out, {end: false});
+    child.stderr.pipe(out, {end: false});
+    // close fires once the output pipes are drained, so the log is complete before the exit is reported
+    child.once('close', (code, signal) => {
+        const exitCode = code !== null ? code : 128 + (os.constants.signals[signal] || 0);
+        out.end(() => send({id, event: 'exit', code: exitCode}));
+    });
+    child.send({args, env: env || {}});
+    send({id, event: 'started', pid: child.pid});
+    startSpare();
+}
+
+readline.createInterface({input: process.stdin}).on('line', line => {
+    let request;
+    try {
+        request = JSON.parse(line);
+    } catch (error) {
+        console.error('Ignoring malformed request: ' + line);
+        return;
+    }
+    run(request);
+}).on('close', () => {
+    if (spare) {
+        spare.kill();
+    }
+    process.exit(0);
+});
+
+startSpare();
@@ -0,0 +1,40 @@
+package com.example.backend.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+
+/**
+ * The retry settings of Spring AI, bound from {@code spring.ai.retry.*}, so failed generations
+ * back off the same way single model requests do. Defaults are the ones of Spring AI.
+ */
+@Data
+@ConfigurationProperties(prefix = "spring.ai.retry")
+public class AiRetryProperties
+{
+    private int maxAttempts = 10;
+
+    private Backoff backoff = new Backoff();
+
+    @Data
+    public static class Backoff
+    {
+        private Duration initialInterval = Duration.ofSeconds(2);
+
+        private int multiplier = 5;
+
+        private Duration maxInterval = Duration.ofMinutes(3);
+    }
+
+    /**
+     * Delay before the given retry, starting with 1 for the first retry.
+     */
+    public Duration delay (int retry)
+    {
+        double millis = backoff.getInitialInterval().toMillis() * Math.pow(backoff.getMultiplier(), retry - 1);
+        return Duration.ofMillis((long) Math.min(millis, backoff.getMaxInterval().toMillis()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.backend.config;
+
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+
+/**
+ * Enables the artifact store settings and the scheduled compactor.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ArtifactProperties.class)
+public class ArtifactConfig
+{
+}
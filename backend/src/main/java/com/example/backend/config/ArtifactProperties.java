@@ -0,0 +1,50 @@
+package com.example.backend.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Settings for the run artifact store, bound from {@code playwright.artifacts.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "playwright.artifacts")
+public class ArtifactProperties
+{
+    /**
+     * Directory holding the content-addressed artifact blobs.
+     */
+    private String storeDir = "backend/artifacts";
+
+    /**
+     * Directory holding the gzip compressed output logs of runs; pruned after {@code maxAge}.
+     */
+    private String logDir = "backend/run-logs";
+
+    /**
+     * Artifacts linked to runs older than this are released and evicted once unreferenced.
+     */
+    private Duration maxAge = Duration.ofDays(14);
+
+    /**
+     * Upper bound for the size of the store; the least recently referenced blobs are evicted beyond it.
+     */
+    private DataSize maxTotalSize = DataSize.ofGigabytes(5);
+
+    /**
+     * Delay between two compactor passes.
+     */
+    private Duration compactInterval = Duration.ofHours(1);
+
+    /**
+     * Output directories written by Playwright and the MCP server; files older than
+     * {@code maxAge} are deleted from them by the compactor.
+     */
+    private List<String> scratchDirs = new ArrayList<>(List.of("backend/test-results", "test-results", "backend/playwright-report"));
+}
@@ -0,0 +1,60 @@
+package com.example.backend.config;
+
+
+import com.example.backend.constants.Browser;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Settings for the pool of long-lived Playwright browser servers, bound from
+ * {@code playwright.browser-pool.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "playwright.browser-pool")
+public class BrowserPoolProperties
+{
+    /**
+     * Let runs connect to a pooled browser server instead of launching their own browser.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Browsers that get a pool; runs on other browsers launch them as before.
+     */
+    private List<Browser> browsers = new ArrayList<>(List.of(Browser.CHROMIUM));
+
+    /**
+     * Browser servers kept running per pooled browser. A run that finds no idle server
+     * launches its own browser.
+     */
+    private int size = 2;
+
+    /**
+     * Playwright invocations a server serves before it is replaced by a fresh one.
+     */
+    private int maxUses = 50;
+
+    /**
+     * Growth of the resident memory of a server and its browser processes since the launch,
+     * after which the server is replaced.
+     */
+    private DataSize maxMemoryGrowth = DataSize.ofMegabytes(512);
+
+    private Duration healthCheckInterval = Duration.ofSeconds(30);
+
+    /**
+     * Time a browser server may take until it accepts connections.
+     */
+    private Duration startupTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Node script that launches one browser server, relative to the {@code backend} directory.
+     */
+    private String script = "browser-server.js";
+}
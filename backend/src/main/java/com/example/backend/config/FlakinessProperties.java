@@ -0,0 +1,34 @@
+package com.example.backend.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+
+/**
+ * Settings for the flakiness score, bound from {@code playwright.flakiness.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "playwright.flakiness")
+public class FlakinessProperties
+{
+    /**
+     * Weight of the latest run in the score; higher values forget older runs faster.
+     */
+    private double alpha = 0.2;
+
+    /**
+     * Score from which a test is quarantined.
+     */
+    private double quarantineThreshold = 0.3;
+
+    /**
+     * Score below which a quarantined test is released again.
+     */
+    private double releaseThreshold = 0.1;
+
+    /**
+     * Runs needed before a test can be quarantined.
+     */
+    private int minRuns = 5;
+}
@@ -0,0 +1,31 @@
+package com.example.backend.config;
+
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+
+/**
+ * Provides the bounded worker pool that executes AI generations outside of the servlet
+ * request threads.
+ */
+@Configuration
+@EnableConfigurationProperties({GenerationProperties.class, AiRetryProperties.class})
+public class GenerationExecutorConfig
+{
+
+    @Bean
+    public ThreadPoolTaskExecutor generationExecutor (GenerationProperties properties)
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkers());
+        executor.setMaxPoolSize(properties.getWorkers());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("generation-");
+        // a generation only waits on the model and the MCP tools
+        executor.setThreadFactory(Thread.ofVirtual().name("generation-", 0).factory());
+        return executor;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.backend.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+
+/**
+ * Settings for background AI generations, bound from {@code ai.generation.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "ai.generation")
+public class GenerationProperties
+{
+    /**
+     * Number of generations that may run at the same time. Each one holds a browser of the
+     * Playwright MCP server for its whole tool loop.
+     */
+    private int workers = 2;
+
+    /**
+     * Number of generations that may wait for a free worker before new submissions are rejected.
+     */
+    private int queueCapacity = 20;
+
+    /**
+     * Tool calls the agent may make in one generation before it is aborted.
+     */
+    private int maxToolCalls = 150;
+
+    /**
+     * Interval in which an instance renews the heartbeat of the jobs it holds.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * Time without heartbeat after which a queued or running job counts as lost with its
+     * instance and is failed by another one.
+     */
+    private Duration leaseTimeout = Duration.ofMinutes(1);
+
+    /**
+     * Generations of one bulk submit that may run at the same time, at most {@link #workers}.
+     */
+    private int bulkParallelism = 2;
+
+    /**
+     * Model requests per minute across all generations, 0 for no limit. Every tool call of the
+     * agent is followed by one request.
+     */
+    private int requestsPerMinute;
+
+    /**
+     * Tokens per minute across all generations, 0 for no limit.
+     */
+    private int tokensPerMinute;
+
+    /**
+     * Tokens reserved for a model request before it starts when pacing by {@link #tokensPerMinute};
+     * the usage the model reports replaces the estimate afterwards.
+     */
+    private int tokensPerRequest = 4000;
+
+    /**
+     * Whether the answer of the model is streamed, so clients see the spec while it is written.
+     */
+    private boolean streaming = true;
+
+    /**
+     * Whether the spec of an unchanged test is taken from the generation cache.
+     */
+    private boolean cache = true;
+
+    /**
+     * Whether a test whose steps partly changed only gets the code of the changed steps
+     * regenerated, reusing the code of the others from its current spec.
+     */
+    private boolean incremental = true;
+
+    /**
+     * Model deployment the generations run on; part of the cache key.
+     */
+    private String model;
+}
@@ -0,0 +1,33 @@
+package com.example.backend.config;
+
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+
+/**
+ * Provides the bounded worker pool that executes queued Playwright runs
+ * outside of the servlet request threads.
+ */
+@Configuration
+@EnableConfigurationProperties({TestRunnerProperties.class, FlakinessProperties.class, BrowserPoolProperties.class})
+public class TestRunExecutorConfig
+{
+
+    @Bean
+    public ThreadPoolTaskExecutor testRunExecutor (TestRunnerProperties properties)
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkers());
+        executor.setMaxPoolSize(properties.getWorkers());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("test-run-");
+        if (properties.isVirtualThreads())
+        {
+            executor.setThreadFactory(Thread.ofVirtual().name("test-run-", 0).factory());
+        }
+        return executor;
+    }
+}
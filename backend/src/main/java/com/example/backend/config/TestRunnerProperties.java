@@ -0,0 +1,107 @@
+package com.example.backend.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+
+/**
+ * Settings for the Playwright run dispatcher, bound from {@code playwright.runner.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "playwright.runner")
+public class TestRunnerProperties
+{
+    /**
+     * Number of Playwright runs that may execute at the same time.
+     */
+    private int workers = 2;
+
+    /**
+     * Number of runs that may wait for a free worker before new submissions are rejected.
+     */
+    private int queueCapacity = 50;
+
+    /**
+     * Playwright workers used for a batch run when the request does not specify a count.
+     */
+    private int batchWorkers = 4;
+
+    /**
+     * Upper bound for the Playwright workers of a single batch run.
+     */
+    private int maxBatchWorkers = 8;
+
+    /**
+     * Run the workers on virtual threads. A worker only waits on its Playwright process,
+     * so this keeps large worker counts cheap.
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * Start runs in a warm node daemon instead of spawning a shell and npx per run. Runs are
+     * spawned as before while the daemon is unavailable.
+     */
+    private boolean daemon = true;
+
+    /**
+     * Time after a failed start or exit of the runner daemon before it is started again.
+     */
+    private Duration daemonRestartBackoff = Duration.ofSeconds(30);
+
+    /**
+     * Playwright retries of a failed test for runs without an execution profile, 0 for none.
+     * A test that passes on retry is reported as flaky; profiles set their own retries.
+     */
+    private int retries;
+
+    /**
+     * How often a worker renews the lease of the runs it executes. Also the interval in which
+     * expired leases are looked for.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * A run whose lease was not renewed for this long is considered orphaned.
+     */
+    private Duration leaseTimeout = Duration.ofMinutes(1);
+
+    /**
+     * How often an orphaned run is re-queued before it is marked as FAILED.
+     */
+    private int maxRecoveries = 1;
+
+    /**
+     * How long a passing run is reused by cached executions of an unchanged test.
+     */
+    private Duration cacheTtl = Duration.ofHours(1);
+
+    /**
+     * Run history considered when prioritizing the tests of a batch.
+     */
+    private Duration priorityHistory = Duration.ofDays(14);
+
+    /**
+     * Global budget of Playwright workers that scheduled batches may occupy at the same time.
+     * Manual runs and batches are not counted.
+     */
+    private int scheduledWorkers = 8;
+
+    /**
+     * How often scheduled run definitions are checked for due executions.
+     */
+    private Duration scheduleInterval = Duration.ofSeconds(30);
+
+    /**
+     * Runs that may execute at the same time across all environments; 0 is unlimited. A batch
+     * counts with its Playwright workers.
+     */
+    private int maxConcurrentRuns = 0;
+
+    /**
+     * Runs that may start per minute across all environments; 0 is unlimited.
+     */
+    private int runsPerMinute = 0;
+}
@@ -0,0 +1,9 @@
+package com.example.backend.constants;
+
+
+public enum BatchScope
+{
+    TEST,
+    STORY,
+    PROJECT
+}
@@ -0,0 +1,48 @@
+package com.example.backend.constants;
+
+
+import java.util.Arrays;
+
+
+public enum Browser
+{
+    CHROMIUM("chromium"),
+    FIREFOX("firefox"),
+    WEBKIT("webkit");
+
+    private final String project;
+
+    Browser (String project)
+    {
+        this.project = project;
+    }
+
+    /**
+     * Name of the Playwright project that runs this browser.
+     */
+    public String getProject ()
+    {
+        return project;
+    }
+
+    /**
+     * Resolves a browser by its project name, ignoring case.
+     *
+     * @throws IllegalArgumentException if no browser has this project name
+     */
+    public static Browser fromProject (String project)
+    {
+        return Arrays.stream(values())
+                .filter(browser -> browser.project.equalsIgnoreCase(project.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown browser: " + project));
+    }
+
+    /**
+     * Runs without a browser use the Chromium project.
+     */
+    public static Browser orDefault (Browser browser)
+    {
+        return browser != null ? browser : CHROMIUM;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.backend.constants;
+
+
+public enum GenerationEventType
+{
+    STATUS,
+    TOOL_CALL,
+    TOKEN
+}
@@ -8,5 +8,6 @@ public enum TestStatus
     FIXING,
     FAILED,
     PASSED,
-    SKIPPED
+    SKIPPED,
+    CANCELLED
 }
@@ -0,0 +1,25 @@
+package com.example.backend.constants;
+
+
+public enum TracePolicy
+{
+    OFF("off"),
+    ON("on"),
+    ON_FIRST_RETRY("on-first-retry"),
+    RETAIN_ON_FAILURE("retain-on-failure");
+
+    private final String value;
+
+    TracePolicy (String value)
+    {
+        this.value = value;
+    }
+
+    /**
+     * Value of the Playwright {@code use.trace} option.
+     */
+    public String getValue ()
+    {
+        return value;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.backend.controller;
+
+
+import com.example.backend.dto.ArtifactUsageDto;
+import com.example.backend.dto.RunArtifactDto;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.mapper.RunArtifactMapper;
+import com.example.backend.models.Artifact;
+import com.example.backend.repo.ArtifactRepo;
+import com.example.backend.repo.RunArtifactRepo;
+import com.example.backend.repo.TestRunRepo;
+import com.example.backend.service.ArtifactCompactor;
+import com.example.backend.service.ArtifactStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+
+@RestController
+@Slf4j
+public class ArtifactController
+{
+
+    private final ArtifactStore artifactStore;
+    private final ArtifactCompactor artifactCompactor;
+    private final ArtifactRepo artifactRepo;
+    private final RunArtifactRepo runArtifactRepo;
+    private final TestRunRepo testRunRepo;
+    private final RunArtifactMapper runArtifactMapper;
+
+    public ArtifactController (ArtifactStore artifactStore, ArtifactCompactor artifactCompactor, ArtifactRepo artifactRepo, RunArtifactRepo runArtifactRepo, TestRunRepo testRunRepo, RunArtifactMapper runArtifactMapper)
+    {
+        this.artifactStore = artifactStore;
+        this.artifactCompactor = artifactCompactor;
+        this.artifactRepo = artifactRepo;
+        this.runArtifactRepo = runArtifactRepo;
+        this.testRunRepo = testRunRepo;
+        this.runArtifactMapper = runArtifactMapper;
+    }
+
+    @GetMapping("/test/run/{runId}/artifacts")
+    public ResponseEntity<List<RunArtifactDto>> getRunArtifacts (@PathVariable Long runId)
+    {
+        if (!testRunRepo.existsById(runId))
+        {
+            throw new ResourceNotFoundException("TestRun", runId);
+        }
+        return ResponseEntity.ok(runArtifactRepo.findByRunID(runId).stream()
+                .map(runArtifactMapper::toDto)
+                .toList());
+    }
+
+    @GetMapping("/artifacts/{artifactId}")
+    public ResponseEntity<Resource> getArtifactContent (@PathVariable Long artifactId)
+    {
+        Artifact artifact = artifactRepo.findById(artifactId)
+                .orElseThrow(() -> new ResourceNotFoundException("Artifact", artifactId));
+
+        Path blob = artifactStore.blobPath(artifact.getSha256());
+        if (!Files.exists(blob))
+        {
+            throw new ResourceNotFoundException("Artifact content", artifactId);
+        }
+
+        MediaType mediaType = artifact.getContentType() != null
+                ? MediaType.parseMediaType(artifact.getContentType())
+                : MediaType.APPLICATION_OCTET_STREAM;
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .contentLength(artifact.getSizeBytes())
+                .body(new FileSystemResource(blob));
+    }
+
+    @GetMapping("/artifacts/usage")
+    public ResponseEntity<ArtifactUsageDto> getUsage ()
+    {
+        return ResponseEntity.ok(artifactStore.getUsage());
+    }
+
+    @PostMapping("/artifacts/compact")
+    public ResponseEntity<ArtifactUsageDto> compact ()
+    {
+        artifactCompactor.compact();
+        return ResponseEntity.ok(artifactStore.getUsage());
+    }
+}
@@ -2,11 +2,14 @@ package com.example.backend.controller;
 
 
 import com.example.backend.dto.EnvironmentDto;
+import com.example.backend.dto.EnvironmentLimitsDto;
 import com.example.backend.mapper.EnvironmentMapper;
 import com.example.backend.models.Environment;
 import com.example.backend.models.Project;
 import com.example.backend.repo.EnvironmentRepo;
 import com.example.backend.repo.ProjectRepo;
+import com.example.backend.service.RunLimiter;
+import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,14 +28,16 @@ public class EnvironmentController
     private final EnvironmentRepo environmentRepo;
     private final EnvironmentMapper environmentMapper;
     private final ProjectRepo projectRepo;
+    private final RunLimiter runLimiter;
 
     private static final String MASKED_PASSWORD = "************";
 
-    public EnvironmentController (EnvironmentRepo environmentRepo, EnvironmentMapper environmentMapper, ProjectRepo projectRepo)
+    public EnvironmentController (EnvironmentRepo environmentRepo, EnvironmentMapper environmentMapper, ProjectRepo projectRepo, RunLimiter runLimiter)
     {
         this.environmentRepo = environmentRepo;
         this.environmentMapper = environmentMapper;
         this.projectRepo = projectRepo;
+        this.runLimiter = runLimiter;
     }
 
     /**
@@ -126,6 +131,35 @@ public class EnvironmentController
         }
     }
 
+    @GetMapping("/getEnvironmentLimits/{id}")
+    public ResponseEntity<EnvironmentLimitsDto> getEnvironmentLimits (@PathVariable Long id)
+    {
+        return environmentRepo.findById(id)
+                .map(runLimiter::getLimits)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Sets the concurrency and rate limits of an environment; {@code null} removes a limit.
+     */
+    @PatchMapping("/updateEnvironmentLimits/{id}")
+    public ResponseEntity<EnvironmentLimitsDto> updateEnvironmentLimits (@Valid @RequestBody EnvironmentLimitsDto limits, @PathVariable Long id)
+    {
+        Optional<Environment> environment = environmentRepo.findById(id);
+        if (environment.isEmpty())
+        {
+            return ResponseEntity.notFound().build();
+        }
+
+        Environment updated = environment.get();
+        updated.setMaxConcurrentRuns(limits.getMaxConcurrentRuns());
+        updated.setRunsPerMinute(limits.getRunsPerMinute());
+        Environment saved = environmentRepo.save(updated);
+        runLimiter.invalidate(id);
+        return ResponseEntity.ok(runLimiter.getLimits(saved));
+    }
+
     @DeleteMapping("/deleteEnvironment/{id}")
     public ResponseEntity<Void> deleteEnvironment (@PathVariable Long id)
     {
@@ -0,0 +1,59 @@
+package com.example.backend.controller;
+
+
+import com.example.backend.dto.ExecutionProfileDto;
+import com.example.backend.dto.ExecutionProfileRequest;
+import com.example.backend.service.ExecutionProfileService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+
+@RestController
+@Slf4j
+public class ExecutionProfileController
+{
+
+    private final ExecutionProfileService executionProfileService;
+
+    public ExecutionProfileController (ExecutionProfileService executionProfileService)
+    {
+        this.executionProfileService = executionProfileService;
+    }
+
+    @GetMapping("/project/{projectId}/profile")
+    public ResponseEntity<List<ExecutionProfileDto>> getProfiles (@PathVariable Long projectId)
+    {
+        return ResponseEntity.ok(executionProfileService.list(projectId));
+    }
+
+    @PostMapping("/project/{projectId}/profile")
+    public ResponseEntity<ExecutionProfileDto> createProfile (@PathVariable Long projectId, @Valid @RequestBody ExecutionProfileRequest request)
+    {
+        return ResponseEntity.status(HttpStatus.CREATED).body(executionProfileService.create(projectId, request));
+    }
+
+    @GetMapping("/profile/{id}")
+    public ResponseEntity<ExecutionProfileDto> getProfile (@PathVariable Long id)
+    {
+        return ResponseEntity.ok(executionProfileService.get(id));
+    }
+
+    @PutMapping("/profile/{id}")
+    public ResponseEntity<ExecutionProfileDto> updateProfile (@PathVariable Long id, @Valid @RequestBody ExecutionProfileRequest request)
+    {
+        return ResponseEntity.ok(executionProfileService.update(id, request));
+    }
+
+    @DeleteMapping("/profile/{id}")
+    public ResponseEntity<Void> deleteProfile (@PathVariable Long id)
+    {
+        executionProfileService.delete(id);
+        log.info("Deleted execution profile {}", id);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.backend.controller;
+
+
+import com.example.backend.dto.TestFlakinessDto;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.repo.TestRepo;
+import com.example.backend.service.FlakinessService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+
+@RestController
+@RequestMapping("/test")
+@Slf4j
+public class FlakinessController
+{
+
+    private final TestRepo testRepo;
+    private final FlakinessService flakinessService;
+
+    public FlakinessController (TestRepo testRepo, FlakinessService flakinessService)
+    {
+        this.testRepo = testRepo;
+        this.flakinessService = flakinessService;
+    }
+
+    @GetMapping("/flakiness")
+    public ResponseEntity<List<TestFlakinessDto>> getFlakiness (@RequestParam(defaultValue = "false") boolean quarantined)
+    {
+        return ResponseEntity.ok(flakinessService.list(quarantined));
+    }
+
+    @GetMapping("/{id}/flakiness")
+    public ResponseEntity<TestFlakinessDto> getFlakinessForTest (@PathVariable Long id)
+    {
+        if (!testRepo.existsById(id))
+        {
+            throw new ResourceNotFoundException("Test", id);
+        }
+        return ResponseEntity.ok(flakinessService.getForTest(id));
+    }
+}
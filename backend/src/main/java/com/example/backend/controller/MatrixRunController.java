@@ -0,0 +1,78 @@
+package com.example.backend.controller;
+
+
+import com.example.backend.constants.BatchScope;
+import com.example.backend.dto.MatrixRunDto;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.repo.ProjectRepo;
+import com.example.backend.repo.TestRepo;
+import com.example.backend.repo.UserStoryRepo;
+import com.example.backend.service.MatrixRunService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+
+@RestController
+@RequestMapping("/test")
+@Slf4j
+public class MatrixRunController
+{
+
+    private final MatrixRunService matrixRunService;
+    private final TestRepo testRepo;
+    private final UserStoryRepo userStoryRepo;
+    private final ProjectRepo projectRepo;
+
+    public MatrixRunController (MatrixRunService matrixRunService, TestRepo testRepo, UserStoryRepo userStoryRepo, ProjectRepo projectRepo)
+    {
+        this.matrixRunService = matrixRunService;
+        this.testRepo = testRepo;
+        this.userStoryRepo = userStoryRepo;
+        this.projectRepo = projectRepo;
+    }
+
+    @PostMapping("/execute/{id}/matrix")
+    public ResponseEntity<MatrixRunDto> executeTestMatrix (@PathVariable Long id, @RequestParam(required = false) List<String> browsers, @RequestParam(required = false) String profile)
+    {
+        if (!testRepo.existsById(id))
+        {
+            throw new ResourceNotFoundException("Test", id);
+        }
+
+        log.info("Queueing matrix run for test {} on {}", id, browsers != null ? browsers : "all browsers");
+        return ResponseEntity.accepted().body(matrixRunService.submitForTest(id, browsers, profile));
+    }
+
+    @PostMapping("/execute/story/{storyId}/matrix")
+    public ResponseEntity<MatrixRunDto> executeStoryMatrix (@PathVariable Long storyId, @RequestParam(required = false) List<String> browsers, @RequestParam(required = false) Integer workers, @RequestParam(defaultValue = "false") boolean skipQuarantined, @RequestParam(required = false) String profile)
+    {
+        if (!userStoryRepo.existsById(storyId))
+        {
+            throw new ResourceNotFoundException("UserStory", storyId);
+        }
+
+        log.info("Queueing matrix run for user story {} on {}", storyId, browsers != null ? browsers : "all browsers");
+        return ResponseEntity.accepted().body(matrixRunService.submitForScope(BatchScope.STORY, storyId, browsers, workers, skipQuarantined, profile));
+    }
+
+    @PostMapping("/execute/project/{projectId}/matrix")
+    public ResponseEntity<MatrixRunDto> executeProjectMatrix (@PathVariable Long projectId, @RequestParam(required = false) List<String> browsers, @RequestParam(required = false) Integer workers, @RequestParam(defaultValue = "false") boolean skipQuarantined, @RequestParam(required = false) String profile)
+    {
+        if (!projectRepo.existsById(projectId))
+        {
+            throw new ResourceNotFoundException("Project", projectId);
+        }
+
+        log.info("Queueing matrix run for project {} on {}", projectId, browsers != null ? browsers : "all browsers");
+        return ResponseEntity.accepted().body(matrixRunService.submitForScope(BatchScope.PROJECT, projectId, browsers, workers, skipQuarantined, profile));
+    }
+
+    @GetMapping("/matrix/{matrixId}")
+    public ResponseEntity<MatrixRunDto> getMatrix (@PathVariable Long matrixId)
+    {
+        return ResponseEntity.ok(matrixRunService.get(matrixId));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.backend.controller;
+
+
+import com.example.backend.dto.ScheduledRunDto;
+import com.example.backend.dto.ScheduledRunRequest;
+import com.example.backend.service.ScheduledRunService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+
+@RestController
+@RequestMapping("/schedule")
+@Slf4j
+public class ScheduledRunController
+{
+
+    private final ScheduledRunService scheduledRunService;
+
+    public ScheduledRunController (ScheduledRunService scheduledRunService)
+    {
+        this.scheduledRunService = scheduledRunService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ScheduledRunDto>> getSchedules ()
+    {
+        return ResponseEntity.ok(scheduledRunService.list());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ScheduledRunDto> getSchedule (@PathVariable Long id)
+    {
+        return ResponseEntity.ok(scheduledRunService.get(id));
+    }
+
+    @PostMapping
+    public ResponseEntity<ScheduledRunDto> createSchedule (@Valid @RequestBody ScheduledRunRequest request)
+    {
+        return ResponseEntity.status(HttpStatus.CREATED).body(scheduledRunService.create(request));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<ScheduledRunDto> updateSchedule (@PathVariable Long id, @Valid @RequestBody ScheduledRunRequest request)
+    {
+        return ResponseEntity.ok(scheduledRunService.update(id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteSchedule (@PathVariable Long id)
+    {
+        scheduledRunService.delete(id);
+        log.info("Deleted scheduled run {}", id);
+        return ResponseEntity.ok().build();
+    }
+}
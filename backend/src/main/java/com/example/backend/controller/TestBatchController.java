@@ -0,0 +1,78 @@
+package com.example.backend.controller;
+
+
+import com.example.backend.dto.TestBatchDto;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.mapper.TestBatchMapper;
+import com.example.backend.models.TestBatch;
+import com.example.backend.repo.ProjectRepo;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRunRepo;
+import com.example.backend.repo.UserStoryRepo;
+import com.example.backend.service.BatchRunService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+
+@RestController
+@RequestMapping("/test")
+@Slf4j
+public class TestBatchController
+{
+
+    private final BatchRunService batchRunService;
+    private final TestBatchRepo testBatchRepo;
+    private final TestRunRepo testRunRepo;
+    private final UserStoryRepo userStoryRepo;
+    private final ProjectRepo projectRepo;
+    private final TestBatchMapper testBatchMapper;
+
+    public TestBatchController (BatchRunService batchRunService, TestBatchRepo testBatchRepo, TestRunRepo testRunRepo, UserStoryRepo userStoryRepo, ProjectRepo projectRepo, TestBatchMapper testBatchMapper)
+    {
+        this.batchRunService = batchRunService;
+        this.testBatchRepo = testBatchRepo;
+        this.testRunRepo = testRunRepo;
+        this.userStoryRepo = userStoryRepo;
+        this.projectRepo = projectRepo;
+        this.testBatchMapper = testBatchMapper;
+    }
+
+    @PostMapping("/execute/story/{storyId}")
+    public ResponseEntity<TestBatchDto> executeStory (@PathVariable Long storyId, @RequestParam(required = false) Integer workers, @RequestParam(defaultValue = "false") boolean skipQuarantined, @RequestParam(defaultValue = "false") boolean prioritize, @RequestParam(required = false) Integer maxFailures, @RequestParam(required = false) String profile)
+    {
+        if (!userStoryRepo.existsById(storyId))
+        {
+            throw new ResourceNotFoundException("UserStory", storyId);
+        }
+
+        log.info("Queueing batch run for user story {}", storyId);
+        return accepted(batchRunService.submitForStory(storyId, workers, skipQuarantined, prioritize, maxFailures, profile));
+    }
+
+    @PostMapping("/execute/project/{projectId}")
+    public ResponseEntity<TestBatchDto> executeProject (@PathVariable Long projectId, @RequestParam(required = false) Integer workers, @RequestParam(defaultValue = "false") boolean skipQuarantined, @RequestParam(defaultValue = "false") boolean prioritize, @RequestParam(required = false) Integer maxFailures, @RequestParam(required = false) String profile)
+    {
+        if (!projectRepo.existsById(projectId))
+        {
+            throw new ResourceNotFoundException("Project", projectId);
+        }
+
+        log.info("Queueing batch run for project {}", projectId);
+        return accepted(batchRunService.submitForProject(projectId, workers, skipQuarantined, prioritize, maxFailures, profile));
+    }
+
+    @GetMapping("/batch/{batchId}")
+    public ResponseEntity<TestBatchDto> getBatch (@PathVariable Long batchId)
+    {
+        return testBatchRepo.findById(batchId)
+                .map(batch -> testBatchMapper.toDto(batch, testRunRepo.findByBatch_Id(batchId)))
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResourceNotFoundException("TestBatch", batchId));
+    }
+
+    private ResponseEntity<TestBatchDto> accepted (TestBatch batch)
+    {
+        return ResponseEntity.accepted().body(testBatchMapper.toDto(batch, testRunRepo.findByBatch_Id(batch.getId())));
+    }
+}
@@ -1,26 +1,37 @@
 package com.example.backend.controller;
 
 
+import com.example.backend.constants.BatchScope;
 import com.example.backend.constants.EFileType;
+import com.example.backend.constants.GenerationEventType;
 import com.example.backend.dto.CreateTestRequest;
+import com.example.backend.dto.GenerationEventDto;
+import com.example.backend.dto.GenerationJobDto;
 import com.example.backend.dto.TestDto;
 import com.example.backend.dto.TestRunDto;
 import com.example.backend.exceptions.FileOperationException;
 import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.mapper.GenerationJobMapper;
 import com.example.backend.mapper.TestMapper;
 import com.example.backend.mapper.TestRunMapper;
+import com.example.backend.models.GenerationJob;
 import com.example.backend.models.PlaywrightTest;
 import com.example.backend.models.TestModel;
 import com.example.backend.models.TestRun;
+import com.example.backend.repo.ProjectRepo;
 import com.example.backend.repo.TestRepo;
-import com.example.backend.service.AiService;
+import com.example.backend.repo.UserStoryRepo;
 import com.example.backend.service.FileService;
-import com.example.backend.service.PlaywrightTestRunner;
+import com.example.backend.service.GenerationJobService;
+import com.example.backend.service.TestRunDispatcher;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.util.List;
@@ -33,20 +44,26 @@ public class TestController
 {
 
     private final TestRepo testRepo;
+    private final UserStoryRepo userStoryRepo;
+    private final ProjectRepo projectRepo;
     private final TestMapper testMapper;
     private final TestRunMapper testRunMapper;
-    private final AiService aiService;
+    private final GenerationJobMapper generationJobMapper;
+    private final GenerationJobService generationJobService;
     private final FileService fileService;
-    private final PlaywrightTestRunner playwrightTestRunner;
+    private final TestRunDispatcher testRunDispatcher;
 
-    public TestController (TestRepo testRepo, TestMapper testMapper, TestRunMapper testRunMapper, AiService aiService, FileService fileservice, PlaywrightTestRunner playwrightTestRunner)
+    public TestController (TestRepo testRepo, UserStoryRepo userStoryRepo, ProjectRepo projectRepo, TestMapper testMapper, TestRunMapper testRunMapper, GenerationJobMapper generationJobMapper, GenerationJobService generationJobService, FileService fileservice, TestRunDispatcher testRunDispatcher)
     {
         this.testRepo = testRepo;
+        this.userStoryRepo = userStoryRepo;
+        this.projectRepo = projectRepo;
         this.testMapper = testMapper;
         this.testRunMapper = testRunMapper;
-        this.aiService = aiService;
+        this.generationJobMapper = generationJobMapper;
+        this.generationJobService = generationJobService;
         this.fileService = fileservice;
-        this.playwrightTestRunner = playwrightTestRunner;
+        this.testRunDispatcher = testRunDispatcher;
     }
 
     @GetMapping("/getTests/{id}")
@@ -103,23 +120,77 @@ public class TestController
     }
 
     @PostMapping("/generate/{id}")
-    public ResponseEntity<String> generateTest (@PathVariable Long id)
+    public ResponseEntity<GenerationJobDto> generateTest (@PathVariable Long id, @RequestParam(defaultValue = "false") boolean force)
     {
-        TestModel test = testRepo.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Test", id));
+        log.info("Queueing generation of Playwright tests for test ID: {}", id);
+        GenerationJob job = generationJobService.submit(id, force);
+        return job.isCacheHit()
+                ? ResponseEntity.ok(generationJobMapper.toDto(job))
+                : ResponseEntity.accepted().body(generationJobMapper.toDto(job));
+    }
 
-        log.info("Generating Playwright tests for test ID: {}", id);
-        String result = aiService.generateAndRunTests(test);
+    @PostMapping("/generate/story/{storyId}")
+    public ResponseEntity<List<GenerationJobDto>> generateStory (@PathVariable Long storyId, @RequestParam(required = false) Integer workers, @RequestParam(defaultValue = "false") boolean force)
+    {
+        if (!userStoryRepo.existsById(storyId))
+        {
+            throw new ResourceNotFoundException("UserStory", storyId);
+        }
 
-        try
+        log.info("Queueing generation of all tests of user story {}", storyId);
+        return ResponseEntity.accepted().body(generationJobService.submitForScope(BatchScope.STORY, storyId, workers, force).stream()
+                .map(generationJobMapper::toDto)
+                .collect(Collectors.toList()));
+    }
+
+    @PostMapping("/generate/project/{projectId}")
+    public ResponseEntity<List<GenerationJobDto>> generateProject (@PathVariable Long projectId, @RequestParam(required = false) Integer workers, @RequestParam(defaultValue = "false") boolean force)
+    {
+        if (!projectRepo.existsById(projectId))
         {
-            fileService.writeFile(test.getId().toString(), result, EFileType.SPEC_TS);
-        } catch (IOException e)
+            throw new ResourceNotFoundException("Project", projectId);
+        }
+
+        log.info("Queueing generation of all tests of project {}", projectId);
+        return ResponseEntity.accepted().body(generationJobService.submitForScope(BatchScope.PROJECT, projectId, workers, force).stream()
+                .map(generationJobMapper::toDto)
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/generate/job/{jobId}")
+    public ResponseEntity<GenerationJobDto> getGenerationJob (@PathVariable Long jobId)
+    {
+        return ResponseEntity.ok(generationJobMapper.toDto(generationJobService.get(jobId)));
+    }
+
+    @GetMapping(value = "/generate/job/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<GenerationEventDto>> streamGenerationEvents (@PathVariable Long jobId)
+    {
+        GenerationJob job = generationJobService.get(jobId);
+
+        Flux<GenerationEventDto> events = generationJobService.subscribe(jobId);
+        if (events == null)
         {
-            throw new FileOperationException("Failed to write test file for test ID: " + id, e);
+            // Job is not queued or running (anymore), so the stored state is all there is to send
+            GenerationEventDto finalState = new GenerationEventDto();
+            finalState.setType(GenerationEventType.STATUS);
+            finalState.setJobId(jobId);
+            finalState.setState(job.getState());
+            finalState.setMessage(job.getMessage() != null ? job.getMessage() : job.getCurrentStep());
+            finalState.setToolCall(job.getToolCalls());
+            finalState.setMaxToolCalls(job.getMaxToolCalls());
+            events = Flux.just(finalState);
         }
 
-        return ResponseEntity.ok(result);
+        return events.map(event -> ServerSentEvent.builder(event)
+                .event(event.getType().name())
+                .build());
+    }
+
+    @GetMapping("/test/{id}/generation")
+    public ResponseEntity<GenerationJobDto> getLatestGeneration (@PathVariable Long id)
+    {
+        return ResponseEntity.ok(generationJobMapper.toDto(generationJobService.latestForTest(id)));
     }
 
     @GetMapping("/test/code/{id}")
@@ -165,18 +236,19 @@ public class TestController
     }
 
     @PostMapping("/test/execute/{id}")
-    public ResponseEntity<TestRunDto> executePlaywrightTest (@PathVariable Long id)
+    public ResponseEntity<TestRunDto> executePlaywrightTest (@PathVariable Long id, @RequestParam(defaultValue = "false") boolean cached, @RequestParam(required = false) String profile)
     {
         if (!testRepo.existsById(id))
         {
             throw new ResourceNotFoundException("Test", id);
         }
 
-        String testFileName = id + ".spec.ts";
-        log.info("Executing Playwright test: {}", testFileName);
+        log.info("Queueing Playwright test: {}", id);
 
-        TestRun testRun = playwrightTestRunner.runPlaywrightTest(id, testFileName);
+        TestRun testRun = testRunDispatcher.submit(id, cached, profile);
 
-        return ResponseEntity.ok(testRunMapper.toDto(testRun));
+        return testRun.isCacheHit()
+                ? ResponseEntity.ok(testRunMapper.toDto(testRun))
+                : ResponseEntity.accepted().body(testRunMapper.toDto(testRun));
     }
 }
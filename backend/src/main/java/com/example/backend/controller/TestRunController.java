@@ -1,18 +1,35 @@
 package com.example.backend.controller;
 
 
+import com.example.backend.constants.RunEventType;
+import com.example.backend.dto.FailureSummaryDto;
+import com.example.backend.dto.RunCancellationDto;
+import com.example.backend.dto.RunLogDto;
+import com.example.backend.dto.RunQueueStatusDto;
+import com.example.backend.dto.SpecResultDto;
 import com.example.backend.dto.TestRunDto;
+import com.example.backend.dto.TestRunEventDto;
+import com.example.backend.exceptions.ResourceNotFoundException;
 import com.example.backend.mapper.TestRunMapper;
 import com.example.backend.models.TestRun;
 import com.example.backend.repo.TestRepo;
 import com.example.backend.repo.TestRunRepo;
+import com.example.backend.service.RunLogStore;
+import com.example.backend.service.SpecResultService;
+import com.example.backend.service.TestRunDispatcher;
+import com.example.backend.service.TestRunEventPublisher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,12 +43,101 @@ public class TestRunController
     private final TestRepo testRepo;
     private final TestRunRepo testRunRepo;
     private final TestRunMapper testRunMapper;
+    private final TestRunDispatcher testRunDispatcher;
+    private final TestRunEventPublisher testRunEventPublisher;
+    private final SpecResultService specResultService;
+    private final RunLogStore runLogStore;
 
-    public TestRunController (TestRepo testRepo, TestRunRepo testRunRepo, TestRunMapper testRunMapper)
+    public TestRunController (TestRepo testRepo, TestRunRepo testRunRepo, TestRunMapper testRunMapper, TestRunDispatcher testRunDispatcher, TestRunEventPublisher testRunEventPublisher, SpecResultService specResultService, RunLogStore runLogStore)
     {
         this.testRepo = testRepo;
         this.testRunRepo = testRunRepo;
         this.testRunMapper = testRunMapper;
+        this.testRunDispatcher = testRunDispatcher;
+        this.testRunEventPublisher = testRunEventPublisher;
+        this.specResultService = specResultService;
+        this.runLogStore = runLogStore;
+    }
+
+    @GetMapping("/run/{runId}")
+    public ResponseEntity<TestRunDto> getRun (@PathVariable Long runId)
+    {
+        return testRunRepo.findById(runId)
+                .map(testRunMapper::toDto)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResourceNotFoundException("TestRun", runId));
+    }
+
+    @DeleteMapping("/run/{runId}")
+    public ResponseEntity<RunCancellationDto> cancelRun (@PathVariable Long runId)
+    {
+        return ResponseEntity.ok(testRunDispatcher.cancel(runId));
+    }
+
+    @GetMapping(value = "/run/{runId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TestRunEventDto>> streamRunEvents (@PathVariable Long runId)
+    {
+        TestRun run = testRunRepo.findById(runId)
+                .orElseThrow(() -> new ResourceNotFoundException("TestRun", runId));
+
+        Flux<TestRunEventDto> events = testRunEventPublisher.subscribe(runId);
+        if (events == null)
+        {
+            // Run is not executing (anymore), so the stored state is all there is to send
+            TestRunEventDto finalState = new TestRunEventDto();
+            finalState.setType(RunEventType.STATUS);
+            finalState.setRunId(runId);
+            finalState.setStatus(run.getStatus());
+            finalState.setMessage(run.getDescription());
+            events = Flux.just(finalState);
+        }
+
+        return events.map(event -> ServerSentEvent.builder(event)
+                .event(event.getType().name())
+                .build());
+    }
+
+    /**
+     * Returns a byte range of the complete output of a run; a negative offset reads from the end.
+     */
+    @GetMapping("/run/{runId}/log")
+    public ResponseEntity<RunLogDto> getRunLog (@PathVariable Long runId, @RequestParam(defaultValue = "0") long offset, @RequestParam(defaultValue = "65536") int limit)
+    {
+        TestRun run = testRunRepo.findById(runId)
+                .orElseThrow(() -> new ResourceNotFoundException("TestRun", runId));
+        return ResponseEntity.ok(runLogStore.read(run, offset, limit));
+    }
+
+    @GetMapping("/run/{runId}/results")
+    public ResponseEntity<List<SpecResultDto>> getRunResults (@PathVariable Long runId)
+    {
+        if (!testRunRepo.existsById(runId))
+        {
+            throw new ResourceNotFoundException("TestRun", runId);
+        }
+        return ResponseEntity.ok(specResultService.getResultsForRun(runId));
+    }
+
+    @GetMapping("/{id}/results")
+    public ResponseEntity<List<SpecResultDto>> getResultHistory (@PathVariable Long id)
+    {
+        if (!testRepo.existsById(id))
+        {
+            throw new ResourceNotFoundException("Test", id);
+        }
+        return ResponseEntity.ok(specResultService.getHistoryForTest(id));
+    }
+
+    @GetMapping("/failures")
+    public ResponseEntity<List<FailureSummaryDto>> getFailureSummary (@RequestParam(defaultValue = "7") int days)
+    {
+        return ResponseEntity.ok(specResultService.summarizeFailures(days));
+    }
+
+    @GetMapping("/queue")
+    public ResponseEntity<RunQueueStatusDto> getQueueStatus ()
+    {
+        return ResponseEntity.ok(testRunDispatcher.getQueueStatus());
     }
 
     @GetMapping("/{id}/runs")
@@ -0,0 +1,18 @@
+package com.example.backend.dto;
+
+
+import lombok.Data;
+
+
+@Data
+public class ArtifactUsageDto
+{
+
+    private long artifactCount;
+
+    private long totalBytes;
+
+    private long maxTotalBytes;
+
+    private long freeDiskBytes;
+}
@@ -0,0 +1,29 @@
+package com.example.backend.dto;
+
+
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+
+@Data
+public class EnvironmentLimitsDto
+{
+
+    private Long environmentId;
+
+    @Min(value = 1, message = "Max concurrent runs must be at least 1")
+    private Integer maxConcurrentRuns;
+
+    @Min(value = 1, message = "Runs per minute must be at least 1")
+    private Integer runsPerMinute;
+
+    /**
+     * Runs currently holding a slot of this environment.
+     */
+    private int activeRuns;
+
+    /**
+     * Runs currently waiting for a slot of this environment.
+     */
+    private int waitingRuns;
+}
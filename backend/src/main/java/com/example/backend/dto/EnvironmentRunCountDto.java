@@ -0,0 +1,18 @@
+package com.example.backend.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnvironmentRunCountDto
+{
+
+    private Long environmentId;
+
+    private Long runs;
+}
@@ -0,0 +1,42 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.TracePolicy;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+@Data
+public class ExecutionProfileDto
+{
+
+    private Long id;
+
+    private Long projectId;
+
+    private String name;
+
+    private boolean defaultProfile;
+
+    private boolean headless;
+
+    private Integer workers;
+
+    private int retries;
+
+    private List<String> reporters;
+
+    private Integer testTimeoutMs;
+
+    private Integer actionTimeoutMs;
+
+    private Integer expectTimeoutMs;
+
+    private TracePolicy trace;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,48 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.TracePolicy;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Data
+public class ExecutionProfileRequest
+{
+
+    @NotBlank(message = "Profile name is required")
+    @Size(max = 100, message = "Profile name must not exceed 100 characters")
+    private String name;
+
+    private boolean defaultProfile;
+
+    private boolean headless = true;
+
+    @Min(value = 1, message = "Workers must be at least 1")
+    @Max(value = 64, message = "Workers must not exceed 64")
+    private Integer workers;
+
+    @Min(value = 0, message = "Retries must not be negative")
+    @Max(value = 10, message = "Retries must not exceed 10")
+    private int retries;
+
+    private List<@Pattern(regexp = "list|json|html|junit", message = "Supported reporters are list, json, html and junit") String> reporters = new ArrayList<>();
+
+    @Min(value = 1000, message = "Test timeout must be at least 1000 ms")
+    private Integer testTimeoutMs;
+
+    @Min(value = 0, message = "Action timeout must not be negative")
+    private Integer actionTimeoutMs;
+
+    @Min(value = 0, message = "Expect timeout must not be negative")
+    private Integer expectTimeoutMs;
+
+    private TracePolicy trace = TracePolicy.ON_FIRST_RETRY;
+}
@@ -0,0 +1,28 @@
+package com.example.backend.dto;
+
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FailureSummaryDto
+{
+
+    private String file;
+
+    private String title;
+
+    private Long failures;
+
+    private Long runs;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastFailedAt;
+}
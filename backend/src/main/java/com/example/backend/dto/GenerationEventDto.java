@@ -0,0 +1,37 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.GenerationEventType;
+import com.example.backend.models.GenerationState;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GenerationEventDto
+{
+
+    private GenerationEventType type;
+
+    private Long jobId;
+
+    private GenerationState state;
+
+    private String message;
+
+    /**
+     * Tool called by the agent, for {@code TOOL_CALL} events.
+     */
+    private String tool;
+
+    private Integer toolCall;
+
+    private Integer maxToolCalls;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    private LocalDateTime timestamp = LocalDateTime.now();
+}
@@ -0,0 +1,44 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.models.GenerationState;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+@Data
+public class GenerationJobDto
+{
+
+    private Long id;
+
+    private Long testId;
+
+    private GenerationState state;
+
+    private String currentStep;
+
+    private int toolCalls;
+
+    private int maxToolCalls;
+
+    private String message;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    /**
+     * Set when the submit attached to a generation of the test that was already queued or running.
+     */
+    private boolean coalesced;
+
+    private boolean cacheHit;
+}
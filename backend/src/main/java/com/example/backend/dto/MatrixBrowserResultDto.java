@@ -0,0 +1,43 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.TestStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatrixBrowserResultDto
+{
+
+    private Browser browser;
+
+    private TestStatus status;
+
+    private String description;
+
+    /**
+     * Run of the browser for a single test matrix, {@code null} otherwise.
+     */
+    private Long runId;
+
+    /**
+     * Batch of the browser for a user story or project matrix, {@code null} otherwise.
+     */
+    private Long batchId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    private Long durationMs;
+}
@@ -0,0 +1,47 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.TestStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Data
+public class MatrixRunDto
+{
+
+    private Long id;
+
+    private BatchScope scope;
+
+    private Long scopeId;
+
+    private List<Browser> browsers = new ArrayList<>();
+
+    private TestStatus status;
+
+    private String description;
+
+    private Long wallClockMs;
+
+    private Long summedMs;
+
+    /**
+     * Summed time divided by wall clock time, {@code null} until all browsers finished.
+     */
+    private Double speedup;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    private List<MatrixBrowserResultDto> results = new ArrayList<>();
+}
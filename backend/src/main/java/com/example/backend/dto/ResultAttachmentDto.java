@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+
+import lombok.Data;
+
+
+@Data
+public class ResultAttachmentDto
+{
+
+    private Long id;
+
+    private Integer retry;
+
+    private String name;
+
+    private String contentType;
+
+    private String path;
+}
@@ -0,0 +1,32 @@
+package com.example.backend.dto;
+
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+@Data
+public class RunArtifactDto
+{
+
+    private Long id;
+
+    private Long runId;
+
+    private Long artifactId;
+
+    private String name;
+
+    private Integer retry;
+
+    private String contentType;
+
+    private Long sizeBytes;
+
+    private String sha256;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+}
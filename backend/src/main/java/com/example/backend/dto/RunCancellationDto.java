@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Data
+public class RunCancellationDto
+{
+
+    private Long runId;
+
+    private List<Long> cancelledRunIds = new ArrayList<>();
+
+    private boolean wasRunning;
+
+    private int reapedProcesses;
+}
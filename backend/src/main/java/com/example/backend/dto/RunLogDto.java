@@ -0,0 +1,25 @@
+package com.example.backend.dto;
+
+
+import lombok.Data;
+
+
+@Data
+public class RunLogDto
+{
+
+    private Long runId;
+
+    /**
+     * Byte offset of {@code content} in the uncompressed log.
+     */
+    private long offset;
+
+    private long nextOffset;
+
+    private long totalBytes;
+
+    private boolean complete;
+
+    private String content;
+}
@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+
+import lombok.Data;
+
+
+@Data
+public class RunQueueStatusDto
+{
+
+    private int queueDepth;
+
+    private int queueCapacity;
+
+    private int activeWorkers;
+
+    private int maxWorkers;
+
+    private int waitingForLimits;
+}
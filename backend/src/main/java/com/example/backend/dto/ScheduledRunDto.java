@@ -0,0 +1,45 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.BatchScope;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+@Data
+public class ScheduledRunDto
+{
+
+    private Long id;
+
+    private String name;
+
+    private BatchScope scope;
+
+    private Long scopeId;
+
+    private String cron;
+
+    private Integer maxParallelism;
+
+    private Long environmentId;
+
+    private boolean enabled;
+
+    private boolean skipQuarantined;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastTriggeredAt;
+
+    private Long lastBatchId;
+
+    private String lastOutcome;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime nextRunAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+}
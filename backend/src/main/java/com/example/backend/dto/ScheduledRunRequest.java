@@ -0,0 +1,37 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.BatchScope;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+
+@Data
+public class ScheduledRunRequest
+{
+
+    @NotBlank(message = "Schedule name is required")
+    @Size(max = 255, message = "Schedule name must not exceed 255 characters")
+    private String name;
+
+    @NotNull(message = "Scope is required")
+    private BatchScope scope;
+
+    @NotNull(message = "Scope ID is required")
+    private Long scopeId;
+
+    @NotBlank(message = "Cron expression is required")
+    private String cron;
+
+    @Min(value = 1, message = "Max parallelism must be at least 1")
+    private Integer maxParallelism;
+
+    private Long environmentId;
+
+    private boolean enabled = true;
+
+    private boolean skipQuarantined;
+}
@@ -0,0 +1,38 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.TestStatus;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Data
+public class SpecResultDto
+{
+
+    private Long id;
+
+    private Long runId;
+
+    private String file;
+
+    private String title;
+
+    private String projectName;
+
+    private TestStatus status;
+
+    private boolean flaky;
+
+    private Long durationMs;
+
+    private Integer retries;
+
+    private List<TestAttemptDto> attempts = new ArrayList<>();
+
+    private List<TestErrorDto> errors = new ArrayList<>();
+
+    private List<ResultAttachmentDto> attachments = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.TestStatus;
+import lombok.Data;
+
+
+@Data
+public class TestAttemptDto
+{
+
+    private Long id;
+
+    private Integer retry;
+
+    private TestStatus status;
+
+    private String outcome;
+
+    private Long durationMs;
+}
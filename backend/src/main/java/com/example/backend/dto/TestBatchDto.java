@@ -0,0 +1,48 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.TestStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Data
+public class TestBatchDto
+{
+
+    private Long id;
+
+    private BatchScope scope;
+
+    private Long scopeId;
+
+    private TestStatus status;
+
+    private String description;
+
+    private Integer workers;
+
+    private boolean prioritized;
+
+    private Integer maxFailures;
+
+    private Long profileId;
+
+    private Browser browser;
+
+    private Long matrixRunId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    private List<TestRunDto> runs = new ArrayList<>();
+}
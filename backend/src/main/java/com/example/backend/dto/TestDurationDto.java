@@ -0,0 +1,26 @@
+package com.example.backend.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestDurationDto
+{
+
+    private Long testId;
+
+    /**
+     * Summed duration of all recorded specs of the test.
+     */
+    private Long totalDurationMs;
+
+    /**
+     * Number of runs the durations were recorded in.
+     */
+    private Long runs;
+}
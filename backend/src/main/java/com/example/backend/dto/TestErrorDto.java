@@ -0,0 +1,22 @@
+package com.example.backend.dto;
+
+
+import lombok.Data;
+
+
+@Data
+public class TestErrorDto
+{
+
+    private Long id;
+
+    private Integer retry;
+
+    private String message;
+
+    private String locationFile;
+
+    private Integer locationLine;
+
+    private Integer locationColumn;
+}
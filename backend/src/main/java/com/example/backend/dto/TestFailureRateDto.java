@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestFailureRateDto
+{
+
+    private Long testId;
+
+    private Long runs;
+
+    private Long failures;
+}
@@ -0,0 +1,32 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.TestStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+@Data
+public class TestFlakinessDto
+{
+
+    private Long testId;
+
+    private double score;
+
+    private int runs;
+
+    private int flakyRuns;
+
+    private TestStatus lastStatus;
+
+    private boolean quarantined;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime quarantinedAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+}
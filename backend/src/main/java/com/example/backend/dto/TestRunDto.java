@@ -1,6 +1,7 @@
 package com.example.backend.dto;
 
 
+import com.example.backend.constants.Browser;
 import com.example.backend.constants.TestStatus;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.Data;
@@ -22,4 +23,19 @@ public class TestRunDto
     private LocalDateTime executedAt;
 
     private Long testId;
+
+    private boolean coalesced;
+
+    private boolean cacheHit;
+
+    /**
+     * Size of the complete output log, {@code null} if no log was kept.
+     */
+    private Long logSizeBytes;
+
+    private Long profileId;
+
+    private Browser browser;
+
+    private Long matrixRunId;
 }
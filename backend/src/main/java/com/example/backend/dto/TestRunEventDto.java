@@ -0,0 +1,32 @@
+package com.example.backend.dto;
+
+
+import com.example.backend.constants.RunEventType;
+import com.example.backend.constants.TestStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TestRunEventDto
+{
+
+    private RunEventType type;
+
+    private Long runId;
+
+    private TestStatus status;
+
+    private String message;
+
+    private String file;
+
+    private String title;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    private LocalDateTime timestamp = LocalDateTime.now();
+}
@@ -8,4 +8,9 @@ public class GenerationException extends RuntimeException
         super(message);
     }
 
+    public GenerationException (String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+
 }
@@ -113,6 +113,23 @@ public class GlobalExceptionHandler
         return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(RunQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleRunQueueFullException (
+            RunQueueFullException ex, WebRequest request)
+    {
+        log.warn("Run queue full: {}", ex.getMessage());
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", "")
+        );
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGlobalException (
             Exception ex, WebRequest request)
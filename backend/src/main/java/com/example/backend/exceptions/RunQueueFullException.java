@@ -0,0 +1,11 @@
+package com.example.backend.exceptions;
+
+
+public class RunQueueFullException extends RuntimeException
+{
+
+    public RunQueueFullException (String message)
+    {
+        super(message);
+    }
+}
@@ -5,6 +5,7 @@ import com.example.backend.constants.EFileType;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Set;
 
 
 public interface IFileService
@@ -12,4 +13,6 @@ public interface IFileService
     Path writeFile (String fileName, String content, EFileType fileType) throws IOException;
 
     String readFile (String fileName) throws IOException;
+
+    Set<String> listFiles (EFileType fileType) throws IOException;
 }
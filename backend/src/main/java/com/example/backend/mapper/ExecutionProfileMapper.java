@@ -0,0 +1,43 @@
+package com.example.backend.mapper;
+
+
+import com.example.backend.dto.ExecutionProfileDto;
+import com.example.backend.models.ExecutionProfile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+
+@Component
+public class ExecutionProfileMapper
+{
+
+    public ExecutionProfileDto toDto (ExecutionProfile profile)
+    {
+        if (profile == null)
+        {
+            return null;
+        }
+
+        ExecutionProfileDto dto = new ExecutionProfileDto();
+        dto.setId(profile.getId());
+        if (profile.getProject() != null)
+        {
+            dto.setProjectId(profile.getProject().getId());
+        }
+        dto.setName(profile.getName());
+        dto.setDefaultProfile(profile.isDefaultProfile());
+        dto.setHeadless(profile.isHeadless());
+        dto.setWorkers(profile.getWorkers());
+        dto.setRetries(profile.getRetries());
+        dto.setReporters(profile.getReporters() == null || profile.getReporters().isEmpty()
+                ? List.of()
+                : List.of(profile.getReporters().split(",")));
+        dto.setTestTimeoutMs(profile.getTestTimeoutMs());
+        dto.setActionTimeoutMs(profile.getActionTimeoutMs());
+        dto.setExpectTimeoutMs(profile.getExpectTimeoutMs());
+        dto.setTrace(profile.getTrace());
+        dto.setCreatedAt(profile.getCreatedAt());
+        return dto;
+    }
+}
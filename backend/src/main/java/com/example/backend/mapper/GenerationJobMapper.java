@@ -0,0 +1,36 @@
+package com.example.backend.mapper;
+
+
+import com.example.backend.dto.GenerationJobDto;
+import com.example.backend.models.GenerationJob;
+import org.springframework.stereotype.Component;
+
+
+@Component
+public class GenerationJobMapper
+{
+
+    public GenerationJobDto toDto (GenerationJob job)
+    {
+        if (job == null)
+        {
+            return null;
+        }
+
+        GenerationJobDto dto = new GenerationJobDto();
+        dto.setId(job.getId());
+        // the id of the lazy proxy is known without loading the test
+        dto.setTestId(job.getTest() != null ? job.getTest().getId() : null);
+        dto.setState(job.getState());
+        dto.setCurrentStep(job.getCurrentStep());
+        dto.setToolCalls(job.getToolCalls());
+        dto.setMaxToolCalls(job.getMaxToolCalls());
+        dto.setMessage(job.getMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        dto.setCoalesced(job.isCoalesced());
+        dto.setCacheHit(job.isCacheHit());
+        return dto;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.backend.mapper;
+
+
+import com.example.backend.constants.Browser;
+import com.example.backend.dto.MatrixBrowserResultDto;
+import com.example.backend.dto.MatrixRunDto;
+import com.example.backend.models.MatrixRun;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+
+@Component
+public class MatrixRunMapper
+{
+
+    public MatrixRunDto toDto (MatrixRun matrix, List<MatrixBrowserResultDto> results)
+    {
+        if (matrix == null)
+        {
+            return null;
+        }
+
+        MatrixRunDto dto = new MatrixRunDto();
+        dto.setId(matrix.getId());
+        dto.setScope(matrix.getScope());
+        dto.setScopeId(matrix.getScopeId());
+        dto.setBrowsers(Arrays.stream(matrix.getBrowsers().split(",")).map(Browser::fromProject).toList());
+        dto.setStatus(matrix.getStatus());
+        dto.setDescription(matrix.getDescription());
+        dto.setWallClockMs(matrix.getWallClockMs());
+        dto.setSummedMs(matrix.getSummedMs());
+        if (matrix.getWallClockMs() != null && matrix.getWallClockMs() > 0 && matrix.getSummedMs() != null)
+        {
+            dto.setSpeedup((double) matrix.getSummedMs() / matrix.getWallClockMs());
+        }
+        dto.setCreatedAt(matrix.getCreatedAt());
+        dto.setFinishedAt(matrix.getFinishedAt());
+        dto.setResults(results);
+        return dto;
+    }
+}
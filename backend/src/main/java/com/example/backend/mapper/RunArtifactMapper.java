@@ -0,0 +1,41 @@
+package com.example.backend.mapper;
+
+
+import com.example.backend.dto.RunArtifactDto;
+import com.example.backend.models.Artifact;
+import com.example.backend.models.RunArtifact;
+import org.springframework.stereotype.Component;
+
+
+@Component
+public class RunArtifactMapper
+{
+
+    public RunArtifactDto toDto (RunArtifact runArtifact)
+    {
+        if (runArtifact == null)
+        {
+            return null;
+        }
+
+        RunArtifactDto dto = new RunArtifactDto();
+        dto.setId(runArtifact.getId());
+        dto.setName(runArtifact.getName());
+        dto.setRetry(runArtifact.getRetry());
+        dto.setCreatedAt(runArtifact.getCreatedAt());
+        if (runArtifact.getTestRun() != null)
+        {
+            dto.setRunId(runArtifact.getTestRun().getId());
+        }
+
+        Artifact artifact = runArtifact.getArtifact();
+        if (artifact != null)
+        {
+            dto.setArtifactId(artifact.getId());
+            dto.setContentType(artifact.getContentType());
+            dto.setSizeBytes(artifact.getSizeBytes());
+            dto.setSha256(artifact.getSha256());
+        }
+        return dto;
+    }
+}
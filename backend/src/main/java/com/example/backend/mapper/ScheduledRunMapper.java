@@ -0,0 +1,42 @@
+package com.example.backend.mapper;
+
+
+import com.example.backend.dto.ScheduledRunDto;
+import com.example.backend.models.ScheduledRun;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+
+@Component
+public class ScheduledRunMapper
+{
+
+    public ScheduledRunDto toDto (ScheduledRun schedule, LocalDateTime nextRunAt)
+    {
+        if (schedule == null)
+        {
+            return null;
+        }
+
+        ScheduledRunDto dto = new ScheduledRunDto();
+        dto.setId(schedule.getId());
+        dto.setName(schedule.getName());
+        dto.setScope(schedule.getScope());
+        dto.setScopeId(schedule.getScopeId());
+        dto.setCron(schedule.getCron());
+        dto.setMaxParallelism(schedule.getMaxParallelism());
+        if (schedule.getEnvironment() != null)
+        {
+            dto.setEnvironmentId(schedule.getEnvironment().getId());
+        }
+        dto.setEnabled(schedule.isEnabled());
+        dto.setSkipQuarantined(schedule.isSkipQuarantined());
+        dto.setLastTriggeredAt(schedule.getLastTriggeredAt());
+        dto.setLastBatchId(schedule.getLastBatchId());
+        dto.setLastOutcome(schedule.getLastOutcome());
+        dto.setNextRunAt(nextRunAt);
+        dto.setCreatedAt(schedule.getCreatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.backend.mapper;
+
+
+import com.example.backend.dto.ResultAttachmentDto;
+import com.example.backend.dto.SpecResultDto;
+import com.example.backend.dto.TestAttemptDto;
+import com.example.backend.dto.TestErrorDto;
+import com.example.backend.models.ResultAttachment;
+import com.example.backend.models.SpecResult;
+import com.example.backend.models.TestAttempt;
+import com.example.backend.models.TestError;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+
+@Component
+public class SpecResultMapper
+{
+
+    public SpecResultDto toDto (SpecResult specResult, List<TestAttempt> attempts, List<TestError> errors, List<ResultAttachment> attachments)
+    {
+        if (specResult == null)
+        {
+            return null;
+        }
+
+        SpecResultDto dto = new SpecResultDto();
+        dto.setId(specResult.getId());
+        dto.setFile(specResult.getFile());
+        dto.setTitle(specResult.getTitle());
+        dto.setProjectName(specResult.getProjectName());
+        dto.setStatus(specResult.getStatus());
+        dto.setFlaky(specResult.isFlaky());
+        dto.setDurationMs(specResult.getDurationMs());
+        dto.setRetries(specResult.getRetries());
+        if (specResult.getTestRun() != null)
+        {
+            dto.setRunId(specResult.getTestRun().getId());
+        }
+        if (attempts != null)
+        {
+            dto.setAttempts(attempts.stream().map(this::toDto).toList());
+        }
+        if (errors != null)
+        {
+            dto.setErrors(errors.stream().map(this::toDto).toList());
+        }
+        if (attachments != null)
+        {
+            dto.setAttachments(attachments.stream().map(this::toDto).toList());
+        }
+        return dto;
+    }
+
+    public TestAttemptDto toDto (TestAttempt attempt)
+    {
+        TestAttemptDto dto = new TestAttemptDto();
+        dto.setId(attempt.getId());
+        dto.setRetry(attempt.getRetry());
+        dto.setStatus(attempt.getStatus());
+        dto.setOutcome(attempt.getOutcome());
+        dto.setDurationMs(attempt.getDurationMs());
+        return dto;
+    }
+
+    public TestErrorDto toDto (TestError error)
+    {
+        TestErrorDto dto = new TestErrorDto();
+        dto.setId(error.getId());
+        dto.setRetry(error.getRetry());
+        dto.setMessage(error.getMessage());
+        dto.setLocationFile(error.getLocationFile());
+        dto.setLocationLine(error.getLocationLine());
+        dto.setLocationColumn(error.getLocationColumn());
+        return dto;
+    }
+
+    public ResultAttachmentDto toDto (ResultAttachment attachment)
+    {
+        ResultAttachmentDto dto = new ResultAttachmentDto();
+        dto.setId(attachment.getId());
+        dto.setRetry(attachment.getRetry());
+        dto.setName(attachment.getName());
+        dto.setContentType(attachment.getContentType());
+        dto.setPath(attachment.getPath());
+        return dto;
+    }
+}
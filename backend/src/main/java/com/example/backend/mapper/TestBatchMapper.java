@@ -0,0 +1,50 @@
+package com.example.backend.mapper;
+
+
+import com.example.backend.dto.TestBatchDto;
+import com.example.backend.models.TestBatch;
+import com.example.backend.models.TestRun;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+
+@Component
+public class TestBatchMapper
+{
+
+    private final TestRunMapper testRunMapper;
+
+    public TestBatchMapper (TestRunMapper testRunMapper)
+    {
+        this.testRunMapper = testRunMapper;
+    }
+
+    public TestBatchDto toDto (TestBatch batch, List<TestRun> runs)
+    {
+        if (batch == null)
+        {
+            return null;
+        }
+
+        TestBatchDto dto = new TestBatchDto();
+        dto.setId(batch.getId());
+        dto.setScope(batch.getScope());
+        dto.setScopeId(batch.getScopeId());
+        dto.setStatus(batch.getStatus());
+        dto.setDescription(batch.getDescription());
+        dto.setWorkers(batch.getWorkers());
+        dto.setPrioritized(Boolean.TRUE.equals(batch.getPrioritized()));
+        dto.setMaxFailures(batch.getMaxFailures());
+        dto.setProfileId(batch.getProfileId());
+        dto.setBrowser(batch.getBrowser());
+        dto.setMatrixRunId(batch.getMatrixRunId());
+        dto.setCreatedAt(batch.getCreatedAt());
+        dto.setFinishedAt(batch.getFinishedAt());
+        if (runs != null)
+        {
+            dto.setRuns(runs.stream().map(testRunMapper::toDto).toList());
+        }
+        return dto;
+    }
+}
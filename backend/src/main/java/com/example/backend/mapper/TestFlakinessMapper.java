@@ -0,0 +1,34 @@
+package com.example.backend.mapper;
+
+
+import com.example.backend.dto.TestFlakinessDto;
+import com.example.backend.models.TestFlakiness;
+import org.springframework.stereotype.Component;
+
+
+@Component
+public class TestFlakinessMapper
+{
+
+    public TestFlakinessDto toDto (TestFlakiness flakiness)
+    {
+        if (flakiness == null)
+        {
+            return null;
+        }
+
+        TestFlakinessDto dto = new TestFlakinessDto();
+        if (flakiness.getTest() != null)
+        {
+            dto.setTestId(flakiness.getTest().getId());
+        }
+        dto.setScore(flakiness.getScore());
+        dto.setRuns(flakiness.getRuns());
+        dto.setFlakyRuns(flakiness.getFlakyRuns());
+        dto.setLastStatus(flakiness.getLastStatus());
+        dto.setQuarantined(flakiness.isQuarantined());
+        dto.setQuarantinedAt(flakiness.getQuarantinedAt());
+        dto.setUpdatedAt(flakiness.getUpdatedAt());
+        return dto;
+    }
+}
@@ -24,6 +24,12 @@ public class TestRunMapper
         dto.setStatus(testRun.getStatus());
         dto.setDescription(testRun.getDescription());
         dto.setExecutedAt(testRun.getExecutedAt());
+        dto.setCoalesced(testRun.isCoalesced());
+        dto.setCacheHit(testRun.isCacheHit());
+        dto.setLogSizeBytes(testRun.getLogFile() != null ? testRun.getLogSizeBytes() : null);
+        dto.setProfileId(testRun.getProfileId());
+        dto.setBrowser(testRun.getBrowser());
+        dto.setMatrixRunId(testRun.getMatrixRunId());
 
         // Safely extract testId without fully initializing the lazy proxy
         TestModel test = testRun.getTest();
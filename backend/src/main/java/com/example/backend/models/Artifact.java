@@ -0,0 +1,61 @@
+package com.example.backend.models;
+
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * A stored blob, identified by the SHA-256 of its content. Identical files of different
+ * runs share one artifact.
+ */
+@Entity
+@Table(name = "artifact", indexes = {
+        @Index(name = "idx_artifact_sha256", columnList = "sha256", unique = true),
+        @Index(name = "idx_artifact_last_referenced", columnList = "last_referenced_at")
+})
+@Data
+public class Artifact
+{
+
+    public Artifact ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 64, nullable = false)
+    private String sha256;
+
+    private Long sizeBytes;
+
+    private String contentType;
+
+    @Column(name = "created_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_referenced_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastReferencedAt;
+
+    @PrePersist
+    public void prePersist ()
+    {
+        if (this.createdAt == null)
+        {
+            this.createdAt = LocalDateTime.now();
+        }
+        if (this.lastReferencedAt == null)
+        {
+            this.lastReferencedAt = this.createdAt;
+        }
+    }
+
+}
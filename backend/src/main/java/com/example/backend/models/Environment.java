@@ -26,6 +26,18 @@ public class Environment
 
     private String url;
 
+    /**
+     * Runs that may execute against this environment at the same time; {@code null} is unlimited.
+     */
+    @Column(name = "max_concurrent_runs")
+    private Integer maxConcurrentRuns;
+
+    /**
+     * Runs that may start against this environment per minute; {@code null} is unlimited.
+     */
+    @Column(name = "runs_per_minute")
+    private Integer runsPerMinute;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "projectid", referencedColumnName = "id")
     private Project project;
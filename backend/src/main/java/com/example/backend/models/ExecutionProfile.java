@@ -0,0 +1,86 @@
+package com.example.backend.models;
+
+
+import com.example.backend.constants.TracePolicy;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Named Playwright settings of a project. Runs started with a profile get a configuration
+ * generated from it instead of the static {@code playwright.config.ts}.
+ */
+@Entity
+@Table(name = "execution_profile", indexes = {
+        @Index(name = "idx_execution_profile_project", columnList = "projectid")
+})
+@Data
+public class ExecutionProfile
+{
+
+    public ExecutionProfile ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "projectid", referencedColumnName = "id")
+    @JsonIgnore
+    private Project project;
+
+    private String name;
+
+    /**
+     * Used for runs of the project that do not name a profile.
+     */
+    @Column(name = "default_profile")
+    private boolean defaultProfile;
+
+    private boolean headless = true;
+
+    /**
+     * Playwright workers of a single run; batches set their own. {@code null} uses the Playwright default.
+     */
+    private Integer workers;
+
+    private int retries;
+
+    /**
+     * Comma separated reporters in addition to {@code list} and {@code json}, which the runner always needs.
+     */
+    private String reporters;
+
+    @Column(name = "test_timeout_ms")
+    private Integer testTimeoutMs;
+
+    @Column(name = "action_timeout_ms")
+    private Integer actionTimeoutMs;
+
+    @Column(name = "expect_timeout_ms")
+    private Integer expectTimeoutMs;
+
+    @Enumerated(EnumType.STRING)
+    private TracePolicy trace = TracePolicy.ON_FIRST_RETRY;
+
+    @Column(name = "created_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist ()
+    {
+        if (this.createdAt == null)
+        {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+
+}
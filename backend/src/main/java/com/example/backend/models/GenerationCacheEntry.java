@@ -0,0 +1,71 @@
+package com.example.backend.models;
+
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * The spec of a successful generation, stored under the hash of everything the generation
+ * was built from, so an unchanged test is not generated again.
+ */
+@Entity
+@Data
+@Table(name = "generation_cache", indexes = {
+        @Index(name = "idx_generation_cache_key", columnList = "cache_key", unique = true)
+})
+public class GenerationCacheEntry
+{
+
+    public GenerationCacheEntry ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cache_key", length = 64, nullable = false)
+    private String cacheKey;
+
+    /**
+     * Test whose generation produced the spec.
+     */
+    @Column(name = "testid")
+    private Long testId;
+
+    @Column(columnDefinition = "TEXT")
+    private String spec;
+
+    @Column(name = "tool_calls")
+    private int toolCalls;
+
+    /**
+     * How long the generation took, i.e. what every hit saves.
+     */
+    @Column(name = "duration_ms")
+    private long durationMs;
+
+    private int hits;
+
+    @Column(name = "created_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_hit_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastHitAt;
+
+    @PrePersist
+    public void prePersist ()
+    {
+        if (this.createdAt == null)
+        {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
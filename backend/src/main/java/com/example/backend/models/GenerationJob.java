@@ -0,0 +1,115 @@
+package com.example.backend.models;
+
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * One AI generation of the spec of a test, executed in the background. The state is mirrored
+ * to the test, so clients polling the test see the generation progress as well.
+ */
+@Entity
+@Data
+@Table(name = "generation_job", indexes = {
+        @Index(name = "idx_generation_job_state", columnList = "state")
+})
+public class GenerationJob
+{
+
+    public GenerationJob ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "testid", referencedColumnName = "id")
+    @JsonIgnore
+    private TestModel test;
+
+    @Enumerated(EnumType.STRING)
+    private GenerationState state;
+
+    /**
+     * What the job currently does, e.g. the tool the agent called last.
+     */
+    @Column(name = "current_step", length = 500)
+    private String currentStep;
+
+    @Column(name = "tool_calls")
+    private int toolCalls;
+
+    /**
+     * Tool calls the agent may make before the generation is aborted.
+     */
+    @Column(name = "max_tool_calls")
+    private int maxToolCalls;
+
+    @Column(length = 4000)
+    private String message;
+
+    /**
+     * Whether the job generates the whole spec, even if only some steps changed.
+     */
+    @Column(columnDefinition = "boolean default false")
+    private boolean forced;
+
+    /**
+     * Content keys of the steps the spec was generated for, comma separated in step order.
+     * The next generation compares them to find the steps that changed.
+     */
+    @Column(name = "step_keys", columnDefinition = "TEXT")
+    @JsonIgnore
+    private String stepKeys;
+
+    /**
+     * Instance that holds the job in memory; it renews {@link #heartbeatAt} until the job finished.
+     */
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "heartbeat_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "created_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    /**
+     * Set when a submit attached to this already queued or running job instead of starting a new one.
+     */
+    @Transient
+    private boolean coalesced;
+
+    /**
+     * Set when the job was answered from the generation cache instead of calling the model.
+     */
+    @Transient
+    private boolean cacheHit;
+
+    @PrePersist
+    public void prePersist ()
+    {
+        if (this.createdAt == null)
+        {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
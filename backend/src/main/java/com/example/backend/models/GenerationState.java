@@ -4,6 +4,7 @@ package com.example.backend.models;
 public enum GenerationState
 {
     NOT_STARTED,
+    QUEUED,
     IN_PROGRESS,
     COMPLETED,
     FAILED
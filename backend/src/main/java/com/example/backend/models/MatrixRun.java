@@ -0,0 +1,77 @@
+package com.example.backend.models;
+
+
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.TestStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Parent of the runs of a test, user story or project on several browsers. Each browser has its
+ * own run (scope {@code TEST}) or batch, which refer to the matrix by its id.
+ */
+@Entity
+@Table(name = "matrix_run")
+@Data
+public class MatrixRun
+{
+
+    public MatrixRun ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private BatchScope scope;
+
+    private Long scopeId;
+
+    /**
+     * Comma separated Playwright project names of the browsers.
+     */
+    private String browsers;
+
+    @Enumerated(EnumType.STRING)
+    private TestStatus status;
+
+    @Column(length = 1000)
+    private String description;
+
+    /**
+     * Time from the first browser starting until the last one finished.
+     */
+    @Column(name = "wall_clock_ms")
+    private Long wallClockMs;
+
+    /**
+     * Execution times of all browsers added up, i.e. the time a sequential run would have taken.
+     */
+    @Column(name = "summed_ms")
+    private Long summedMs;
+
+    @Column(name = "created_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    public void prePersist ()
+    {
+        if (this.createdAt == null)
+        {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+
+}
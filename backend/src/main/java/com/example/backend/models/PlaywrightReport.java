@@ -0,0 +1,23 @@
+package com.example.backend.models;
+
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Result of a Playwright JSON report: overall stats, stats per spec file name and the individual tests.
+ */
+@Data
+public class PlaywrightReport
+{
+    private ReportStats stats = new ReportStats();
+
+    private Map<String, ReportStats> files = new LinkedHashMap<>();
+
+    private List<ReportTestResult> tests = new ArrayList<>();
+}
@@ -0,0 +1,20 @@
+package com.example.backend.models;
+
+
+import lombok.Data;
+
+
+/**
+ * Attachment (screenshot, trace, video, ...) of one attempt of a test in a Playwright JSON report.
+ */
+@Data
+public class ReportAttachment
+{
+    private int retry;
+
+    private String name;
+
+    private String contentType;
+
+    private String path;
+}
@@ -0,0 +1,21 @@
+package com.example.backend.models;
+
+
+import lombok.Data;
+
+
+/**
+ * One attempt (the initial run or a retry) of a test in a Playwright JSON report.
+ */
+@Data
+public class ReportAttempt
+{
+    private int retry;
+
+    /**
+     * Playwright result status: "passed", "failed", "timedOut", "skipped" or "interrupted".
+     */
+    private String status;
+
+    private long durationMs;
+}
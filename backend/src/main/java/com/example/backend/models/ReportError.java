@@ -0,0 +1,22 @@
+package com.example.backend.models;
+
+
+import lombok.Data;
+
+
+/**
+ * Error of one attempt of a test in a Playwright JSON report.
+ */
+@Data
+public class ReportError
+{
+    private int retry;
+
+    private String message;
+
+    private String file;
+
+    private Integer line;
+
+    private Integer column;
+}
@@ -0,0 +1,31 @@
+package com.example.backend.models;
+
+
+import lombok.Data;
+
+
+@Data
+public class ReportStats
+{
+    private int expected;
+    private int unexpected;
+    private int skipped;
+    private int flaky;
+
+    /**
+     * Counts one test by its Playwright outcome ("expected", "unexpected", "flaky" or "skipped").
+     */
+    public void record (String outcome)
+    {
+        switch (outcome)
+        {
+            case "expected" -> expected++;
+            case "unexpected" -> unexpected++;
+            case "flaky" -> flaky++;
+            case "skipped" -> skipped++;
+            default ->
+            {
+            }
+        }
+    }
+}
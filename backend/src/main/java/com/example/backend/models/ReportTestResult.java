@@ -0,0 +1,36 @@
+package com.example.backend.models;
+
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * One test of a Playwright JSON report (a spec executed in one project, including all retries).
+ */
+@Data
+public class ReportTestResult
+{
+    private String file;
+
+    private String title;
+
+    private String projectName;
+
+    /**
+     * Playwright outcome of the test: "expected", "unexpected", "flaky" or "skipped".
+     */
+    private String status;
+
+    private long durationMs;
+
+    private int retries;
+
+    private List<ReportAttempt> attempts = new ArrayList<>();
+
+    private List<ReportError> errors = new ArrayList<>();
+
+    private List<ReportAttachment> attachments = new ArrayList<>();
+}
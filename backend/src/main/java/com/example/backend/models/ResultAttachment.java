@@ -0,0 +1,43 @@
+package com.example.backend.models;
+
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+
+
+/**
+ * Attachment (screenshot, trace, video, ...) recorded by Playwright for one attempt of a spec.
+ */
+@Entity
+@Table(name = "result_attachment", indexes = {
+        @Index(name = "idx_result_attachment_spec_result", columnList = "specresultid")
+})
+@Data
+public class ResultAttachment
+{
+
+    public ResultAttachment ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Integer retry;
+
+    private String name;
+
+    private String contentType;
+
+    @Column(length = 1000)
+    private String path;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "specresultid", referencedColumnName = "id")
+    @JsonIgnore
+    private SpecResult specResult;
+
+}
@@ -0,0 +1,61 @@
+package com.example.backend.models;
+
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Links an artifact to the run that produced it, under the attachment name Playwright used.
+ */
+@Entity
+@Table(name = "run_artifact", indexes = {
+        @Index(name = "idx_run_artifact_run", columnList = "testrunid"),
+        @Index(name = "idx_run_artifact_artifact", columnList = "artifactid"),
+        @Index(name = "idx_run_artifact_created", columnList = "created_at")
+})
+@Data
+public class RunArtifact
+{
+
+    public RunArtifact ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String name;
+
+    private Integer retry;
+
+    @Column(name = "created_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "testrunid", referencedColumnName = "id")
+    @JsonIgnore
+    private TestRun testRun;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "artifactid", referencedColumnName = "id")
+    @JsonIgnore
+    private Artifact artifact;
+
+    @PrePersist
+    public void prePersist ()
+    {
+        if (this.createdAt == null)
+        {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.example.backend.models;
+
+
+import com.example.backend.constants.BatchScope;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * A regression run that is started periodically as a batch for a test, user story or project.
+ */
+@Entity
+@Table(name = "scheduled_run", indexes = {
+        @Index(name = "idx_scheduled_run_enabled", columnList = "enabled")
+})
+@Data
+public class ScheduledRun
+{
+
+    public ScheduledRun ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    private BatchScope scope;
+
+    private Long scopeId;
+
+    /**
+     * Spring cron expression with seconds, e.g. {@code 0 0 2 * * MON-FRI}.
+     */
+    private String cron;
+
+    /**
+     * Playwright workers of the started batch; {@code null} uses the batch default.
+     */
+    @Column(name = "max_parallelism")
+    private Integer maxParallelism;
+
+    private boolean enabled = true;
+
+    @Column(name = "skip_quarantined")
+    private boolean skipQuarantined;
+
+    /**
+     * Only tests bound to this environment are run; {@code null} runs all tests of the scope.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "environmentid", referencedColumnName = "id")
+    @JsonIgnore
+    private Environment environment;
+
+    @Column(name = "last_triggered_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastTriggeredAt;
+
+    @Column(name = "last_batch_id")
+    private Long lastBatchId;
+
+    @Column(name = "last_outcome")
+    private String lastOutcome;
+
+    @Column(name = "created_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist ()
+    {
+        if (this.createdAt == null)
+        {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+
+}
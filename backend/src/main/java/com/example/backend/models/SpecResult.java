@@ -0,0 +1,53 @@
+package com.example.backend.models;
+
+
+import com.example.backend.constants.TestStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+
+
+/**
+ * Result of one spec (in one Playwright project) within a test run.
+ */
+@Entity
+@Table(name = "spec_result", indexes = {
+        @Index(name = "idx_spec_result_run", columnList = "testrunid"),
+        @Index(name = "idx_spec_result_spec", columnList = "file, title"),
+        @Index(name = "idx_spec_result_status", columnList = "status")
+})
+@Data
+public class SpecResult
+{
+
+    public SpecResult ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String file;
+
+    @Column(length = 1000)
+    private String title;
+
+    private String projectName;
+
+    @Enumerated(EnumType.STRING)
+    private TestStatus status;
+
+    private boolean flaky;
+
+    private Long durationMs;
+
+    private Integer retries;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "testrunid", referencedColumnName = "id")
+    @JsonIgnore
+    private TestRun testRun;
+
+}
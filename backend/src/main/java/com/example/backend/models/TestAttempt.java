@@ -0,0 +1,45 @@
+package com.example.backend.models;
+
+
+import com.example.backend.constants.TestStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+
+
+/**
+ * Outcome of one attempt of a spec; a spec that passed on retry has a failed and a passed attempt.
+ */
+@Entity
+@Table(name = "test_attempt", indexes = @Index(name = "idx_test_attempt_spec_result", columnList = "specresultid"))
+@Data
+public class TestAttempt
+{
+
+    public TestAttempt ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Integer retry;
+
+    @Enumerated(EnumType.STRING)
+    private TestStatus status;
+
+    /**
+     * Playwright result status, keeps the distinction between e.g. "failed" and "timedOut".
+     */
+    private String outcome;
+
+    private Long durationMs;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "specresultid", referencedColumnName = "id")
+    @JsonIgnore
+    private SpecResult specResult;
+
+}
@@ -0,0 +1,95 @@
+package com.example.backend.models;
+
+
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.TestStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+@Entity
+@Data
+public class TestBatch
+{
+
+    public TestBatch ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private BatchScope scope;
+
+    private Long scopeId;
+
+    @Enumerated(EnumType.STRING)
+    private TestStatus status;
+
+    private String description;
+
+    private Integer workers;
+
+    /**
+     * Runs are ordered by failure probability per expected duration and started in waves.
+     */
+    private Boolean prioritized;
+
+    /**
+     * The batch is aborted once this many tests failed; {@code null} runs all tests.
+     */
+    private Integer maxFailures;
+
+    /**
+     * The scheduled run definition that started this batch, {@code null} for manual batches.
+     */
+    @Column(name = "schedule_id")
+    private Long scheduleId;
+
+    /**
+     * Execution profile the batch was started with, {@code null} for the static Playwright configuration.
+     */
+    @Column(name = "profile_id")
+    private Long profileId;
+
+    /**
+     * Browser the batch executes on, {@code null} for the default Chromium project.
+     */
+    @Enumerated(EnumType.STRING)
+    private Browser browser;
+
+    /**
+     * Matrix run this batch belongs to, {@code null} for batches on a single browser.
+     */
+    @Column(name = "matrix_run_id")
+    private Long matrixRunId;
+
+    @Column(name = "created_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    public void prePersist ()
+    {
+        if (this.createdAt == null)
+        {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.example.backend.models;
+
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+
+
+/**
+ * Error reported by Playwright for one attempt of a spec.
+ */
+@Entity
+@Table(name = "test_error", indexes = {
+        @Index(name = "idx_test_error_spec_result", columnList = "specresultid"),
+        @Index(name = "idx_test_error_location", columnList = "location_file, location_line")
+})
+@Data
+public class TestError
+{
+
+    public TestError ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Integer retry;
+
+    @Column(length = 4000)
+    private String message;
+
+    @Column(name = "location_file")
+    private String locationFile;
+
+    @Column(name = "location_line")
+    private Integer locationLine;
+
+    @Column(name = "location_column")
+    private Integer locationColumn;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "specresultid", referencedColumnName = "id")
+    @JsonIgnore
+    private SpecResult specResult;
+
+}
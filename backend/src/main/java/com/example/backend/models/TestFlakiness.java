@@ -0,0 +1,65 @@
+package com.example.backend.models;
+
+
+import com.example.backend.constants.TestStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Rolling flakiness score of a test, updated incrementally after every finished run.
+ */
+@Entity
+@Table(name = "test_flakiness", indexes = {
+        @Index(name = "idx_test_flakiness_test", columnList = "testid", unique = true),
+        @Index(name = "idx_test_flakiness_score", columnList = "score")
+})
+@Data
+public class TestFlakiness
+{
+
+    public TestFlakiness ()
+    {
+
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Exponentially weighted share of recent runs that behaved flaky, between 0 and 1.
+     */
+    private double score;
+
+    private int runs;
+
+    private int flakyRuns;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_status")
+    private TestStatus lastStatus;
+
+    @Column(name = "last_result_hash", length = 64)
+    private String lastResultHash;
+
+    private boolean quarantined;
+
+    @Column(name = "quarantined_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime quarantinedAt;
+
+    @Column(name = "updated_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "testid", referencedColumnName = "id")
+    @JsonIgnore
+    private TestModel test;
+
+}
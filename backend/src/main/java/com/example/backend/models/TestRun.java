@@ -1,6 +1,7 @@
 package com.example.backend.models;
 
 
+import com.example.backend.constants.Browser;
 import com.example.backend.constants.TestStatus;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -12,6 +13,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_testrun_status", columnList = "status"),
+        @Index(name = "idx_testrun_result_hash", columnList = "result_hash")
+})
 public class TestRun
 {
 
@@ -27,6 +32,7 @@ public class TestRun
     @Enumerated(EnumType.STRING)
     private TestStatus status;
 
+    @Column(length = 4000)
     private String description;
     
     @Column(name = "executed_at")
@@ -38,6 +44,92 @@ public class TestRun
     @JsonIgnore
     private TestModel test;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "batchid", referencedColumnName = "id")
+    @JsonIgnore
+    private TestBatch batch;
+
+    /**
+     * Instance currently executing the run; {@code null} while the run only waits in the queue.
+     */
+    @Column(name = "lease_owner")
+    @JsonIgnore
+    private String leaseOwner;
+
+    @Column(name = "started_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "heartbeat_at")
+    @JsonIgnore
+    private LocalDateTime heartbeatAt;
+
+    /**
+     * Set by a cancel on any instance; the instance executing the run polls it with its lease
+     * heartbeat. Only written by {@code TestRunRepo.requestCancel}, so saving a run that was
+     * loaded before the cancel does not clear it.
+     */
+    @Column(name = "cancel_requested", updatable = false)
+    @JsonIgnore
+    private Boolean cancelRequested;
+
+    /**
+     * Number of times the run was re-queued after its worker was lost.
+     */
+    private Integer recoveries;
+
+    /**
+     * Hash over spec content, Playwright configuration and environment URL at submit time.
+     */
+    @Column(name = "result_hash", length = 64)
+    @JsonIgnore
+    private String resultHash;
+
+    /**
+     * Name of the gzip compressed output log in the run log directory. Runs of a batch share
+     * the log of their Playwright invocation.
+     */
+    @Column(name = "log_file")
+    @JsonIgnore
+    private String logFile;
+
+    @Column(name = "log_size_bytes")
+    private Long logSizeBytes;
+
+    /**
+     * Execution profile the run was started with, {@code null} for the static Playwright configuration.
+     */
+    @Column(name = "profile_id")
+    private Long profileId;
+
+    /**
+     * Browser the run executes on, {@code null} for the default Chromium project.
+     */
+    @Enumerated(EnumType.STRING)
+    private Browser browser;
+
+    /**
+     * Matrix run this run belongs to, {@code null} for runs on a single browser.
+     */
+    @Column(name = "matrix_run_id")
+    private Long matrixRunId;
+
+    /**
+     * Set when a cached submit returned this earlier passing run instead of executing the test.
+     */
+    @Transient
+    private boolean cacheHit;
+
+    /**
+     * Set when a submit attached to this already queued or running run instead of starting a new one.
+     */
+    @Transient
+    private boolean coalesced;
+
     @PrePersist
     public void prePersist ()
     {
@@ -0,0 +1,25 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.models.Artifact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+
+@Repository
+public interface ArtifactRepo extends JpaRepository<Artifact, Long>
+{
+    Optional<Artifact> findBySha256 (String sha256);
+
+    @Query("SELECT COALESCE(SUM(a.sizeBytes), 0) FROM Artifact a")
+    long sumSizeBytes ();
+
+    @Query("SELECT a FROM Artifact a WHERE NOT EXISTS (SELECT r FROM RunArtifact r WHERE r.artifact = a)")
+    List<Artifact> findUnreferenced ();
+
+    List<Artifact> findTop50ByOrderByLastReferencedAtAsc ();
+}
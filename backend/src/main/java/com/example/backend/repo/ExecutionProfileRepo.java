@@ -0,0 +1,25 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.models.ExecutionProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+
+@Repository
+public interface ExecutionProfileRepo extends JpaRepository<ExecutionProfile, Long>
+{
+    List<ExecutionProfile> findByProject_IdOrderByName (Long projectId);
+
+    Optional<ExecutionProfile> findByProject_IdAndName (Long projectId, String name);
+
+    @Query("SELECT p FROM ExecutionProfile p WHERE p.project.id = (SELECT t.userStory.project.id FROM TestModel t WHERE t.id = ?1) AND p.name = ?2")
+    Optional<ExecutionProfile> findForTest (Long testId, String name);
+
+    @Query("SELECT p FROM ExecutionProfile p WHERE p.project.id = (SELECT t.userStory.project.id FROM TestModel t WHERE t.id = ?1) AND p.defaultProfile = true")
+    Optional<ExecutionProfile> findDefaultForTest (Long testId);
+}
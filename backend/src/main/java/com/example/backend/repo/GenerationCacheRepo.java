@@ -0,0 +1,15 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.models.GenerationCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+
+@Repository
+public interface GenerationCacheRepo extends JpaRepository<GenerationCacheEntry, Long>
+{
+    Optional<GenerationCacheEntry> findByCacheKey (String cacheKey);
+}
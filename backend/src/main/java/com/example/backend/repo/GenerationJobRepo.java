@@ -0,0 +1,50 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.models.GenerationJob;
+import com.example.backend.models.GenerationState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+
+@Repository
+public interface GenerationJobRepo extends JpaRepository<GenerationJob, Long>
+{
+    Optional<GenerationJob> findFirstByTest_IdOrderByIdDesc (Long testId);
+
+    Optional<GenerationJob> findFirstByTest_IdAndStateInOrderByIdDesc (Long testId, Collection<GenerationState> states);
+
+    Optional<GenerationJob> findFirstByTest_IdAndStateOrderByIdDesc (Long testId, GenerationState state);
+
+    /**
+     * Jobs whose owner has not sent a heartbeat since {@code cutoff}, and jobs created before
+     * {@code cutoff} that never got an owner.
+     */
+    @Query("SELECT j FROM GenerationJob j WHERE j.state IN ?1 AND ((j.owner IS NOT NULL AND j.heartbeatAt < ?2) "
+            + "OR (j.owner IS NULL AND j.createdAt < ?2)) ORDER BY j.id")
+    List<GenerationJob> findExpired (Collection<GenerationState> states, LocalDateTime cutoff);
+
+    /**
+     * Takes over a job if it is still expired, see {@link #findExpired}.
+     *
+     * @return 1 if the job was claimed, 0 if it finished or another instance claimed it first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE GenerationJob j SET j.owner = ?2, j.heartbeatAt = ?3 WHERE j.id = ?1 AND j.state IN ?4 "
+            + "AND ((j.owner IS NOT NULL AND j.heartbeatAt < ?5) OR (j.owner IS NULL AND j.createdAt < ?5))")
+    int claimExpired (Long jobId, String owner, LocalDateTime heartbeatAt, Collection<GenerationState> states, LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE GenerationJob j SET j.heartbeatAt = ?3 WHERE j.id IN ?1 AND j.owner = ?2")
+    int renewLeases (Collection<Long> jobIds, String owner, LocalDateTime heartbeatAt);
+}
@@ -0,0 +1,28 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.constants.TestStatus;
+import com.example.backend.models.MatrixRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+
+@Repository
+public interface MatrixRunRepo extends JpaRepository<MatrixRun, Long>
+{
+    /**
+     * Writes the result of a matrix if it still has the {@code expected} status.
+     *
+     * @return 1 if the matrix was finished, 0 if it was finished before
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MatrixRun m SET m.status = ?2, m.description = ?3, m.wallClockMs = ?4, m.summedMs = ?5, m.finishedAt = ?6 "
+            + "WHERE m.id = ?1 AND m.status = ?7")
+    int finish (Long id, TestStatus status, String description, Long wallClockMs, Long summedMs, LocalDateTime finishedAt, TestStatus expected);
+}
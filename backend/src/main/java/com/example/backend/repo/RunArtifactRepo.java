@@ -0,0 +1,22 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.models.RunArtifact;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+@Repository
+public interface RunArtifactRepo extends JpaRepository<RunArtifact, Long>
+{
+    @Query("SELECT r FROM RunArtifact r JOIN FETCH r.artifact WHERE r.testRun.id = ?1 ORDER BY r.id")
+    List<RunArtifact> findByRunID (Long runId);
+
+    List<RunArtifact> findByArtifact_Id (Long artifactId);
+
+    List<RunArtifact> findByCreatedAtBefore (LocalDateTime cutoff);
+}
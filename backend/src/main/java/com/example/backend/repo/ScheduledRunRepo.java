@@ -0,0 +1,35 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.models.ScheduledRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+@Repository
+public interface ScheduledRunRepo extends JpaRepository<ScheduledRun, Long>
+{
+    List<ScheduledRun> findByEnabledTrue ();
+
+    /**
+     * Records a tick unless another instance recorded one since {@code previous}.
+     *
+     * @return 1 if the tick was claimed, 0 if another instance claimed it first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledRun s SET s.lastTriggeredAt = ?2 WHERE s.id = ?1 "
+            + "AND (s.lastTriggeredAt = ?3 OR (s.lastTriggeredAt IS NULL AND ?3 IS NULL))")
+    int claimTick (Long id, LocalDateTime now, LocalDateTime previous);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScheduledRun s SET s.lastOutcome = ?2 WHERE s.id = ?1")
+    int updateLastOutcome (Long id, String lastOutcome);
+}
@@ -0,0 +1,37 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.dto.FailureSummaryDto;
+import com.example.backend.dto.TestDurationDto;
+import com.example.backend.models.SpecResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+
+@Repository
+public interface SpecResultRepo extends JpaRepository<SpecResult, Long>
+{
+    List<SpecResult> findByTestRun_IdOrderByIdAsc (Long runId);
+
+    @Query("SELECT s FROM SpecResult s JOIN FETCH s.testRun r WHERE r.test.id = ?1 ORDER BY r.executedAt DESC, s.id ASC")
+    List<SpecResult> findHistoryByTestID (Long testId);
+
+    @Query("SELECT new com.example.backend.dto.FailureSummaryDto(s.file, s.title, "
+            + "SUM(CASE WHEN s.status = com.example.backend.constants.TestStatus.FAILED THEN 1 ELSE 0 END), COUNT(s), "
+            + "MAX(CASE WHEN s.status = com.example.backend.constants.TestStatus.FAILED THEN r.executedAt ELSE NULL END)) "
+            + "FROM SpecResult s JOIN s.testRun r WHERE r.executedAt >= ?1 "
+            + "GROUP BY s.file, s.title "
+            + "HAVING SUM(CASE WHEN s.status = com.example.backend.constants.TestStatus.FAILED THEN 1 ELSE 0 END) > 0 "
+            + "ORDER BY SUM(CASE WHEN s.status = com.example.backend.constants.TestStatus.FAILED THEN 1 ELSE 0 END) DESC")
+    List<FailureSummaryDto> summarizeFailuresSince (LocalDateTime since);
+
+    @Query("SELECT new com.example.backend.dto.TestDurationDto(r.test.id, SUM(s.durationMs), COUNT(DISTINCT r.id)) "
+            + "FROM SpecResult s JOIN s.testRun r WHERE r.test.id IN ?1 AND r.executedAt >= ?2 "
+            + "GROUP BY r.test.id")
+    List<TestDurationDto> findDurations (Collection<Long> testIds, LocalDateTime since);
+}
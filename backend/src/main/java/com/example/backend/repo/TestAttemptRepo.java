@@ -0,0 +1,16 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.models.TestAttempt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+
+@Repository
+public interface TestAttemptRepo extends JpaRepository<TestAttempt, Long>
+{
+    List<TestAttempt> findBySpecResult_IdInOrderByIdAsc (Collection<Long> specResultIds);
+}
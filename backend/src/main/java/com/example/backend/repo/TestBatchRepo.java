@@ -0,0 +1,20 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.constants.TestStatus;
+import com.example.backend.models.TestBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+
+@Repository
+public interface TestBatchRepo extends JpaRepository<TestBatch, Long>
+{
+    @Query("SELECT COALESCE(SUM(b.workers), 0) FROM TestBatch b WHERE b.scheduleId IS NOT NULL AND b.status = ?1")
+    long sumScheduledWorkers (TestStatus status);
+
+    List<TestBatch> findByMatrixRunIdOrderById (Long matrixRunId);
+}
@@ -0,0 +1,24 @@
+package com.example.backend.repo;
+
+
+import com.example.backend.models.TestFlakiness;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+
+@Repository
+public interface TestFlakinessRepo extends JpaRepository<TestFlakiness, Long>
+{
+    Optional<TestFlakiness> findByTest_Id (Long testId);
+
+    List<TestFlakiness> findAllByOrderByScoreDesc ();
+
+    List<TestFlakiness> findByQuarantinedTrueOrderByScoreDesc ();
+
+    @Query("SELECT f.test.id FROM TestFlakiness f WHERE f.quarantined = true")
+    List<Long> findQuarantinedTestIDs ();
+}
@@ -1,12 +1,18 @@
 package com.example.backend.repo;
 
 
+import com.example.backend.dto.EnvironmentRunCountDto;
+import com.example.backend.models.GenerationState;
 import com.example.backend.models.TestModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
@@ -14,4 +20,27 @@ public interface TestRepo extends JpaRepository<TestModel, Long>
 {
     @Query("SELECT t FROM TestModel t WHERE t.userStory.id = ?1")
     List<TestModel> findByStoryID (Long storyId);
+
+    @Query("SELECT t FROM TestModel t WHERE t.userStory.project.id = ?1")
+    List<TestModel> findByProjectID (Long projectId);
+
+    List<TestModel> findByGenerationState (GenerationState generationState);
+
+    /**
+     * Loads a test with everything a generation reads, for workers without an open session.
+     */
+    @Query("SELECT DISTINCT t FROM TestModel t LEFT JOIN FETCH t.steps LEFT JOIN FETCH t.environment WHERE t.id = ?1")
+    Optional<TestModel> findForGeneration (Long testId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestModel t SET t.generationState = ?2 WHERE t.id = ?1")
+    int updateGenerationState (Long testId, GenerationState generationState);
+
+    @Query("SELECT t.environment.url FROM TestModel t WHERE t.id = ?1")
+    String findEnvironmentUrl (Long testId);
+
+    @Query("SELECT new com.example.backend.dto.EnvironmentRunCountDto(t.environment.id, COUNT(t)) FROM TestModel t " +
+            "WHERE t.id IN ?1 AND t.environment IS NOT NULL GROUP BY t.environment.id")
+    List<EnvironmentRunCountDto> countByEnvironment (Collection<Long> testIds);
 }
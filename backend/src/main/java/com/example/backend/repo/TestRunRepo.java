@@ -1,15 +1,84 @@
 package com.example.backend.repo;
 
 
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.TestFailureRateDto;
 import com.example.backend.models.TestRun;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
 public interface TestRunRepo extends JpaRepository<TestRun, Long>
 {
     List<TestRun> findByTest_IdOrderByExecutedAtDesc (Long testId);
+
+    List<TestRun> findByBatch_Id (Long batchId);
+
+    List<TestRun> findByMatrixRunIdOrderById (Long matrixRunId);
+
+    @Query("SELECT new com.example.backend.dto.TestFailureRateDto(r.test.id, COUNT(r), "
+            + "SUM(CASE WHEN r.status = com.example.backend.constants.TestStatus.FAILED THEN 1 ELSE 0 END)) "
+            + "FROM TestRun r WHERE r.test.id IN ?1 AND r.executedAt >= ?2 "
+            + "AND r.status IN (com.example.backend.constants.TestStatus.PASSED, com.example.backend.constants.TestStatus.FAILED) "
+            + "GROUP BY r.test.id")
+    List<TestFailureRateDto> findFailureRates (Collection<Long> testIds, LocalDateTime since);
+
+    Optional<TestRun> findFirstByResultHashAndStatusAndExecutedAtAfterOrderByExecutedAtDesc (String resultHash, TestStatus status, LocalDateTime after);
+
+    /**
+     * Runs whose owner has not sent a heartbeat since {@code cutoff}, and runs created before
+     * {@code cutoff} that never got an owner.
+     */
+    @Query("SELECT r FROM TestRun r WHERE r.status = ?1 AND ((r.leaseOwner IS NOT NULL AND r.heartbeatAt < ?2) "
+            + "OR (r.leaseOwner IS NULL AND r.executedAt < ?2)) ORDER BY r.id")
+    List<TestRun> findExpiredLeases (TestStatus status, LocalDateTime cutoff);
+
+    /**
+     * Takes the lease of a PENDING run if it is still expired, see {@link #findExpiredLeases}.
+     *
+     * @return 1 if the run was claimed, 0 if it finished or another instance claimed it first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestRun r SET r.leaseOwner = ?2, r.heartbeatAt = ?3 WHERE r.id = ?1 "
+            + "AND r.status = com.example.backend.constants.TestStatus.PENDING "
+            + "AND ((r.leaseOwner IS NOT NULL AND r.heartbeatAt < ?4) OR (r.leaseOwner IS NULL AND r.executedAt < ?4))")
+    int claimExpired (Long runId, String leaseOwner, LocalDateTime heartbeatAt, LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestRun r SET r.heartbeatAt = ?3 WHERE r.id IN ?1 AND r.leaseOwner = ?2")
+    int renewLeases (Collection<Long> runIds, String leaseOwner, LocalDateTime heartbeatAt);
+
+    /**
+     * Flags PENDING runs for cancellation, so the instance executing them stops their process.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestRun r SET r.cancelRequested = true WHERE r.id IN ?1 "
+            + "AND r.status = com.example.backend.constants.TestStatus.PENDING")
+    int requestCancel (Collection<Long> runIds);
+
+    @Query("SELECT r.id FROM TestRun r WHERE r.id IN ?1 AND r.cancelRequested = true")
+    List<Long> findCancelRequested (Collection<Long> runIds);
+
+    /**
+     * Writes the final state of a run that is still PENDING.
+     *
+     * @return 1 if the state was written, 0 if the run was finished before, e.g. cancelled on another instance
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestRun r SET r.status = ?2, r.description = ?3, r.finishedAt = ?4 WHERE r.id = ?1 "
+            + "AND r.status = com.example.backend.constants.TestStatus.PENDING")
+    int finish (Long runId, TestStatus status, String description, LocalDateTime finishedAt);
 }
@@ -1,101 +1,305 @@
 package com.example.backend.service;
 
 
+import com.example.backend.config.GenerationProperties;
 import com.example.backend.exceptions.GenerationException;
 import com.example.backend.dto.TestDto;
 import com.example.backend.models.Environment;
-import com.example.backend.models.GenerationState;
 import com.example.backend.models.TestModel;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
 
 @Service
 @Slf4j
 public class AiService
 {
 
+    /**
+     * Part of the cache key of a generation. Increase it whenever the prompt changes, so specs
+     * generated with the old prompt are not reused.
+     */
+    static final int PROMPT_VERSION = 2;
+
+    private static final String SYSTEM_PROMPT =
+            "You are a world-class, thorough test automation agent. Your job is to create *robust and reliable* test scripts based on user instructions. You must act like a human tester and not a simple machine.\n" +
+                    "\n" +
+                    "1. **EXECUTE STEPS:** Execute all test steps from the user's CSV using Playwright tools.\n" +
+                    "\n" +
+                    "2. **CRITICAL - HANDLE DYNAMIC CONTENT:** The web is unpredictable. You **MUST** watch for and handle unexpected elements like **cookie consent popups, login dialogs, or special offers.** " +
+                    "If one appears, interact with it to clear the screen (e.g., click 'Accept' or 'Reject') *before* continuing to the user's next step. **If you had to click a popup away then you MUST include these interactions in your final script.**\n" +
+                    "When no popup is detected DO NOT INCLUDE IT IN THE FINAL SCRIPT.\n" +
+                    "\n" +
+                    "3. **CRITICAL - VALIDATE ASSERTIONS:** When a test step has an 'Expected Result', your job is to **VALIDATE** it.\n" +
+                    "* First, use Playwright tools to get the **ACTUAL** value from the page (e.g., get the text of an element).\n" +
+                    "* Then, use an `expect()` assertion to **compare the ACTUAL value to the EXPECTED value** from the CSV.\n" +
+                    "* **ABSOLUTE RULE - DO NOT 'FIX' TESTS: If the ACTUAL value (e.g., \"Reitsportgemeinschaft\") is different from the EXPECTED value (e.g., \"Reitsportverein\"), you MUST write the assertion to check for the original EXPECTED value. The test is supposed to fail in this case. Do not alter the assertion to match the actual value.**\n" +
+                    "* Do NOT just copy the expected value into an assertion without checking it first. " +
+                    "\n" +
+                    "4. **STABILITY:**\n" +
+                    "- Include appropriate wait times and assertions.\n" +
+                    "- If a test step cannot be executed, comment the reason in the file.\n" +
+                    "\n" +
+                    "5. **FINAL SEQUENCE:**\n" +
+                    "* Execute all steps (including implicit steps like handling popups).\n" +
+                    "* Call the `browser.close()` method.\n" +
+                    "* After the browser is closed, respond with **ONLY** the complete, runnable Playwright TypeScript script (starting with `import...`). This script must log **every single tool call you made**, including those for handling popups.\n" +
+                    "* Start the code of every CSV step with a comment line `// @step <n>`, where n is the row of the step in the CSV starting at 1, and end the code of the last step with a line `// @end-steps`. Code for a popup belongs to the step during which it appeared.";
+
     private final ChatClient chatClient;
+    private final ToolCallbackProvider tools;
+    private final GenerationProperties properties;
+    private final GenerationRateLimiter rateLimiter;
+
+    public AiService (ChatClient.Builder builder, ToolCallbackProvider tools, GenerationProperties properties, GenerationRateLimiter rateLimiter)
+    {
+        // tools are passed per prompt, wrapped so each generation can follow its own tool calls
+        this.chatClient = builder.build();
+        this.tools = tools;
+        this.properties = properties;
+        this.rateLimiter = rateLimiter;
+    }
 
-    public AiService (ChatClient.Builder builder, ToolCallbackProvider tools)
+    /**
+     * Identifies the inputs of a generation: prompt version, model and everything the prompt is
+     * built from. The credentials are part of it since the agent types them into the spec.
+     */
+    public String cacheKey (TestModel test)
     {
-        this.chatClient = builder
-                .defaultToolCallbacks(tools)
-                .build();
+        Environment env = test.getEnvironment();
+        return SpecFingerprinter.sha256(String.join("\n",
+                "prompt:" + PROMPT_VERSION,
+                "model:" + properties.getModel(),
+                "url:" + (env != null ? env.getUrl() : ""),
+                "username:" + (env != null ? env.getUsername() : ""),
+                "password:" + (env != null ? env.getPassword() : ""),
+                "steps:" + TestDto.stepsToCsv(test.getSteps())));
     }
 
     public String generateAndRunTests (TestModel test) throws GenerationException
+    {
+        return generateAndRunTests(test, (tool, input) -> { });
+    }
+
+    /**
+     * Lets the agent execute the steps of the test in a browser and returns the spec it wrote.
+     * The state of the test is left to the caller.
+     *
+     * With streaming enabled the answer is passed to the listener token by token while the
+     * model writes it; the complete spec is still only returned once the stream completed.
+     *
+     * @param listener told about every tool call before it is executed; an exception thrown
+     *                 by the listener aborts the generation
+     */
+    public String generateAndRunTests (TestModel test, GenerationListener listener) throws GenerationException
     {
         try
         {
-            test.setGenerationState(GenerationState.IN_PROGRESS);
             String testStepsCSV = TestDto.stepsToCsv(test.getSteps());
-            boolean hasEnv = test.getEnvironment() != null;
 
             if (testStepsCSV == null || testStepsCSV.trim().isEmpty())
             {
                 log.warn("No test steps CSV found for test ID: {}", test.getId());
-                return "No test steps provided";
+                throw new GenerationException("No test steps provided");
             }
 
             log.info("Generating Playwright tests for test ID: {}", test.getId());
 
-            // Create the prompt with system message and test steps as CSV
-            String systemPrompt =
-                    "You are a world-class, thorough test automation agent. Your job is to create *robust and reliable* test scripts based on user instructions. You must act like a human tester and not a simple machine.\n" +
-                            "\n" +
-                            "1. **EXECUTE STEPS:** Execute all test steps from the user's CSV using Playwright tools.\n" +
-                            "\n" +
-                            "2. **CRITICAL - HANDLE DYNAMIC CONTENT:** The web is unpredictable. You **MUST** watch for and handle unexpected elements like **cookie consent popups, login dialogs, or special offers.** " +
-                            "If one appears, interact with it to clear the screen (e.g., click 'Accept' or 'Reject') *before* continuing to the user's next step. **If you had to click a popup away then you MUST include these interactions in your final script.**\n" +
-                            "When no popup is detected DO NOT INCLUDE IT IN THE FINAL SCRIPT.\n" +
-                            "\n" +
-                            "3. **CRITICAL - VALIDATE ASSERTIONS:** When a test step has an 'Expected Result', your job is to **VALIDATE** it.\n" +
-                            "* First, use Playwright tools to get the **ACTUAL** value from the page (e.g., get the text of an element).\n" +
-                            "* Then, use an `expect()` assertion to **compare the ACTUAL value to the EXPECTED value** from the CSV.\n" +
-                            "* **ABSOLUTE RULE - DO NOT 'FIX' TESTS: If the ACTUAL value (e.g., \"Reitsportgemeinschaft\") is different from the EXPECTED value (e.g., \"Reitsportverein\"), you MUST write the assertion to check for the original EXPECTED value. The test is supposed to fail in this case. Do not alter the assertion to match the actual value.**\n" +
-                            "* Do NOT just copy the expected value into an assertion without checking it first. " +
-                            "\n" +
-                            "4. **STABILITY:**\n" +
-                            "- Include appropriate wait times and assertions.\n" +
-                            "- If a test step cannot be executed, comment the reason in the file.\n" +
-                            "\n" +
-                            "5. **FINAL SEQUENCE:**\n" +
-                            "* Execute all steps (including implicit steps like handling popups).\n" +
-                            "* Call the `browser.close()` method.\n" +
-                            "* After the browser is closed, respond with **ONLY** the complete, runnable Playwright TypeScript script (starting with `import...`). This script must log **every single tool call you made**, including those for handling popups.";
-
-            StringBuilder userMessage = new StringBuilder();
-            if (hasEnv)
-            {
-                Environment env = test.getEnvironment();
-                userMessage
-                        .append("Environment:\n\n URL: ").append(env.getUrl())
-                        .append("\n\nUsername: ").append(env.getUsername())
-                        .append("\n\n Password: ").append(env.getPassword()).append("\n\n");
-            }
-            userMessage.append("Here are the test steps to execute in CSV format:\n\n").append(testStepsCSV);
+            String userMessage = environmentMessage(test) + "Here are the test steps to execute in CSV format:\n\n" + testStepsCSV;
+            return prompt(test, userMessage, listener);
 
-            log.info("Generating with UserPrompt:\n{}", userMessage);
+        } catch (Exception e)
+        {
+            log.error("Error generating tests for test ID: {}", test.getId(), e);
+            throw new GenerationException("Failed to generate and run tests: " + e.getMessage(), e);
+        }
+    }
 
-            String response = chatClient.prompt()
-                    .system(systemPrompt)
-                    .user(userMessage.toString())
-                    .call()
-                    .content();
+    /**
+     * Lets the agent write the code of some steps of an existing spec. The agent replays the
+     * code of the other steps in the browser to reach the state each changed step starts in.
+     *
+     * @param draft the spec with the current step numbers, the given steps without code
+     * @param steps numbers of the new or changed steps
+     * @return the code the agent wrote, by step number
+     */
+    public Map<Integer, String> regenerateSteps (TestModel test, String draft, List<Integer> steps, GenerationListener listener) throws GenerationException
+    {
+        try
+        {
+            String stepList = steps.stream().map(String::valueOf).collect(Collectors.joining(", "));
+            log.info("Regenerating steps {} for test ID: {}", stepList, test.getId());
 
-            log.info("AI response received for test ID: {}", test.getId());
-            log.info(response);
-            test.setGenerationState(GenerationState.COMPLETED);
-            return response;
+            String userMessage = environmentMessage(test) +
+                    "Here are the test steps to execute in CSV format:\n\n" + TestDto.stepsToCsv(test.getSteps()) + "\n\n" +
+                    "A script for an earlier version of these steps already exists. Its `// @step <n>` segments use the current step numbers; " +
+                    "steps " + stepList + " are new or changed and have no code yet:\n\n```typescript\n" + draft + "\n```\n\n" +
+                    "Execute all steps in the browser in order. For steps that already have code, replay that code with the Playwright tools instead of working the step out again; " +
+                    "handle the new or changed steps as usual. After the browser is closed, respond instead of the complete script with **ONLY** the code of steps " + stepList +
+                    ", each starting with its `// @step <n>` line, without imports, the test declaration or the code of any other step.";
+            return SpecSegments.segments(prompt(test, userMessage, listener));
 
         } catch (Exception e)
         {
-            log.error("Error generating tests for test ID: {}", test.getId(), e);
-            test.setGenerationState(GenerationState.FAILED);
-            throw new GenerationException("Failed to generate and run tests: " + e.getMessage());
+            log.error("Error regenerating steps for test ID: {}", test.getId(), e);
+            throw new GenerationException("Failed to regenerate test steps: " + e.getMessage(), e);
+        }
+    }
+
+    private static String environmentMessage (TestModel test)
+    {
+        Environment env = test.getEnvironment();
+        if (env == null)
+        {
+            return "";
+        }
+        return "Environment:\n\n URL: " + env.getUrl() +
+                "\n\nUsername: " + env.getUsername() +
+                "\n\n Password: " + env.getPassword() + "\n\n";
+    }
+
+    /**
+     * Sends the prompt and returns the answer. Every model request of the tool loop reserves
+     * the estimated tokens before it starts; the usage reported with the answer, which covers
+     * the whole loop, is settled against the rate limit afterwards.
+     */
+    private String prompt (TestModel test, String userMessage, GenerationListener listener)
+    {
+        log.info("Generating with UserPrompt:\n{}", userMessage);
+
+        AtomicInteger requests = new AtomicInteger();
+        AtomicLong usedTokens = new AtomicLong();
+        awaitRequest(rateLimiter, requests);
+        ChatClient.ChatClientRequestSpec prompt = chatClient.prompt()
+                .system(SYSTEM_PROMPT)
+                .user(userMessage)
+                .toolCallbacks(observed(listener, requests));
+        String response;
+        try
+        {
+            response = properties.isStreaming()
+                    ? prompt.stream()
+                    .chatResponse()
+                    .doOnNext(chunk -> recordUsage(chunk, usedTokens))
+                    .map(AiService::text)
+                    .doOnNext(listener::onToken)
+                    .collect(Collectors.joining())
+                    .block()
+                    : text(recordUsage(prompt.call().chatResponse(), usedTokens));
+        } finally
+        {
+            rateLimiter.settle(requests.get(), usedTokens.get());
+        }
+
+        log.info("AI response received for test ID: {} ({} request(s), {} token(s))", test.getId(), requests.get(), usedTokens.get());
+        log.info(response);
+        return response;
+    }
+
+    /**
+     * Keeps the latest usage the model reported; it is cumulative over the tool loop, and with
+     * streaming only some chunks carry it.
+     */
+    private static ChatResponse recordUsage (ChatResponse response, AtomicLong usedTokens)
+    {
+        Usage usage = response != null && response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+        if (usage != null && usage.getTotalTokens() != null && usage.getTotalTokens() > 0)
+        {
+            usedTokens.set(usage.getTotalTokens());
+        }
+        return response;
+    }
+
+    private static String text (ChatResponse response)
+    {
+        if (response == null || response.getResult() == null || response.getResult().getOutput().getText() == null)
+        {
+            return "";
+        }
+        return response.getResult().getOutput().getText();
+    }
+
+    private static void awaitRequest (GenerationRateLimiter rateLimiter, AtomicInteger requests)
+    {
+        try
+        {
+            rateLimiter.acquire();
+            requests.incrementAndGet();
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new GenerationException("Interrupted while waiting for the model rate limit", e);
+        }
+    }
+
+    private ToolCallback[] observed (GenerationListener listener, AtomicInteger requests)
+    {
+        return Arrays.stream(tools.getToolCallbacks())
+                .map(callback -> new ObservedToolCallback(callback, listener, rateLimiter, requests))
+                .toArray(ToolCallback[]::new);
+    }
+
+    @FunctionalInterface
+    public interface GenerationListener
+    {
+        void onToolCall (String tool, String input);
+
+        /**
+         * Called with each chunk of the answer when the generation is streamed.
+         */
+        default void onToken (String token)
+        {
+        }
+    }
+
+    /**
+     * Reports tool calls and paces the model request that follows each of them.
+     */
+    private record ObservedToolCallback(ToolCallback delegate, GenerationListener listener, GenerationRateLimiter rateLimiter, AtomicInteger requests) implements ToolCallback
+    {
+        @Override
+        public ToolDefinition getToolDefinition ()
+        {
+            return delegate.getToolDefinition();
+        }
+
+        @Override
+        public ToolMetadata getToolMetadata ()
+        {
+            return delegate.getToolMetadata();
+        }
+
+        @Override
+        public String call (String toolInput)
+        {
+            listener.onToolCall(delegate.getToolDefinition().name(), toolInput);
+            String result = delegate.call(toolInput);
+            awaitRequest(rateLimiter, requests);
+            return result;
+        }
+
+        @Override
+        public String call (String toolInput, ToolContext toolContext)
+        {
+            listener.onToolCall(delegate.getToolDefinition().name(), toolInput);
+            String result = delegate.call(toolInput, toolContext);
+            awaitRequest(rateLimiter, requests);
+            return result;
         }
     }
 }
@@ -0,0 +1,143 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.ArtifactProperties;
+import com.example.backend.models.Artifact;
+import com.example.backend.models.RunArtifact;
+import com.example.backend.repo.ArtifactRepo;
+import com.example.backend.repo.RunArtifactRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+
+/**
+ * Background pass that keeps the artifact store within its retention settings: run links
+ * older than {@code maxAge} are released, unreferenced blobs are evicted, and if the store
+ * is still above {@code maxTotalSize} the least recently referenced blobs go next. Run logs
+ * are pruned by age like the scratch directories.
+ */
+@Service
+@Slf4j
+public class ArtifactCompactor
+{
+
+    private final ArtifactProperties properties;
+    private final ArtifactStore artifactStore;
+    private final ArtifactRepo artifactRepo;
+    private final RunArtifactRepo runArtifactRepo;
+
+    public ArtifactCompactor (ArtifactProperties properties, ArtifactStore artifactStore, ArtifactRepo artifactRepo, RunArtifactRepo runArtifactRepo)
+    {
+        this.properties = properties;
+        this.artifactStore = artifactStore;
+        this.artifactRepo = artifactRepo;
+        this.runArtifactRepo = runArtifactRepo;
+    }
+
+    @Scheduled(fixedDelayString = "${playwright.artifacts.compact-interval:PT1H}")
+    public void compact ()
+    {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getMaxAge());
+
+        List<RunArtifact> expired = runArtifactRepo.findByCreatedAtBefore(cutoff);
+        runArtifactRepo.deleteAll(expired);
+
+        List<Artifact> unreferenced = artifactRepo.findUnreferenced();
+        unreferenced.forEach(artifactStore::evict);
+
+        long budget = properties.getMaxTotalSize().toBytes();
+        long total = artifactRepo.sumSizeBytes();
+        int overBudget = 0;
+        while (total > budget)
+        {
+            List<Artifact> oldest = artifactRepo.findTop50ByOrderByLastReferencedAtAsc();
+            if (oldest.isEmpty())
+            {
+                break;
+            }
+            for (Artifact artifact : oldest)
+            {
+                artifactStore.evict(artifact);
+                total -= artifact.getSizeBytes() != null ? artifact.getSizeBytes() : 0;
+                overBudget++;
+                if (total <= budget)
+                {
+                    break;
+                }
+            }
+        }
+
+        long scratchFiles = Stream.concat(properties.getScratchDirs().stream(), Stream.of(properties.getLogDir()))
+                .mapToLong(dir -> pruneScratchDir(Path.of(dir), cutoff))
+                .sum();
+
+        artifactStore.refreshUsage();
+        if (!expired.isEmpty() || !unreferenced.isEmpty() || overBudget > 0 || scratchFiles > 0)
+        {
+            log.info("Artifact compaction: released {} run link(s), evicted {} unreferenced and {} over-budget blob(s), deleted {} scratch file(s)",
+                    expired.size(), unreferenced.size(), overBudget, scratchFiles);
+        }
+    }
+
+    private long pruneScratchDir (Path dir, LocalDateTime cutoff)
+    {
+        if (!Files.isDirectory(dir))
+        {
+            return 0;
+        }
+
+        FileTime threshold = FileTime.from(cutoff.atZone(ZoneId.systemDefault()).toInstant());
+        long deleted = 0;
+        try (Stream<Path> paths = Files.walk(dir))
+        {
+            // deepest paths first so directories are empty by the time they are visited
+            List<Path> candidates = paths.sorted(Comparator.reverseOrder()).toList();
+            for (Path path : candidates)
+            {
+                if (path.equals(dir))
+                {
+                    continue;
+                }
+                try
+                {
+                    if (Files.getLastModifiedTime(path).compareTo(threshold) >= 0)
+                    {
+                        continue;
+                    }
+                    if (Files.isDirectory(path))
+                    {
+                        try (Stream<Path> children = Files.list(path))
+                        {
+                            if (children.findAny().isEmpty())
+                            {
+                                Files.delete(path);
+                            }
+                        }
+                    } else
+                    {
+                        Files.delete(path);
+                        deleted++;
+                    }
+                } catch (IOException e)
+                {
+                    log.debug("Could not prune {}", path, e);
+                }
+            }
+        } catch (IOException e)
+        {
+            log.warn("Could not prune scratch directory {}", dir, e);
+        }
+        return deleted;
+    }
+}
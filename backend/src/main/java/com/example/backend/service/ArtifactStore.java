@@ -0,0 +1,253 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.ArtifactProperties;
+import com.example.backend.dto.ArtifactUsageDto;
+import com.example.backend.models.Artifact;
+import com.example.backend.models.ReportAttachment;
+import com.example.backend.models.ReportTestResult;
+import com.example.backend.models.RunArtifact;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.ArtifactRepo;
+import com.example.backend.repo.RunArtifactRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Content-addressed store for run artifacts (traces, videos, screenshots). Blobs live under
+ * {@code <storeDir>/<first two hex chars>/<sha256>}, so identical files are kept only once
+ * no matter how many runs reference them.
+ */
+@Service
+@Slf4j
+public class ArtifactStore
+{
+
+    private final ArtifactProperties properties;
+    private final ArtifactRepo artifactRepo;
+    private final RunArtifactRepo runArtifactRepo;
+    private final Path root;
+
+    // Guards lookup/link against eviction so a blob is never deleted while it gets referenced again
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong artifactCount = new AtomicLong();
+    private final Counter deduplicated;
+    private final Counter evicted;
+    private final Counter evictedBytes;
+    private final Counter missing;
+
+    public ArtifactStore (ArtifactProperties properties, ArtifactRepo artifactRepo, RunArtifactRepo runArtifactRepo, MeterRegistry meterRegistry) throws IOException
+    {
+        this.properties = properties;
+        this.artifactRepo = artifactRepo;
+        this.runArtifactRepo = runArtifactRepo;
+        this.root = Path.of(properties.getStoreDir());
+        Files.createDirectories(root);
+
+        Gauge.builder("artifacts.store.bytes", totalBytes, AtomicLong::get)
+                .description("Bytes held by the artifact store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("artifacts.store.count", artifactCount, AtomicLong::get)
+                .description("Distinct blobs held by the artifact store")
+                .register(meterRegistry);
+        Gauge.builder("artifacts.disk.free", root, path -> path.toFile().getUsableSpace())
+                .description("Usable space on the volume of the artifact store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.deduplicated = Counter.builder("artifacts.deduplicated")
+                .description("Stored files whose content was already present")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("artifacts.evicted")
+                .description("Blobs removed by the compactor")
+                .register(meterRegistry);
+        this.evictedBytes = Counter.builder("artifacts.evicted.bytes")
+                .description("Bytes removed by the compactor")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.missing = Counter.builder("artifacts.missing")
+                .description("Reported attachments whose file was gone before it could be stored")
+                .register(meterRegistry);
+
+        log.info("Artifacts will be stored in: {}", root.toAbsolutePath());
+    }
+
+    /**
+     * Stores all file attachments of the given tests and links them to the run. Every
+     * invocation writes to its own output directory, so a missing file is a lost artifact;
+     * it is skipped and counted.
+     */
+    public List<RunArtifact> ingestAttachments (TestRun run, List<ReportTestResult> tests)
+    {
+        List<RunArtifact> stored = new ArrayList<>();
+        for (ReportTestResult test : tests)
+        {
+            for (ReportAttachment attachment : test.getAttachments())
+            {
+                if (attachment.getPath() == null)
+                {
+                    continue;
+                }
+                Path source = resolveAttachment(attachment.getPath());
+                if (!Files.isRegularFile(source))
+                {
+                    log.warn("Attachment {} of run {} no longer exists", source, run.getId());
+                    missing.increment();
+                    continue;
+                }
+                try
+                {
+                    stored.add(store(run, source, attachment.getName(), attachment.getContentType(), attachment.getRetry()));
+                } catch (IOException e)
+                {
+                    log.warn("Could not store attachment {} of run {}", source, run.getId(), e);
+                }
+            }
+        }
+        return stored;
+    }
+
+    public RunArtifact store (TestRun run, Path source, String name, String contentType, Integer retry) throws IOException
+    {
+        Path temp = Files.createTempFile(root, "incoming-", ".tmp");
+        String sha256;
+        long size;
+        try
+        {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest))
+            {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            sha256 = HexFormat.of().formatHex(digest.digest());
+
+            lock.lock();
+            try
+            {
+                Artifact artifact = artifactRepo.findBySha256(sha256).orElse(null);
+                if (artifact != null && Files.exists(blobPath(sha256)))
+                {
+                    deduplicated.increment();
+                    artifact.setLastReferencedAt(LocalDateTime.now());
+                } else
+                {
+                    Path blob = blobPath(sha256);
+                    Files.createDirectories(blob.getParent());
+                    Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    if (artifact == null)
+                    {
+                        artifact = new Artifact();
+                        artifact.setSha256(sha256);
+                        artifact.setSizeBytes(size);
+                        artifact.setContentType(contentType);
+                        artifactCount.incrementAndGet();
+                        totalBytes.addAndGet(size);
+                    }
+                }
+                artifact = artifactRepo.save(artifact);
+
+                RunArtifact link = new RunArtifact();
+                link.setTestRun(run);
+                link.setArtifact(artifact);
+                link.setName(name);
+                link.setRetry(retry);
+                return runArtifactRepo.save(link);
+            } finally
+            {
+                lock.unlock();
+            }
+        } finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Path blobPath (String sha256)
+    {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    /**
+     * Removes the blob of an artifact together with all run links to it.
+     */
+    public void evict (Artifact artifact)
+    {
+        lock.lock();
+        try
+        {
+            runArtifactRepo.deleteAll(runArtifactRepo.findByArtifact_Id(artifact.getId()));
+            artifactRepo.delete(artifact);
+            Files.deleteIfExists(blobPath(artifact.getSha256()));
+
+            long size = artifact.getSizeBytes() != null ? artifact.getSizeBytes() : 0;
+            evicted.increment();
+            evictedBytes.increment(size);
+            artifactCount.decrementAndGet();
+            totalBytes.addAndGet(-size);
+        } catch (IOException e)
+        {
+            log.warn("Could not delete blob of artifact {}", artifact.getId(), e);
+        } finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Re-reads size and count from the database, e.g. on startup or after a compaction.
+     */
+    public void refreshUsage ()
+    {
+        totalBytes.set(artifactRepo.sumSizeBytes());
+        artifactCount.set(artifactRepo.count());
+    }
+
+    public ArtifactUsageDto getUsage ()
+    {
+        ArtifactUsageDto dto = new ArtifactUsageDto();
+        dto.setArtifactCount(artifactCount.get());
+        dto.setTotalBytes(totalBytes.get());
+        dto.setMaxTotalBytes(properties.getMaxTotalSize().toBytes());
+        dto.setFreeDiskBytes(root.toFile().getUsableSpace());
+        return dto;
+    }
+
+    private Path resolveAttachment (String path)
+    {
+        Path attachment = Path.of(path);
+        // Playwright reports absolute paths; relative ones are relative to its working directory
+        return attachment.isAbsolute() ? attachment : Path.of("backend").resolve(attachment);
+    }
+
+    private MessageDigest sha256 ()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.dto.TestDurationDto;
+import com.example.backend.dto.TestFailureRateDto;
+import com.example.backend.models.TestModel;
+import com.example.backend.repo.SpecResultRepo;
+import com.example.backend.repo.TestRunRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+/**
+ * Orders the tests of a batch so that likely failures run first. Each test is ranked by its
+ * failure probability per expected second of runtime, which minimizes the expected time until
+ * the first failure shows up. Tests without history count as 50% likely to fail.
+ */
+@Service
+@Slf4j
+public class BatchPrioritizer
+{
+
+    static final long DEFAULT_DURATION_MS = 30_000;
+
+    private final TestRunRepo testRunRepo;
+    private final SpecResultRepo specResultRepo;
+    private final TestRunnerProperties properties;
+
+    public BatchPrioritizer (TestRunRepo testRunRepo, SpecResultRepo specResultRepo, TestRunnerProperties properties)
+    {
+        this.testRunRepo = testRunRepo;
+        this.specResultRepo = specResultRepo;
+        this.properties = properties;
+    }
+
+    public List<TestModel> prioritize (List<TestModel> tests)
+    {
+        if (tests.size() < 2)
+        {
+            return tests;
+        }
+
+        List<Long> testIds = tests.stream().map(TestModel::getId).toList();
+        LocalDateTime since = LocalDateTime.now().minus(properties.getPriorityHistory());
+        Map<Long, TestFailureRateDto> failureRates = testRunRepo.findFailureRates(testIds, since).stream()
+                .collect(Collectors.toMap(TestFailureRateDto::getTestId, Function.identity()));
+        Map<Long, Long> durations = specResultRepo.findDurations(testIds, since).stream()
+                .filter(duration -> duration.getRuns() > 0)
+                .collect(Collectors.toMap(TestDurationDto::getTestId, duration -> duration.getTotalDurationMs() / duration.getRuns()));
+
+        // tests without recorded duration are assumed to take as long as the average known test
+        long fallbackDuration = (long) durations.values().stream()
+                .mapToLong(Long::longValue)
+                .average()
+                .orElse(DEFAULT_DURATION_MS);
+
+        Map<Long, Double> scores = tests.stream().collect(Collectors.toMap(TestModel::getId, test ->
+        {
+            TestFailureRateDto rate = failureRates.get(test.getId());
+            long runs = rate != null ? rate.getRuns() : 0;
+            long failures = rate != null ? rate.getFailures() : 0;
+            return score(runs, failures, durations.getOrDefault(test.getId(), fallbackDuration));
+        }));
+
+        List<TestModel> ordered = tests.stream()
+                .sorted(Comparator.comparing((TestModel test) -> scores.get(test.getId())).reversed()
+                        .thenComparing(TestModel::getId))
+                .toList();
+        log.debug("Prioritized tests {}", ordered.stream().map(TestModel::getId).toList());
+        return ordered;
+    }
+
+    /**
+     * Laplace-smoothed failure probability divided by the expected duration.
+     */
+    static double score (long runs, long failures, long durationMs)
+    {
+        double failureProbability = (failures + 1.0) / (runs + 2.0);
+        return failureProbability / Math.max(1, durationMs);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.EFileType;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.exceptions.FileOperationException;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.exceptions.ValidationException;
+import com.example.backend.models.ExecutionProfile;
+import com.example.backend.models.ScheduledRun;
+import com.example.backend.models.TestBatch;
+import com.example.backend.models.TestModel;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRepo;
+import com.example.backend.repo.TestRunRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+
+/**
+ * Collects the generated spec files of a user story or project and queues them as one batch.
+ * Scheduled runs use the same path for a single test, story or project.
+ */
+@Service
+@Slf4j
+public class BatchRunService
+{
+
+    private final TestRepo testRepo;
+    private final TestRunRepo testRunRepo;
+    private final TestBatchRepo testBatchRepo;
+    private final FileService fileService;
+    private final TestRunDispatcher testRunDispatcher;
+    private final TestRunnerProperties properties;
+    private final FlakinessService flakinessService;
+    private final BatchPrioritizer batchPrioritizer;
+    private final ExecutionProfileService executionProfileService;
+    private final SpecFingerprinter specFingerprinter;
+
+    public BatchRunService (TestRepo testRepo, TestRunRepo testRunRepo, TestBatchRepo testBatchRepo, FileService fileService, TestRunDispatcher testRunDispatcher, TestRunnerProperties properties, FlakinessService flakinessService, BatchPrioritizer batchPrioritizer, ExecutionProfileService executionProfileService, SpecFingerprinter specFingerprinter)
+    {
+        this.testRepo = testRepo;
+        this.testRunRepo = testRunRepo;
+        this.testBatchRepo = testBatchRepo;
+        this.fileService = fileService;
+        this.testRunDispatcher = testRunDispatcher;
+        this.properties = properties;
+        this.flakinessService = flakinessService;
+        this.batchPrioritizer = batchPrioritizer;
+        this.executionProfileService = executionProfileService;
+        this.specFingerprinter = specFingerprinter;
+    }
+
+    public TestBatch submitForStory (Long storyId, Integer workers, boolean skipQuarantined, boolean prioritize, Integer maxFailures, String profileName)
+    {
+        return submit(BatchScope.STORY, storyId, testRepo.findByStoryID(storyId), workers, skipQuarantined, prioritize, maxFailures, profileName, null, null, null);
+    }
+
+    public TestBatch submitForProject (Long projectId, Integer workers, boolean skipQuarantined, boolean prioritize, Integer maxFailures, String profileName)
+    {
+        return submit(BatchScope.PROJECT, projectId, testRepo.findByProjectID(projectId), workers, skipQuarantined, prioritize, maxFailures, profileName, null, null, null);
+    }
+
+    /**
+     * Starts the batch of one browser of a matrix run.
+     */
+    public TestBatch submitForBrowser (BatchScope scope, Long scopeId, Integer workers, boolean skipQuarantined, String profileName, Browser browser, Long matrixRunId)
+    {
+        return submit(scope, scopeId, findTests(scope, scopeId), workers, skipQuarantined, false, null, profileName, null, browser, matrixRunId);
+    }
+
+    /**
+     * Starts the batch of a scheduled run, restricted to the tests of its target environment.
+     * It runs with the default execution profile of the project.
+     */
+    public TestBatch submitForSchedule (ScheduledRun schedule, int workers)
+    {
+        List<TestModel> tests = findTests(schedule.getScope(), schedule.getScopeId());
+        if (schedule.getEnvironment() != null)
+        {
+            Long environmentId = schedule.getEnvironment().getId();
+            tests = tests.stream()
+                    .filter(test -> test.getEnvironment() != null && Objects.equals(test.getEnvironment().getId(), environmentId))
+                    .toList();
+        }
+        return submit(schedule.getScope(), schedule.getScopeId(), tests, workers, schedule.isSkipQuarantined(), false, null, null, schedule.getId(), null, null);
+    }
+
+    private List<TestModel> findTests (BatchScope scope, Long scopeId)
+    {
+        return switch (scope)
+        {
+            case TEST -> List.of(testRepo.findById(scopeId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Test", scopeId)));
+            case STORY -> testRepo.findByStoryID(scopeId);
+            case PROJECT -> testRepo.findByProjectID(scopeId);
+        };
+    }
+
+    private TestBatch submit (BatchScope scope, Long scopeId, List<TestModel> tests, Integer workers, boolean skipQuarantined, boolean prioritize, Integer maxFailures, String profileName, Long scheduleId, Browser browser, Long matrixRunId)
+    {
+        if (maxFailures != null && maxFailures < 1)
+        {
+            throw new ValidationException("maxFailures must be at least 1");
+        }
+
+        Set<String> specFiles;
+        try
+        {
+            specFiles = fileService.listFiles(EFileType.SPEC_TS);
+        } catch (IOException e)
+        {
+            throw new FileOperationException("Failed to list spec files", e);
+        }
+
+        List<TestModel> generated = tests.stream()
+                .filter(test -> specFiles.contains(test.getId() + EFileType.SPEC_TS.getExtension()))
+                .toList();
+        Set<Long> quarantined = skipQuarantined ? flakinessService.getQuarantinedTestIds() : Set.of();
+        List<TestModel> runnable = generated.stream()
+                .filter(test -> !quarantined.contains(test.getId()))
+                .toList();
+
+        if (runnable.isEmpty())
+        {
+            throw new ValidationException("No generated tests found for " + scope.name().toLowerCase() + " " + scopeId);
+        }
+
+        // all tests of a batch belong to the same project
+        ExecutionProfile profile = executionProfileService.resolve(runnable.get(0).getId(), profileName);
+        Long profileId = profile != null ? profile.getId() : null;
+
+        TestBatch batch = new TestBatch();
+        batch.setScope(scope);
+        batch.setScopeId(scopeId);
+        batch.setStatus(TestStatus.PENDING);
+        batch.setWorkers(resolveWorkers(workers, runnable.size()));
+        batch.setPrioritized(prioritize);
+        batch.setMaxFailures(maxFailures);
+        batch.setScheduleId(scheduleId);
+        batch.setProfileId(profileId);
+        batch.setBrowser(browser);
+        batch.setMatrixRunId(matrixRunId);
+        batch.setDescription(String.format("%d test(s) queued, %d without spec file, %d quarantined",
+                runnable.size(), tests.size() - generated.size(), generated.size() - runnable.size()));
+        TestBatch savedBatch = testBatchRepo.save(batch);
+
+        if (prioritize)
+        {
+            runnable = batchPrioritizer.prioritize(runnable);
+        }
+
+        List<TestRun> runs = new ArrayList<>();
+        for (TestModel test : runnable)
+        {
+            TestRun run = new TestRun();
+            run.setTest(test);
+            run.setBatch(savedBatch);
+            // like single runs, so the flakiness score sees results that flip with unchanged spec and config
+            run.setResultHash(SpecFingerprinter.resultHash(specFingerprinter.fingerprint(test.getId(), profile).resultHash(), browser));
+            run.setProfileId(profileId);
+            run.setBrowser(browser);
+            run.setMatrixRunId(matrixRunId);
+            run.setStatus(TestStatus.PENDING);
+            run.setExecutedAt(LocalDateTime.now());
+            run.setDescription("Test execution in progress...");
+            runs.add(run);
+        }
+
+        log.info("Created batch {} for {} {} with {} run(s)", savedBatch.getId(), scope, scopeId, runs.size());
+        return testRunDispatcher.submitBatch(savedBatch, testRunRepo.saveAll(runs));
+    }
+
+    private int resolveWorkers (Integer requested, int specCount)
+    {
+        int workers = requested != null ? requested : properties.getBatchWorkers();
+        return Math.max(1, Math.min(workers, Math.min(properties.getMaxBatchWorkers(), specCount)));
+    }
+}
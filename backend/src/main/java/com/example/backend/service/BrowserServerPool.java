@@ -0,0 +1,513 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.BrowserPoolProperties;
+import com.example.backend.constants.Browser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+
+/**
+ * Keeps long-lived Playwright browser servers running, so runs connect to an already launched
+ * browser instead of starting one per Playwright invocation. A run leases a server for the
+ * duration of its process and is the only client of that server meanwhile, so its memory
+ * growth and its number of uses can be attributed to the runs it served. Servers are replaced
+ * after {@code maxUses} invocations, once their memory grew beyond the configured limit, and
+ * when the health check finds them unreachable.
+ * <p>
+ * A run that finds no idle server launches its own browser as before, so the pool never
+ * delays a run.
+ */
+@Service
+@Slf4j
+public class BrowserServerPool
+{
+
+    /**
+     * Read by Playwright Test, which then connects to the given endpoint instead of launching a browser.
+     */
+    static final String CONNECT_ENV = "PW_TEST_CONNECT_WS_ENDPOINT";
+
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final long STARTUP_POLL_MILLIS = 200;
+    // launching waits for the browser to accept connections, which must not block a caller
+    private static final Executor LAUNCHER = task -> Thread.ofVirtual().name("browser-server-launch").start(task);
+
+    private final BrowserPoolProperties properties;
+    private final ProcessSupervisor processSupervisor;
+    private final ServerLauncher launcher;
+    private final MeterRegistry meterRegistry;
+
+    // guarded by this
+    private final Map<Browser, Deque<BrowserServer>> idle = new EnumMap<>(Browser.class);
+    private final Set<BrowserServer> leased = new HashSet<>();
+    private final Map<Browser, Integer> starting = new EnumMap<>(Browser.class);
+    private boolean closed;
+
+    private final Counter launchSaved;
+
+    public BrowserServerPool (BrowserPoolProperties properties, ProcessSupervisor processSupervisor, MeterRegistry meterRegistry)
+    {
+        this(properties, processSupervisor, null, meterRegistry);
+    }
+
+    BrowserServerPool (BrowserPoolProperties properties, ProcessSupervisor processSupervisor, ServerLauncher launcher, MeterRegistry meterRegistry)
+    {
+        this.properties = properties;
+        this.processSupervisor = processSupervisor;
+        this.launcher = launcher != null ? launcher : this::launchNode;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("browser.pool.servers", this, BrowserServerPool::getServerCount)
+                .description("Browser servers running in the pool")
+                .register(meterRegistry);
+        Gauge.builder("browser.pool.leased", this, BrowserServerPool::getLeasedCount)
+                .description("Browser servers currently leased by a run")
+                .register(meterRegistry);
+        Gauge.builder("browser.pool.utilization", this, BrowserServerPool::getUtilization)
+                .description("Share of the running browser servers that are leased")
+                .register(meterRegistry);
+        this.launchSaved = Counter.builder("browser.pool.launch.saved")
+                .description("Browser launch time runs saved by connecting to a pooled server, estimated from the launch time of the server")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start ()
+    {
+        if (properties.isEnabled())
+        {
+            replenish();
+        }
+    }
+
+    /**
+     * Leases an idle server of the browser. The returned lease has no endpoint if the pool is
+     * disabled, the browser has no pool, the run needs a headed browser, or all servers are in use.
+     */
+    public Lease lease (Browser browser, boolean headed)
+    {
+        if (!properties.isEnabled() || headed || !properties.getBrowsers().contains(browser))
+        {
+            return new Lease(this, null);
+        }
+
+        BrowserServer server;
+        synchronized (this)
+        {
+            Deque<BrowserServer> servers = idle.getOrDefault(browser, new ArrayDeque<>());
+            server = servers.pollFirst();
+            // a server that died since the last health check is dropped and replaced
+            while (server != null && !server.process().isAlive())
+            {
+                recycle(server, "unhealthy");
+                server = servers.pollFirst();
+            }
+            if (server != null)
+            {
+                server.uses++;
+                leased.add(server);
+            }
+        }
+
+        meterRegistry.counter("browser.pool.leases", "browser", browser.getProject(), "result", server != null ? "hit" : "miss").increment();
+        if (server == null)
+        {
+            return new Lease(this, null);
+        }
+        launchSaved.increment(server.launchTime().toNanos() / 1e9);
+        return new Lease(this, server);
+    }
+
+    /**
+     * Replaces idle servers that no longer accept connections and starts missing ones.
+     */
+    @Scheduled(fixedDelayString = "${playwright.browser-pool.health-check-interval:PT30S}")
+    public void checkHealth ()
+    {
+        if (!properties.isEnabled())
+        {
+            return;
+        }
+
+        List<BrowserServer> candidates;
+        synchronized (this)
+        {
+            candidates = idle.values().stream().flatMap(Deque::stream).toList();
+        }
+        for (BrowserServer server : candidates)
+        {
+            if (!isHealthy(server))
+            {
+                synchronized (this)
+                {
+                    // only servers that were not leased meanwhile are replaced here
+                    if (idle.get(server.browser()).remove(server))
+                    {
+                        log.warn("Browser server {} for {} is unreachable, replacing it", server.process().pid(), server.browser().getProject());
+                        recycle(server, "unhealthy");
+                    }
+                }
+            }
+        }
+        replenish();
+    }
+
+    public synchronized int getServerCount ()
+    {
+        return idle.values().stream().mapToInt(Deque::size).sum() + leased.size();
+    }
+
+    public synchronized int getLeasedCount ()
+    {
+        return leased.size();
+    }
+
+    public synchronized double getUtilization ()
+    {
+        int servers = getServerCount();
+        return servers > 0 ? (double) leased.size() / servers : 0;
+    }
+
+    @PreDestroy
+    public void shutdown ()
+    {
+        List<BrowserServer> servers = new ArrayList<>();
+        synchronized (this)
+        {
+            closed = true;
+            idle.values().forEach(servers::addAll);
+            idle.clear();
+            servers.addAll(leased);
+            leased.clear();
+        }
+        CompletableFuture.allOf(servers.stream()
+                        .map(server -> CompletableFuture.runAsync(() -> processSupervisor.kill(server.process()), LAUNCHER))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+    }
+
+    private void release (BrowserServer server)
+    {
+        long growth = server.baselineBytes() >= 0 ? residentBytes(server.process()) - server.baselineBytes() : 0;
+        synchronized (this)
+        {
+            if (!leased.remove(server))
+            {
+                return;
+            }
+            if (closed)
+            {
+                stop(server);
+            } else if (!server.process().isAlive())
+            {
+                recycle(server, "unhealthy");
+            } else if (server.uses >= properties.getMaxUses())
+            {
+                recycle(server, "uses");
+            } else if (growth > properties.getMaxMemoryGrowth().toBytes())
+            {
+                log.info("Browser server {} grew by {} MB, replacing it", server.process().pid(), growth / (1024 * 1024));
+                recycle(server, "memory");
+            } else
+            {
+                idle.computeIfAbsent(server.browser(), browser -> new ArrayDeque<>()).addFirst(server);
+                return;
+            }
+        }
+        replenish();
+    }
+
+    // called with the lock held, the server is already removed from idle and leased
+    private void recycle (BrowserServer server, String reason)
+    {
+        meterRegistry.counter("browser.pool.recycled", "browser", server.browser().getProject(), "reason", reason).increment();
+        stop(server);
+    }
+
+    private void stop (BrowserServer server)
+    {
+        LAUNCHER.execute(() -> processSupervisor.kill(server.process()));
+    }
+
+    private void replenish ()
+    {
+        List<Browser> launches = new ArrayList<>();
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            for (Browser browser : properties.getBrowsers())
+            {
+                long running = idle.getOrDefault(browser, new ArrayDeque<>()).size()
+                        + leased.stream().filter(server -> server.browser() == browser).count()
+                        + starting.getOrDefault(browser, 0);
+                for (long i = running; i < properties.getSize(); i++)
+                {
+                    starting.merge(browser, 1, Integer::sum);
+                    launches.add(browser);
+                }
+            }
+        }
+        launches.forEach(browser -> LAUNCHER.execute(() -> launchInto(browser)));
+    }
+
+    private void launchInto (Browser browser)
+    {
+        BrowserServer server = null;
+        try
+        {
+            server = launcher.launch(browser);
+            Timer.builder("browser.pool.launch")
+                    .description("Time a browser server takes until it accepts connections")
+                    .tag("browser", browser.getProject())
+                    .register(meterRegistry)
+                    .record(server.launchTime());
+            log.info("Started {} browser server {} in {} ms", browser.getProject(), server.process().pid(), server.launchTime().toMillis());
+        } catch (IOException e)
+        {
+            log.warn("Could not start {} browser server: {}", browser.getProject(), e.getMessage());
+        }
+
+        synchronized (this)
+        {
+            starting.merge(browser, -1, Integer::sum);
+            if (server == null)
+            {
+                return;
+            }
+            if (closed)
+            {
+                stop(server);
+                return;
+            }
+            idle.computeIfAbsent(browser, key -> new ArrayDeque<>()).addLast(server);
+        }
+    }
+
+    /**
+     * Starts {@code browser-server.js} on a free local port and waits until it accepts connections.
+     */
+    private BrowserServer launchNode (Browser browser) throws IOException
+    {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 0, LOOPBACK))
+        {
+            port = socket.getLocalPort();
+        }
+        String wsPath = "/" + UUID.randomUUID();
+
+        ProcessBuilder processBuilder = new ProcessBuilder("node", properties.getScript(), browser.getProject(), String.valueOf(port), wsPath);
+        processBuilder.directory(new File(System.getProperty("user.dir"), "backend"));
+        processBuilder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+        long start = System.nanoTime();
+        Process process = processBuilder.start();
+        long deadline = start + properties.getStartupTimeout().toNanos();
+        try
+        {
+            while (!canConnect(port))
+            {
+                if (!process.isAlive())
+                {
+                    throw new IOException("Browser server exited with code " + process.exitValue());
+                }
+                if (System.nanoTime() - deadline > 0)
+                {
+                    throw new IOException("Browser server did not accept connections within " + properties.getStartupTimeout());
+                }
+                TimeUnit.MILLISECONDS.sleep(STARTUP_POLL_MILLIS);
+            }
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            processSupervisor.kill(process);
+            throw new IOException("Interrupted while starting the browser server", e);
+        } catch (IOException e)
+        {
+            processSupervisor.kill(process);
+            throw e;
+        }
+
+        Duration launchTime = Duration.ofNanos(System.nanoTime() - start);
+        return new BrowserServer(browser, process, "ws://" + LOOPBACK.getHostAddress() + ":" + port + wsPath, port, launchTime, residentBytes(process));
+    }
+
+    static boolean isHealthy (BrowserServer server)
+    {
+        return server.process().isAlive() && canConnect(server.port());
+    }
+
+    private static boolean canConnect (int port)
+    {
+        try (Socket socket = new Socket())
+        {
+            socket.connect(new InetSocketAddress(LOOPBACK, port), CONNECT_TIMEOUT_MILLIS);
+            return true;
+        } catch (IOException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Resident memory of the process and everything it spawned, read from {@code /proc}.
+     *
+     * @return the size in bytes, or {@code -1} where {@code /proc} is not available
+     */
+    static long residentBytes (Process process)
+    {
+        long total = 0;
+        for (ProcessHandle handle : Stream.concat(Stream.of(process.toHandle()), process.descendants()).toList())
+        {
+            Path status = Path.of("/proc", String.valueOf(handle.pid()), "status");
+            try (Stream<String> lines = Files.lines(status))
+            {
+                total += lines.filter(line -> line.startsWith("VmRSS:"))
+                        .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024)
+                        .sum();
+            } catch (IOException | UncheckedIOException e)
+            {
+                if (handle.pid() == process.pid())
+                {
+                    return -1;
+                }
+                // a descendant that exited meanwhile no longer uses memory
+            }
+        }
+        return total;
+    }
+
+    interface ServerLauncher
+    {
+        BrowserServer launch (Browser browser) throws IOException;
+    }
+
+    /**
+     * A running browser server.
+     *
+     * @param baselineBytes resident memory right after the launch, {@code -1} if unknown
+     */
+    static final class BrowserServer
+    {
+        private final Browser browser;
+        private final Process process;
+        private final String endpoint;
+        private final int port;
+        private final Duration launchTime;
+        private final long baselineBytes;
+        // guarded by the pool
+        private int uses;
+
+        BrowserServer (Browser browser, Process process, String endpoint, int port, Duration launchTime, long baselineBytes)
+        {
+            this.browser = browser;
+            this.process = process;
+            this.endpoint = endpoint;
+            this.port = port;
+            this.launchTime = launchTime;
+            this.baselineBytes = baselineBytes;
+        }
+
+        Browser browser ()
+        {
+            return browser;
+        }
+
+        Process process ()
+        {
+            return process;
+        }
+
+        String endpoint ()
+        {
+            return endpoint;
+        }
+
+        int port ()
+        {
+            return port;
+        }
+
+        Duration launchTime ()
+        {
+            return launchTime;
+        }
+
+        long baselineBytes ()
+        {
+            return baselineBytes;
+        }
+    }
+
+    /**
+     * A server leased by one Playwright invocation; closing the lease returns it to the pool.
+     */
+    public static final class Lease implements AutoCloseable
+    {
+        private final BrowserServerPool pool;
+        private final BrowserServer server;
+        private boolean released;
+
+        private Lease (BrowserServerPool pool, BrowserServer server)
+        {
+            this.pool = pool;
+            this.server = server;
+        }
+
+        /**
+         * Endpoint to connect to, {@code null} if the run launches its own browser.
+         */
+        public String getEndpoint ()
+        {
+            return server != null ? server.endpoint() : null;
+        }
+
+        @Override
+        public synchronized void close ()
+        {
+            if (!released && server != null)
+            {
+                released = true;
+                pool.release(server);
+            }
+        }
+    }
+}
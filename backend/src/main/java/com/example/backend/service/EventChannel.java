@@ -0,0 +1,37 @@
+package com.example.backend.service;
+
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+
+/**
+ * Live event stream of one run or job. Late subscribers get the most recent events replayed
+ * before the live ones; the sink keeps both in one buffer, so no event emitted while a
+ * subscriber joins is lost or delivered twice.
+ */
+final class EventChannel<T>
+{
+    private final Sinks.Many<T> sink;
+
+    EventChannel (int replaySize)
+    {
+        this.sink = Sinks.many().replay().limit(replaySize);
+    }
+
+    // emits are serialized, the sink rejects concurrent ones
+    synchronized void emit (T event)
+    {
+        sink.tryEmitNext(event);
+    }
+
+    synchronized void complete ()
+    {
+        sink.tryEmitComplete();
+    }
+
+    Flux<T> flux ()
+    {
+        return sink.asFlux();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.backend.service;
+
+
+import com.example.backend.dto.ExecutionProfileDto;
+import com.example.backend.dto.ExecutionProfileRequest;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.exceptions.ValidationException;
+import com.example.backend.mapper.ExecutionProfileMapper;
+import com.example.backend.models.ExecutionProfile;
+import com.example.backend.models.Project;
+import com.example.backend.repo.ExecutionProfileRepo;
+import com.example.backend.repo.ProjectRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * Stores the execution profiles of a project and resolves the profile a run is started with:
+ * the one named by the caller, otherwise the default profile of the test's project. Runs
+ * without a profile use the static Playwright configuration.
+ */
+@Service
+@Slf4j
+public class ExecutionProfileService
+{
+
+    private final ExecutionProfileRepo executionProfileRepo;
+    private final ProjectRepo projectRepo;
+    private final ExecutionProfileMapper executionProfileMapper;
+
+    public ExecutionProfileService (ExecutionProfileRepo executionProfileRepo, ProjectRepo projectRepo, ExecutionProfileMapper executionProfileMapper)
+    {
+        this.executionProfileRepo = executionProfileRepo;
+        this.projectRepo = projectRepo;
+        this.executionProfileMapper = executionProfileMapper;
+    }
+
+    public List<ExecutionProfileDto> list (Long projectId)
+    {
+        if (!projectRepo.existsById(projectId))
+        {
+            throw new ResourceNotFoundException("Project", projectId);
+        }
+        return executionProfileRepo.findByProject_IdOrderByName(projectId).stream()
+                .map(executionProfileMapper::toDto)
+                .toList();
+    }
+
+    public ExecutionProfileDto get (Long id)
+    {
+        return executionProfileMapper.toDto(find(id));
+    }
+
+    public synchronized ExecutionProfileDto create (Long projectId, ExecutionProfileRequest request)
+    {
+        Project project = projectRepo.findById(projectId)
+                .orElseThrow(() -> new ResourceNotFoundException("Project", projectId));
+
+        ExecutionProfile profile = new ExecutionProfile();
+        profile.setProject(project);
+        apply(profile, request);
+        ExecutionProfile saved = executionProfileRepo.save(profile);
+        log.info("Created execution profile {} '{}' for project {}", saved.getId(), saved.getName(), projectId);
+        return executionProfileMapper.toDto(saved);
+    }
+
+    public synchronized ExecutionProfileDto update (Long id, ExecutionProfileRequest request)
+    {
+        ExecutionProfile profile = find(id);
+        apply(profile, request);
+        return executionProfileMapper.toDto(executionProfileRepo.save(profile));
+    }
+
+    public void delete (Long id)
+    {
+        executionProfileRepo.delete(find(id));
+    }
+
+    /**
+     * Returns the profile a run of the test is started with, or {@code null} for the static
+     * configuration.
+     *
+     * @param name profile name within the test's project; {@code null} selects the project default
+     */
+    public ExecutionProfile resolve (Long testId, String name)
+    {
+        if (name == null || name.isBlank())
+        {
+            return executionProfileRepo.findDefaultForTest(testId).orElse(null);
+        }
+        return executionProfileRepo.findForTest(testId, name.trim())
+                .orElseThrow(() -> new ValidationException("Unknown execution profile '" + name.trim() + "' for test " + testId));
+    }
+
+    private ExecutionProfile find (Long id)
+    {
+        return executionProfileRepo.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("ExecutionProfile", id));
+    }
+
+    private void apply (ExecutionProfile profile, ExecutionProfileRequest request)
+    {
+        Long projectId = profile.getProject().getId();
+        String name = request.getName().trim();
+        executionProfileRepo.findByProject_IdAndName(projectId, name)
+                .filter(existing -> !Objects.equals(existing.getId(), profile.getId()))
+                .ifPresent(existing ->
+                {
+                    throw new ValidationException("Execution profile '" + name + "' already exists in project " + projectId);
+                });
+
+        if (request.isDefaultProfile())
+        {
+            List<ExecutionProfile> previousDefaults = executionProfileRepo.findByProject_IdOrderByName(projectId).stream()
+                    .filter(ExecutionProfile::isDefaultProfile)
+                    .filter(existing -> !Objects.equals(existing.getId(), profile.getId()))
+                    .toList();
+            previousDefaults.forEach(existing -> existing.setDefaultProfile(false));
+            executionProfileRepo.saveAll(previousDefaults);
+        }
+
+        profile.setName(name);
+        profile.setDefaultProfile(request.isDefaultProfile());
+        profile.setHeadless(request.isHeadless());
+        profile.setWorkers(request.getWorkers());
+        profile.setRetries(request.getRetries());
+        // list and json are always generated, the runner streams and parses them
+        List<String> reporters = request.getReporters() != null ? request.getReporters() : List.of();
+        profile.setReporters(String.join(",", reporters.stream()
+                .filter(reporter -> !PlaywrightConfigWriter.REQUIRED_REPORTERS.contains(reporter))
+                .distinct()
+                .toList()));
+        profile.setTestTimeoutMs(request.getTestTimeoutMs());
+        profile.setActionTimeoutMs(request.getActionTimeoutMs());
+        profile.setExpectTimeoutMs(request.getExpectTimeoutMs());
+        if (request.getTrace() != null)
+        {
+            profile.setTrace(request.getTrace());
+        }
+    }
+}
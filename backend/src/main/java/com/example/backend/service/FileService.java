@@ -12,6 +12,9 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @Service
@@ -56,4 +59,16 @@ public class FileService implements IFileService
         }
         return Files.readString(file, StandardCharsets.UTF_8);
     }
+
+    @Override
+    public Set<String> listFiles (EFileType fileType) throws IOException
+    {
+        try (Stream<Path> files = Files.list(BASE_PATH))
+        {
+            return files
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(fileType.getExtension()))
+                    .collect(Collectors.toSet());
+        }
+    }
 }
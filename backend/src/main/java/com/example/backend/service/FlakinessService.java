@@ -0,0 +1,125 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.FlakinessProperties;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.TestFlakinessDto;
+import com.example.backend.mapper.TestFlakinessMapper;
+import com.example.backend.models.ReportTestResult;
+import com.example.backend.models.TestFlakiness;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestFlakinessRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+
+/**
+ * Maintains a flakiness score per test as an exponentially weighted moving average over its
+ * runs. A run counts as flaky if a test only passed on retry, or if its result flipped
+ * between passed and failed although spec, config and environment did not change. Tests whose
+ * score crosses the quarantine threshold are quarantined until it falls below the release
+ * threshold again.
+ */
+@Service
+@Slf4j
+public class FlakinessService
+{
+
+    private final TestFlakinessRepo testFlakinessRepo;
+    private final TestFlakinessMapper testFlakinessMapper;
+    private final FlakinessProperties properties;
+
+    public FlakinessService (TestFlakinessRepo testFlakinessRepo, TestFlakinessMapper testFlakinessMapper, FlakinessProperties properties)
+    {
+        this.testFlakinessRepo = testFlakinessRepo;
+        this.testFlakinessMapper = testFlakinessMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Folds a finished run into the score of its test. Runs that were cancelled or did not
+     * execute anything carry no signal and are ignored.
+     */
+    public synchronized TestFlakiness record (TestRun run, List<ReportTestResult> tests)
+    {
+        TestStatus status = run.getStatus();
+        if (run.getTest() == null || (status != TestStatus.PASSED && status != TestStatus.FAILED))
+        {
+            return null;
+        }
+
+        Long testId = run.getTest().getId();
+        TestFlakiness flakiness = testFlakinessRepo.findByTest_Id(testId).orElseGet(() ->
+        {
+            TestFlakiness created = new TestFlakiness();
+            created.setTest(run.getTest());
+            return created;
+        });
+
+        boolean passedOnRetry = tests != null && tests.stream().anyMatch(test -> "flaky".equals(test.getStatus()));
+        boolean flipped = flakiness.getLastStatus() != null
+                && flakiness.getLastStatus() != status
+                && run.getResultHash() != null
+                && Objects.equals(flakiness.getLastResultHash(), run.getResultHash());
+        boolean flaky = passedOnRetry || flipped;
+
+        double sample = flaky ? 1.0 : 0.0;
+        flakiness.setScore(flakiness.getRuns() == 0
+                ? sample
+                : properties.getAlpha() * sample + (1 - properties.getAlpha()) * flakiness.getScore());
+        flakiness.setRuns(flakiness.getRuns() + 1);
+        flakiness.setFlakyRuns(flakiness.getFlakyRuns() + (flaky ? 1 : 0));
+        flakiness.setLastStatus(status);
+        flakiness.setLastResultHash(run.getResultHash());
+        flakiness.setUpdatedAt(LocalDateTime.now());
+
+        if (!flakiness.isQuarantined()
+                && flakiness.getRuns() >= properties.getMinRuns()
+                && flakiness.getScore() >= properties.getQuarantineThreshold())
+        {
+            flakiness.setQuarantined(true);
+            flakiness.setQuarantinedAt(LocalDateTime.now());
+            log.warn("Quarantined test {} with flakiness score {}", testId, String.format("%.2f", flakiness.getScore()));
+        } else if (flakiness.isQuarantined() && flakiness.getScore() < properties.getReleaseThreshold())
+        {
+            flakiness.setQuarantined(false);
+            flakiness.setQuarantinedAt(null);
+            log.info("Released test {} from quarantine with flakiness score {}", testId, String.format("%.2f", flakiness.getScore()));
+        }
+
+        return testFlakinessRepo.save(flakiness);
+    }
+
+    /**
+     * Returns the score of a test; a test without finished runs has an empty score.
+     */
+    public TestFlakinessDto getForTest (Long testId)
+    {
+        return testFlakinessRepo.findByTest_Id(testId)
+                .map(testFlakinessMapper::toDto)
+                .orElseGet(() ->
+                {
+                    TestFlakinessDto empty = new TestFlakinessDto();
+                    empty.setTestId(testId);
+                    return empty;
+                });
+    }
+
+    public List<TestFlakinessDto> list (boolean quarantinedOnly)
+    {
+        List<TestFlakiness> scores = quarantinedOnly
+                ? testFlakinessRepo.findByQuarantinedTrueOrderByScoreDesc()
+                : testFlakinessRepo.findAllByOrderByScoreDesc();
+        return scores.stream().map(testFlakinessMapper::toDto).toList();
+    }
+
+    public Set<Long> getQuarantinedTestIds ()
+    {
+        return Set.copyOf(testFlakinessRepo.findQuarantinedTestIDs());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.GenerationProperties;
+import com.example.backend.models.GenerationCacheEntry;
+import com.example.backend.repo.GenerationCacheRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+
+/**
+ * Persistent cache of generated specs, keyed by {@link AiService#cacheKey}. A hit answers a
+ * generation without a model call or a browser session.
+ */
+@Service
+@Slf4j
+public class GenerationCache
+{
+
+    private final GenerationCacheRepo generationCacheRepo;
+    private final GenerationProperties properties;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter savedCounter;
+
+    public GenerationCache (GenerationCacheRepo generationCacheRepo, GenerationProperties properties, MeterRegistry meterRegistry)
+    {
+        this.generationCacheRepo = generationCacheRepo;
+        this.properties = properties;
+        this.hitCounter = Counter.builder("generation.cache")
+                .description("Generations answered by the spec of an earlier generation")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("generation.cache")
+                .description("Generations that had to call the model")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.savedCounter = Counter.builder("generation.cache.saved")
+                .description("Generation time saved by cache hits")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        Gauge.builder("generation.cache.hit.ratio", this, GenerationCache::getHitRatio)
+                .description("Share of cache lookups that were hits since startup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached spec for the key and records the hit, or records a miss.
+     */
+    public Optional<GenerationCacheEntry> lookup (String cacheKey)
+    {
+        if (!properties.isCache())
+        {
+            return Optional.empty();
+        }
+        Optional<GenerationCacheEntry> entry = generationCacheRepo.findByCacheKey(cacheKey);
+        if (entry.isEmpty())
+        {
+            missCounter.increment();
+            return entry;
+        }
+
+        GenerationCacheEntry hit = entry.get();
+        hit.setHits(hit.getHits() + 1);
+        hit.setLastHitAt(LocalDateTime.now());
+        generationCacheRepo.save(hit);
+        hitCounter.increment();
+        savedCounter.increment(hit.getDurationMs() / 1000.0);
+        return entry;
+    }
+
+    /**
+     * Stores the spec of a successful generation, replacing an earlier one with the same key.
+     */
+    public void store (String cacheKey, Long testId, String spec, int toolCalls, Duration duration)
+    {
+        if (!properties.isCache())
+        {
+            return;
+        }
+        GenerationCacheEntry entry = generationCacheRepo.findByCacheKey(cacheKey)
+                .orElseGet(GenerationCacheEntry::new);
+        entry.setCacheKey(cacheKey);
+        entry.setTestId(testId);
+        entry.setSpec(spec);
+        entry.setToolCalls(toolCalls);
+        entry.setDurationMs(duration.toMillis());
+        entry.setCreatedAt(LocalDateTime.now());
+        try
+        {
+            generationCacheRepo.save(entry);
+        } catch (DataIntegrityViolationException e)
+        {
+            // another generation with the same inputs stored its spec first
+            log.debug("Generation cache entry {} was stored concurrently", cacheKey);
+        }
+    }
+
+    public double getHitRatio ()
+    {
+        double lookups = hitCounter.count() + missCounter.count();
+        return lookups == 0 ? 0 : hitCounter.count() / lookups;
+    }
+}
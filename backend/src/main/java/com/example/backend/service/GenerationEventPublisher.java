@@ -0,0 +1,108 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.GenerationEventType;
+import com.example.backend.dto.GenerationEventDto;
+import com.example.backend.models.GenerationState;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Fans the progress of running generation jobs out to their subscribers, like
+ * {@link TestRunEventPublisher} does for runs.
+ */
+@Service
+public class GenerationEventPublisher
+{
+
+    static final int REPLAY_SIZE = 20;
+    static final int SUBSCRIBER_BUFFER_SIZE = 64;
+
+    private final Map<Long, EventChannel<GenerationEventDto>> channels = new ConcurrentHashMap<>();
+
+    public void open (Long jobId)
+    {
+        channels.computeIfAbsent(jobId, id -> new EventChannel<>(REPLAY_SIZE));
+    }
+
+    /**
+     * Returns the live event stream of a job, or {@code null} if the job is not queued or running.
+     */
+    public Flux<GenerationEventDto> subscribe (Long jobId)
+    {
+        EventChannel<GenerationEventDto> channel = channels.get(jobId);
+        if (channel == null)
+        {
+            return null;
+        }
+        return channel.flux()
+                .onBackpressureBuffer(SUBSCRIBER_BUFFER_SIZE, BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    public void publishStatus (Long jobId, GenerationState state, String message)
+    {
+        publish(jobId, status(jobId, state, message));
+    }
+
+    public void publishToolCall (Long jobId, String tool, int toolCall, int maxToolCalls)
+    {
+        GenerationEventDto event = new GenerationEventDto();
+        event.setType(GenerationEventType.TOOL_CALL);
+        event.setJobId(jobId);
+        event.setState(GenerationState.IN_PROGRESS);
+        event.setTool(tool);
+        event.setToolCall(toolCall);
+        event.setMaxToolCalls(maxToolCalls);
+        event.setMessage("Tool call " + toolCall + " of " + maxToolCalls + ": " + tool);
+        publish(jobId, event);
+    }
+
+    /**
+     * Publishes a chunk of the streamed answer; the chunks concatenated give the spec.
+     */
+    public void publishToken (Long jobId, String token)
+    {
+        GenerationEventDto event = new GenerationEventDto();
+        event.setType(GenerationEventType.TOKEN);
+        event.setJobId(jobId);
+        event.setMessage(token);
+        publish(jobId, event);
+    }
+
+    /**
+     * Publishes the final state and closes the channel of a job.
+     */
+    public void complete (Long jobId, GenerationState state, String message)
+    {
+        publishStatus(jobId, state, message);
+        EventChannel<GenerationEventDto> channel = channels.remove(jobId);
+        if (channel != null)
+        {
+            channel.complete();
+        }
+    }
+
+    static GenerationEventDto status (Long jobId, GenerationState state, String message)
+    {
+        GenerationEventDto event = new GenerationEventDto();
+        event.setType(GenerationEventType.STATUS);
+        event.setJobId(jobId);
+        event.setState(state);
+        event.setMessage(message);
+        return event;
+    }
+
+    private void publish (Long jobId, GenerationEventDto event)
+    {
+        EventChannel<GenerationEventDto> channel = channels.get(jobId);
+        if (channel != null)
+        {
+            channel.emit(event);
+        }
+    }
+}
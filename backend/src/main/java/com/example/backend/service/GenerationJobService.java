@@ -0,0 +1,667 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.AiRetryProperties;
+import com.example.backend.config.GenerationProperties;
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.EFileType;
+import com.example.backend.dto.GenerationEventDto;
+import com.example.backend.exceptions.GenerationException;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.exceptions.RunQueueFullException;
+import com.example.backend.models.GenerationCacheEntry;
+import com.example.backend.models.GenerationJob;
+import com.example.backend.models.GenerationState;
+import com.example.backend.models.TestModel;
+import com.example.backend.repo.GenerationJobRepo;
+import com.example.backend.repo.TestRepo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+/**
+ * Runs AI generations on the bounded {@code generationExecutor} instead of the request thread.
+ * Every phase of a job is persisted and mirrored to the generation state of its test. The tool
+ * calls of the agent and, when streaming, the tokens of its answer are published as progress
+ * events; the spec is only written once the answer is complete. A test has at most one active
+ * generation; submitting it again attaches to the job that is already queued or running.
+ * A test whose generation inputs did not change since an earlier generation gets the cached spec
+ * without a job being queued. Transient model errors are retried with the Spring AI backoff
+ * instead of failing the job. If only some steps changed since the last generation, only their
+ * code and that of steps following removed ones is regenerated and spliced into the current spec.
+ */
+@Service
+@Slf4j
+public class GenerationJobService
+{
+
+    static final Set<GenerationState> ACTIVE = EnumSet.of(GenerationState.QUEUED, GenerationState.IN_PROGRESS);
+    private static final int MESSAGE_LENGTH = 4000;
+    private static final Duration QUEUE_FULL_BACKOFF = Duration.ofSeconds(1);
+
+    private final GenerationJobRepo generationJobRepo;
+    private final TestRepo testRepo;
+    private final AiService aiService;
+    private final GenerationCache generationCache;
+    private final FileService fileService;
+    private final ThreadPoolTaskExecutor generationExecutor;
+    private final GenerationEventPublisher eventPublisher;
+    private final GenerationProperties properties;
+    private final AiRetryProperties retryProperties;
+    private final MeterRegistry meterRegistry;
+    private final String owner;
+    // jobs this instance holds in memory, queued or running
+    private final Set<Long> heldJobIds = ConcurrentHashMap.newKeySet();
+
+    public GenerationJobService (GenerationJobRepo generationJobRepo, TestRepo testRepo, AiService aiService, GenerationCache generationCache, FileService fileService, ThreadPoolTaskExecutor generationExecutor, GenerationEventPublisher eventPublisher, GenerationProperties properties, AiRetryProperties retryProperties, RunLeaseService runLeaseService, MeterRegistry meterRegistry)
+    {
+        this.generationJobRepo = generationJobRepo;
+        this.testRepo = testRepo;
+        this.aiService = aiService;
+        this.generationCache = generationCache;
+        this.fileService = fileService;
+        this.generationExecutor = generationExecutor;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.retryProperties = retryProperties;
+        this.meterRegistry = meterRegistry;
+        this.owner = runLeaseService.getInstanceId();
+
+        Gauge.builder("generation.queue.depth", generationExecutor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Generations waiting for a free worker")
+                .register(meterRegistry);
+        Gauge.builder("generation.workers.active", generationExecutor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Workers currently executing a generation")
+                .register(meterRegistry);
+    }
+
+    public GenerationJob submit (Long testId)
+    {
+        return submit(testId, false);
+    }
+
+    /**
+     * Queues a generation of the test's spec, or returns the generation already in flight.
+     * Unless {@code force} is set, a cached spec for the same inputs is written right away and
+     * returned as a completed job.
+     *
+     * @throws RunQueueFullException if all workers are busy and the queue is full
+     */
+    public GenerationJob submit (Long testId, boolean force)
+    {
+        TestModel test = testRepo.findForGeneration(testId)
+                .orElseThrow(() -> new ResourceNotFoundException("Test", testId));
+
+        GenerationJob job = prepare(test, force);
+        if (job.getState() != GenerationState.QUEUED || job.isCoalesced())
+        {
+            return job;
+        }
+
+        Long jobId = job.getId();
+        try
+        {
+            generationExecutor.execute(() -> execute(jobId));
+        } catch (TaskRejectedException e)
+        {
+            log.warn("Rejected generation job {}: generation queue is full", jobId);
+            finish(job, GenerationState.FAILED, "Rejected: generation queue is full");
+            throw new RunQueueFullException("Generation queue is full, please retry later");
+        }
+        log.info("Queued generation job {} for test {} ({} waiting, {} active)",
+                jobId, testId, generationExecutor.getQueueSize(), generationExecutor.getActiveCount());
+        return job;
+    }
+
+    /**
+     * Generates all tests of a user story or project. The jobs are handed to the worker pool
+     * from a virtual thread, at most {@code parallelism} at a time, so a large scope neither
+     * fills the queue for single generations nor is rejected when the queue is full.
+     *
+     * @param parallelism generations of this submit running at the same time, {@code null}
+     *                    for the configured bulk parallelism; at most the number of workers
+     */
+    public List<GenerationJob> submitForScope (BatchScope scope, Long scopeId, Integer parallelism, boolean force)
+    {
+        List<TestModel> tests = switch (scope)
+        {
+            case STORY -> testRepo.findByStoryID(scopeId);
+            case PROJECT -> testRepo.findByProjectID(scopeId);
+            case TEST -> List.of(testRepo.findById(scopeId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Test", scopeId)));
+        };
+
+        List<GenerationJob> jobs = new ArrayList<>();
+        List<Long> queued = new ArrayList<>();
+        for (TestModel test : tests)
+        {
+            GenerationJob job = testRepo.findForGeneration(test.getId())
+                    .map(loaded -> prepare(loaded, force))
+                    .orElse(null);
+            if (job == null)
+            {
+                continue;
+            }
+            jobs.add(job);
+            if (job.getState() == GenerationState.QUEUED && !job.isCoalesced())
+            {
+                queued.add(job.getId());
+            }
+        }
+
+        int slots = Math.min(parallelism != null ? parallelism : properties.getBulkParallelism(), properties.getWorkers());
+        if (!queued.isEmpty())
+        {
+            Thread.ofVirtual().name("generation-bulk-" + scope.name().toLowerCase() + "-" + scopeId)
+                    .start(() -> dispatch(queued, Math.max(1, slots)));
+        }
+        log.info("Queued {} generation(s) for {} {} ({} cached or already running)",
+                queued.size(), scope, scopeId, jobs.size() - queued.size());
+        return jobs;
+    }
+
+    /**
+     * Returns the generation already in flight for the test, answers it from the cache or
+     * persists a new QUEUED job, which the caller has to execute.
+     */
+    private GenerationJob prepare (TestModel test, boolean force)
+    {
+        Long testId = test.getId();
+        GenerationJob job;
+        synchronized (this)
+        {
+            Optional<GenerationJob> active = generationJobRepo.findFirstByTest_IdAndStateInOrderByIdDesc(testId, ACTIVE);
+            if (active.isPresent())
+            {
+                log.info("Test {} is already being generated by job {}", testId, active.get().getId());
+                meterRegistry.counter("generation.coalesced").increment();
+                active.get().setCoalesced(true);
+                return active.get();
+            }
+
+            if (!force)
+            {
+                Optional<GenerationCacheEntry> hit = generationCache.lookup(aiService.cacheKey(test));
+                if (hit.isPresent())
+                {
+                    GenerationJob cached = answerFromCache(test, hit.get());
+                    if (cached != null)
+                    {
+                        return cached;
+                    }
+                }
+            }
+
+            job = new GenerationJob();
+            job.setTest(test);
+            job.setState(GenerationState.QUEUED);
+            job.setCurrentStep("Waiting for a free worker");
+            job.setMaxToolCalls(properties.getMaxToolCalls());
+            job.setForced(force);
+            job.setOwner(owner);
+            job = save(job);
+            heldJobIds.add(job.getId());
+            testRepo.updateGenerationState(testId, GenerationState.QUEUED);
+        }
+
+        eventPublisher.open(job.getId());
+        eventPublisher.publishStatus(job.getId(), GenerationState.QUEUED, job.getCurrentStep());
+        return job;
+    }
+
+    /**
+     * Feeds the jobs of a bulk submit to the worker pool. A full queue is waited out instead of
+     * failing the remaining jobs; if the thread is interrupted, the jobs left QUEUED stop being
+     * renewed and are failed once their heartbeat expired.
+     */
+    void dispatch (List<Long> jobIds, int parallelism)
+    {
+        Semaphore slots = new Semaphore(parallelism);
+        int dispatched = 0;
+        try
+        {
+            for (Long jobId : jobIds)
+            {
+                slots.acquire();
+                while (true)
+                {
+                    try
+                    {
+                        generationExecutor.execute(() ->
+                        {
+                            try
+                            {
+                                execute(jobId);
+                            } finally
+                            {
+                                slots.release();
+                            }
+                        });
+                        break;
+                    } catch (TaskRejectedException e)
+                    {
+                        TimeUnit.MILLISECONDS.sleep(QUEUE_FULL_BACKOFF.toMillis());
+                    }
+                }
+                dispatched++;
+            }
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            List<Long> remaining = jobIds.subList(dispatched, jobIds.size());
+            log.warn("Stopped dispatching bulk generation jobs {}", remaining);
+            heldJobIds.removeAll(remaining);
+        }
+    }
+
+    public GenerationJob get (Long jobId)
+    {
+        return generationJobRepo.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("GenerationJob", jobId));
+    }
+
+    /**
+     * Returns the most recent generation of a test.
+     */
+    public GenerationJob latestForTest (Long testId)
+    {
+        if (!testRepo.existsById(testId))
+        {
+            throw new ResourceNotFoundException("Test", testId);
+        }
+        return generationJobRepo.findFirstByTest_IdOrderByIdDesc(testId)
+                .orElseThrow(() -> new ResourceNotFoundException("GenerationJob for Test", testId));
+    }
+
+    /**
+     * Returns the live progress of a job, or {@code null} if the job is not queued or running.
+     */
+    public Flux<GenerationEventDto> subscribe (Long jobId)
+    {
+        return eventPublisher.subscribe(jobId);
+    }
+
+    @Scheduled(fixedDelayString = "${ai.generation.heartbeat-interval:PT15S}")
+    public void heartbeat ()
+    {
+        if (heldJobIds.isEmpty())
+        {
+            return;
+        }
+        List<Long> jobIds = List.copyOf(heldJobIds);
+        int renewed = generationJobRepo.renewLeases(jobIds, owner, LocalDateTime.now());
+        log.debug("Renewed heartbeat of {}/{} generation job(s)", renewed, jobIds.size());
+    }
+
+    /**
+     * Jobs are only held in the memory of the executor of the instance that queued them, so a
+     * job whose owner stopped sending heartbeats never finishes. Such jobs are claimed with a
+     * conditional update, so only one instance fails each of them, and jobs other instances
+     * are still working on are left alone.
+     */
+    @Scheduled(fixedDelayString = "${ai.generation.heartbeat-interval:PT15S}", initialDelayString = "${ai.generation.lease-timeout:PT1M}")
+    public void failExpired ()
+    {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getLeaseTimeout());
+        int failed = 0;
+        for (GenerationJob job : generationJobRepo.findExpired(ACTIVE, cutoff))
+        {
+            if (heldJobIds.contains(job.getId())
+                    || generationJobRepo.claimExpired(job.getId(), owner, LocalDateTime.now(), ACTIVE, cutoff) != 1)
+            {
+                continue;
+            }
+            job.setOwner(owner);
+            finish(job, GenerationState.FAILED, "Worker lost, no heartbeat since " + properties.getLeaseTimeout().toSeconds() + "s");
+            failed++;
+        }
+        // tests left QUEUED or IN_PROGRESS without an active job, e.g. by a version without jobs
+        List<TestModel> stale = new ArrayList<>(testRepo.findByGenerationState(GenerationState.QUEUED));
+        stale.addAll(testRepo.findByGenerationState(GenerationState.IN_PROGRESS));
+        stale.removeIf(test -> generationJobRepo.findFirstByTest_IdAndStateInOrderByIdDesc(test.getId(), ACTIVE).isPresent());
+        stale.forEach(test -> testRepo.updateGenerationState(test.getId(), GenerationState.FAILED));
+        if (failed > 0 || !stale.isEmpty())
+        {
+            log.warn("Marked {} lost generation job(s) and {} test(s) without a job as FAILED", failed, stale.size());
+        }
+    }
+
+    void execute (Long jobId)
+    {
+        GenerationJob job = generationJobRepo.findById(jobId).orElse(null);
+        if (job == null || job.getState() != GenerationState.QUEUED)
+        {
+            return;
+        }
+        Long testId = job.getTest().getId();
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        job.setState(GenerationState.IN_PROGRESS);
+        job.setStartedAt(LocalDateTime.now());
+        job.setCurrentStep("Starting the agent");
+        save(job);
+        testRepo.updateGenerationState(testId, GenerationState.IN_PROGRESS);
+        eventPublisher.publishStatus(jobId, GenerationState.IN_PROGRESS, job.getCurrentStep());
+
+        try
+        {
+            TestModel test = testRepo.findForGeneration(testId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Test", testId));
+            List<String> stepKeys = SpecSegments.stepKeys(test.getSteps());
+            Regeneration regeneration = job.isForced() ? null : regenerate(job, test, stepKeys);
+            String code = regeneration != null ? regeneration.code() : generate(job, test);
+
+            job.setCurrentStep("Writing the spec file");
+            save(job);
+            eventPublisher.publishStatus(jobId, GenerationState.IN_PROGRESS, job.getCurrentStep());
+            fileService.writeFile(testId.toString(), code, EFileType.SPEC_TS);
+            cache(test, code, job);
+
+            job.setStepKeys(String.join(",", stepKeys));
+            String spec = testId + EFileType.SPEC_TS.getExtension();
+            finish(job, GenerationState.COMPLETED, regeneration == null
+                    ? "Generated " + spec + " with " + job.getToolCalls() + " tool call(s)"
+                    : regeneration.describe(spec, stepKeys.size(), job.getToolCalls()));
+        } catch (Exception e)
+        {
+            log.error("Generation job {} for test {} failed", jobId, testId, e);
+            finish(job, GenerationState.FAILED, e.getMessage());
+        }
+        sample.stop(meterRegistry.timer("generation.duration", "state", job.getState().name()));
+    }
+
+    private String generate (GenerationJob job, TestModel test) throws InterruptedException
+    {
+        return withRetries(job, listener -> aiService.generateAndRunTests(test, listener));
+    }
+
+    /**
+     * Regenerates only the code of the steps that changed since the last completed generation.
+     * The steps are matched by content, so inserted, removed or moved steps keep their code under
+     * their new number; the agent gets the current spec with the changed steps left empty and
+     * replays the code of the others to reach the state each changed step starts in.
+     *
+     * @return the spliced spec, or {@code null} if the whole spec has to be generated: there is
+     *         no earlier generation, its spec has no step markers, no step is unchanged, or the
+     *         agent did not answer the code of every changed step
+     */
+    private Regeneration regenerate (GenerationJob job, TestModel test, List<String> stepKeys) throws InterruptedException
+    {
+        Long testId = test.getId();
+        if (!properties.isIncremental() || stepKeys.isEmpty())
+        {
+            return null;
+        }
+        String previousKeys = generationJobRepo.findFirstByTest_IdAndStateOrderByIdDesc(testId, GenerationState.COMPLETED)
+                .map(GenerationJob::getStepKeys)
+                .orElse(null);
+        if (previousKeys == null || previousKeys.isBlank())
+        {
+            return null;
+        }
+        SpecSegments.Parsed spec;
+        try
+        {
+            spec = SpecSegments.parse(fileService.readFile(testId + EFileType.SPEC_TS.getExtension()));
+        } catch (IOException e)
+        {
+            log.debug("No spec of test {} to regenerate incrementally: {}", testId, e.getMessage());
+            return null;
+        }
+        List<String> oldKeys = List.of(previousKeys.split(","));
+        if (spec == null || spec.segments().size() != oldKeys.size())
+        {
+            return null;
+        }
+
+        int[] match = SpecSegments.match(oldKeys, stepKeys);
+        List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < match.length; i++)
+        {
+            // a step after removed or moved steps starts on another page, so its code is replayed and rewritten
+            if (match[i] < 0 || SpecSegments.followsRemoval(match, i))
+            {
+                changed.add(i + 1);
+            }
+        }
+        changed.forEach(step -> match[step - 1] = -1);
+        if (changed.size() == stepKeys.size())
+        {
+            return null;
+        }
+        if (changed.isEmpty())
+        {
+            // only trailing steps were removed, which the remaining steps do not depend on
+            return new Regeneration(splice(spec, match, Map.of()), changed);
+        }
+
+        Map<Integer, String> placeholders = new HashMap<>();
+        for (Integer step : changed)
+        {
+            placeholders.put(step, spec.indent() + "// @step " + step + "\n" + spec.indent() + "// new or changed step, no code yet\n");
+        }
+        String draft = splice(spec, match, placeholders);
+        log.info("Generation job {} regenerates step(s) {} of {} for test {}", job.getId(), changed, stepKeys.size(), testId);
+        job.setCurrentStep("Regenerating step(s) " + join(changed) + " of " + stepKeys.size());
+        save(job);
+        eventPublisher.publishStatus(job.getId(), GenerationState.IN_PROGRESS, job.getCurrentStep());
+
+        Map<Integer, String> written = withRetries(job, listener -> aiService.regenerateSteps(test, draft, changed, listener));
+        if (!written.keySet().containsAll(changed))
+        {
+            log.warn("Generation job {} got no code for some of steps {}, generating the whole spec", job.getId(), changed);
+            meterRegistry.counter("generation.incremental.fallback").increment();
+            job.setToolCalls(0);
+            return null;
+        }
+        meterRegistry.counter("generation.incremental.steps", "result", "reused").increment(stepKeys.size() - changed.size());
+        meterRegistry.counter("generation.incremental.steps", "result", "regenerated").increment(changed.size());
+        return new Regeneration(splice(spec, match, written), changed);
+    }
+
+    /**
+     * Builds the spec for the current steps: unchanged steps keep their old code under their new
+     * number, the others get the given segments.
+     */
+    private static String splice (SpecSegments.Parsed spec, int[] match, Map<Integer, String> segments)
+    {
+        StringBuilder code = new StringBuilder(spec.prefix());
+        for (int i = 0; i < match.length; i++)
+        {
+            code.append(match[i] >= 0
+                    ? SpecSegments.renumber(spec.segments().get(match[i]), i + 1)
+                    : segments.get(i + 1));
+        }
+        return code.append(spec.suffix()).toString();
+    }
+
+    private static String join (List<Integer> steps)
+    {
+        return steps.stream().map(String::valueOf).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Runs the agent, retrying transient model errors such as rate limits with the backoff of
+     * {@code spring.ai.retry}. Each attempt starts a new browser session with a fresh tool budget.
+     */
+    private <T> T withRetries (GenerationJob job, Function<AiService.GenerationListener, T> generation) throws InterruptedException
+    {
+        AiService.GenerationListener listener = new AiService.GenerationListener()
+        {
+            @Override
+            public void onToolCall (String tool, String input)
+            {
+                GenerationJobService.this.onToolCall(job, tool);
+            }
+
+            @Override
+            public void onToken (String token)
+            {
+                eventPublisher.publishToken(job.getId(), token);
+            }
+        };
+
+        for (int attempt = 1; ; attempt++)
+        {
+            try
+            {
+                return generation.apply(listener);
+            } catch (GenerationException e)
+            {
+                if (attempt >= retryProperties.getMaxAttempts() || !isTransient(e))
+                {
+                    throw e;
+                }
+                Duration delay = retryProperties.delay(attempt);
+                log.warn("Generation job {} hit a transient model error, retrying in {}: {}", job.getId(), delay, e.getMessage());
+                meterRegistry.counter("generation.retries").increment();
+                job.setToolCalls(0);
+                job.setCurrentStep("Model unavailable, retrying in " + delay.toSeconds() + "s (attempt " + (attempt + 1) + " of " + retryProperties.getMaxAttempts() + ")");
+                save(job);
+                eventPublisher.publishStatus(job.getId(), GenerationState.IN_PROGRESS, job.getCurrentStep());
+                TimeUnit.MILLISECONDS.sleep(delay.toMillis());
+            }
+        }
+    }
+
+    /**
+     * Whether a failure is worth another attempt: a rate limit, timeout or other error Spring AI
+     * classifies as transient, anywhere in the cause chain.
+     */
+    static boolean isTransient (Throwable failure)
+    {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause())
+        {
+            String message = String.valueOf(cause.getMessage()).toLowerCase();
+            if (cause.getClass().getSimpleName().equals("TransientAiException")
+                    || cause instanceof TimeoutException
+                    || cause instanceof SocketTimeoutException
+                    || message.contains("429")
+                    || message.contains("too many requests")
+                    || message.contains("rate limit"))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes a cached spec and records it as a completed job.
+     *
+     * @return the job, or {@code null} if the spec could not be written and has to be generated
+     */
+    private GenerationJob answerFromCache (TestModel test, GenerationCacheEntry entry)
+    {
+        try
+        {
+            fileService.writeFile(test.getId().toString(), entry.getSpec(), EFileType.SPEC_TS);
+        } catch (IOException e)
+        {
+            log.warn("Could not write the cached spec of test {}, generating it: {}", test.getId(), e.getMessage());
+            return null;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        GenerationJob job = new GenerationJob();
+        job.setTest(test);
+        job.setState(GenerationState.COMPLETED);
+        job.setMaxToolCalls(properties.getMaxToolCalls());
+        job.setStartedAt(now);
+        job.setFinishedAt(now);
+        job.setStepKeys(String.join(",", SpecSegments.stepKeys(test.getSteps())));
+        job.setMessage("Reused the spec generated on " + entry.getCreatedAt().toLocalDate() + " with " + entry.getToolCalls() + " tool call(s)");
+        job = save(job);
+        testRepo.updateGenerationState(test.getId(), GenerationState.COMPLETED);
+        job.setCacheHit(true);
+        log.info("Answered generation of test {} from the cache (job {})", test.getId(), job.getId());
+        return job;
+    }
+
+    private void cache (TestModel test, String code, GenerationJob job)
+    {
+        try
+        {
+            generationCache.store(aiService.cacheKey(test), test.getId(), code, job.getToolCalls(), Duration.between(job.getStartedAt(), LocalDateTime.now()));
+        } catch (RuntimeException e)
+        {
+            // the spec is written, a lost cache entry only costs the next generation
+            log.warn("Could not cache the spec of test {}", test.getId(), e);
+        }
+    }
+
+    /**
+     * Records a tool call of the agent. Tool inputs are not stored or published, since the agent
+     * types the credentials of the environment through them.
+     */
+    private void onToolCall (GenerationJob job, String tool)
+    {
+        int toolCall = job.getToolCalls() + 1;
+        if (toolCall > job.getMaxToolCalls())
+        {
+            throw new GenerationException("Aborted after " + job.getMaxToolCalls() + " tool calls");
+        }
+        job.setToolCalls(toolCall);
+        job.setCurrentStep("Tool call " + toolCall + " of " + job.getMaxToolCalls() + ": " + tool);
+        save(job);
+        eventPublisher.publishToolCall(job.getId(), tool, toolCall, job.getMaxToolCalls());
+    }
+
+    /**
+     * Saves the job; every save doubles as a heartbeat, so it never writes back an older one.
+     */
+    private GenerationJob save (GenerationJob job)
+    {
+        job.setHeartbeatAt(LocalDateTime.now());
+        return generationJobRepo.save(job);
+    }
+
+    private void finish (GenerationJob job, GenerationState state, String message)
+    {
+        job.setState(state);
+        job.setFinishedAt(LocalDateTime.now());
+        job.setMessage(message != null && message.length() > MESSAGE_LENGTH ? message.substring(0, MESSAGE_LENGTH) : message);
+        save(job);
+        testRepo.updateGenerationState(job.getTest().getId(), state);
+        heldJobIds.remove(job.getId());
+        eventPublisher.complete(job.getId(), state, job.getMessage());
+        meterRegistry.counter("generation.jobs", "state", state.name()).increment();
+    }
+
+    private record Regeneration(String code, List<Integer> changed)
+    {
+        String describe (String spec, int steps, int toolCalls)
+        {
+            if (changed.isEmpty())
+            {
+                return "Updated " + spec + " without the agent, none of its " + steps + " step(s) is affected by the change";
+            }
+            return "Regenerated step(s) " + join(changed) + " of " + steps + " in " + spec + " with " + toolCalls + " tool call(s)";
+        }
+    }
+}
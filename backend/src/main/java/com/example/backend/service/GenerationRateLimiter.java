@@ -0,0 +1,141 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.GenerationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Paces the model requests of all generations to the requests and tokens per minute of the
+ * model deployment. Like the start limits of {@link RunLimiter}, each request reserves the next
+ * free start time, so concurrent generations are spread over the minute instead of running
+ * into rate limit errors of the model.
+ * <p>
+ * Tokens are drawn from a bucket that refills at the tokens per minute. Before a request the
+ * estimated tokens per request are reserved, since the actual usage is only known from the
+ * response; {@link #settle} then replaces the estimate with the tokens the model reported.
+ */
+@Service
+public class GenerationRateLimiter
+{
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final GenerationProperties properties;
+    private final Timer waitTimer;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    // guarded by this
+    private long nextStart = System.nanoTime();
+    // guarded by this; negative while reservations wait for the bucket to refill
+    private double tokens = Double.NaN;
+    // guarded by this
+    private long refilledAt = System.nanoTime();
+
+    public GenerationRateLimiter (GenerationProperties properties, MeterRegistry meterRegistry)
+    {
+        this.properties = properties;
+        this.waitTimer = Timer.builder("generation.limit.wait")
+                .description("Time model requests waited for the rate limits")
+                .register(meterRegistry);
+
+        Gauge.builder("generation.limit.waiting", waiting, AtomicInteger::get)
+                .description("Model requests waiting for the rate limits")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits until the next model request may start and reserves its estimated tokens.
+     */
+    public void acquire () throws InterruptedException
+    {
+        long interval = interval();
+        int tokensPerMinute = properties.getTokensPerMinute();
+        if (interval == 0 && tokensPerMinute <= 0)
+        {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long startAt;
+        synchronized (this)
+        {
+            startAt = Math.max(now, nextStart);
+            nextStart = startAt + interval;
+            if (tokensPerMinute > 0)
+            {
+                refill(now, tokensPerMinute);
+                tokens -= Math.max(1, properties.getTokensPerRequest());
+                if (tokens < 0)
+                {
+                    startAt = Math.max(startAt, now + (long) (-tokens * NANOS_PER_MINUTE / tokensPerMinute));
+                }
+            }
+        }
+        waitTimer.record(startAt - now, TimeUnit.NANOSECONDS);
+        if (startAt > now)
+        {
+            waiting.incrementAndGet();
+            try
+            {
+                TimeUnit.NANOSECONDS.sleep(startAt - now);
+            } finally
+            {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Debits the tokens the model reported for a number of requests, returning their estimates
+     * reserved by {@link #acquire}. Usage of 0 means the model reported none, the estimates stay.
+     */
+    public void settle (int requests, long totalTokens)
+    {
+        int tokensPerMinute = properties.getTokensPerMinute();
+        if (tokensPerMinute <= 0 || totalTokens <= 0)
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            refill(System.nanoTime(), tokensPerMinute);
+            tokens = Math.min(tokensPerMinute, tokens + (long) requests * Math.max(1, properties.getTokensPerRequest()) - totalTokens);
+        }
+    }
+
+    /**
+     * Minimum time between two requests by the requests per minute.
+     */
+    long interval ()
+    {
+        return properties.getRequestsPerMinute() > 0
+                ? NANOS_PER_MINUTE / properties.getRequestsPerMinute()
+                : 0;
+    }
+
+    synchronized double availableTokens ()
+    {
+        refill(System.nanoTime(), properties.getTokensPerMinute());
+        return tokens;
+    }
+
+    // caller holds the lock
+    private void refill (long now, int tokensPerMinute)
+    {
+        if (Double.isNaN(tokens))
+        {
+            tokens = tokensPerMinute;
+        } else if (now > refilledAt)
+        {
+            tokens = Math.min(tokensPerMinute, tokens + (double) (now - refilledAt) * tokensPerMinute / NANOS_PER_MINUTE);
+        }
+        refilledAt = Math.max(refilledAt, now);
+    }
+}
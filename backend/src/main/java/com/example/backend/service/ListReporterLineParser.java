@@ -0,0 +1,55 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.TestStatus;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Recognizes the per-test result lines printed by Playwright's {@code list} reporter, e.g.
+ * {@code  ✓  1 [chromium] › 3.spec.ts:4:5 › login works (1.2s)}.
+ */
+public final class ListReporterLineParser
+{
+
+    private static final Pattern ANSI_ESCAPE = Pattern.compile("\u001B\\[[;\\d]*m");
+
+    private static final Pattern RESULT_LINE = Pattern.compile(
+            "^\\s*(✓|✘|-|ok|x)\\s+\\d+\\s+(?:\\[(?<project>[^]]+)]\\s+›\\s+)?"
+                    + "(?<file>[^\\s:]+\\.spec\\.ts):\\d+:\\d+\\s+›\\s+(?<title>.+?)(?:\\s+\\([\\d.]+m?s\\))?\\s*$");
+
+    private ListReporterLineParser ()
+    {
+    }
+
+    public static String stripAnsi (String line)
+    {
+        return ANSI_ESCAPE.matcher(line).replaceAll("");
+    }
+
+    public static Optional<ResultLine> parse (String line)
+    {
+        Matcher matcher = RESULT_LINE.matcher(stripAnsi(line));
+        if (!matcher.matches())
+        {
+            return Optional.empty();
+        }
+
+        TestStatus status = switch (matcher.group(1))
+        {
+            case "✓", "ok" -> TestStatus.PASSED;
+            case "-" -> TestStatus.SKIPPED;
+            default -> TestStatus.FAILED;
+        };
+
+        return Optional.of(new ResultLine(status, matcher.group("project"),
+                PlaywrightReportParser.fileName(matcher.group("file")), matcher.group("title")));
+    }
+
+    public record ResultLine(TestStatus status, String project, String file, String title)
+    {
+    }
+}
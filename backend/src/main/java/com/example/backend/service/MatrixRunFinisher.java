@@ -0,0 +1,145 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.MatrixBrowserResultDto;
+import com.example.backend.models.MatrixRun;
+import com.example.backend.repo.MatrixRunRepo;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRunRepo;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+
+/**
+ * Finishes a matrix run when the run or batch of its last browser reaches a final state. Every
+ * place that writes the final state of a matrix browser calls {@link #finishIfDone}; the
+ * matrix is only updated while it is still PENDING, so it is finished exactly once even if
+ * several browsers complete at the same time.
+ */
+@Component
+@Slf4j
+public class MatrixRunFinisher
+{
+
+    private final MatrixRunRepo matrixRunRepo;
+    private final TestRunRepo testRunRepo;
+    private final TestBatchRepo testBatchRepo;
+    private final DistributionSummary speedupSummary;
+
+    public MatrixRunFinisher (MatrixRunRepo matrixRunRepo, TestRunRepo testRunRepo, TestBatchRepo testBatchRepo, MeterRegistry meterRegistry)
+    {
+        this.matrixRunRepo = matrixRunRepo;
+        this.testRunRepo = testRunRepo;
+        this.testBatchRepo = testBatchRepo;
+        this.speedupSummary = DistributionSummary.builder("testrun.matrix.speedup")
+                .description("Summed browser execution time divided by the wall clock time of a matrix run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Aggregates the browser results into the matrix once every browser has a final result.
+     *
+     * @param matrixRunId matrix of the run or batch that finished, {@code null} if it is not part of one
+     */
+    public void finishIfDone (Long matrixRunId)
+    {
+        if (matrixRunId == null)
+        {
+            return;
+        }
+        MatrixRun matrix = matrixRunRepo.findById(matrixRunId).orElse(null);
+        if (matrix == null || matrix.getStatus() != TestStatus.PENDING)
+        {
+            return;
+        }
+        List<MatrixBrowserResultDto> results = results(matrix);
+        // browsers are submitted one after another, so the first can finish before the last exists
+        if (results.size() < matrix.getBrowsers().split(",").length
+                || results.stream().anyMatch(result -> result.getStatus() == TestStatus.PENDING))
+        {
+            return;
+        }
+        finish(matrix, results);
+    }
+
+    void finish (MatrixRun matrix, List<MatrixBrowserResultDto> results)
+    {
+        long passed = results.stream().filter(result -> result.getStatus() == TestStatus.PASSED).count();
+        long failed = results.stream().filter(result -> result.getStatus() == TestStatus.FAILED).count();
+        long cancelled = results.stream().filter(result -> result.getStatus() == TestStatus.CANCELLED).count();
+        TestStatus status = cancelled > 0 ? TestStatus.CANCELLED
+                : failed > 0 ? TestStatus.FAILED
+                : passed > 0 ? TestStatus.PASSED
+                : TestStatus.SKIPPED;
+
+        LocalDateTime firstStart = results.stream().map(MatrixBrowserResultDto::getStartedAt).filter(Objects::nonNull)
+                .min(Comparator.naturalOrder()).orElse(null);
+        LocalDateTime lastFinish = results.stream().map(MatrixBrowserResultDto::getFinishedAt).filter(Objects::nonNull)
+                .max(Comparator.naturalOrder()).orElse(null);
+        Long wallClockMs = null;
+        Long summedMs = null;
+        if (firstStart != null && lastFinish != null)
+        {
+            wallClockMs = Duration.between(firstStart, lastFinish).toMillis();
+            summedMs = results.stream().map(MatrixBrowserResultDto::getDurationMs).filter(Objects::nonNull).mapToLong(Long::longValue).sum();
+        }
+
+        String outcome = results.stream()
+                .map(result -> result.getBrowser().getProject() + " " + result.getStatus().name().toLowerCase())
+                .collect(Collectors.joining(", "));
+        Double speedup = null;
+        if (wallClockMs != null && wallClockMs > 0)
+        {
+            speedup = (double) summedMs / wallClockMs;
+            outcome += String.format("; %.1fs wall clock, %.1fs summed (%.1fx)", wallClockMs / 1000.0, summedMs / 1000.0, speedup);
+        }
+        LocalDateTime finishedAt = lastFinish != null ? lastFinish : LocalDateTime.now();
+
+        if (matrixRunRepo.finish(matrix.getId(), status, outcome, wallClockMs, summedMs, finishedAt, TestStatus.PENDING) != 1)
+        {
+            log.debug("Matrix run {} was already finished", matrix.getId());
+            return;
+        }
+        if (speedup != null)
+        {
+            speedupSummary.record(speedup);
+        }
+        matrix.setStatus(status);
+        matrix.setDescription(outcome);
+        matrix.setWallClockMs(wallClockMs);
+        matrix.setSummedMs(summedMs);
+        matrix.setFinishedAt(finishedAt);
+        log.info("Matrix run {} finished: {}", matrix.getId(), outcome);
+    }
+
+    List<MatrixBrowserResultDto> results (MatrixRun matrix)
+    {
+        if (matrix.getScope() == BatchScope.TEST)
+        {
+            return testRunRepo.findByMatrixRunIdOrderById(matrix.getId()).stream()
+                    .map(run -> result(run.getBrowser(), run.getStatus(), run.getDescription(), run.getId(), null, run.getStartedAt(), run.getFinishedAt()))
+                    .toList();
+        }
+        return testBatchRepo.findByMatrixRunIdOrderById(matrix.getId()).stream()
+                .map(batch -> result(batch.getBrowser(), batch.getStatus(), batch.getDescription(), null, batch.getId(), batch.getStartedAt(), batch.getFinishedAt()))
+                .toList();
+    }
+
+    private static MatrixBrowserResultDto result (Browser browser, TestStatus status, String description, Long runId, Long batchId, LocalDateTime startedAt, LocalDateTime finishedAt)
+    {
+        Long durationMs = startedAt != null && finishedAt != null ? Duration.between(startedAt, finishedAt).toMillis() : null;
+        return new MatrixBrowserResultDto(Browser.orDefault(browser), status, description, runId, batchId, startedAt, finishedAt, durationMs);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.MatrixRunDto;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.exceptions.ValidationException;
+import com.example.backend.mapper.MatrixRunMapper;
+import com.example.backend.models.ExecutionProfile;
+import com.example.backend.models.MatrixRun;
+import com.example.backend.repo.MatrixRunRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+
+/**
+ * Runs a test, user story or project on several browsers at once. Every browser gets its own
+ * run or batch, which is queued like any other, so the browsers execute concurrently as far
+ * as the worker pool and the run limits allow. The matrix is finished by {@link MatrixRunFinisher}
+ * once all browsers are: its status is the worst browser result, and the wall clock time is
+ * compared to the summed execution time of the browsers to show the speedup over running them
+ * one after another.
+ */
+@Service
+@Slf4j
+public class MatrixRunService
+{
+
+    private final MatrixRunRepo matrixRunRepo;
+    private final TestRunDispatcher testRunDispatcher;
+    private final BatchRunService batchRunService;
+    private final ExecutionProfileService executionProfileService;
+    private final MatrixRunFinisher matrixRunFinisher;
+    private final MatrixRunMapper matrixRunMapper;
+
+    public MatrixRunService (MatrixRunRepo matrixRunRepo, TestRunDispatcher testRunDispatcher, BatchRunService batchRunService, ExecutionProfileService executionProfileService, MatrixRunFinisher matrixRunFinisher, MatrixRunMapper matrixRunMapper)
+    {
+        this.matrixRunRepo = matrixRunRepo;
+        this.testRunDispatcher = testRunDispatcher;
+        this.batchRunService = batchRunService;
+        this.executionProfileService = executionProfileService;
+        this.matrixRunFinisher = matrixRunFinisher;
+        this.matrixRunMapper = matrixRunMapper;
+    }
+
+    /**
+     * @param browsers Playwright project names; {@code null} or empty selects all browsers
+     */
+    public MatrixRunDto submitForTest (Long testId, List<String> browsers, String profileName)
+    {
+        List<Browser> selected = parseBrowsers(browsers);
+        ExecutionProfile profile = executionProfileService.resolve(testId, profileName);
+        MatrixRun matrix = create(BatchScope.TEST, testId, selected);
+        for (Browser browser : selected)
+        {
+            start(matrix, browser, () -> testRunDispatcher.submitForBrowser(testId, profile, browser, matrix.getId()));
+        }
+        // browsers that finished before the last one was submitted could not finish the matrix
+        matrixRunFinisher.finishIfDone(matrix.getId());
+        return get(matrix.getId());
+    }
+
+    /**
+     * Starts one batch per browser for a user story or project.
+     */
+    public MatrixRunDto submitForScope (BatchScope scope, Long scopeId, List<String> browsers, Integer workers, boolean skipQuarantined, String profileName)
+    {
+        List<Browser> selected = parseBrowsers(browsers);
+        MatrixRun matrix = create(scope, scopeId, selected);
+        for (Browser browser : selected)
+        {
+            start(matrix, browser, () -> batchRunService.submitForBrowser(scope, scopeId, workers, skipQuarantined, profileName, browser, matrix.getId()));
+        }
+        matrixRunFinisher.finishIfDone(matrix.getId());
+        return get(matrix.getId());
+    }
+
+    /**
+     * Returns the matrix with the current result of every browser.
+     */
+    public MatrixRunDto get (Long id)
+    {
+        MatrixRun matrix = matrixRunRepo.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("MatrixRun", id));
+        return matrixRunMapper.toDto(matrix, matrixRunFinisher.results(matrix));
+    }
+
+    static List<Browser> parseBrowsers (List<String> browsers)
+    {
+        if (browsers == null || browsers.isEmpty())
+        {
+            return List.of(Browser.values());
+        }
+        try
+        {
+            return browsers.stream()
+                    .filter(browser -> !browser.isBlank())
+                    .map(Browser::fromProject)
+                    .distinct()
+                    .sorted()
+                    .toList();
+        } catch (IllegalArgumentException e)
+        {
+            throw new ValidationException(e.getMessage());
+        }
+    }
+
+    private MatrixRun create (BatchScope scope, Long scopeId, List<Browser> browsers)
+    {
+        MatrixRun matrix = new MatrixRun();
+        matrix.setScope(scope);
+        matrix.setScopeId(scopeId);
+        matrix.setBrowsers(browsers.stream().map(Browser::getProject).collect(Collectors.joining(",")));
+        matrix.setStatus(TestStatus.PENDING);
+        matrix.setDescription("Running on " + matrix.getBrowsers().replace(",", ", "));
+        MatrixRun saved = matrixRunRepo.save(matrix);
+        log.info("Created matrix run {} for {} {} on {}", saved.getId(), scope, scopeId, saved.getBrowsers());
+        return saved;
+    }
+
+    /**
+     * Browsers that were already queued keep running if a later one cannot be started; the
+     * matrix itself is failed, since it will never have a result for every browser.
+     */
+    private void start (MatrixRun matrix, Browser browser, Runnable submit)
+    {
+        try
+        {
+            submit.run();
+        } catch (RuntimeException e)
+        {
+            matrix.setStatus(TestStatus.FAILED);
+            matrix.setDescription("Could not start on " + browser.getProject() + ": " + e.getMessage());
+            matrix.setFinishedAt(LocalDateTime.now());
+            matrixRunRepo.save(matrix);
+            throw e;
+        }
+    }
+}
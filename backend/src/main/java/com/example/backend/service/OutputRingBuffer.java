@@ -0,0 +1,93 @@
+package com.example.backend.service;
+
+
+/**
+ * Keeps the first and the last characters of a process output in fixed-size buffers. The head
+ * usually holds the command and setup messages, the tail the final error and summary; whatever
+ * lies in between is only counted.
+ */
+final class OutputRingBuffer
+{
+
+    private final int headLimit;
+    private final StringBuilder head;
+    private final char[] tail;
+    private int tailStart;
+    private int tailLength;
+    private long totalChars;
+
+    OutputRingBuffer (int headLimit, int tailLimit)
+    {
+        this.headLimit = headLimit;
+        this.head = new StringBuilder(Math.min(headLimit, 1024));
+        this.tail = new char[tailLimit];
+    }
+
+    void append (String text)
+    {
+        int length = text.length();
+        totalChars += length;
+
+        int offset = 0;
+        if (head.length() < headLimit)
+        {
+            offset = Math.min(length, headLimit - head.length());
+            head.append(text, 0, offset);
+        }
+
+        int remaining = length - offset;
+        if (remaining == 0 || tail.length == 0)
+        {
+            return;
+        }
+        if (remaining >= tail.length)
+        {
+            // the text alone fills the ring, so only its end is kept
+            offset = length - tail.length;
+            remaining = tail.length;
+            tailStart = 0;
+            tailLength = 0;
+        }
+
+        int end = (tailStart + tailLength) % tail.length;
+        int first = Math.min(remaining, tail.length - end);
+        text.getChars(offset, offset + first, tail, end);
+        text.getChars(offset + first, offset + remaining, tail, 0);
+
+        int filled = tailLength + remaining;
+        if (filled > tail.length)
+        {
+            tailStart = (tailStart + filled - tail.length) % tail.length;
+            tailLength = tail.length;
+        } else
+        {
+            tailLength = filled;
+        }
+    }
+
+    long getTotalChars ()
+    {
+        return totalChars;
+    }
+
+    long getOmittedChars ()
+    {
+        return totalChars - head.length() - tailLength;
+    }
+
+    @Override
+    public String toString ()
+    {
+        StringBuilder result = new StringBuilder(head.length() + tailLength + 64);
+        result.append(head);
+        long omitted = getOmittedChars();
+        if (omitted > 0)
+        {
+            result.append("\n... ").append(omitted).append(" character(s) omitted ...\n");
+        }
+        int first = Math.min(tailLength, tail.length - tailStart);
+        result.append(tail, tailStart, first);
+        result.append(tail, 0, tailLength - first);
+        return result.toString();
+    }
+}
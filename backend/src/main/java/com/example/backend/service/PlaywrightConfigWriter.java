@@ -0,0 +1,190 @@
+package com.example.backend.service;
+
+
+import com.example.backend.exceptions.FileOperationException;
+import com.example.backend.models.ExecutionProfile;
+import com.example.backend.repo.ExecutionProfileRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Turns an execution profile into a Playwright configuration file. The file name is derived
+ * from the content, so runs with the same settings share one file and a changed profile never
+ * affects a run that already started. Report locations that differ per run are read from
+ * environment variables set by the runner.
+ */
+@Component
+@Slf4j
+public class PlaywrightConfigWriter
+{
+
+    /**
+     * Relative to the {@code backend} directory Playwright is started in.
+     */
+    static final String CONFIG_DIR = "playwright-configs";
+    static final Set<String> REQUIRED_REPORTERS = Set.of("list", "json");
+    static final String HTML_OUTPUT_ENV = "PLAYWRIGHT_HTML_OUTPUT_DIR";
+    static final String JUNIT_OUTPUT_ENV = "PLAYWRIGHT_JUNIT_OUTPUT_FILE";
+
+    private final ExecutionProfileRepo executionProfileRepo;
+    private final Path baseDir;
+
+    public PlaywrightConfigWriter (ExecutionProfileRepo executionProfileRepo)
+    {
+        this(executionProfileRepo, Path.of("backend"));
+    }
+
+    PlaywrightConfigWriter (ExecutionProfileRepo executionProfileRepo, Path baseDir)
+    {
+        this.executionProfileRepo = executionProfileRepo;
+        this.baseDir = baseDir;
+    }
+
+    /**
+     * Writes the configuration of a profile unless a file with the same content exists.
+     *
+     * @return path of the configuration relative to the {@code backend} directory, or
+     *         {@code null} to run with the static configuration
+     */
+    public String materialize (Long profileId)
+    {
+        if (profileId == null)
+        {
+            return null;
+        }
+        ExecutionProfile profile = executionProfileRepo.findById(profileId).orElse(null);
+        if (profile == null)
+        {
+            log.warn("Execution profile {} no longer exists, running with the static configuration", profileId);
+            return null;
+        }
+
+        String config = render(profile);
+        String fileName = "profile-" + SpecFingerprinter.sha256(config).substring(0, 16) + ".config.ts";
+        Path file = baseDir.resolve(CONFIG_DIR).resolve(fileName);
+        if (!Files.exists(file))
+        {
+            try
+            {
+                Files.createDirectories(file.getParent());
+                Path temp = Files.createTempFile(file.getParent(), "profile-", ".tmp");
+                Files.writeString(temp, config, StandardCharsets.UTF_8);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.debug("Wrote Playwright configuration {} for execution profile {}", file, profileId);
+            } catch (IOException e)
+            {
+                throw new FileOperationException("Failed to write Playwright configuration for execution profile " + profileId, e);
+            }
+        }
+        return CONFIG_DIR + "/" + fileName;
+    }
+
+    /**
+     * Whether the profile asks for a visible browser, which a pooled headless browser server
+     * cannot provide. Runs with the static configuration leave this to the pool.
+     */
+    public boolean requestsHeadedBrowser (Long profileId)
+    {
+        return profileId != null && executionProfileRepo.findById(profileId)
+                .map(profile -> !profile.isHeadless())
+                .orElse(false);
+    }
+
+    /**
+     * Renders the profile as a Playwright configuration. Settings the profile leaves empty use
+     * the Playwright defaults; locale and browser projects are the same as in {@code playwright.config.ts}.
+     * The output directory is left to the runner, which passes one per invocation.
+     */
+    static String render (ExecutionProfile profile)
+    {
+        StringBuilder config = new StringBuilder()
+                .append("// Generated from an execution profile, do not edit\n")
+                .append("import {defineConfig, devices} from '@playwright/test';\n\n")
+                .append("export default defineConfig({\n")
+                .append("    testDir: '../playwright_tests',\n")
+                .append("    fullyParallel: true,\n")
+                .append("    forbidOnly: false,\n")
+                .append("    retries: ").append(profile.getRetries()).append(",\n");
+        if (profile.getWorkers() != null)
+        {
+            config.append("    workers: ").append(profile.getWorkers()).append(",\n");
+        }
+        if (profile.getTestTimeoutMs() != null)
+        {
+            config.append("    timeout: ").append(profile.getTestTimeoutMs()).append(",\n");
+        }
+
+        config.append("    reporter: [\n");
+        for (String reporter : reporters(profile))
+        {
+            config.append("        ").append(switch (reporter)
+            {
+                case "html" -> "['html', {outputFolder: process.env." + HTML_OUTPUT_ENV + " || '../playwright-report', open: 'never'}]";
+                case "junit" -> "['junit', {outputFile: process.env." + JUNIT_OUTPUT_ENV + " || '../playwright-results/junit.xml'}]";
+                default -> "['" + reporter + "']";
+            }).append(",\n");
+        }
+        config.append("    ],\n")
+                .append("    use: {\n")
+                .append("        headless: ").append(profile.isHeadless()).append(",\n")
+                .append("        trace: '").append(profile.getTrace().getValue()).append("',\n")
+                .append("        locale: 'de-DE',\n")
+                .append("        timezoneId: 'Europe/Berlin',\n")
+                .append("        launchOptions: {\n")
+                .append("            args: ['--lang=de-DE'],\n")
+                .append("        },\n");
+        if (profile.getActionTimeoutMs() != null)
+        {
+            config.append("        actionTimeout: ").append(profile.getActionTimeoutMs()).append(",\n");
+        }
+        config.append("    },\n");
+        if (profile.getExpectTimeoutMs() != null)
+        {
+            config.append("    expect: {\n")
+                    .append("        timeout: ").append(profile.getExpectTimeoutMs()).append(",\n")
+                    .append("    },\n");
+        }
+        return config.append("    projects: [\n")
+                .append("        {\n")
+                .append("            name: 'chromium',\n")
+                .append("            use: {...devices['Desktop Chrome']},\n")
+                .append("        },\n")
+                .append("        {\n")
+                .append("            name: 'firefox',\n")
+                .append("            use: {...devices['Desktop Firefox']},\n")
+                .append("        },\n")
+                .append("        {\n")
+                .append("            name: 'webkit',\n")
+                .append("            use: {...devices['Desktop Safari']},\n")
+                .append("        },\n")
+                .append("    ],\n")
+                .append("});\n")
+                .toString();
+    }
+
+    private static List<String> reporters (ExecutionProfile profile)
+    {
+        List<String> reporters = new ArrayList<>(List.of("list", "json"));
+        if (profile.getReporters() != null && !profile.getReporters().isEmpty())
+        {
+            for (String reporter : profile.getReporters().split(","))
+            {
+                if (!reporters.contains(reporter))
+                {
+                    reporters.add(reporter);
+                }
+            }
+        }
+        return reporters;
+    }
+}
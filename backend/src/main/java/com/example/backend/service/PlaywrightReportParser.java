@@ -0,0 +1,338 @@
+package com.example.backend.service;
+
+
+import com.example.backend.models.PlaywrightReport;
+import com.example.backend.models.ReportAttachment;
+import com.example.backend.models.ReportAttempt;
+import com.example.backend.models.ReportError;
+import com.example.backend.models.ReportStats;
+import com.example.backend.models.ReportTestResult;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Reads a Playwright JSON report in a single streaming pass. Only the fields needed for the
+ * run results are materialized; config, stdout/stderr and other bulky values are skipped
+ * token by token, so memory does not grow with the size of the report.
+ */
+@Component
+public class PlaywrightReportParser
+{
+
+    static final int MAX_MESSAGE_LENGTH = 4000;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public PlaywrightReport parse (Path reportFile) throws IOException
+    {
+        try (InputStream in = Files.newInputStream(reportFile))
+        {
+            return parse(in);
+        }
+    }
+
+    public PlaywrightReport parse (InputStream in) throws IOException
+    {
+        try (JsonParser parser = jsonFactory.createParser(in))
+        {
+            return parseReport(parser);
+        }
+    }
+
+    public PlaywrightReport parse (String json) throws IOException
+    {
+        try (JsonParser parser = jsonFactory.createParser(json))
+        {
+            return parseReport(parser);
+        }
+    }
+
+    private PlaywrightReport parseReport (JsonParser parser) throws IOException
+    {
+        expect(parser.nextToken(), JsonToken.START_OBJECT, parser);
+        PlaywrightReport report = new PlaywrightReport();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field)
+            {
+                case "suites" -> parseSuites(parser, value, null, report);
+                case "stats" -> parseStats(parser, value, report.getStats());
+                default -> parser.skipChildren();
+            }
+        }
+        return report;
+    }
+
+    private void parseSuites (JsonParser parser, JsonToken value, String parentFile, PlaywrightReport report) throws IOException
+    {
+        if (value != JsonToken.START_ARRAY)
+        {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT)
+        {
+            parseSuite(parser, parentFile, report);
+        }
+    }
+
+    private void parseSuite (JsonParser parser, String parentFile, PlaywrightReport report) throws IOException
+    {
+        String file = parentFile;
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field)
+            {
+                case "file" -> file = parser.getValueAsString(file);
+                case "specs" -> parseSpecs(parser, value, file, report);
+                case "suites" -> parseSuites(parser, value, file, report);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void parseSpecs (JsonParser parser, JsonToken value, String suiteFile, PlaywrightReport report) throws IOException
+    {
+        if (value != JsonToken.START_ARRAY)
+        {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT)
+        {
+            parseSpec(parser, suiteFile, report);
+        }
+    }
+
+    private void parseSpec (JsonParser parser, String suiteFile, PlaywrightReport report) throws IOException
+    {
+        String title = null;
+        String file = suiteFile;
+        // Playwright writes "file" after "tests", so the tests of a spec are completed at its end
+        List<ReportTestResult> tests = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field)
+            {
+                case "title" -> title = parser.getValueAsString();
+                case "file" -> file = parser.getValueAsString(file);
+                case "tests" -> parseTests(parser, value, tests);
+                default -> parser.skipChildren();
+            }
+        }
+
+        String fileName = file != null ? fileName(file) : "";
+        ReportStats fileStats = report.getFiles().computeIfAbsent(fileName, k -> new ReportStats());
+        for (ReportTestResult test : tests)
+        {
+            test.setFile(fileName);
+            test.setTitle(title);
+            fileStats.record(test.getStatus());
+            report.getTests().add(test);
+        }
+    }
+
+    private void parseTests (JsonParser parser, JsonToken value, List<ReportTestResult> tests) throws IOException
+    {
+        if (value != JsonToken.START_ARRAY)
+        {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT)
+        {
+            ReportTestResult test = new ReportTestResult();
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                String field = parser.currentName();
+                JsonToken fieldValue = parser.nextToken();
+                switch (field)
+                {
+                    case "projectName" -> test.setProjectName(parser.getValueAsString());
+                    case "status" -> test.setStatus(parser.getValueAsString());
+                    case "results" -> parseResults(parser, fieldValue, test);
+                    default -> parser.skipChildren();
+                }
+            }
+            tests.add(test);
+        }
+    }
+
+    private void parseResults (JsonParser parser, JsonToken value, ReportTestResult test) throws IOException
+    {
+        if (value != JsonToken.START_ARRAY)
+        {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT)
+        {
+            int retry = 0;
+            ReportAttempt attempt = new ReportAttempt();
+            List<ReportError> errors = new ArrayList<>();
+            List<ReportAttachment> attachments = new ArrayList<>();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                String field = parser.currentName();
+                JsonToken fieldValue = parser.nextToken();
+                switch (field)
+                {
+                    case "duration" -> attempt.setDurationMs(parser.getValueAsLong(0));
+                    case "status" -> attempt.setStatus(parser.getValueAsString());
+                    case "retry" -> retry = parser.getValueAsInt(0);
+                    case "errors" -> parseErrors(parser, fieldValue, errors);
+                    case "attachments" -> parseAttachments(parser, fieldValue, attachments);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            attempt.setRetry(retry);
+            test.getAttempts().add(attempt);
+            test.setDurationMs(test.getDurationMs() + attempt.getDurationMs());
+            test.setRetries(Math.max(test.getRetries(), retry));
+            for (ReportError error : errors)
+            {
+                error.setRetry(retry);
+                test.getErrors().add(error);
+            }
+            for (ReportAttachment attachment : attachments)
+            {
+                attachment.setRetry(retry);
+                test.getAttachments().add(attachment);
+            }
+        }
+    }
+
+    private void parseErrors (JsonParser parser, JsonToken value, List<ReportError> errors) throws IOException
+    {
+        if (value != JsonToken.START_ARRAY)
+        {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT)
+        {
+            ReportError error = new ReportError();
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                String field = parser.currentName();
+                JsonToken fieldValue = parser.nextToken();
+                switch (field)
+                {
+                    case "message" -> error.setMessage(truncate(ListReporterLineParser.stripAnsi(parser.getValueAsString(""))));
+                    case "location" -> parseLocation(parser, fieldValue, error);
+                    default -> parser.skipChildren();
+                }
+            }
+            errors.add(error);
+        }
+    }
+
+    private void parseLocation (JsonParser parser, JsonToken value, ReportError error) throws IOException
+    {
+        if (value != JsonToken.START_OBJECT)
+        {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field)
+            {
+                case "file" -> error.setFile(fileName(parser.getValueAsString("")));
+                case "line" -> error.setLine(parser.getValueAsInt(0));
+                case "column" -> error.setColumn(parser.getValueAsInt(0));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void parseAttachments (JsonParser parser, JsonToken value, List<ReportAttachment> attachments) throws IOException
+    {
+        if (value != JsonToken.START_ARRAY)
+        {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT)
+        {
+            ReportAttachment attachment = new ReportAttachment();
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field)
+                {
+                    case "name" -> attachment.setName(parser.getValueAsString());
+                    case "contentType" -> attachment.setContentType(parser.getValueAsString());
+                    case "path" -> attachment.setPath(parser.getValueAsString());
+                    // inline bodies are base64 payloads and are not kept
+                    default -> parser.skipChildren();
+                }
+            }
+            attachments.add(attachment);
+        }
+    }
+
+    private void parseStats (JsonParser parser, JsonToken value, ReportStats stats) throws IOException
+    {
+        if (value != JsonToken.START_OBJECT)
+        {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field)
+            {
+                case "expected" -> stats.setExpected(parser.getValueAsInt(0));
+                case "unexpected" -> stats.setUnexpected(parser.getValueAsInt(0));
+                case "skipped" -> stats.setSkipped(parser.getValueAsInt(0));
+                case "flaky" -> stats.setFlaky(parser.getValueAsInt(0));
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void expect (JsonToken actual, JsonToken expected, JsonParser parser) throws IOException
+    {
+        if (actual != expected)
+        {
+            throw new IOException("Unexpected token " + actual + " in Playwright report at " + parser.currentLocation());
+        }
+    }
+
+    private String truncate (String message)
+    {
+        return message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+
+    static String fileName (String path)
+    {
+        int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return separator < 0 ? path : path.substring(separator + 1);
+    }
+}
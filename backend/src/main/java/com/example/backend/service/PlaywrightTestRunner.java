@@ -1,25 +1,40 @@
 package com.example.backend.service;
 
 
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.EFileType;
 import com.example.backend.constants.TestStatus;
+import com.example.backend.models.PlaywrightReport;
+import com.example.backend.models.ReportStats;
+import com.example.backend.models.ReportTestResult;
+import com.example.backend.models.TestBatch;
 import com.example.backend.models.TestRun;
 import com.example.backend.models.TestModel;
+import com.example.backend.repo.TestBatchRepo;
 import com.example.backend.repo.TestRepo;
 import com.example.backend.repo.TestRunRepo;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.backend.service.ProcessSupervisor.ProcessOutcome;
+import com.example.backend.service.ProcessSupervisor.SupervisedProcess;
+import com.example.backend.service.RunRegistry.RunHandle;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -28,17 +43,70 @@ public class PlaywrightTestRunner
 {
 
     private static final int TIMEOUT_MINUTES = 10;
+    private static final Path REPORT_DIR = Path.of("backend/playwright-results");
+    private static final Path HTML_REPORT_DIR = Path.of("backend/playwright-report");
+    // relative to the backend directory Playwright is started in; Playwright empties the output
+    // directory when it starts, so every invocation gets its own
+    private static final String OUTPUT_DIR = "test-results";
+    private static final String TEST_DIR = "playwright_tests";
+    // matches the column length of TestRun.description
+    static final int DESCRIPTION_LIMIT = 4000;
 
     private final TestRepo testRepository;
     private final TestRunRepo testRunRepository;
-
-    public PlaywrightTestRunner (TestRepo testRepository, TestRunRepo testRunRepository)
+    private final TestBatchRepo testBatchRepository;
+    private final PlaywrightReportParser reportParser;
+    private final TestRunEventPublisher eventPublisher;
+    private final SpecResultService specResultService;
+    private final ArtifactStore artifactStore;
+    private final RunLogStore runLogStore;
+    private final ProcessSupervisor processSupervisor;
+    private final RunRegistry runRegistry;
+    private final RunLeaseService runLeaseService;
+    private final FlakinessService flakinessService;
+    private final MatrixRunFinisher matrixRunFinisher;
+    private final PlaywrightConfigWriter configWriter;
+    private final BrowserServerPool browserServerPool;
+    private final RunnerDaemon runnerDaemon;
+    private final TestRunnerProperties properties;
+
+    public PlaywrightTestRunner (TestRepo testRepository, TestRunRepo testRunRepository, TestBatchRepo testBatchRepository, PlaywrightReportParser reportParser, TestRunEventPublisher eventPublisher, SpecResultService specResultService, ArtifactStore artifactStore, RunLogStore runLogStore, ProcessSupervisor processSupervisor, RunRegistry runRegistry, RunLeaseService runLeaseService, FlakinessService flakinessService, MatrixRunFinisher matrixRunFinisher, PlaywrightConfigWriter configWriter, BrowserServerPool browserServerPool, RunnerDaemon runnerDaemon, TestRunnerProperties properties)
     {
         this.testRepository = testRepository;
         this.testRunRepository = testRunRepository;
+        this.testBatchRepository = testBatchRepository;
+        this.reportParser = reportParser;
+        this.eventPublisher = eventPublisher;
+        this.specResultService = specResultService;
+        this.artifactStore = artifactStore;
+        this.runLogStore = runLogStore;
+        this.processSupervisor = processSupervisor;
+        this.runRegistry = runRegistry;
+        this.runLeaseService = runLeaseService;
+        this.flakinessService = flakinessService;
+        this.matrixRunFinisher = matrixRunFinisher;
+        this.configWriter = configWriter;
+        this.browserServerPool = browserServerPool;
+        this.runnerDaemon = runnerDaemon;
+        this.properties = properties;
     }
 
     public TestRun runPlaywrightTest (Long testId, String testFileName)
+    {
+        return executeRun(createPendingRun(testId), testFileName);
+    }
+
+    public TestRun createPendingRun (Long testId)
+    {
+        return createPendingRun(testId, null, null);
+    }
+
+    public TestRun createPendingRun (Long testId, String resultHash, Long profileId)
+    {
+        return createPendingRun(testId, resultHash, profileId, null, null);
+    }
+
+    public TestRun createPendingRun (Long testId, String resultHash, Long profileId, Browser browser, Long matrixRunId)
     {
         TestModel testModel = testRepository.findById(testId)
                 .orElseThrow(() -> new RuntimeException("Test with ID " + testId + " not found"));
@@ -48,66 +116,436 @@ public class PlaywrightTestRunner
         testRun.setStatus(TestStatus.PENDING);
         testRun.setExecutedAt(LocalDateTime.now());
         testRun.setDescription("Test execution in progress...");
+        testRun.setResultHash(resultHash);
+        testRun.setProfileId(profileId);
+        testRun.setBrowser(browser);
+        testRun.setMatrixRunId(matrixRunId);
         testRun = testRunRepository.save(testRun);
 
         log.info("Created TestRun with ID {} and PENDING status", testRun.getId());
+        return testRun;
+    }
 
-        StringBuilder output = new StringBuilder();
+    /**
+     * Returns the latest passing run with the given result hash that is younger than {@code ttl}.
+     */
+    public Optional<TestRun> findCachedRun (String resultHash, Duration ttl)
+    {
+        return testRunRepository.findFirstByResultHashAndStatusAndExecutedAtAfterOrderByExecutedAtDesc(
+                resultHash, TestStatus.PASSED, LocalDateTime.now().minus(ttl));
+    }
+
+    public TestRun executeRun (TestRun testRun, String testFileName)
+    {
+        Long runId = testRun.getId();
+        Path reportFile = REPORT_DIR.resolve("run-" + runId + ".json");
+        Map<String, TestRun> runsByFile = Map.of(testFileName, testRun);
+        PlaywrightReport report = null;
+
+        RunHandle handle = runRegistry.register(List.of(runId));
+        runLeaseService.acquire(List.of(testRun));
+        if (isCancelRequested(List.of(runId)))
+        {
+            log.info("Skipping TestRun {}: cancelled while queued", runId);
+            finishCancelledWhileQueued(List.of(testRun));
+            matrixRunFinisher.finishIfDone(testRun.getMatrixRunId());
+            return testRun;
+        }
+
+        eventPublisher.open(runId);
+        eventPublisher.publishStatus(runId, TestStatus.PENDING, "Test execution started");
 
         try
         {
-            List<String> command = buildCommand(testFileName);
+            ProcessOutcome outcome = runProcess(handle, fileFilter(testFileName) + projectArgument(testRun.getBrowser()), configWriter.materialize(testRun.getProfileId()), reportFile, "run-" + runId + ".log.gz", TIMEOUT_MINUTES,
+                    testRun.getBrowser(), testRun.getProfileId(), line -> publishOutput(runsByFile, line));
+            attachLog(List.of(testRun), outcome);
 
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            if (handle.isCancelled())
+            {
+                testRun.setStatus(TestStatus.CANCELLED);
+                testRun.setDescription(cancelledDescription(handle));
+            } else if (outcome.timedOut())
+            {
+                testRun.setStatus(TestStatus.FAILED);
+                testRun.setDescription(withOutputTail("Test execution timeout after " + TIMEOUT_MINUTES + " minutes, "
+                        + outcome.reapedProcesses() + " orphan process(es) reaped", outcome.output()));
+            } else
+            {
+                report = parseTestResults(testRun, reportFile, outcome.exitCode());
+            }
 
-            File workingDir = new File(System.getProperty("user.dir"));
-            processBuilder.directory(workingDir);
+        } catch (Exception e)
+        {
+            log.error("Error executing Playwright test: {}", testFileName, e);
+            testRun.setStatus(TestStatus.FAILED);
+            testRun.setDescription("Error: " + e.getMessage());
+        } finally
+        {
+            deleteReport(reportFile);
+            runRegistry.release(List.of(runId));
+            runLeaseService.release(List.of(runId));
+        }
+
+        testRun.setFinishedAt(LocalDateTime.now());
+        finish(testRun);
+        TestRun savedRun = testRunRepository.save(testRun);
+        if (report != null)
+        {
+            recordResults(savedRun, report.getTests());
+        }
+        scoreFlakiness(savedRun, report != null ? report.getTests() : List.of());
+        deleteOutput("run-" + runId);
+        eventPublisher.complete(runId, savedRun.getStatus(), savedRun.getDescription());
+        matrixRunFinisher.finishIfDone(savedRun.getMatrixRunId());
+        return savedRun;
+    }
+
+    /**
+     * Runs the spec files of a batch and writes the per-file results of the JSON report back
+     * to the matching runs. A batch normally is a single Playwright invocation; a prioritized
+     * batch first runs its highest ranked specs on all workers, so likely failures are reported
+     * within the first minutes, and then the rest. With {@code maxFailures} set, Playwright
+     * stops after that many failed tests and the specs that did not run are marked as SKIPPED.
+     */
+    public TestBatch executeBatch (TestBatch batch, List<TestRun> runs)
+    {
+        List<Long> runIds = runs.stream().map(TestRun::getId).toList();
+
+        RunHandle handle = runRegistry.register(runIds);
+        runLeaseService.acquire(runs);
+        if (isCancelRequested(runIds))
+        {
+            log.info("Skipping batch {}: cancelled while queued", batch.getId());
+            finishCancelledWhileQueued(runs);
+            batch.setStatus(TestStatus.CANCELLED);
+            matrixRunFinisher.finishIfDone(batch.getMatrixRunId());
+            return batch;
+        }
 
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
+        batch.setStartedAt(LocalDateTime.now());
+        runs.forEach(run -> eventPublisher.publishStatus(run.getId(), TestStatus.PENDING, "Batch execution started"));
 
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream())))
+        Map<TestRun, List<ReportTestResult>> testsByRun = new LinkedHashMap<>();
+        int workers = batch.getWorkers() != null ? batch.getWorkers() : 1;
+        Integer maxFailures = batch.getMaxFailures();
+        List<List<TestRun>> waves = planWaves(batch, runs, workers);
+        int failures = 0;
+
+        log.info("Executing batch {} with {} spec file(s) on {} worker(s) in {} wave(s) on {}",
+                batch.getId(), runs.size(), workers, waves.size(), Browser.orDefault(batch.getBrowser()).getProject());
+
+        try
+        {
+            for (int wave = 0; wave < waves.size(); wave++)
             {
-                String line;
-                while ((line = reader.readLine()) != null)
+                List<TestRun> waveRuns = waves.get(wave);
+                if (handle.isCancelled())
+                {
+                    waveRuns.forEach(run ->
+                    {
+                        run.setStatus(TestStatus.CANCELLED);
+                        run.setDescription(cancelledDescription(handle));
+                    });
+                } else if (maxFailures != null && failures >= maxFailures)
+                {
+                    waveRuns.forEach(run -> markAborted(run, maxFailures));
+                } else
                 {
-                    output.append(line).append("\n");
+                    Integer remainingFailures = maxFailures != null ? maxFailures - failures : null;
+                    failures += executeWave(batch, wave, waveRuns, handle, workers, remainingFailures, testsByRun);
                 }
             }
+        } finally
+        {
+            runRegistry.release(runIds);
+            runLeaseService.release(runIds);
+        }
 
-            boolean finished = process.waitFor(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        LocalDateTime finishedAt = LocalDateTime.now();
+        runs.forEach(run ->
+        {
+            run.setFinishedAt(finishedAt);
+            finish(run);
+        });
+        testRunRepository.saveAll(runs);
+        testsByRun.forEach(this::recordResults);
+        runs.forEach(run -> scoreFlakiness(run, testsByRun.getOrDefault(run, List.of())));
+        for (int wave = 0; wave < waves.size(); wave++)
+        {
+            deleteOutput("batch-" + batch.getId() + "-" + wave);
+        }
+        runs.forEach(run -> eventPublisher.complete(run.getId(), run.getStatus(), run.getDescription()));
 
-            if (!finished)
+        long passed = runs.stream().filter(run -> run.getStatus() == TestStatus.PASSED).count();
+        long failed = runs.stream().filter(run -> run.getStatus() == TestStatus.FAILED).count();
+        long cancelled = runs.stream().filter(run -> run.getStatus() == TestStatus.CANCELLED).count();
+        if (cancelled > 0)
+        {
+            batch.setStatus(TestStatus.CANCELLED);
+            batch.setDescription(cancelledDescription(handle));
+        } else
+        {
+            batch.setStatus(failed > 0 ? TestStatus.FAILED : passed > 0 ? TestStatus.PASSED : TestStatus.SKIPPED);
+            String description = String.format("%d passed, %d failed, %d skipped", passed, failed, runs.size() - passed - failed);
+            if (maxFailures != null && failures >= maxFailures)
             {
-                process.destroyForcibly();
-                testRun.setStatus(TestStatus.FAILED);
-                testRun.setDescription("Test execution timeout after " + TIMEOUT_MINUTES + " minutes\n" + output);
-                return testRunRepository.save(testRun);
+                description += ", aborted after " + failures + " failure(s)";
             }
+            batch.setDescription(description);
+        }
+        batch.setFinishedAt(finishedAt);
+        TestBatch savedBatch = testBatchRepository.save(batch);
+        matrixRunFinisher.finishIfDone(batch.getMatrixRunId());
+        return savedBatch;
+    }
+
+    static List<List<TestRun>> planWaves (TestBatch batch, List<TestRun> runs, int workers)
+    {
+        if (!Boolean.TRUE.equals(batch.getPrioritized()) || runs.size() <= workers)
+        {
+            return List.of(runs);
+        }
+        return List.of(runs.subList(0, workers), runs.subList(workers, runs.size()));
+    }
 
-            int exitCode = process.exitValue();
-            String fullOutput = output.toString();
+    /**
+     * Runs one Playwright invocation for the given runs and returns the number of failed tests.
+     */
+    private int executeWave (TestBatch batch, int wave, List<TestRun> runs, RunHandle handle, int workers, Integer maxFailures, Map<TestRun, List<ReportTestResult>> testsByRun)
+    {
+        Map<String, TestRun> runsByFile = new LinkedHashMap<>();
+        for (TestRun run : runs)
+        {
+            runsByFile.put(run.getTest().getId() + EFileType.SPEC_TS.getExtension(), run);
+        }
 
-            parseTestResults(testRun, fullOutput, exitCode);
+        Path reportFile = REPORT_DIR.resolve("batch-" + batch.getId() + "-" + wave + ".json");
+        int timeoutMinutes = TIMEOUT_MINUTES * Math.max(1, (runs.size() + workers - 1) / workers);
+        String arguments = runsByFile.keySet().stream().map(PlaywrightTestRunner::fileFilter).collect(Collectors.joining(" "))
+                + projectArgument(batch.getBrowser()) + " --workers=" + workers
+                + (maxFailures != null ? " --max-failures=" + maxFailures : "");
 
+        try
+        {
+            ProcessOutcome outcome = runProcess(handle, arguments, configWriter.materialize(batch.getProfileId()), reportFile, "batch-" + batch.getId() + "-" + wave + ".log.gz", timeoutMinutes,
+                    batch.getBrowser(), batch.getProfileId(), line -> publishOutput(runsByFile, line));
+            attachLog(runs, outcome);
+
+            if (handle.isCancelled())
+            {
+                runs.forEach(run ->
+                {
+                    run.setStatus(TestStatus.CANCELLED);
+                    run.setDescription(cancelledDescription(handle));
+                });
+                return 0;
+            }
+            if (outcome.timedOut())
+            {
+                runs.forEach(run ->
+                {
+                    run.setStatus(TestStatus.FAILED);
+                    run.setDescription("Batch execution timeout after " + timeoutMinutes + " minutes, "
+                            + outcome.reapedProcesses() + " orphan process(es) reaped");
+                });
+                return runs.size();
+            }
+
+            PlaywrightReport report = readReport(reportFile);
+            int failedTests = report != null ? report.getStats().getUnexpected() : 0;
+            boolean aborted = maxFailures != null && failedTests >= maxFailures;
+            runsByFile.forEach((file, run) ->
+            {
+                ReportStats stats = report != null ? report.getFiles().get(file) : null;
+                if (stats == null && aborted)
+                {
+                    markAborted(run, maxFailures);
+                } else if (stats == null)
+                {
+                    run.setStatus(TestStatus.FAILED);
+                    run.setDescription("No results reported for " + file + " (exit code " + outcome.exitCode() + ")");
+                } else
+                {
+                    applyStats(run, stats, outcome.exitCode());
+                    testsByRun.put(run, report.getTests().stream()
+                            .filter(test -> file.equals(test.getFile()))
+                            .toList());
+                }
+            });
+            return report != null ? failedTests : (int) runs.stream().filter(run -> run.getStatus() == TestStatus.FAILED).count();
         } catch (Exception e)
         {
-            log.error("Error executing Playwright test: {}", testFileName, e);
-            testRun.setStatus(TestStatus.FAILED);
-            testRun.setDescription("Error: " + e.getMessage());
+            log.error("Error executing wave {} of Playwright batch {}", wave, batch.getId(), e);
+            runs.forEach(run ->
+            {
+                run.setStatus(TestStatus.FAILED);
+                run.setDescription("Error: " + e.getMessage());
+            });
+            return runs.size();
+        } finally
+        {
+            deleteReport(reportFile);
+        }
+    }
+
+    private void markAborted (TestRun run, int maxFailures)
+    {
+        run.setStatus(TestStatus.SKIPPED);
+        run.setDescription("Not run: batch aborted after " + maxFailures + " failure(s)");
+    }
+
+    private ProcessOutcome runProcess (RunHandle handle, String arguments, String configFile, Path reportFile, String logName, long timeoutMinutes, Browser browser, Long profileId, Consumer<String> lineConsumer) throws IOException, InterruptedException
+    {
+        // Keep the JSON report out of stdout so the list reporter output can be streamed line by line
+        Files.createDirectories(reportFile.getParent());
+        String reportPath = reportFile.toAbsolutePath().toString();
+        Map<String, String> environment = new LinkedHashMap<>();
+        environment.put("PLAYWRIGHT_JSON_OUTPUT_FILE", reportPath);
+        environment.put("PLAYWRIGHT_JSON_OUTPUT_NAME", reportPath);
+        // read by the reporters of the static and the generated configurations to keep the reports of each run apart
+        String reportName = logName.substring(0, logName.indexOf('.'));
+        arguments += outputArgument(reportName);
+        environment.put(PlaywrightConfigWriter.HTML_OUTPUT_ENV, HTML_REPORT_DIR.resolve(reportName).toAbsolutePath().toString());
+        environment.put(PlaywrightConfigWriter.JUNIT_OUTPUT_ENV, HTML_REPORT_DIR.resolve(reportName + "-junit.xml").toAbsolutePath().toString());
+
+        // the lease is held until the process exited, so no other invocation shares the browser
+        try (BrowserServerPool.Lease lease = browserServerPool.lease(Browser.orDefault(browser), configWriter.requestsHeadedBrowser(profileId)))
+        {
+            if (lease.getEndpoint() != null)
+            {
+                environment.put(BrowserServerPool.CONNECT_ENV, lease.getEndpoint());
+            }
+
+            if (handle.isCancelled())
+            {
+                // cancelled while the worker prepared the run, the caller marks it as cancelled
+                return new ProcessOutcome("", -1, false, 0, null, 0);
+            }
+            SupervisedProcess supervised = startProcess(arguments, configFile, environment, Duration.ofMinutes(timeoutMinutes), lineConsumer, runLogStore.resolve(logName));
+            runRegistry.attach(handle, supervised.process());
+            try
+            {
+                return supervised.outcome().get();
+            } catch (InterruptedException e)
+            {
+                processSupervisor.kill(supervised.process());
+                throw e;
+            } catch (ExecutionException e)
+            {
+                throw new IOException("Supervision of Playwright process failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Starts Playwright in the warm runner daemon and spawns it through a shell if the daemon
+     * cannot take the run.
+     */
+    private SupervisedProcess startProcess (String arguments, String configFile, Map<String, String> environment, Duration timeout, Consumer<String> lineConsumer, Path logFile) throws IOException
+    {
+        if (properties.isDaemon())
+        {
+            try
+            {
+                return processSupervisor.start(output -> runnerDaemon.start(playwrightArguments(arguments, configFile), environment, output), timeout, lineConsumer, logFile);
+            } catch (IOException e)
+            {
+                log.debug("Runner daemon unavailable, spawning Playwright: {}", e.getMessage());
+            }
         }
 
-        return testRunRepository.save(testRun);
+        ProcessBuilder processBuilder = new ProcessBuilder(buildCommand(arguments, configFile));
+        processBuilder.directory(new File(System.getProperty("user.dir")));
+        processBuilder.environment().putAll(environment);
+        return processSupervisor.start(processBuilder, timeout, lineConsumer, logFile);
     }
 
+    private void attachLog (List<TestRun> runs, ProcessOutcome outcome)
+    {
+        if (outcome.logFile() == null)
+        {
+            return;
+        }
+        String logName = outcome.logFile().getFileName().toString();
+        runs.forEach(run ->
+        {
+            run.setLogFile(logName);
+            run.setLogSizeBytes(outcome.outputBytes());
+        });
+    }
 
-    private List<String> buildCommand (String testFileName)
+    /**
+     * Appends as much of the end of the output as fits into a run description; the complete
+     * output is available from the run log.
+     */
+    static String withOutputTail (String message, String output)
+    {
+        int available = DESCRIPTION_LIMIT - message.length() - 1;
+        if (output == null || output.isEmpty() || available <= 0)
+        {
+            return message;
+        }
+        String tail = output.length() > available ? output.substring(output.length() - available) : output;
+        return message + "\n" + tail;
+    }
+
+    /**
+     * Playwright matches file arguments as regular expressions against the whole path, so a bare
+     * {@code 1.spec.ts} would also select {@code 11.spec.ts}. Prefixing the test directory
+     * anchors the name at a path separator.
+     */
+    static String fileFilter (String testFileName)
+    {
+        return TEST_DIR + "/" + testFileName;
+    }
+
+    /**
+     * Selects the browser project, so the other browsers of the configuration do not run.
+     */
+    static String projectArgument (Browser browser)
+    {
+        return " --project=" + Browser.orDefault(browser).getProject();
+    }
+
+    /**
+     * Gives the invocation its own output directory, so starting it does not delete the traces
+     * and screenshots of an invocation that is still running.
+     */
+    static String outputArgument (String invocation)
+    {
+        return " --output=" + OUTPUT_DIR + "/" + invocation;
+    }
+
+    /**
+     * Arguments of the Playwright CLI; file names and options in {@code testFileName} are
+     * separated by single spaces.
+     *
+     * @param configFile generated configuration relative to the backend directory, which also
+     *                   sets the retries; {@code null} runs with {@code playwright.config.ts} and
+     *                   the configured retries, if any
+     */
+    private List<String> playwrightArguments (String testFileName, String configFile)
+    {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("test");
+        arguments.addAll(List.of(testFileName.trim().split(" ")));
+        if (configFile != null)
+        {
+            arguments.add("--config=" + configFile);
+        } else if (properties.getRetries() > 0)
+        {
+            arguments.add("--retries=" + properties.getRetries());
+        }
+        return arguments;
+    }
+
+    private List<String> buildCommand (String testFileName, String configFile)
     {
         List<String> command = new ArrayList<>();
         String os = System.getProperty("os.name").toLowerCase();
 
-        String playwrightCommand = "npx playwright test " + testFileName;
+        String playwrightCommand = "npx playwright " + String.join(" ", playwrightArguments(testFileName, configFile));
 
         if (os.contains("win"))
         {
@@ -124,50 +562,152 @@ public class PlaywrightTestRunner
         return command;
     }
 
-    private void parseTestResults (TestRun testRun, String output, int exitCode)
+    private void publishOutput (Map<String, TestRun> runsByFile, String line)
+    {
+        String text = ListReporterLineParser.stripAnsi(line);
+        runsByFile.values().forEach(run -> eventPublisher.publishLine(run.getId(), text));
+        ListReporterLineParser.parse(text).ifPresent(result ->
+        {
+            TestRun run = runsByFile.get(result.file());
+            if (run != null)
+            {
+                eventPublisher.publishTestResult(run.getId(), result);
+            }
+        });
+    }
+
+    /**
+     * Removes the traces and screenshots of an invocation once they were ingested.
+     */
+    private void deleteOutput (String invocation)
+    {
+        Path outputDir = Path.of("backend", OUTPUT_DIR, invocation);
+        try
+        {
+            FileSystemUtils.deleteRecursively(outputDir);
+        } catch (IOException e)
+        {
+            log.warn("Could not delete output directory {}", outputDir, e);
+        }
+    }
+
+    private void deleteReport (Path reportFile)
     {
         try
         {
-            Pattern jsonPattern = Pattern.compile("\\{[\\s\\S]*\"stats\"[\\s\\S]*}");
-            Matcher matcher = jsonPattern.matcher(output);
+            Files.deleteIfExists(reportFile);
+        } catch (IOException e)
+        {
+            log.warn("Could not delete report file {}", reportFile, e);
+        }
+    }
 
-            if (matcher.find())
-            {
-                String jsonString = matcher.group();
-                ObjectMapper objectMapper = new ObjectMapper();
-                JsonNode root = objectMapper.readTree(jsonString);
+    /**
+     * The lease heartbeat only forwards cancel requests of runs that have a handle, so the
+     * worker checks for requests made while the runs were queued, on any instance.
+     */
+    private boolean isCancelRequested (List<Long> runIds)
+    {
+        return !testRunRepository.findCancelRequested(runIds).isEmpty();
+    }
+
+    /**
+     * The cancelling instance already marked the runs as cancelled, but taking their lease
+     * saved the queued state again, so the final state is written once more.
+     */
+    private void finishCancelledWhileQueued (List<TestRun> runs)
+    {
+        List<Long> runIds = runs.stream().map(TestRun::getId).toList();
+        runRegistry.release(runIds);
+        runLeaseService.release(runIds);
+        LocalDateTime finishedAt = LocalDateTime.now();
+        runs.forEach(run ->
+        {
+            run.setStatus(TestStatus.CANCELLED);
+            run.setDescription("Cancelled before start");
+            run.setFinishedAt(finishedAt);
+            finish(run);
+            eventPublisher.complete(run.getId(), run.getStatus(), run.getDescription());
+        });
+    }
+
+    /**
+     * Writes the final state of a run unless it was finished in the meantime, which only a
+     * cancel on another instance does; the run then keeps the state written there, so the
+     * following save of the run cannot overwrite it.
+     */
+    private void finish (TestRun run)
+    {
+        if (testRunRepository.finish(run.getId(), run.getStatus(), run.getDescription(), run.getFinishedAt()) == 1)
+        {
+            return;
+        }
+        testRunRepository.findById(run.getId()).ifPresent(current ->
+        {
+            log.info("TestRun {} was finished elsewhere with status {}", run.getId(), current.getStatus());
+            run.setStatus(current.getStatus());
+            run.setDescription(current.getDescription());
+            run.setFinishedAt(current.getFinishedAt());
+        });
+    }
 
-                JsonNode stats = root.path("stats");
-                int unexpected = stats.path("unexpected").asInt(0);
-                int expected = stats.path("expected").asInt(0);
-                int skipped = stats.path("skipped").asInt(0);
-                int flaky = stats.path("flaky").asInt(0);
+    private String cancelledDescription (RunHandle handle)
+    {
+        return "Cancelled, " + handle.getReapedProcesses() + " orphan process(es) reaped";
+    }
 
+    private void recordResults (TestRun run, List<ReportTestResult> tests)
+    {
+        // The run result itself is already stored, so a failure here only loses the details
+        try
+        {
+            specResultService.record(run, tests);
+        } catch (Exception e)
+        {
+            log.error("Could not record spec results for run {}", run.getId(), e);
+        }
+        try
+        {
+            artifactStore.ingestAttachments(run, tests);
+        } catch (Exception e)
+        {
+            log.error("Could not store artifacts for run {}", run.getId(), e);
+        }
+    }
+
+    private void scoreFlakiness (TestRun run, List<ReportTestResult> tests)
+    {
+        try
+        {
+            flakinessService.record(run, tests);
+        } catch (Exception e)
+        {
+            log.error("Could not update flakiness score for run {}", run.getId(), e);
+        }
+    }
+
+    private PlaywrightReport readReport (Path reportFile) throws IOException
+    {
+        return Files.exists(reportFile) ? reportParser.parse(reportFile) : null;
+    }
+
+    private PlaywrightReport parseTestResults (TestRun testRun, Path reportFile, int exitCode)
+    {
+        PlaywrightReport report = null;
+        try
+        {
+            report = readReport(reportFile);
+
+            if (report != null)
+            {
+                ReportStats stats = report.getStats();
                 log.info("Test results - Expected: {}, Unexpected: {}, Skipped: {}, Flaky: {}",
-                        expected, unexpected, skipped, flaky);
+                        stats.getExpected(), stats.getUnexpected(), stats.getSkipped(), stats.getFlaky());
 
-                if (unexpected > 0)
-                {
-                    testRun.setStatus(TestStatus.FAILED);
-                    testRun.setDescription(String.format(
-                            "Test failed: %d test(s) failed, %d passed, %d skipped",
-                            unexpected, expected, skipped
-                    ));
-                } else if (expected > 0 || exitCode == 0)
-                {
-                    testRun.setStatus(TestStatus.PASSED);
-                    testRun.setDescription(String.format(
-                            "All tests passed: %d test(s) passed, %d skipped",
-                            expected, skipped
-                    ));
-                } else
-                {
-                    testRun.setStatus(TestStatus.SKIPPED);
-                    testRun.setDescription("No tests were executed");
-                }
+                applyStats(testRun, stats, exitCode);
             } else
             {
-                log.error("No JSON test results found in output");
+                log.error("No JSON test results found at {}", reportFile);
                 testRun.setStatus(TestStatus.FAILED);
                 testRun.setDescription("Test failed with exit code: " + exitCode);
             }
@@ -184,5 +724,30 @@ public class PlaywrightTestRunner
                 testRun.setDescription("Test failed with exit code: " + exitCode);
             }
         }
+        return report;
     }
+
+    private void applyStats (TestRun testRun, ReportStats stats, int exitCode)
+    {
+        if (stats.getUnexpected() > 0)
+        {
+            testRun.setStatus(TestStatus.FAILED);
+            testRun.setDescription(String.format(
+                    "Test failed: %d test(s) failed, %d passed, %d skipped",
+                    stats.getUnexpected(), stats.getExpected(), stats.getSkipped()
+            ));
+        } else if (stats.getExpected() > 0 || exitCode == 0)
+        {
+            testRun.setStatus(TestStatus.PASSED);
+            testRun.setDescription(String.format(
+                    "All tests passed: %d test(s) passed, %d skipped",
+                    stats.getExpected(), stats.getSkipped()
+            ));
+        } else
+        {
+            testRun.setStatus(TestStatus.SKIPPED);
+            testRun.setDescription("No tests were executed");
+        }
+    }
+
 }
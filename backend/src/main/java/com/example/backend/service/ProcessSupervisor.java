@@ -0,0 +1,399 @@
+package com.example.backend.service;
+
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Starts external processes and supervises them without a thread per process. Output is
+ * redirected to a file that a single tailer thread polls for all processes, and completion
+ * and timeouts are driven by {@link Process#onExit()}. Callers can wait on the returned
+ * future from virtual threads, so hundreds of concurrent runs cost no extra platform threads
+ * beyond the JDK's own process reapers.
+ * <p>
+ * Only the head and the tail of the output are kept in memory. The complete output can be
+ * kept as a gzip compressed spill file, which is written after the process has exited.
+ */
+@Component
+@Slf4j
+public class ProcessSupervisor
+{
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long KILL_GRACE_SECONDS = 5;
+    // killing waits for the process tree to exit, which must not block the JDK's timeout scheduler
+    private static final Executor KILLER = task -> Thread.ofVirtual().name("process-killer").start(task);
+    // compressing a large log must not stall the output of the other processes on the tailer
+    private static final Executor SPILLER = task -> Thread.ofVirtual().name("process-spill").start(task);
+
+    static final int HEAD_CHARS = 16 * 1024;
+    static final int TAIL_CHARS = 48 * 1024;
+    // output without newlines, e.g. progress bars, is cut so a single line cannot fill the heap
+    static final int MAX_LINE_BYTES = TAIL_CHARS;
+
+    private final ScheduledExecutorService tailer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("process-output-tailer").factory());
+
+    // only accessed on the tailer thread
+    private final List<OutputTail> tails = new ArrayList<>();
+
+    private final AtomicInteger activeProcesses = new AtomicInteger();
+
+    public ProcessSupervisor (MeterRegistry meterRegistry)
+    {
+        Gauge.builder("process.supervisor.active", activeProcesses, AtomicInteger::get)
+                .description("External processes currently supervised")
+                .register(meterRegistry);
+
+        tailer.scheduleWithFixedDelay(this::pollAll, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts the process and returns immediately. The returned future completes once the
+     * process has exited and its output is fully read, or once it was killed after the timeout.
+     */
+    public SupervisedProcess start (ProcessBuilder processBuilder, Duration timeout, Consumer<String> lineConsumer) throws IOException
+    {
+        return start(processBuilder, timeout, lineConsumer, null);
+    }
+
+    /**
+     * Like {@link #start(ProcessBuilder, Duration, Consumer)}, and additionally writes the
+     * complete output gzip compressed to {@code spillFile} once the process has exited.
+     */
+    public SupervisedProcess start (ProcessBuilder processBuilder, Duration timeout, Consumer<String> lineConsumer, Path spillFile) throws IOException
+    {
+        return start(logFile ->
+        {
+            processBuilder.redirectErrorStream(true);
+            processBuilder.redirectOutput(logFile.toFile());
+            return processBuilder.start();
+        }, timeout, lineConsumer, spillFile);
+    }
+
+    /**
+     * Supervises a process started by the given launcher, for processes that are not started
+     * from a {@link ProcessBuilder} of this JVM. The launcher must send all output of the
+     * process to the file it is given.
+     */
+    public SupervisedProcess start (Launcher launcher, Duration timeout, Consumer<String> lineConsumer, Path spillFile) throws IOException
+    {
+        Path logFile = Files.createTempFile("process-", ".log");
+
+        Process process;
+        try
+        {
+            process = launcher.launch(logFile);
+        } catch (IOException e)
+        {
+            Files.deleteIfExists(logFile);
+            throw e;
+        }
+        activeProcesses.incrementAndGet();
+
+        OutputTail tail = new OutputTail(process, logFile, spillFile, lineConsumer);
+        CompletableFuture<ProcessOutcome> outcome = new CompletableFuture<>();
+        onTailer(() -> tails.add(tail), outcome);
+
+        process.onExit()
+                .thenApply(exited -> false)
+                .completeOnTimeout(true, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenAcceptAsync(timedOut ->
+                {
+                    int reaped = 0;
+                    if (timedOut)
+                    {
+                        log.warn("Process {} exceeded timeout of {}, killing it", process.pid(), timeout);
+                        reaped = kill(process);
+                    }
+                    int reapedProcesses = reaped;
+                    process.onExit().thenRun(() -> onTailer(() -> finish(tail, timedOut, reapedProcesses, outcome), outcome));
+                }, KILLER);
+
+        return new SupervisedProcess(process, outcome);
+    }
+
+    public int getActiveProcesses ()
+    {
+        return activeProcesses.get();
+    }
+
+    /**
+     * Kills the process together with all processes it spawned (npx, node, browsers). The
+     * tree is asked to terminate first and killed forcibly after a grace period. Descendants
+     * are collected up front, since they are re-parented and no longer reachable once the
+     * shell exits.
+     *
+     * @return number of descendant processes that were terminated
+     */
+    public int kill (Process process)
+    {
+        List<ProcessHandle> tree = new ArrayList<>(process.descendants().toList());
+        int descendants = tree.size();
+        // a daemon run that exited before it was attached has no handle
+        if (process.toHandle() != null)
+        {
+            tree.add(process.toHandle());
+        }
+        tree.forEach(ProcessHandle::destroy);
+
+        try
+        {
+            CompletableFuture.allOf(tree.stream().map(ProcessHandle::onExit).toArray(CompletableFuture[]::new))
+                    .get(KILL_GRACE_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e)
+        {
+            log.debug("Process tree of {} did not terminate within {}s", process.pid(), KILL_GRACE_SECONDS);
+        }
+
+        tree.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+        int reaped = descendants;
+        log.info("Killed process {} and {} descendant process(es)", process.pid(), reaped);
+        return reaped;
+    }
+
+    @PreDestroy
+    public void shutdown ()
+    {
+        tailer.shutdownNow();
+    }
+
+    private void onTailer (Runnable task, CompletableFuture<ProcessOutcome> outcome)
+    {
+        try
+        {
+            tailer.execute(task);
+        } catch (RejectedExecutionException e)
+        {
+            if (outcome.completeExceptionally(e))
+            {
+                activeProcesses.decrementAndGet();
+            }
+        }
+    }
+
+    private void pollAll ()
+    {
+        for (OutputTail tail : tails)
+        {
+            try
+            {
+                tail.drain();
+            } catch (IOException e)
+            {
+                log.debug("Could not read output of process {}", tail.process.pid(), e);
+            }
+        }
+    }
+
+    private void finish (OutputTail tail, boolean timedOut, int reapedProcesses, CompletableFuture<ProcessOutcome> outcome)
+    {
+        tails.remove(tail);
+        try
+        {
+            tail.drain();
+            tail.flush();
+        } catch (Exception e)
+        {
+            activeProcesses.decrementAndGet();
+            tail.close();
+            outcome.completeExceptionally(e);
+            return;
+        }
+
+        int exitCode = timedOut ? -1 : tail.process.exitValue();
+        SPILLER.execute(() ->
+        {
+            try
+            {
+                Path spilled = tail.spill();
+                activeProcesses.decrementAndGet();
+                outcome.complete(new ProcessOutcome(tail.output.toString(), exitCode, timedOut, reapedProcesses, spilled, tail.bytesRead));
+            } finally
+            {
+                tail.close();
+            }
+        });
+    }
+
+    /**
+     * Reads the output file of one process incrementally and splits it into lines.
+     */
+    private static final class OutputTail
+    {
+        private final Process process;
+        private final Path logFile;
+        private final Path spillFile;
+        private final Consumer<String> lineConsumer;
+        private final OutputRingBuffer output = new OutputRingBuffer(HEAD_CHARS, TAIL_CHARS);
+        private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+        private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        private FileChannel channel;
+        private long bytesRead;
+        private long truncatedBytes;
+
+        private OutputTail (Process process, Path logFile, Path spillFile, Consumer<String> lineConsumer)
+        {
+            this.process = process;
+            this.logFile = logFile;
+            this.spillFile = spillFile;
+            this.lineConsumer = lineConsumer;
+        }
+
+        private void drain () throws IOException
+        {
+            if (channel == null)
+            {
+                channel = FileChannel.open(logFile, StandardOpenOption.READ);
+            }
+            int read;
+            while ((read = channel.read(buffer)) > 0)
+            {
+                bytesRead += read;
+                buffer.flip();
+                while (buffer.hasRemaining())
+                {
+                    byte b = buffer.get();
+                    if (b == '\n')
+                    {
+                        emitLine();
+                    } else if (partialLine.size() < MAX_LINE_BYTES)
+                    {
+                        partialLine.write(b);
+                    } else
+                    {
+                        truncatedBytes++;
+                    }
+                }
+                buffer.clear();
+            }
+        }
+
+        private void flush ()
+        {
+            if (partialLine.size() > 0)
+            {
+                emitLine();
+            }
+        }
+
+        private void emitLine ()
+        {
+            String line = partialLine.toString(StandardCharsets.UTF_8);
+            partialLine.reset();
+            if (line.endsWith("\r"))
+            {
+                line = line.substring(0, line.length() - 1);
+            }
+            if (truncatedBytes > 0)
+            {
+                line += " ... [" + truncatedBytes + " byte(s) of this line truncated]";
+                truncatedBytes = 0;
+            }
+            output.append(line);
+            output.append("\n");
+            try
+            {
+                lineConsumer.accept(line);
+            } catch (RuntimeException e)
+            {
+                log.warn("Output consumer of process {} failed", process.pid(), e);
+            }
+        }
+
+        /**
+         * Compresses the raw output into the spill file. A failure only costs the full log, the
+         * outcome is still reported.
+         *
+         * @return the spill file, or {@code null} if none was requested or it could not be written
+         */
+        private Path spill ()
+        {
+            if (spillFile == null)
+            {
+                return null;
+            }
+            try
+            {
+                if (spillFile.getParent() != null)
+                {
+                    Files.createDirectories(spillFile.getParent());
+                }
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(spillFile), 64 * 1024))
+                {
+                    Files.copy(logFile, out);
+                }
+                return spillFile;
+            } catch (IOException e)
+            {
+                log.warn("Could not write output of process {} to {}", process.pid(), spillFile, e);
+                return null;
+            }
+        }
+
+        private void close ()
+        {
+            try
+            {
+                if (channel != null)
+                {
+                    channel.close();
+                }
+                Files.deleteIfExists(logFile);
+            } catch (IOException e)
+            {
+                log.warn("Could not remove output file {}", logFile, e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Launcher
+    {
+        Process launch (Path logFile) throws IOException;
+    }
+
+    public record SupervisedProcess(Process process, CompletableFuture<ProcessOutcome> outcome)
+    {
+    }
+
+    /**
+     * @param output      head and tail of the output, see {@link OutputRingBuffer}
+     * @param logFile     gzip compressed complete output, {@code null} if it was not spilled
+     * @param outputBytes size of the complete, uncompressed output
+     */
+    public record ProcessOutcome(String output, int exitCode, boolean timedOut, int reapedProcesses, Path logFile, long outputBytes)
+    {
+    }
+}
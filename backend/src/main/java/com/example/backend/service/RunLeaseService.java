@@ -0,0 +1,125 @@
+package com.example.backend.service;
+
+
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestRunRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Keeps the lease of every run this instance has queued or is executing alive. The lease is
+ * taken when a run is queued and released when the run is finished; in between it is renewed
+ * periodically, so a run whose lease expires belongs to an instance that no longer exists.
+ * The heartbeat also picks up cancel requests made on other instances for the leased runs.
+ */
+@Service
+@Slf4j
+public class RunLeaseService
+{
+
+    private final TestRunRepo testRunRepository;
+    private final RunRegistry runRegistry;
+    private final String instanceId;
+    private final Set<Long> leasedRunIds = ConcurrentHashMap.newKeySet();
+
+    public RunLeaseService (TestRunRepo testRunRepository, RunRegistry runRegistry)
+    {
+        this.testRunRepository = testRunRepository;
+        this.runRegistry = runRegistry;
+        // pid@host plus a random suffix, so a restarted process never reuses the lease of its predecessor
+        this.instanceId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Takes the lease of runs this instance queues, so other instances do not take them over
+     * while they wait for a worker.
+     */
+    public void hold (List<TestRun> runs)
+    {
+        LocalDateTime now = LocalDateTime.now();
+        runs.forEach(run ->
+        {
+            run.setLeaseOwner(instanceId);
+            run.setHeartbeatAt(now);
+        });
+        testRunRepository.saveAll(runs);
+        runs.forEach(run -> leasedRunIds.add(run.getId()));
+    }
+
+    /**
+     * Takes over a run whose lease expired before {@code cutoff}. The lease is taken with a
+     * conditional update, so of several instances recovering the run only one gets it.
+     */
+    public boolean claim (TestRun run, LocalDateTime cutoff)
+    {
+        LocalDateTime now = LocalDateTime.now();
+        if (testRunRepository.claimExpired(run.getId(), instanceId, now, cutoff) != 1)
+        {
+            return false;
+        }
+        run.setLeaseOwner(instanceId);
+        run.setHeartbeatAt(now);
+        leasedRunIds.add(run.getId());
+        return true;
+    }
+
+    public void acquire (List<TestRun> runs)
+    {
+        LocalDateTime now = LocalDateTime.now();
+        runs.forEach(run ->
+        {
+            run.setLeaseOwner(instanceId);
+            run.setStartedAt(now);
+            run.setHeartbeatAt(now);
+        });
+        testRunRepository.saveAll(runs);
+        runs.forEach(run -> leasedRunIds.add(run.getId()));
+    }
+
+    public void release (Collection<Long> runIds)
+    {
+        leasedRunIds.removeAll(runIds);
+    }
+
+    @Scheduled(fixedDelayString = "${playwright.runner.heartbeat-interval:PT15S}")
+    public void heartbeat ()
+    {
+        if (leasedRunIds.isEmpty())
+        {
+            return;
+        }
+        List<Long> runIds = List.copyOf(leasedRunIds);
+        int renewed = testRunRepository.renewLeases(runIds, instanceId, LocalDateTime.now());
+        log.debug("Renewed lease of {}/{} run(s)", renewed, runIds.size());
+
+        // queued runs have no handle yet, their worker sees the request when it picks them up
+        for (Long runId : testRunRepository.findCancelRequested(runIds))
+        {
+            RunRegistry.Cancellation cancellation = runRegistry.cancel(List.of(runId));
+            if (cancellation.reapedProcesses() > 0)
+            {
+                log.info("Cancelled run {} on request, reaped {} process(es)", runId, cancellation.reapedProcesses());
+            }
+        }
+    }
+
+    public String getInstanceId ()
+    {
+        return instanceId;
+    }
+
+    public boolean isLeased (Long runId)
+    {
+        return leasedRunIds.contains(runId);
+    }
+}
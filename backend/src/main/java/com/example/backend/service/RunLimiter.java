@@ -0,0 +1,358 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.dto.EnvironmentLimitsDto;
+import com.example.backend.dto.EnvironmentRunCountDto;
+import com.example.backend.models.Environment;
+import com.example.backend.repo.EnvironmentRepo;
+import com.example.backend.repo.TestRepo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Limits how many runs execute and how many runs start per minute, per environment and
+ * globally. Concurrency slots are taken from fair semaphores, so runs get their slots in the
+ * order they asked for them. Starts are paced by reserving the next free start time of each
+ * rate limit, which spreads a burst of runs evenly over the minute instead of rejecting it.
+ * <p>
+ * Slots are always taken in the same order, environments by id and the global limit last, so
+ * runs spanning several environments cannot deadlock each other.
+ */
+@Service
+@Slf4j
+public class RunLimiter
+{
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final TestRepo testRepo;
+    private final EnvironmentRepo environmentRepo;
+    private final MeterRegistry meterRegistry;
+    private final Limit global;
+    private final Map<Long, Limit> environments = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    // guards the reservations of all rate limits, so a run reserves its start on every limit at once
+    private final Object rateLock = new Object();
+
+    public RunLimiter (TestRepo testRepo, EnvironmentRepo environmentRepo, TestRunnerProperties properties, MeterRegistry meterRegistry)
+    {
+        this.testRepo = testRepo;
+        this.environmentRepo = environmentRepo;
+        this.meterRegistry = meterRegistry;
+        this.global = new Limit("global", positive(properties.getMaxConcurrentRuns()), positive(properties.getRunsPerMinute()), meterRegistry);
+
+        Gauge.builder("testrun.limit.waiting", waiting, AtomicInteger::get)
+                .description("Runs waiting for a concurrency or rate limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes the slots for the given tests if all limits allow it right now, without waiting
+     * and without overtaking runs that already wait.
+     *
+     * @return the permit, or {@code null} if the runs have to wait
+     */
+    public Permit tryAcquire (Collection<Long> testIds, int parallelism)
+    {
+        List<Slot> slots = plan(testIds, parallelism);
+        List<Slot> held = new ArrayList<>();
+        for (Slot slot : slots)
+        {
+            if (!slot.limit().tryAcquire(slot.permits()))
+            {
+                release(held);
+                return null;
+            }
+            held.add(slot);
+        }
+
+        synchronized (rateLock)
+        {
+            long now = System.nanoTime();
+            if (slots.stream().anyMatch(slot -> !slot.limit().isRateFree(now)))
+            {
+                release(held);
+                return null;
+            }
+            slots.forEach(slot -> slot.limit().reserve(slot.runs(), now));
+        }
+
+        slots.forEach(slot ->
+        {
+            slot.limit().concurrencyWait.record(Duration.ZERO);
+            slot.limit().rateWait.record(Duration.ZERO);
+        });
+        return new Permit(held, grantedParallelism(slots, parallelism));
+    }
+
+    /**
+     * Waits until all limits of the given tests allow them to run and their start is due.
+     */
+    public Permit acquire (Collection<Long> testIds, int parallelism) throws InterruptedException
+    {
+        List<Slot> slots = plan(testIds, parallelism);
+        List<Slot> held = new ArrayList<>();
+        waiting.incrementAndGet();
+        try
+        {
+            for (Slot slot : slots)
+            {
+                long start = System.nanoTime();
+                slot.limit().acquire(slot.permits());
+                held.add(slot);
+                slot.limit().concurrencyWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+
+            long now = System.nanoTime();
+            long startAt = now;
+            synchronized (rateLock)
+            {
+                for (Slot slot : slots)
+                {
+                    long reserved = slot.limit().reserve(slot.runs(), now);
+                    slot.limit().rateWait.record(reserved - now, TimeUnit.NANOSECONDS);
+                    startAt = Math.max(startAt, reserved);
+                }
+            }
+            if (startAt > now)
+            {
+                TimeUnit.NANOSECONDS.sleep(startAt - now);
+            }
+            return new Permit(held, grantedParallelism(slots, parallelism));
+        } catch (InterruptedException e)
+        {
+            release(held);
+            throw e;
+        } finally
+        {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public int getWaiting ()
+    {
+        return waiting.get();
+    }
+
+    public EnvironmentLimitsDto getLimits (Environment environment)
+    {
+        Limit limit = environmentLimit(environment.getId());
+        EnvironmentLimitsDto dto = new EnvironmentLimitsDto();
+        dto.setEnvironmentId(environment.getId());
+        dto.setMaxConcurrentRuns(environment.getMaxConcurrentRuns());
+        dto.setRunsPerMinute(environment.getRunsPerMinute());
+        if (limit.semaphore != null)
+        {
+            dto.setActiveRuns(limit.maxConcurrent - limit.semaphore.availablePermits());
+            dto.setWaitingRuns(limit.semaphore.getQueueLength());
+        }
+        return dto;
+    }
+
+    /**
+     * Drops the cached limits of an environment after they were changed. Runs holding a slot
+     * of the old limits release it there; new runs use the new limits right away.
+     */
+    public void invalidate (Long environmentId)
+    {
+        environments.remove(environmentId);
+    }
+
+    private List<Slot> plan (Collection<Long> testIds, int parallelism)
+    {
+        List<Slot> slots = new ArrayList<>();
+        if (testIds.isEmpty())
+        {
+            return slots;
+        }
+        testRepo.countByEnvironment(testIds).stream()
+                .sorted((a, b) -> Long.compare(a.getEnvironmentId(), b.getEnvironmentId()))
+                .forEach(count -> addSlot(slots, environmentLimit(count.getEnvironmentId()), count, parallelism));
+        addSlot(slots, global, new EnvironmentRunCountDto(null, (long) testIds.size()), parallelism);
+        return slots;
+    }
+
+    private static void addSlot (List<Slot> slots, Limit limit, EnvironmentRunCountDto count, int parallelism)
+    {
+        if (limit.isUnlimited())
+        {
+            return;
+        }
+        int permits = limit.semaphore != null
+                ? (int) Math.min(Math.min(count.getRuns(), Math.max(1, parallelism)), limit.maxConcurrent)
+                : 0;
+        slots.add(new Slot(limit, permits, count.getRuns()));
+    }
+
+    private Limit environmentLimit (Long environmentId)
+    {
+        return environments.computeIfAbsent(environmentId, id ->
+        {
+            Environment environment = environmentRepo.findById(id).orElse(null);
+            Integer maxConcurrent = environment != null ? environment.getMaxConcurrentRuns() : null;
+            Integer perMinute = environment != null ? environment.getRunsPerMinute() : null;
+            return new Limit(String.valueOf(id), maxConcurrent != null ? maxConcurrent : 0, perMinute != null ? perMinute : 0, meterRegistry);
+        });
+    }
+
+    /**
+     * A batch cannot use more Playwright workers than the tightest concurrency limit it runs under.
+     */
+    private static int grantedParallelism (List<Slot> slots, int parallelism)
+    {
+        return slots.stream()
+                .filter(slot -> slot.limit().semaphore != null)
+                .mapToInt(slot -> slot.limit().maxConcurrent)
+                .reduce(parallelism, Math::min);
+    }
+
+    private static void release (List<Slot> slots)
+    {
+        slots.forEach(slot -> slot.limit().release(slot.permits()));
+    }
+
+    private static int positive (int value)
+    {
+        return Math.max(0, value);
+    }
+
+    private record Slot(Limit limit, int permits, long runs)
+    {
+    }
+
+    /**
+     * Slots taken by one run or batch; closing the permit returns them.
+     */
+    public static final class Permit implements AutoCloseable
+    {
+        private final List<Slot> slots;
+        private final int parallelism;
+        private boolean released;
+
+        Permit (List<Slot> slots, int parallelism)
+        {
+            this.slots = slots;
+            this.parallelism = parallelism;
+        }
+
+        static Permit unlimited (int parallelism)
+        {
+            return new Permit(List.of(), parallelism);
+        }
+
+        /**
+         * Parallelism the runs may use, at most the requested one.
+         */
+        public int getParallelism ()
+        {
+            return parallelism;
+        }
+
+        @Override
+        public synchronized void close ()
+        {
+            if (!released)
+            {
+                released = true;
+                release(slots);
+            }
+        }
+    }
+
+    private static final class Limit
+    {
+        private final int maxConcurrent;
+        private final long interval;
+        private final Semaphore semaphore;
+        private final Timer concurrencyWait;
+        private final Timer rateWait;
+        // guarded by RunLimiter.rateLock
+        private long nextStart = System.nanoTime();
+
+        private Limit (String environment, int maxConcurrent, int runsPerMinute, MeterRegistry meterRegistry)
+        {
+            this.maxConcurrent = maxConcurrent;
+            this.interval = runsPerMinute > 0 ? NANOS_PER_MINUTE / runsPerMinute : 0;
+            this.semaphore = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+            this.concurrencyWait = Timer.builder("testrun.limit.wait")
+                    .description("Time runs waited for a free slot")
+                    .tag("limit", "concurrency")
+                    .tag("environment", environment)
+                    .register(meterRegistry);
+            this.rateWait = Timer.builder("testrun.limit.wait")
+                    .description("Time runs waited for their start to be due")
+                    .tag("limit", "rate")
+                    .tag("environment", environment)
+                    .register(meterRegistry);
+        }
+
+        private boolean isUnlimited ()
+        {
+            return semaphore == null && interval == 0;
+        }
+
+        private boolean tryAcquire (int permits)
+        {
+            try
+            {
+                // a zero timeout honors fairness, unlike the plain tryAcquire
+                return semaphore == null || permits == 0 || semaphore.tryAcquire(permits, 0, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private void acquire (int permits) throws InterruptedException
+        {
+            if (semaphore != null && permits > 0)
+            {
+                semaphore.acquire(permits);
+            }
+        }
+
+        private void release (int permits)
+        {
+            if (semaphore != null && permits > 0)
+            {
+                semaphore.release(permits);
+            }
+        }
+
+        private boolean isRateFree (long now)
+        {
+            return interval == 0 || nextStart - now <= 0;
+        }
+
+        /**
+         * Reserves the start of {@code runs} runs and returns when the first of them may start.
+         */
+        private long reserve (long runs, long now)
+        {
+            if (interval == 0)
+            {
+                return now;
+            }
+            long start = nextStart - now > 0 ? nextStart : now;
+            nextStart = start + runs * interval;
+            return start;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.ArtifactProperties;
+import com.example.backend.dto.RunLogDto;
+import com.example.backend.exceptions.FileOperationException;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.models.TestRun;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+
+/**
+ * Locates and reads the gzip compressed output logs of runs. Logs are read in ranges of the
+ * uncompressed content, so a large log is never held in memory as a whole.
+ */
+@Service
+@Slf4j
+public class RunLogStore
+{
+
+    static final int MAX_READ_BYTES = 1024 * 1024;
+
+    private final Path root;
+
+    public RunLogStore (ArtifactProperties properties)
+    {
+        this.root = Path.of(properties.getLogDir());
+    }
+
+    public Path resolve (String name)
+    {
+        return root.resolve(name);
+    }
+
+    /**
+     * Reads up to {@code limit} bytes of the log of a run, starting at {@code offset}. A
+     * negative offset counts from the end of the log, so {@code -65536} returns its last 64 KiB.
+     */
+    public RunLogDto read (TestRun run, long offset, int limit)
+    {
+        Path file = run.getLogFile() != null ? resolve(run.getLogFile()) : null;
+        if (file == null || !Files.isRegularFile(file))
+        {
+            throw new ResourceNotFoundException("Log of TestRun", run.getId());
+        }
+
+        long total = run.getLogSizeBytes() != null ? run.getLogSizeBytes() : Long.MAX_VALUE;
+        long start = offset < 0 ? Math.max(0, total + offset) : offset;
+        int length = Math.max(0, Math.min(limit, MAX_READ_BYTES));
+
+        byte[] content;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 64 * 1024))
+        {
+            in.skipNBytes(Math.min(start, total));
+            content = in.readNBytes(length);
+        } catch (EOFException e)
+        {
+            // the offset lies behind the end of the log
+            content = new byte[0];
+        } catch (IOException e)
+        {
+            throw new FileOperationException("Failed to read log of TestRun " + run.getId(), e);
+        }
+
+        RunLogDto dto = new RunLogDto();
+        dto.setRunId(run.getId());
+        dto.setOffset(start);
+        dto.setNextOffset(start + content.length);
+        dto.setTotalBytes(run.getLogSizeBytes() != null ? run.getLogSizeBytes() : start + content.length);
+        dto.setComplete(content.length < length || start + content.length >= total);
+        dto.setContent(new String(content, StandardCharsets.UTF_8));
+        return dto;
+    }
+}
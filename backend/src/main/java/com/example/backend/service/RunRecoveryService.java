@@ -0,0 +1,186 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.exceptions.RunQueueFullException;
+import com.example.backend.models.TestBatch;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRunRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Picks up work that was lost with another instance. PENDING rows are the durable run queue
+ * and every queued or running run is leased by the instance holding it in memory. Runs whose
+ * lease is no longer renewed are claimed, so several instances never take over the same run,
+ * and re-queued or, once they used up their recoveries, marked as FAILED. Lost generations are
+ * failed the same way by {@link GenerationJobService}.
+ */
+@Service
+@Slf4j
+public class RunRecoveryService
+{
+
+    private final TestRunRepo testRunRepository;
+    private final TestBatchRepo testBatchRepository;
+    private final TestRunDispatcher testRunDispatcher;
+    private final RunLeaseService runLeaseService;
+    private final MatrixRunFinisher matrixRunFinisher;
+    private final TestRunEventPublisher eventPublisher;
+    private final TestRunnerProperties properties;
+
+    public RunRecoveryService (TestRunRepo testRunRepository, TestBatchRepo testBatchRepository, TestRunDispatcher testRunDispatcher, RunLeaseService runLeaseService, MatrixRunFinisher matrixRunFinisher, TestRunEventPublisher eventPublisher, TestRunnerProperties properties)
+    {
+        this.testRunRepository = testRunRepository;
+        this.testBatchRepository = testBatchRepository;
+        this.testRunDispatcher = testRunDispatcher;
+        this.runLeaseService = runLeaseService;
+        this.matrixRunFinisher = matrixRunFinisher;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup ()
+    {
+        // runs of other instances are only taken over once their lease expired, even if they
+        // are older than this instance
+        recoverExpiredLeases();
+    }
+
+    @Scheduled(fixedDelayString = "${playwright.runner.heartbeat-interval:PT15S}", initialDelayString = "${playwright.runner.lease-timeout:PT1M}")
+    public void recoverExpiredLeases ()
+    {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getLeaseTimeout());
+        List<TestRun> expired = testRunRepository.findExpiredLeases(TestStatus.PENDING, cutoff).stream()
+                .filter(run -> !runLeaseService.isLeased(run.getId()))
+                .filter(run -> runLeaseService.claim(run, cutoff))
+                .toList();
+        if (!expired.isEmpty())
+        {
+            log.warn("Found {} run(s) with an expired lease", expired.size());
+            recover(expired, "Worker lost, lease expired");
+        }
+    }
+
+    /**
+     * Re-queues orphaned runs, keeping the runs of a batch together since they share one process.
+     */
+    void recover (List<TestRun> runs, String reason)
+    {
+        Map<Long, List<TestRun>> runsByBatch = new LinkedHashMap<>();
+        List<TestRun> singleRuns = new ArrayList<>();
+        for (TestRun run : runs)
+        {
+            if (run.getBatch() != null)
+            {
+                runsByBatch.computeIfAbsent(run.getBatch().getId(), id -> new ArrayList<>()).add(run);
+            } else
+            {
+                singleRuns.add(run);
+            }
+        }
+
+        for (TestRun run : singleRuns)
+        {
+            if (exhausted(List.of(run)))
+            {
+                fail(List.of(run), reason);
+                continue;
+            }
+            reset(List.of(run));
+            try
+            {
+                testRunDispatcher.requeue(run);
+            } catch (RunQueueFullException e)
+            {
+                // let the lease expire again, so the next sweep of any instance retries the run
+                log.warn("Could not re-queue TestRun {}: {}", run.getId(), e.getMessage());
+                runLeaseService.release(List.of(run.getId()));
+            } catch (RuntimeException e)
+            {
+                log.error("Could not re-queue TestRun {}", run.getId(), e);
+                fail(List.of(run), reason);
+            }
+        }
+
+        runsByBatch.forEach((batchId, batchRuns) ->
+        {
+            TestBatch batch = testBatchRepository.findById(batchId).orElse(null);
+            if (batch == null || exhausted(batchRuns))
+            {
+                fail(batchRuns, reason);
+                if (batch != null)
+                {
+                    batch.setStatus(TestStatus.FAILED);
+                    batch.setDescription(reason);
+                    batch.setFinishedAt(LocalDateTime.now());
+                    testBatchRepository.save(batch);
+                    matrixRunFinisher.finishIfDone(batch.getMatrixRunId());
+                }
+                return;
+            }
+            // a batch is only re-queued as a whole, so take the runs that are not orphaned along
+            List<TestRun> allRuns = testRunRepository.findByBatch_Id(batchId).stream()
+                    .filter(run -> run.getStatus() == TestStatus.PENDING)
+                    .toList();
+            reset(allRuns);
+            try
+            {
+                testRunDispatcher.submitBatch(batch, allRuns);
+            } catch (RunQueueFullException e)
+            {
+                log.warn("Could not re-queue batch {}: {}", batchId, e.getMessage());
+                runLeaseService.release(allRuns.stream().map(TestRun::getId).toList());
+            }
+        });
+    }
+
+    private boolean exhausted (List<TestRun> runs)
+    {
+        return runs.stream().anyMatch(run -> recoveries(run) >= properties.getMaxRecoveries());
+    }
+
+    private void reset (List<TestRun> runs)
+    {
+        runs.forEach(run ->
+        {
+            run.setRecoveries(recoveries(run) + 1);
+            run.setDescription("Test execution in progress...");
+        });
+        testRunRepository.saveAll(runs);
+        log.info("Re-queueing TestRun(s) {}", runs.stream().map(TestRun::getId).toList());
+    }
+
+    private void fail (List<TestRun> runs, String reason)
+    {
+        runs.forEach(run ->
+        {
+            run.setStatus(TestStatus.FAILED);
+            run.setLeaseOwner(null);
+            run.setDescription(reason + " after " + recoveries(run) + " recovery attempt(s)");
+        });
+        testRunRepository.saveAll(runs);
+        runLeaseService.release(runs.stream().map(TestRun::getId).toList());
+        runs.forEach(run -> eventPublisher.complete(run.getId(), run.getStatus(), run.getDescription()));
+        runs.stream().filter(run -> run.getBatch() == null).forEach(run -> matrixRunFinisher.finishIfDone(run.getMatrixRunId()));
+        log.warn("Marked orphaned TestRun(s) {} as FAILED: {}", runs.stream().map(TestRun::getId).toList(), reason);
+    }
+
+    private static int recoveries (TestRun run)
+    {
+        return run.getRecoveries() != null ? run.getRecoveries() : 0;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.backend.service;
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+/**
+ * Tracks the Playwright process executing each run on this instance so runs can be cancelled.
+ * All runs of a batch share one process and therefore one handle; cancelling any of them
+ * cancels the batch. A run cancelled after its worker picked it up but before its process
+ * started is left to the worker, which does not start the process. Runs without a handle are
+ * not tracked at all: their cancel request is kept in the database, which the worker checks
+ * when it picks them up.
+ */
+@Component
+@Slf4j
+public class RunRegistry
+{
+
+    private static final long REAP_WAIT_SECONDS = 10;
+
+    private final ProcessSupervisor processSupervisor;
+    private final Map<Long, RunHandle> handles = new ConcurrentHashMap<>();
+
+    public RunRegistry (ProcessSupervisor processSupervisor)
+    {
+        this.processSupervisor = processSupervisor;
+    }
+
+    /**
+     * Registers the runs that are about to start. The caller checks for cancel requests after
+     * registering, so a cancel either finds the handle or is seen by that check.
+     */
+    public synchronized RunHandle register (Collection<Long> runIds)
+    {
+        RunHandle handle = new RunHandle();
+        runIds.forEach(runId -> handles.put(runId, handle));
+        return handle;
+    }
+
+    /**
+     * Attaches the started process to its runs. If the runs were cancelled in the meantime,
+     * the process is killed right away.
+     */
+    public void attach (RunHandle handle, Process process)
+    {
+        synchronized (handle)
+        {
+            handle.process = process;
+            if (!handle.cancelled)
+            {
+                return;
+            }
+        }
+        handle.reapedProcesses.complete(processSupervisor.kill(process));
+    }
+
+    public synchronized void release (Collection<Long> runIds)
+    {
+        runIds.forEach(handles::remove);
+    }
+
+    /**
+     * Cancels the given runs and kills the process tree executing them, if any. Cancelling
+     * runs that are already cancelled does not kill their process again.
+     */
+    public Cancellation cancel (Collection<Long> runIds)
+    {
+        RunHandle handle;
+        synchronized (this)
+        {
+            handle = runIds.stream().map(handles::get).filter(Objects::nonNull).findFirst().orElse(null);
+        }
+        if (handle == null)
+        {
+            // queued, executing on another instance or finished
+            return new Cancellation(false, false, 0);
+        }
+
+        Process process;
+        synchronized (handle)
+        {
+            process = handle.process;
+            if (handle.cancelled)
+            {
+                return new Cancellation(process != null, process == null, 0);
+            }
+            handle.cancelled = true;
+        }
+        if (process == null)
+        {
+            // picked up by a worker that checks the handle before starting the process
+            return new Cancellation(false, true, 0);
+        }
+
+        log.info("Cancelling run(s) {}: killing process {}", runIds, process.pid());
+        int reaped = processSupervisor.kill(process);
+        handle.reapedProcesses.complete(reaped);
+        return new Cancellation(true, false, reaped);
+    }
+
+    public static final class RunHandle
+    {
+        private volatile boolean cancelled;
+        private final CompletableFuture<Integer> reapedProcesses = new CompletableFuture<>();
+        private Process process;
+
+        public boolean isCancelled ()
+        {
+            return cancelled;
+        }
+
+        /**
+         * Waits for the kill of a cancelled run to finish, since the worker usually sees
+         * the process exit before the cancelling thread is done.
+         */
+        public int getReapedProcesses ()
+        {
+            synchronized (this)
+            {
+                if (process == null)
+                {
+                    return 0;
+                }
+            }
+            try
+            {
+                return reapedProcesses.get(REAP_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return 0;
+            } catch (ExecutionException | TimeoutException e)
+            {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @param wasRunning true if the process executing the runs was killed
+     * @param pending    true if a worker picked the runs up but did not start their process yet;
+     *                   it skips the start and writes the final state like for a killed process
+     */
+    public record Cancellation(boolean wasRunning, boolean pending, int reapedProcesses)
+    {
+    }
+}
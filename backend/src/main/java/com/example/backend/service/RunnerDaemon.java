@@ -0,0 +1,440 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+
+/**
+ * Supervises {@code runner-daemon.js}, a node process that keeps the Playwright CLI loaded
+ * and starts runs without going through a shell and npx. Runs started by the daemon are
+ * handed out as {@link Process} instances backed by the run's process id, so the supervisor,
+ * timeouts and cancellation treat them like spawned processes.
+ * <p>
+ * If the daemon is disabled, not yet started or died, {@link #start} fails and the caller
+ * spawns the run itself. A dead daemon is restarted on the first run after the restart backoff.
+ */
+@Service
+@Slf4j
+public class RunnerDaemon
+{
+
+    static final String SCRIPT = "runner-daemon.js";
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ProcessSupervisor processSupervisor;
+    private final TestRunnerProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Path workingDir;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Long, DaemonProcess> runs = new ConcurrentHashMap<>();
+    private final AtomicLong nextRequestId = new AtomicLong();
+
+    // guarded by this
+    private Process daemon;
+    private BufferedWriter requests;
+    private long restartAt = System.nanoTime();
+    private boolean closed;
+
+    public RunnerDaemon (ProcessSupervisor processSupervisor, TestRunnerProperties properties, MeterRegistry meterRegistry)
+    {
+        this(processSupervisor, properties, meterRegistry, Path.of(System.getProperty("user.dir"), "backend"));
+    }
+
+    RunnerDaemon (ProcessSupervisor processSupervisor, TestRunnerProperties properties, MeterRegistry meterRegistry, Path workingDir)
+    {
+        this.processSupervisor = processSupervisor;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.workingDir = workingDir;
+
+        Gauge.builder("testrun.daemon.alive", this, runner -> runner.isAlive() ? 1 : 0)
+                .description("Whether the warm Playwright runner daemon is running")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp ()
+    {
+        if (!properties.isDaemon())
+        {
+            return;
+        }
+        try
+        {
+            synchronized (this)
+            {
+                ensureRunning();
+            }
+        } catch (IOException e)
+        {
+            log.warn("Could not start the Playwright runner daemon, runs are spawned: {}", e.getMessage());
+        }
+    }
+
+    public synchronized boolean isAlive ()
+    {
+        return daemon != null && daemon.isAlive();
+    }
+
+    /**
+     * Starts {@code playwright <arguments>} in the daemon, with the given variables added to
+     * the daemon's environment. All output of the run is appended to {@code logFile}.
+     *
+     * @throws IOException if the daemon cannot take the run; the caller then spawns it itself.
+     *                     Once the daemon reported the run as started this is never thrown, so
+     *                     a run is never executed twice.
+     */
+    public Process start (List<String> arguments, Map<String, String> environment, Path logFile) throws IOException
+    {
+        long id = nextRequestId.incrementAndGet();
+        DaemonProcess process = new DaemonProcess();
+        runs.put(id, process);
+        long pid;
+        try
+        {
+            synchronized (this)
+            {
+                ensureRunning();
+                process.owner = daemon;
+                requests.write(objectMapper.writeValueAsString(Map.of(
+                        "id", id,
+                        "args", arguments,
+                        "env", environment,
+                        "log", logFile.toAbsolutePath().toString())));
+                requests.newLine();
+                requests.flush();
+            }
+            pid = process.started.get(START_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (IOException e)
+        {
+            runs.remove(id);
+            meterRegistry.counter("testrun.daemon.runs", "result", "unavailable").increment();
+            throw e;
+        } catch (ExecutionException e)
+        {
+            runs.remove(id);
+            meterRegistry.counter("testrun.daemon.runs", "result", "unavailable").increment();
+            throw new IOException("Runner daemon rejected the run: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e)
+        {
+            runs.remove(id);
+            meterRegistry.counter("testrun.daemon.runs", "result", "unavailable").increment();
+            // a daemon that does not answer is replaced, a late start of this run is killed with it
+            restart("no answer within " + START_TIMEOUT.toSeconds() + "s");
+            throw new IOException("Runner daemon did not start the run within " + START_TIMEOUT, e);
+        } catch (InterruptedException e)
+        {
+            runs.remove(id);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while starting the run in the daemon", e);
+        }
+
+        // a run that already exited has no handle; its exit code still arrives from the daemon
+        process.pid = pid;
+        process.handle = ProcessHandle.of(pid).orElse(null);
+        if (process.handle == null)
+        {
+            log.debug("Run process {} exited before it was attached", pid);
+        }
+        meterRegistry.counter("testrun.daemon.runs", "result", "started").increment();
+        return process;
+    }
+
+    @PreDestroy
+    public void shutdown ()
+    {
+        Process process;
+        synchronized (this)
+        {
+            closed = true;
+            process = daemon;
+            daemon = null;
+        }
+        if (process != null)
+        {
+            processSupervisor.kill(process);
+        }
+    }
+
+    // called with the lock held
+    private void ensureRunning () throws IOException
+    {
+        if (closed || !properties.isDaemon())
+        {
+            throw new IOException("Runner daemon is disabled");
+        }
+        if (daemon != null && daemon.isAlive())
+        {
+            return;
+        }
+        if (System.nanoTime() - restartAt < 0)
+        {
+            throw new IOException("Runner daemon is restarting");
+        }
+
+        ProcessBuilder processBuilder = new ProcessBuilder("node", SCRIPT);
+        processBuilder.directory(workingDir.toFile());
+        processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        try
+        {
+            daemon = processBuilder.start();
+        } catch (IOException e)
+        {
+            restartAt = System.nanoTime() + properties.getDaemonRestartBackoff().toNanos();
+            throw e;
+        }
+        requests = new BufferedWriter(new OutputStreamWriter(daemon.getOutputStream(), StandardCharsets.UTF_8));
+        Process started = daemon;
+        Thread.ofVirtual().name("runner-daemon-events").start(() -> readEvents(started));
+        log.info("Started Playwright runner daemon {}", daemon.pid());
+    }
+
+    private void readEvents (Process process)
+    {
+        try (BufferedReader events = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)))
+        {
+            String line;
+            while ((line = events.readLine()) != null)
+            {
+                handleEvent(line);
+            }
+        } catch (IOException e)
+        {
+            log.debug("Lost the event stream of the runner daemon", e);
+        }
+        onExit(process);
+    }
+
+    private void handleEvent (String line) throws IOException
+    {
+        JsonNode event = objectMapper.readTree(line);
+        long id = event.path("id").asLong();
+        DaemonProcess run = runs.get(id);
+        if (run == null)
+        {
+            return;
+        }
+        switch (event.path("event").asText())
+        {
+            case "started" -> run.started.complete(event.path("pid").asLong());
+            case "exit" ->
+            {
+                runs.remove(id);
+                run.exit.complete(event.path("code").asInt());
+            }
+            case "error" -> run.started.completeExceptionally(new IOException(event.path("message").asText()));
+            default -> log.debug("Ignoring runner daemon event {}", line);
+        }
+    }
+
+    /**
+     * Fails the runs of a daemon that exited. Their processes no longer report an exit code,
+     * so they are killed and reported with exit code -1.
+     */
+    private void onExit (Process process)
+    {
+        synchronized (this)
+        {
+            if (daemon == process)
+            {
+                daemon = null;
+                restartAt = System.nanoTime() + properties.getDaemonRestartBackoff().toNanos();
+                if (!closed)
+                {
+                    log.warn("Playwright runner daemon {} exited, spawning runs until it is restarted", process.pid());
+                    meterRegistry.counter("testrun.daemon.restarts").increment();
+                }
+            }
+        }
+
+        List<DaemonProcess> orphaned = new ArrayList<>();
+        runs.values().removeIf(run -> run.owner == process && orphaned.add(run));
+        for (DaemonProcess run : orphaned)
+        {
+            run.started.completeExceptionally(new IOException("Runner daemon exited"));
+            if (run.handle != null)
+            {
+                Stream.concat(run.handle.descendants(), Stream.of(run.handle)).forEach(ProcessHandle::destroyForcibly);
+            }
+            run.exit.complete(-1);
+        }
+    }
+
+    private void restart (String reason)
+    {
+        Process process;
+        synchronized (this)
+        {
+            process = daemon;
+        }
+        if (process != null)
+        {
+            log.warn("Restarting the Playwright runner daemon: {}", reason);
+            processSupervisor.kill(process);
+        }
+    }
+
+    /**
+     * A run executed by the daemon. Its exit code is reported by the daemon, which is the
+     * parent of the run process. The handle is {@code null} if the run exited before it was
+     * attached; there is nothing left to signal then.
+     */
+    private static final class DaemonProcess extends Process
+    {
+        private final CompletableFuture<Long> started = new CompletableFuture<>();
+        private final CompletableFuture<Integer> exit = new CompletableFuture<>();
+        private volatile long pid = -1;
+        private volatile ProcessHandle handle;
+        private volatile Process owner;
+
+        @Override
+        public OutputStream getOutputStream ()
+        {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream ()
+        {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public InputStream getErrorStream ()
+        {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor () throws InterruptedException
+        {
+            try
+            {
+                return exit.get();
+            } catch (ExecutionException e)
+            {
+                return -1;
+            }
+        }
+
+        @Override
+        public boolean waitFor (long timeout, TimeUnit unit) throws InterruptedException
+        {
+            try
+            {
+                exit.get(timeout, unit);
+                return true;
+            } catch (ExecutionException e)
+            {
+                return true;
+            } catch (TimeoutException e)
+            {
+                return false;
+            }
+        }
+
+        @Override
+        public int exitValue ()
+        {
+            if (!exit.isDone())
+            {
+                throw new IllegalThreadStateException("Process " + pid() + " has not exited");
+            }
+            return exit.join();
+        }
+
+        @Override
+        public void destroy ()
+        {
+            if (handle != null)
+            {
+                handle.destroy();
+            }
+        }
+
+        @Override
+        public Process destroyForcibly ()
+        {
+            if (handle != null)
+            {
+                handle.destroyForcibly();
+            }
+            return this;
+        }
+
+        @Override
+        public boolean supportsNormalTermination ()
+        {
+            return handle == null || handle.supportsNormalTermination();
+        }
+
+        @Override
+        public boolean isAlive ()
+        {
+            return !exit.isDone();
+        }
+
+        @Override
+        public long pid ()
+        {
+            return pid;
+        }
+
+        @Override
+        public CompletableFuture<Process> onExit ()
+        {
+            return exit.thenApply(code -> this);
+        }
+
+        /**
+         * {@code null} if the run exited before it was attached.
+         */
+        @Override
+        public ProcessHandle toHandle ()
+        {
+            return handle;
+        }
+
+        @Override
+        public Stream<ProcessHandle> children ()
+        {
+            return handle != null ? handle.children() : Stream.empty();
+        }
+
+        @Override
+        public Stream<ProcessHandle> descendants ()
+        {
+            return handle != null ? handle.descendants() : Stream.empty();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.ScheduledRunDto;
+import com.example.backend.dto.ScheduledRunRequest;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.exceptions.ValidationException;
+import com.example.backend.mapper.ScheduledRunMapper;
+import com.example.backend.models.ScheduledRun;
+import com.example.backend.models.TestBatch;
+import com.example.backend.repo.EnvironmentRepo;
+import com.example.backend.repo.ProjectRepo;
+import com.example.backend.repo.ScheduledRunRepo;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRepo;
+import com.example.backend.repo.UserStoryRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * Stores scheduled run definitions and starts their batches when the cron expression is due.
+ * A definition is skipped while the batch of its previous tick is still running. Every instance
+ * evaluates the definitions, but only the one that claims a tick in the database fires it.
+ * <p>
+ * Scheduled batches share a worker budget of their own; a due definition that does not fit is
+ * deferred to a later tick. Manual runs and batches do not count against the budget, they are
+ * bounded by the run queue instead.
+ */
+@Service
+@Slf4j
+public class ScheduledRunService
+{
+
+    private final ScheduledRunRepo scheduledRunRepo;
+    private final TestBatchRepo testBatchRepo;
+    private final TestRepo testRepo;
+    private final UserStoryRepo userStoryRepo;
+    private final ProjectRepo projectRepo;
+    private final EnvironmentRepo environmentRepo;
+    private final BatchRunService batchRunService;
+    private final ScheduledRunMapper scheduledRunMapper;
+    private final TestRunnerProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public ScheduledRunService (ScheduledRunRepo scheduledRunRepo, TestBatchRepo testBatchRepo, TestRepo testRepo, UserStoryRepo userStoryRepo, ProjectRepo projectRepo, EnvironmentRepo environmentRepo, BatchRunService batchRunService, ScheduledRunMapper scheduledRunMapper, TestRunnerProperties properties, MeterRegistry meterRegistry)
+    {
+        this.scheduledRunRepo = scheduledRunRepo;
+        this.testBatchRepo = testBatchRepo;
+        this.testRepo = testRepo;
+        this.userStoryRepo = userStoryRepo;
+        this.projectRepo = projectRepo;
+        this.environmentRepo = environmentRepo;
+        this.batchRunService = batchRunService;
+        this.scheduledRunMapper = scheduledRunMapper;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public List<ScheduledRunDto> list ()
+    {
+        return scheduledRunRepo.findAll().stream().map(this::toDto).toList();
+    }
+
+    public ScheduledRunDto get (Long id)
+    {
+        return toDto(find(id));
+    }
+
+    public ScheduledRunDto create (ScheduledRunRequest request)
+    {
+        ScheduledRun schedule = new ScheduledRun();
+        apply(schedule, request);
+        ScheduledRun saved = scheduledRunRepo.save(schedule);
+        log.info("Created scheduled run {} '{}' for {} {} with cron '{}'", saved.getId(), saved.getName(), saved.getScope(), saved.getScopeId(), saved.getCron());
+        return toDto(saved);
+    }
+
+    public ScheduledRunDto update (Long id, ScheduledRunRequest request)
+    {
+        ScheduledRun schedule = find(id);
+        apply(schedule, request);
+        return toDto(scheduledRunRepo.save(schedule));
+    }
+
+    public void delete (Long id)
+    {
+        scheduledRunRepo.delete(find(id));
+    }
+
+    @Scheduled(fixedDelayString = "${playwright.runner.schedule-interval:PT30S}")
+    public synchronized void tick ()
+    {
+        // whole seconds, so the claimed value compares equal after a round trip through the database
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        for (ScheduledRun schedule : scheduledRunRepo.findByEnabledTrue())
+        {
+            LocalDateTime next = nextRun(schedule);
+            if (next != null && !next.isAfter(now))
+            {
+                fire(schedule, now);
+            }
+        }
+    }
+
+    /**
+     * Starts the batch of a due definition. Missed ticks are not caught up; a definition that
+     * was due several times since its last execution runs once. Nothing happens if another
+     * instance claimed the tick first.
+     */
+    void fire (ScheduledRun schedule, LocalDateTime now)
+    {
+        if (schedule.getLastBatchId() != null)
+        {
+            TestBatch previous = testBatchRepo.findById(schedule.getLastBatchId()).orElse(null);
+            if (previous != null && previous.getStatus() == TestStatus.PENDING)
+            {
+                if (!claim(schedule, now))
+                {
+                    return;
+                }
+                log.info("Skipping scheduled run {}: batch {} is still running", schedule.getId(), previous.getId());
+                count("skipped");
+                finish(schedule, now, "Skipped: batch " + previous.getId() + " still running");
+                return;
+            }
+        }
+
+        int requested = schedule.getMaxParallelism() != null ? schedule.getMaxParallelism() : properties.getBatchWorkers();
+        // only scheduled batches count against the budget of scheduled workers
+        int budget = properties.getScheduledWorkers() - (int) testBatchRepo.sumScheduledWorkers(TestStatus.PENDING);
+        if (budget < 1)
+        {
+            log.debug("Deferring scheduled run {}: worker budget of {} is used up", schedule.getId(), properties.getScheduledWorkers());
+            count("deferred");
+            String outcome = "Deferred: scheduled worker budget used up";
+            if (!outcome.equals(schedule.getLastOutcome()))
+            {
+                // the tick is not claimed, so saving the whole definition could undo another instance's claim
+                schedule.setLastOutcome(outcome);
+                scheduledRunRepo.updateLastOutcome(schedule.getId(), outcome);
+            }
+            return;
+        }
+
+        if (!claim(schedule, now))
+        {
+            return;
+        }
+        String outcome;
+        try
+        {
+            TestBatch batch = batchRunService.submitForSchedule(schedule, Math.min(requested, budget));
+            schedule.setLastBatchId(batch.getId());
+            outcome = "Started batch " + batch.getId() + " with " + batch.getWorkers() + " worker(s)";
+            count("started");
+            log.info("Scheduled run {} started batch {}", schedule.getId(), batch.getId());
+        } catch (RuntimeException e)
+        {
+            outcome = "Failed: " + e.getMessage();
+            count("failed");
+            log.warn("Scheduled run {} could not be started: {}", schedule.getId(), e.getMessage());
+        }
+        finish(schedule, now, outcome);
+    }
+
+    LocalDateTime nextRun (ScheduledRun schedule)
+    {
+        if (!schedule.isEnabled())
+        {
+            return null;
+        }
+        LocalDateTime from = schedule.getLastTriggeredAt() != null ? schedule.getLastTriggeredAt() : schedule.getCreatedAt();
+        return CronExpression.parse(schedule.getCron()).next(from != null ? from : LocalDateTime.now());
+    }
+
+    /**
+     * Accepts Spring cron expressions with seconds as well as classic five field expressions,
+     * which are run at second 0.
+     */
+    static String normalizeCron (String cron)
+    {
+        String trimmed = cron.trim();
+        String normalized = trimmed.split("\\s+").length == 5 ? "0 " + trimmed : trimmed;
+        if (!CronExpression.isValidExpression(normalized))
+        {
+            throw new ValidationException("Invalid cron expression: " + cron);
+        }
+        return normalized;
+    }
+
+    private void apply (ScheduledRun schedule, ScheduledRunRequest request)
+    {
+        if (!scopeExists(request.getScope(), request.getScopeId()))
+        {
+            throw new ResourceNotFoundException(scopeName(request.getScope()), request.getScopeId());
+        }
+
+        String cron = normalizeCron(request.getCron());
+        if (!Objects.equals(cron, schedule.getCron()))
+        {
+            // a changed expression is evaluated from now on, not from the last execution
+            schedule.setLastTriggeredAt(schedule.getId() != null ? LocalDateTime.now() : null);
+        }
+
+        schedule.setName(request.getName());
+        schedule.setScope(request.getScope());
+        schedule.setScopeId(request.getScopeId());
+        schedule.setCron(cron);
+        schedule.setMaxParallelism(request.getMaxParallelism());
+        schedule.setEnabled(request.isEnabled());
+        schedule.setSkipQuarantined(request.isSkipQuarantined());
+        schedule.setEnvironment(request.getEnvironmentId() == null ? null : environmentRepo.findById(request.getEnvironmentId())
+                .orElseThrow(() -> new ResourceNotFoundException("Environment", request.getEnvironmentId())));
+    }
+
+    private boolean scopeExists (BatchScope scope, Long scopeId)
+    {
+        return switch (scope)
+        {
+            case TEST -> testRepo.existsById(scopeId);
+            case STORY -> userStoryRepo.existsById(scopeId);
+            case PROJECT -> projectRepo.existsById(scopeId);
+        };
+    }
+
+    private static String scopeName (BatchScope scope)
+    {
+        return switch (scope)
+        {
+            case TEST -> "Test";
+            case STORY -> "UserStory";
+            case PROJECT -> "Project";
+        };
+    }
+
+    private boolean claim (ScheduledRun schedule, LocalDateTime now)
+    {
+        if (scheduledRunRepo.claimTick(schedule.getId(), now, schedule.getLastTriggeredAt()) == 1)
+        {
+            return true;
+        }
+        log.debug("Scheduled run {} was already fired by another instance", schedule.getId());
+        return false;
+    }
+
+    private void finish (ScheduledRun schedule, LocalDateTime now, String outcome)
+    {
+        schedule.setLastTriggeredAt(now);
+        schedule.setLastOutcome(outcome);
+        scheduledRunRepo.save(schedule);
+    }
+
+    private ScheduledRun find (Long id)
+    {
+        return scheduledRunRepo.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("ScheduledRun", id));
+    }
+
+    private ScheduledRunDto toDto (ScheduledRun schedule)
+    {
+        return scheduledRunMapper.toDto(schedule, nextRun(schedule));
+    }
+
+    private void count (String result)
+    {
+        meterRegistry.counter("testrun.schedule", "result", result).increment();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.EFileType;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.models.Environment;
+import com.example.backend.models.ExecutionProfile;
+import com.example.backend.models.TestModel;
+import com.example.backend.repo.TestRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+
+/**
+ * Identifies what a run would actually execute: the test, the content of its spec file and
+ * the environment it runs against. Two runs with the same fingerprint are interchangeable.
+ * The result hash additionally covers the Playwright configuration and the environment URL;
+ * a run with the same result hash is expected to produce the same result.
+ */
+@Component
+@Slf4j
+public class SpecFingerprinter
+{
+
+    static final String MISSING_SPEC = "missing";
+    static final Path PLAYWRIGHT_CONFIG = Path.of("backend/playwright.config.ts");
+
+    private static final Pattern LINE_COMMENT = Pattern.compile("(?m)(^|\\s)//.*$");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final TestRepo testRepo;
+    private final FileService fileService;
+    private final Path configFile;
+
+    public SpecFingerprinter (TestRepo testRepo, FileService fileService)
+    {
+        this(testRepo, fileService, PLAYWRIGHT_CONFIG);
+    }
+
+    SpecFingerprinter (TestRepo testRepo, FileService fileService, Path configFile)
+    {
+        this.testRepo = testRepo;
+        this.fileService = fileService;
+        this.configFile = configFile;
+    }
+
+    public Fingerprint fingerprint (Long testId)
+    {
+        return fingerprint(testId, null);
+    }
+
+    /**
+     * Like {@link #fingerprint(Long)}, with the result hash covering the configuration generated
+     * from {@code profile} instead of the static one.
+     */
+    public Fingerprint fingerprint (Long testId, ExecutionProfile profile)
+    {
+        TestModel test = testRepo.findById(testId)
+                .orElseThrow(() -> new ResourceNotFoundException("Test", testId));
+        Environment environment = test.getEnvironment();
+        Long environmentId = environment != null ? environment.getId() : null;
+        String specHash = specHash(testId);
+        String configHash = profile != null ? sha256(PlaywrightConfigWriter.render(profile)) : configHash();
+        String resultHash = sha256(specHash + "\n" + configHash + "\n" + testRepo.findEnvironmentUrl(testId));
+        return new Fingerprint(testId, specHash, environmentId, resultHash);
+    }
+
+    /**
+     * SHA-256 of the spec file content, or {@value #MISSING_SPEC} if no spec was generated yet.
+     */
+    public String specHash (Long testId)
+    {
+        String code;
+        try
+        {
+            code = fileService.readFile(testId + EFileType.SPEC_TS.getExtension());
+        } catch (IOException e)
+        {
+            log.debug("No spec file for test {}: {}", testId, e.getMessage());
+            return MISSING_SPEC;
+        }
+        return sha256(code);
+    }
+
+    /**
+     * SHA-256 of the Playwright configuration with comments and whitespace removed, so only
+     * changes to actual settings invalidate cached results.
+     */
+    String configHash ()
+    {
+        String config;
+        try
+        {
+            config = Files.readString(configFile, StandardCharsets.UTF_8);
+        } catch (IOException e)
+        {
+            log.debug("Could not read {}: {}", configFile, e.getMessage());
+            return MISSING_SPEC;
+        }
+        String settings = WHITESPACE.matcher(LINE_COMMENT.matcher(config).replaceAll("$1")).replaceAll("");
+        return sha256(settings);
+    }
+
+    /**
+     * Result hash of a run on the given browser. Chromium runs keep the plain result hash, so
+     * they share cached results with runs that did not select a browser.
+     */
+    public static String resultHash (String resultHash, Browser browser)
+    {
+        return Browser.orDefault(browser) == Browser.CHROMIUM ? resultHash : sha256(resultHash + "\n" + browser.getProject());
+    }
+
+    static String sha256 (String content)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record Fingerprint(Long testId, String specHash, Long environmentId, String resultHash)
+    {
+        public String key ()
+        {
+            return testId + ":" + specHash + ":" + environmentId;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.FailureSummaryDto;
+import com.example.backend.dto.SpecResultDto;
+import com.example.backend.mapper.SpecResultMapper;
+import com.example.backend.models.ReportAttachment;
+import com.example.backend.models.ReportAttempt;
+import com.example.backend.models.ReportError;
+import com.example.backend.models.ReportTestResult;
+import com.example.backend.models.ResultAttachment;
+import com.example.backend.models.SpecResult;
+import com.example.backend.models.TestAttempt;
+import com.example.backend.models.TestError;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.ResultAttachmentRepo;
+import com.example.backend.repo.SpecResultRepo;
+import com.example.backend.repo.TestAttemptRepo;
+import com.example.backend.repo.TestErrorRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+
+/**
+ * Persists the per-spec results of a run (with attempts, errors and attachments) and answers
+ * history and failure queries on them.
+ */
+@Service
+@Slf4j
+public class SpecResultService
+{
+
+    private final SpecResultRepo specResultRepo;
+    private final TestAttemptRepo testAttemptRepo;
+    private final TestErrorRepo testErrorRepo;
+    private final ResultAttachmentRepo resultAttachmentRepo;
+    private final SpecResultMapper specResultMapper;
+
+    public SpecResultService (SpecResultRepo specResultRepo, TestAttemptRepo testAttemptRepo, TestErrorRepo testErrorRepo, ResultAttachmentRepo resultAttachmentRepo, SpecResultMapper specResultMapper)
+    {
+        this.specResultRepo = specResultRepo;
+        this.testAttemptRepo = testAttemptRepo;
+        this.testErrorRepo = testErrorRepo;
+        this.resultAttachmentRepo = resultAttachmentRepo;
+        this.specResultMapper = specResultMapper;
+    }
+
+    public List<SpecResult> record (TestRun run, List<ReportTestResult> tests)
+    {
+        if (tests == null || tests.isEmpty())
+        {
+            return List.of();
+        }
+
+        List<SpecResult> specResults = new ArrayList<>();
+        for (ReportTestResult test : tests)
+        {
+            SpecResult specResult = new SpecResult();
+            specResult.setTestRun(run);
+            specResult.setFile(test.getFile());
+            specResult.setTitle(test.getTitle());
+            specResult.setProjectName(test.getProjectName());
+            specResult.setStatus(toStatus(test.getStatus()));
+            specResult.setFlaky("flaky".equals(test.getStatus()));
+            specResult.setDurationMs(test.getDurationMs());
+            specResult.setRetries(test.getRetries());
+            specResults.add(specResult);
+        }
+        specResults = specResultRepo.saveAll(specResults);
+
+        List<TestAttempt> attempts = new ArrayList<>();
+        List<TestError> errors = new ArrayList<>();
+        List<ResultAttachment> attachments = new ArrayList<>();
+        for (int i = 0; i < tests.size(); i++)
+        {
+            SpecResult specResult = specResults.get(i);
+            for (ReportAttempt reportAttempt : tests.get(i).getAttempts())
+            {
+                TestAttempt attempt = new TestAttempt();
+                attempt.setSpecResult(specResult);
+                attempt.setRetry(reportAttempt.getRetry());
+                attempt.setStatus(toAttemptStatus(reportAttempt.getStatus()));
+                attempt.setOutcome(reportAttempt.getStatus());
+                attempt.setDurationMs(reportAttempt.getDurationMs());
+                attempts.add(attempt);
+            }
+            for (ReportError reportError : tests.get(i).getErrors())
+            {
+                TestError error = new TestError();
+                error.setSpecResult(specResult);
+                error.setRetry(reportError.getRetry());
+                error.setMessage(reportError.getMessage());
+                error.setLocationFile(reportError.getFile());
+                error.setLocationLine(reportError.getLine());
+                error.setLocationColumn(reportError.getColumn());
+                errors.add(error);
+            }
+            for (ReportAttachment reportAttachment : tests.get(i).getAttachments())
+            {
+                ResultAttachment attachment = new ResultAttachment();
+                attachment.setSpecResult(specResult);
+                attachment.setRetry(reportAttachment.getRetry());
+                attachment.setName(reportAttachment.getName());
+                attachment.setContentType(reportAttachment.getContentType());
+                attachment.setPath(reportAttachment.getPath());
+                attachments.add(attachment);
+            }
+        }
+        testAttemptRepo.saveAll(attempts);
+        testErrorRepo.saveAll(errors);
+        resultAttachmentRepo.saveAll(attachments);
+
+        log.debug("Recorded {} spec result(s), {} attempt(s), {} error(s), {} attachment(s) for run {}",
+                specResults.size(), attempts.size(), errors.size(), attachments.size(), run.getId());
+        return specResults;
+    }
+
+    public List<SpecResultDto> getResultsForRun (Long runId)
+    {
+        return toDtos(specResultRepo.findByTestRun_IdOrderByIdAsc(runId));
+    }
+
+    public List<SpecResultDto> getHistoryForTest (Long testId)
+    {
+        return toDtos(specResultRepo.findHistoryByTestID(testId));
+    }
+
+    public List<FailureSummaryDto> summarizeFailures (int days)
+    {
+        return specResultRepo.summarizeFailuresSince(LocalDateTime.now().minusDays(days));
+    }
+
+    private List<SpecResultDto> toDtos (List<SpecResult> specResults)
+    {
+        if (specResults.isEmpty())
+        {
+            return List.of();
+        }
+
+        // Load attempts, errors and attachments for all specs at once instead of one query per spec
+        List<Long> ids = specResults.stream().map(SpecResult::getId).toList();
+        Map<Long, List<TestAttempt>> attempts = testAttemptRepo.findBySpecResult_IdInOrderByIdAsc(ids).stream()
+                .collect(Collectors.groupingBy(attempt -> attempt.getSpecResult().getId()));
+        Map<Long, List<TestError>> errors = testErrorRepo.findBySpecResult_IdInOrderByIdAsc(ids).stream()
+                .collect(Collectors.groupingBy(error -> error.getSpecResult().getId()));
+        Map<Long, List<ResultAttachment>> attachments = resultAttachmentRepo.findBySpecResult_IdInOrderByIdAsc(ids).stream()
+                .collect(Collectors.groupingBy(attachment -> attachment.getSpecResult().getId()));
+
+        return specResults.stream()
+                .map(specResult -> specResultMapper.toDto(specResult, attempts.get(specResult.getId()),
+                        errors.get(specResult.getId()), attachments.get(specResult.getId())))
+                .toList();
+    }
+
+    static TestStatus toAttemptStatus (String status)
+    {
+        if ("passed".equals(status))
+        {
+            return TestStatus.PASSED;
+        }
+        return "skipped".equals(status) ? TestStatus.SKIPPED : TestStatus.FAILED;
+    }
+
+    static TestStatus toStatus (String outcome)
+    {
+        if (outcome == null)
+        {
+            return TestStatus.FAILED;
+        }
+        return switch (outcome)
+        {
+            case "expected", "flaky" -> TestStatus.PASSED;
+            case "skipped" -> TestStatus.SKIPPED;
+            default -> TestStatus.FAILED;
+        };
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.backend.service;
+
+
+import com.example.backend.models.TestStep;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Splits generated specs into the code segments of their test steps. The generation prompt
+ * asks the agent to start the code of every step with a {@code // @step <n>} line and to end
+ * the last one with {@code // @end-steps}; a spec without these markers cannot be split.
+ */
+final class SpecSegments
+{
+
+    static final String END_MARKER = "// @end-steps";
+    private static final Pattern STEP_LINE = Pattern.compile("^([ \\t]*)// @step (\\d+)\\b[^\\n]*\\n?", Pattern.MULTILINE);
+    private static final Pattern END_LINE = Pattern.compile("^[ \\t]*" + Pattern.quote(END_MARKER), Pattern.MULTILINE);
+    private static final Pattern FENCE_LINE = Pattern.compile("^[ \\t]*```[^\\n]*\\n?", Pattern.MULTILINE);
+
+    private SpecSegments ()
+    {
+    }
+
+    /**
+     * A spec split at its step markers. Each segment starts with its marker line.
+     */
+    record Parsed(String prefix, List<String> segments, String suffix)
+    {
+        String indent ()
+        {
+            Matcher marker = STEP_LINE.matcher(segments.get(0));
+            return marker.lookingAt() ? marker.group(1) : "";
+        }
+    }
+
+    /**
+     * @return the segments of the spec, or {@code null} if its markers are missing, out of order
+     *         or not terminated by {@value #END_MARKER}
+     */
+    static Parsed parse (String spec)
+    {
+        if (spec == null)
+        {
+            return null;
+        }
+        Matcher marker = STEP_LINE.matcher(spec);
+        List<Integer> starts = new ArrayList<>();
+        while (marker.find())
+        {
+            if (Integer.parseInt(marker.group(2)) != starts.size() + 1)
+            {
+                return null;
+            }
+            starts.add(marker.start());
+        }
+        if (starts.isEmpty())
+        {
+            return null;
+        }
+        Matcher end = END_LINE.matcher(spec);
+        if (!end.find(starts.get(starts.size() - 1)))
+        {
+            return null;
+        }
+
+        List<String> segments = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++)
+        {
+            int to = i + 1 < starts.size() ? starts.get(i + 1) : end.start();
+            segments.add(spec.substring(starts.get(i), to));
+        }
+        return new Parsed(spec.substring(0, starts.get(0)), segments, spec.substring(end.start()));
+    }
+
+    /**
+     * Reads the segments of an answer that only contains the code of some steps.
+     *
+     * @return the segments by step number, each starting with its marker line
+     */
+    static Map<Integer, String> segments (String answer)
+    {
+        Map<Integer, String> segments = new LinkedHashMap<>();
+        if (answer == null)
+        {
+            return segments;
+        }
+        String code = FENCE_LINE.matcher(answer).replaceAll("");
+        Matcher end = END_LINE.matcher(code);
+        if (end.find())
+        {
+            code = code.substring(0, end.start());
+        }
+        Matcher marker = STEP_LINE.matcher(code);
+        List<int[]> starts = new ArrayList<>();
+        while (marker.find())
+        {
+            starts.add(new int[]{marker.start(), Integer.parseInt(marker.group(2))});
+        }
+        for (int i = 0; i < starts.size(); i++)
+        {
+            int to = i + 1 < starts.size() ? starts.get(i + 1)[0] : code.length();
+            segments.put(starts.get(i)[1], withNewline(code.substring(starts.get(i)[0], to)));
+        }
+        return segments;
+    }
+
+    /**
+     * Gives a segment the marker of the step it now belongs to.
+     */
+    static String renumber (String segment, int step)
+    {
+        return segment.replaceFirst("// @step \\d+", "// @step " + step);
+    }
+
+    /**
+     * Matches the steps of two versions of a test with a longest common subsequence, so
+     * inserting or removing a step does not mark the steps after it as changed.
+     *
+     * @return for every new step the index of the equal old step, or -1 if it is new or changed
+     */
+    static int[] match (List<String> oldKeys, List<String> newKeys)
+    {
+        int[][] lcs = new int[oldKeys.size() + 1][newKeys.size() + 1];
+        for (int i = oldKeys.size() - 1; i >= 0; i--)
+        {
+            for (int j = newKeys.size() - 1; j >= 0; j--)
+            {
+                lcs[i][j] = oldKeys.get(i).equals(newKeys.get(j))
+                        ? lcs[i + 1][j + 1] + 1
+                        : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+            }
+        }
+
+        int[] match = new int[newKeys.size()];
+        int i = 0;
+        int j = 0;
+        while (j < newKeys.size())
+        {
+            if (i < oldKeys.size() && oldKeys.get(i).equals(newKeys.get(j)))
+            {
+                match[j++] = i++;
+            } else if (i < oldKeys.size() && lcs[i + 1][j] >= lcs[i][j + 1])
+            {
+                i++;
+            } else
+            {
+                match[j++] = -1;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Whether old steps right before a kept step were removed or moved away, so the step starts
+     * from a different page state than the one its code was written for. Steps that took the
+     * place of the removed ones do not count, since they are regenerated anyway.
+     *
+     * @param match result of {@link #match}
+     * @param step  index of a kept step in {@code match}
+     */
+    static boolean followsRemoval (int[] match, int step)
+    {
+        int replaced = 0;
+        int previous = step - 1;
+        while (previous >= 0 && match[previous] < 0)
+        {
+            replaced++;
+            previous--;
+        }
+        int removed = match[step] - (previous >= 0 ? match[previous] : -1) - 1;
+        return removed > replaced;
+    }
+
+    /**
+     * Identifies each step by its content, in the order of the step index.
+     */
+    static List<String> stepKeys (List<TestStep> steps)
+    {
+        return steps.stream()
+                .sorted(Comparator.comparing(step -> step.getIndex() == null ? Integer.MAX_VALUE : step.getIndex()))
+                .map(step -> SpecFingerprinter.sha256(step.getAction() + "\u001f" + step.getData() + "\u001f" + step.getExpectedResult()).substring(0, 16))
+                .toList();
+    }
+
+    private static String withNewline (String segment)
+    {
+        return segment.endsWith("\n") ? segment : segment + "\n";
+    }
+}
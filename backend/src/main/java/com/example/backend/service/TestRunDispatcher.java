@@ -0,0 +1,462 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.EFileType;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.RunCancellationDto;
+import com.example.backend.dto.RunQueueStatusDto;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.exceptions.RunQueueFullException;
+import com.example.backend.exceptions.ValidationException;
+import com.example.backend.models.ExecutionProfile;
+import com.example.backend.models.TestBatch;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRunRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+
+/**
+ * Accepts run requests from the API, persists them as PENDING and hands them to the
+ * bounded {@code testRunExecutor} so request threads never wait for Playwright. A test that is
+ * already queued or running with the same spec content and environment is not started twice;
+ * the second submit attaches to the existing run.
+ * <p>
+ * Runs only enter the worker pool once the concurrency and rate limits of their environments
+ * allow them to start. Runs that have to wait do so on a virtual thread, so a throttled
+ * environment does not hold workers that runs against other environments could use. Waiting
+ * runs count against the queue capacity like queued ones.
+ */
+@Service
+@Slf4j
+public class TestRunDispatcher
+{
+
+    private static final String QUEUE_FULL = "run queue is full";
+    private static final String INTERRUPTED = "interrupted while waiting for its run limits";
+
+    private final PlaywrightTestRunner playwrightTestRunner;
+    private final TestRunRepo testRunRepository;
+    private final TestBatchRepo testBatchRepository;
+    private final ThreadPoolTaskExecutor testRunExecutor;
+    private final TestRunEventPublisher eventPublisher;
+    private final RunRegistry runRegistry;
+    private final RunLeaseService runLeaseService;
+    private final SpecFingerprinter specFingerprinter;
+    private final RunLimiter runLimiter;
+    private final ExecutionProfileService executionProfileService;
+    private final MatrixRunFinisher matrixRunFinisher;
+    private final TestRunnerProperties properties;
+    private final Counter coalescedCounter;
+    private final Counter cacheHitCounter;
+    private final Counter cacheMissCounter;
+
+    // fingerprint key and profile -> id of the PENDING run executing it
+    private final Map<String, Long> inFlight = new ConcurrentHashMap<>();
+    // runs and batches waiting on a virtual thread for their run limits
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public TestRunDispatcher (PlaywrightTestRunner playwrightTestRunner, TestRunRepo testRunRepository, TestBatchRepo testBatchRepository, ThreadPoolTaskExecutor testRunExecutor, TestRunEventPublisher eventPublisher, RunRegistry runRegistry, RunLeaseService runLeaseService, SpecFingerprinter specFingerprinter, RunLimiter runLimiter, ExecutionProfileService executionProfileService, MatrixRunFinisher matrixRunFinisher, TestRunnerProperties properties, MeterRegistry meterRegistry)
+    {
+        this.playwrightTestRunner = playwrightTestRunner;
+        this.testRunRepository = testRunRepository;
+        this.testBatchRepository = testBatchRepository;
+        this.testRunExecutor = testRunExecutor;
+        this.eventPublisher = eventPublisher;
+        this.runRegistry = runRegistry;
+        this.runLeaseService = runLeaseService;
+        this.specFingerprinter = specFingerprinter;
+        this.runLimiter = runLimiter;
+        this.executionProfileService = executionProfileService;
+        this.matrixRunFinisher = matrixRunFinisher;
+        this.properties = properties;
+        this.coalescedCounter = Counter.builder("testrun.coalesced")
+                .description("Submits attached to an identical run already in flight")
+                .register(meterRegistry);
+        this.cacheHitCounter = Counter.builder("testrun.cache")
+                .description("Cached executions answered by an earlier passing run")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMissCounter = Counter.builder("testrun.cache")
+                .description("Cached executions that had to run the test")
+                .tag("result", "miss")
+                .register(meterRegistry);
+
+        Gauge.builder("testrun.queue.depth", testRunExecutor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Runs waiting for a free worker")
+                .register(meterRegistry);
+        Gauge.builder("testrun.workers.active", testRunExecutor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Workers currently executing a run")
+                .register(meterRegistry);
+        Gauge.builder("testrun.workers.max", testRunExecutor, ThreadPoolTaskExecutor::getMaxPoolSize)
+                .description("Configured number of run workers")
+                .register(meterRegistry);
+    }
+
+    public TestRun submit (Long testId)
+    {
+        return submit(testId, false);
+    }
+
+    /**
+     * Queues a run of a test. With {@code cached} set, a passing run of the same spec,
+     * Playwright configuration and environment URL within the cache TTL is returned instead.
+     */
+    public TestRun submit (Long testId, boolean cached)
+    {
+        return submit(testId, cached, null);
+    }
+
+    /**
+     * Like {@link #submit(Long, boolean)}, running with the named execution profile of the
+     * test's project, or with the project's default profile if {@code profileName} is {@code null}.
+     * Runs with different profiles are neither coalesced nor answered from each other's cache.
+     */
+    public TestRun submit (Long testId, boolean cached, String profileName)
+    {
+        ExecutionProfile profile = executionProfileService.resolve(testId, profileName);
+        Long profileId = profile != null ? profile.getId() : null;
+        SpecFingerprinter.Fingerprint fingerprint = specFingerprinter.fingerprint(testId, profile);
+        if (cached)
+        {
+            Optional<TestRun> hit = playwrightTestRunner.findCachedRun(fingerprint.resultHash(), properties.getCacheTtl());
+            if (hit.isPresent())
+            {
+                cacheHitCounter.increment();
+                TestRun cachedRun = hit.get();
+                cachedRun.setCacheHit(true);
+                log.info("Cache hit for test {}: returning TestRun {}", testId, cachedRun.getId());
+                return cachedRun;
+            }
+            cacheMissCounter.increment();
+        }
+
+        String key = inFlightKey(fingerprint, profileId);
+        TestRun testRun;
+        synchronized (inFlight)
+        {
+            Optional<TestRun> running = findInFlight(key);
+            if (running.isPresent())
+            {
+                TestRun existing = running.get();
+                existing.setCoalesced(true);
+                coalescedCounter.increment();
+                log.info("Test {} is already in flight as TestRun {}, attaching", testId, existing.getId());
+                return existing;
+            }
+            testRun = playwrightTestRunner.createPendingRun(testId, fingerprint.resultHash(), profileId);
+            inFlight.put(key, testRun.getId());
+        }
+
+        enqueue(testRun, testId, key, "Queued");
+        return testRun;
+    }
+
+    /**
+     * Queues the run of a test on one browser of a matrix. Matrix runs are neither answered from
+     * the cache nor coalesced, since every browser has to produce a result of its own.
+     */
+    public TestRun submitForBrowser (Long testId, ExecutionProfile profile, Browser browser, Long matrixRunId)
+    {
+        SpecFingerprinter.Fingerprint fingerprint = specFingerprinter.fingerprint(testId, profile);
+        TestRun testRun = playwrightTestRunner.createPendingRun(testId, SpecFingerprinter.resultHash(fingerprint.resultHash(), browser),
+                profile != null ? profile.getId() : null, browser, matrixRunId);
+        enqueue(testRun, testId, matrixKey(testRun), "Queued on " + browser.getProject());
+        return testRun;
+    }
+
+    /**
+     * Puts a persisted PENDING run back into the queue, e.g. after the instance executing it was lost.
+     */
+    public void requeue (TestRun testRun)
+    {
+        Long testId = testRun.getTest().getId();
+        String key = testRun.getMatrixRunId() != null
+                ? matrixKey(testRun)
+                : inFlightKey(specFingerprinter.fingerprint(testId), testRun.getProfileId());
+        inFlight.putIfAbsent(key, testRun.getId());
+        enqueue(testRun, testId, key, "Re-queued after worker loss");
+    }
+
+    private static String inFlightKey (SpecFingerprinter.Fingerprint fingerprint, Long profileId)
+    {
+        return profileId != null ? fingerprint.key() + ":profile-" + profileId : fingerprint.key();
+    }
+
+    private static String matrixKey (TestRun testRun)
+    {
+        return "matrix:" + testRun.getId();
+    }
+
+    private void enqueue (TestRun testRun, Long testId, String key, String message)
+    {
+        Long runId = testRun.getId();
+        String testFileName = testId + EFileType.SPEC_TS.getExtension();
+        runLeaseService.hold(List.of(testRun));
+        eventPublisher.open(runId);
+        eventPublisher.publishStatus(runId, TestStatus.PENDING, message);
+
+        try
+        {
+            dispatch(List.of(testId), 1, permit ->
+            {
+                try
+                {
+                    playwrightTestRunner.executeRun(testRun, testFileName);
+                } finally
+                {
+                    inFlight.remove(key, runId);
+                }
+            }, () -> reject(testRun, key, QUEUE_FULL), () -> reject(testRun, key, INTERRUPTED));
+        } catch (TaskRejectedException e)
+        {
+            reject(testRun, key, QUEUE_FULL);
+            throw new RunQueueFullException("Run queue is full, please retry later");
+        }
+
+        log.info("Queued TestRun {} for {} ({} waiting, {} active, {} waiting for limits)",
+                runId, testFileName, testRunExecutor.getQueueSize(), testRunExecutor.getActiveCount(), runLimiter.getWaiting());
+    }
+
+    private void reject (TestRun testRun, String key, String reason)
+    {
+        Long runId = testRun.getId();
+        inFlight.remove(key, runId);
+        runLeaseService.release(List.of(runId));
+        log.warn("Rejected TestRun {}: {}", runId, reason);
+        testRun.setStatus(TestStatus.FAILED);
+        testRun.setDescription("Rejected: " + reason);
+        testRunRepository.save(testRun);
+        eventPublisher.complete(runId, testRun.getStatus(), testRun.getDescription());
+        matrixRunFinisher.finishIfDone(testRun.getMatrixRunId());
+    }
+
+    /**
+     * Hands work to the worker pool once the run limits of its tests allow it. If they allow it
+     * right away, a full queue is reported to the caller as {@link TaskRejectedException};
+     * otherwise the work waits on a virtual thread and {@code onRejected} handles a full queue.
+     * Work is only allowed to wait while the waiting and queued work fits into the queue
+     * capacity, beyond that the caller gets a {@link TaskRejectedException} as well.
+     */
+    private void dispatch (List<Long> testIds, int parallelism, Consumer<RunLimiter.Permit> work, Runnable onRejected, Runnable onInterrupted)
+    {
+        RunLimiter.Permit permit = runLimiter.tryAcquire(testIds, parallelism);
+        if (permit != null)
+        {
+            execute(permit, work);
+            return;
+        }
+
+        int capacity = testRunExecutor.getQueueCapacity() - testRunExecutor.getQueueSize();
+        if (waiters.getAndUpdate(count -> count < capacity ? count + 1 : count) >= capacity)
+        {
+            throw new TaskRejectedException("Run queue is full, " + waiters.get() + " run(s) waiting for their run limits");
+        }
+        Thread.ofVirtual().name("run-limit-wait").start(() ->
+        {
+            RunLimiter.Permit granted;
+            try
+            {
+                granted = runLimiter.acquire(testIds, parallelism);
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while tests {} waited for their run limits", testIds);
+                onInterrupted.run();
+                return;
+            } finally
+            {
+                waiters.decrementAndGet();
+            }
+            try
+            {
+                execute(granted, work);
+            } catch (TaskRejectedException e)
+            {
+                onRejected.run();
+            }
+        });
+    }
+
+    private void execute (RunLimiter.Permit permit, Consumer<RunLimiter.Permit> work)
+    {
+        try
+        {
+            testRunExecutor.execute(() ->
+            {
+                try (permit)
+                {
+                    work.accept(permit);
+                }
+            });
+        } catch (TaskRejectedException e)
+        {
+            permit.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the run registered for a fingerprint if it is still PENDING; a run cancelled or
+     * finished in the meantime no longer counts as in flight.
+     */
+    private Optional<TestRun> findInFlight (String key)
+    {
+        Long runId = inFlight.get(key);
+        if (runId == null)
+        {
+            return Optional.empty();
+        }
+        Optional<TestRun> run = testRunRepository.findById(runId)
+                .filter(candidate -> candidate.getStatus() == TestStatus.PENDING);
+        if (run.isEmpty())
+        {
+            inFlight.remove(key, runId);
+        }
+        return run;
+    }
+
+    /**
+     * Queues an already persisted batch; the whole batch occupies a single worker.
+     */
+    public TestBatch submitBatch (TestBatch batch, List<TestRun> runs)
+    {
+        runLeaseService.hold(runs);
+        runs.forEach(run ->
+        {
+            eventPublisher.open(run.getId());
+            eventPublisher.publishStatus(run.getId(), TestStatus.PENDING, "Queued in batch " + batch.getId());
+        });
+
+        List<Long> testIds = runs.stream().map(run -> run.getTest().getId()).toList();
+        int workers = batch.getWorkers() != null ? batch.getWorkers() : 1;
+        try
+        {
+            dispatch(testIds, workers, permit ->
+            {
+                if (permit.getParallelism() < workers)
+                {
+                    log.info("Limiting batch {} to {} worker(s) by the run limits of its environments", batch.getId(), permit.getParallelism());
+                    batch.setWorkers(permit.getParallelism());
+                }
+                playwrightTestRunner.executeBatch(batch, runs);
+            }, () -> reject(batch, runs, QUEUE_FULL), () -> reject(batch, runs, INTERRUPTED));
+        } catch (TaskRejectedException e)
+        {
+            reject(batch, runs, QUEUE_FULL);
+            throw new RunQueueFullException("Run queue is full, please retry later");
+        }
+
+        log.info("Queued batch {} with {} run(s)", batch.getId(), runs.size());
+        return batch;
+    }
+
+    private void reject (TestBatch batch, List<TestRun> runs, String reason)
+    {
+        log.warn("Rejected batch {}: {}", batch.getId(), reason);
+        runs.forEach(run ->
+        {
+            run.setStatus(TestStatus.FAILED);
+            run.setDescription("Rejected: " + reason);
+        });
+        testRunRepository.saveAll(runs);
+        runLeaseService.release(runs.stream().map(TestRun::getId).toList());
+        runs.forEach(run -> eventPublisher.complete(run.getId(), run.getStatus(), run.getDescription()));
+        batch.setStatus(TestStatus.FAILED);
+        batch.setDescription("Rejected: " + reason);
+        testBatchRepository.save(batch);
+        matrixRunFinisher.finishIfDone(batch.getMatrixRunId());
+    }
+
+    /**
+     * Cancels a queued or running run. Runs of a batch share one Playwright process, so the
+     * whole batch is cancelled. Running processes are killed including all their descendants.
+     * The request is stored with the runs, so a run executing on another instance is stopped by
+     * the lease heartbeat of that instance; its final save does not overwrite the cancellation.
+     */
+    public RunCancellationDto cancel (Long runId)
+    {
+        TestRun run = testRunRepository.findById(runId)
+                .orElseThrow(() -> new ResourceNotFoundException("TestRun", runId));
+        if (run.getStatus() != TestStatus.PENDING)
+        {
+            throw new ValidationException("TestRun " + runId + " is already finished with status " + run.getStatus());
+        }
+
+        TestBatch batch = run.getBatch();
+        List<TestRun> runs = batch != null ? testRunRepository.findByBatch_Id(batch.getId()) : List.of(run);
+        List<Long> runIds = runs.stream().map(TestRun::getId).toList();
+
+        testRunRepository.requestCancel(runIds);
+        RunRegistry.Cancellation cancellation = runRegistry.cancel(runIds);
+        if (!cancellation.wasRunning() && !cancellation.pending())
+        {
+            // queued here, or on another instance that stops it with its next heartbeat;
+            // the worker skips cancelled runs, so their final state is written here
+            String owner = run.getLeaseOwner();
+            String description = owner == null || owner.equals(runLeaseService.getInstanceId())
+                    ? "Cancelled before start"
+                    : "Cancelled, stopped by instance " + owner;
+            LocalDateTime finishedAt = LocalDateTime.now();
+            runs.forEach(cancelled ->
+            {
+                if (testRunRepository.finish(cancelled.getId(), TestStatus.CANCELLED, description, finishedAt) == 1)
+                {
+                    cancelled.setStatus(TestStatus.CANCELLED);
+                    cancelled.setDescription(description);
+                    cancelled.setFinishedAt(finishedAt);
+                    eventPublisher.complete(cancelled.getId(), cancelled.getStatus(), cancelled.getDescription());
+                }
+            });
+            runLeaseService.release(runIds);
+            if (batch != null)
+            {
+                testBatchRepository.findById(batch.getId()).ifPresent(cancelledBatch ->
+                {
+                    cancelledBatch.setStatus(TestStatus.CANCELLED);
+                    cancelledBatch.setDescription(description);
+                    cancelledBatch.setFinishedAt(finishedAt);
+                    testBatchRepository.save(cancelledBatch);
+                });
+            }
+            matrixRunFinisher.finishIfDone(run.getMatrixRunId());
+        }
+
+        log.info("Cancelled TestRun(s) {} (running: {}, starting: {}, reaped {} process(es))",
+                runIds, cancellation.wasRunning(), cancellation.pending(), cancellation.reapedProcesses());
+
+        RunCancellationDto dto = new RunCancellationDto();
+        dto.setRunId(runId);
+        dto.setCancelledRunIds(runIds);
+        dto.setWasRunning(cancellation.wasRunning());
+        dto.setReapedProcesses(cancellation.reapedProcesses());
+        return dto;
+    }
+
+    public RunQueueStatusDto getQueueStatus ()
+    {
+        RunQueueStatusDto dto = new RunQueueStatusDto();
+        dto.setQueueDepth(testRunExecutor.getQueueSize());
+        dto.setQueueCapacity(testRunExecutor.getQueueCapacity());
+        dto.setActiveWorkers(testRunExecutor.getActiveCount());
+        dto.setMaxWorkers(testRunExecutor.getMaxPoolSize());
+        dto.setWaitingForLimits(runLimiter.getWaiting());
+        return dto;
+    }
+}
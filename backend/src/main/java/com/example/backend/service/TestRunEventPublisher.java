@@ -0,0 +1,107 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.RunEventType;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.TestRunEventDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Fans live run events out to any number of subscribers. Each run has one channel fed by the
+ * process pump; late subscribers get the most recent events replayed, and every subscriber has
+ * its own bounded buffer so a slow client drops old lines instead of growing the heap.
+ */
+@Service
+@Slf4j
+public class TestRunEventPublisher
+{
+
+    static final int REPLAY_SIZE = 100;
+    static final int SUBSCRIBER_BUFFER_SIZE = 256;
+
+    private final Map<Long, EventChannel<TestRunEventDto>> channels = new ConcurrentHashMap<>();
+
+    public void open (Long runId)
+    {
+        channels.computeIfAbsent(runId, id -> new EventChannel<>(REPLAY_SIZE));
+    }
+
+    public boolean isOpen (Long runId)
+    {
+        return channels.containsKey(runId);
+    }
+
+    /**
+     * Returns the live event stream of a run, or {@code null} if the run is not executing.
+     */
+    public Flux<TestRunEventDto> subscribe (Long runId)
+    {
+        EventChannel<TestRunEventDto> channel = channels.get(runId);
+        if (channel == null)
+        {
+            return null;
+        }
+        return channel.flux()
+                .onBackpressureBuffer(SUBSCRIBER_BUFFER_SIZE, BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    public void publishLine (Long runId, String line)
+    {
+        TestRunEventDto event = new TestRunEventDto();
+        event.setType(RunEventType.OUTPUT);
+        event.setRunId(runId);
+        event.setMessage(line);
+        publish(runId, event);
+    }
+
+    public void publishStatus (Long runId, TestStatus status, String message)
+    {
+        TestRunEventDto event = new TestRunEventDto();
+        event.setType(RunEventType.STATUS);
+        event.setRunId(runId);
+        event.setStatus(status);
+        event.setMessage(message);
+        publish(runId, event);
+    }
+
+    public void publishTestResult (Long runId, ListReporterLineParser.ResultLine result)
+    {
+        TestRunEventDto event = new TestRunEventDto();
+        event.setType(RunEventType.TEST_RESULT);
+        event.setRunId(runId);
+        event.setStatus(result.status());
+        event.setFile(result.file());
+        event.setTitle(result.title());
+        event.setMessage(result.project());
+        publish(runId, event);
+    }
+
+    /**
+     * Publishes the final status and closes the channel of a run.
+     */
+    public void complete (Long runId, TestStatus status, String message)
+    {
+        publishStatus(runId, status, message);
+        EventChannel<TestRunEventDto> channel = channels.remove(runId);
+        if (channel != null)
+        {
+            channel.complete();
+        }
+    }
+
+    private void publish (Long runId, TestRunEventDto event)
+    {
+        EventChannel<TestRunEventDto> channel = channels.get(runId);
+        if (channel != null)
+        {
+            channel.emit(event);
+        }
+    }
+}
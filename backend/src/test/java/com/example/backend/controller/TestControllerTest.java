@@ -3,17 +3,21 @@ package com.example.backend.controller;
 
 import com.example.backend.constants.EFileType;
 import com.example.backend.dto.CreateTestRequest;
+import com.example.backend.dto.GenerationJobDto;
 import com.example.backend.dto.TestDto;
 import com.example.backend.dto.TestRunDto;
+import com.example.backend.mapper.GenerationJobMapper;
 import com.example.backend.mapper.TestMapper;
 import com.example.backend.mapper.TestRunMapper;
+import com.example.backend.models.GenerationJob;
+import com.example.backend.models.GenerationState;
 import com.example.backend.models.PlaywrightTest;
 import com.example.backend.models.TestModel;
 import com.example.backend.models.TestRun;
 import com.example.backend.repo.TestRepo;
-import com.example.backend.service.AiService;
 import com.example.backend.service.FileService;
-import com.example.backend.service.PlaywrightTestRunner;
+import com.example.backend.service.GenerationJobService;
+import com.example.backend.service.TestRunDispatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -49,13 +53,16 @@ class TestControllerTest
     private TestRunMapper testRunMapper;
 
     @Mock
-    private AiService aiService;
+    private GenerationJobMapper generationJobMapper;
+
+    @Mock
+    private GenerationJobService generationJobService;
 
     @Mock
     private FileService fileService;
 
     @Mock
-    private PlaywrightTestRunner playwrightTestRunner;
+    private TestRunDispatcher testRunDispatcher;
 
     @InjectMocks
     private TestController testController;
@@ -190,17 +197,23 @@ class TestControllerTest
     }
 
     @Test
-    @DisplayName("generateTest ruft AI-Service und speichert Datei")
-    void generateTestReturnsOkAndWritesFile () throws Exception
+    @DisplayName("generateTest reiht die Generierung ein und liefert 202 mit dem Job")
+    void generateTestQueuesJobAndReturnsAccepted ()
     {
-        when(testRepo.findById(11L)).thenReturn(Optional.of(testModel));
-        when(aiService.generateAndRunTests(testModel)).thenReturn("generated code");
-
-        ResponseEntity<String> response = testController.generateTest(11L);
-
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals("generated code", response.getBody());
-        verify(fileService).writeFile(String.valueOf(testModel.getId()), "generated code", EFileType.SPEC_TS);
+        GenerationJob job = new GenerationJob();
+        job.setId(5L);
+        job.setState(GenerationState.QUEUED);
+        GenerationJobDto jobDto = new GenerationJobDto();
+        jobDto.setId(5L);
+        jobDto.setState(GenerationState.QUEUED);
+        when(generationJobService.submit(11L, false)).thenReturn(job);
+        when(generationJobMapper.toDto(job)).thenReturn(jobDto);
+
+        ResponseEntity<GenerationJobDto> response = testController.generateTest(11L, false);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(jobDto, response.getBody());
+        verifyNoInteractions(fileService);
     }
 
     @Test
@@ -244,8 +257,8 @@ class TestControllerTest
     }
 
     @Test
-    @DisplayName("executePlaywrightTest führt Test aus und gibt TestRunDto zurück")
-    void executePlaywrightTestReturnsTestRunDto ()
+    @DisplayName("executePlaywrightTest reiht Test ein und liefert 202 mit TestRunDto")
+    void executePlaywrightTestQueuesRunAndReturnsAccepted ()
     {
         TestRun testRun = new TestRun();
         testRun.setId(100L);
@@ -254,14 +267,36 @@ class TestControllerTest
         testRunDto.setId(100L);
 
         when(testRepo.existsById(11L)).thenReturn(true);
-        when(playwrightTestRunner.runPlaywrightTest(11L, "11.spec.ts")).thenReturn(testRun);
+        when(testRunDispatcher.submit(11L, false, null)).thenReturn(testRun);
         when(testRunMapper.toDto(testRun)).thenReturn(testRunDto);
 
-        ResponseEntity<TestRunDto> response = testController.executePlaywrightTest(11L);
+        ResponseEntity<TestRunDto> response = testController.executePlaywrightTest(11L, false, null);
 
-        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
         assertThat(response.getBody()).isNotNull();
         TestRunDto bodyDto = Objects.requireNonNull(response.getBody());
         assertEquals(100L, bodyDto.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("executePlaywrightTest liefert 200 wenn ein gecachter Run zurückgegeben wird")
+    void executePlaywrightTestReturnsOkOnCacheHit ()
+    {
+        TestRun testRun = new TestRun();
+        testRun.setId(90L);
+        testRun.setCacheHit(true);
+
+        TestRunDto testRunDto = new TestRunDto();
+        testRunDto.setId(90L);
+        testRunDto.setCacheHit(true);
+
+        when(testRepo.existsById(11L)).thenReturn(true);
+        when(testRunDispatcher.submit(11L, true, null)).thenReturn(testRun);
+        when(testRunMapper.toDto(testRun)).thenReturn(testRunDto);
+
+        ResponseEntity<TestRunDto> response = testController.executePlaywrightTest(11L, true, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertThat(Objects.requireNonNull(response.getBody()).isCacheHit()).isTrue();
+    }
+}
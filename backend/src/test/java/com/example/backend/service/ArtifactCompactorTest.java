@@ -0,0 +1,123 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.ArtifactProperties;
+import com.example.backend.models.Artifact;
+import com.example.backend.models.RunArtifact;
+import com.example.backend.repo.ArtifactRepo;
+import com.example.backend.repo.RunArtifactRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactCompactorTest
+{
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ArtifactStore artifactStore;
+
+    @Mock
+    private ArtifactRepo artifactRepo;
+
+    @Mock
+    private RunArtifactRepo runArtifactRepo;
+
+    private ArtifactProperties properties;
+    private ArtifactCompactor compactor;
+
+    @BeforeEach
+    void setUp ()
+    {
+        properties = new ArtifactProperties();
+        properties.setMaxAge(Duration.ofDays(7));
+        properties.setMaxTotalSize(DataSize.ofBytes(100));
+        properties.setScratchDirs(List.of(tempDir.toString()));
+        properties.setLogDir(tempDir.resolve("logs").toString());
+        compactor = new ArtifactCompactor(properties, artifactStore, artifactRepo, runArtifactRepo);
+    }
+
+    @Test
+    @DisplayName("compact gibt abgelaufene Verknüpfungen frei und entfernt unreferenzierte Blobs")
+    void compactReleasesExpiredLinksAndEvictsUnreferenced ()
+    {
+        List<RunArtifact> expired = List.of(new RunArtifact());
+        Artifact orphan = artifact(1L, 10L);
+        when(runArtifactRepo.findByCreatedAtBefore(any())).thenReturn(expired);
+        when(artifactRepo.findUnreferenced()).thenReturn(List.of(orphan));
+        when(artifactRepo.sumSizeBytes()).thenReturn(50L);
+
+        compactor.compact();
+
+        verify(runArtifactRepo).deleteAll(expired);
+        verify(artifactStore).evict(orphan);
+        verify(artifactRepo, never()).findTop50ByOrderByLastReferencedAtAsc();
+        verify(artifactStore).refreshUsage();
+    }
+
+    @Test
+    @DisplayName("compact verdrängt die ältesten Blobs bis das Größenbudget eingehalten ist")
+    void compactEvictsOldestUntilWithinBudget ()
+    {
+        Artifact oldest = artifact(1L, 60L);
+        Artifact older = artifact(2L, 60L);
+        Artifact newer = artifact(3L, 60L);
+        when(runArtifactRepo.findByCreatedAtBefore(any())).thenReturn(List.of());
+        when(artifactRepo.findUnreferenced()).thenReturn(List.of());
+        when(artifactRepo.sumSizeBytes()).thenReturn(180L);
+        when(artifactRepo.findTop50ByOrderByLastReferencedAtAsc()).thenReturn(List.of(oldest, older, newer));
+
+        compactor.compact();
+
+        verify(artifactStore).evict(oldest);
+        verify(artifactStore).evict(older);
+        verify(artifactStore, never()).evict(newer);
+    }
+
+    @Test
+    @DisplayName("compact löscht alte Dateien aus den Ausgabeverzeichnissen")
+    void compactPrunesOldScratchFiles () throws Exception
+    {
+        Path old = Files.writeString(Files.createDirectories(tempDir.resolve("run-1")).resolve("trace.zip"), "old");
+        Files.setLastModifiedTime(old, FileTime.from(Instant.now().minus(Duration.ofDays(30))));
+        Files.setLastModifiedTime(old.getParent(), FileTime.from(Instant.now().minus(Duration.ofDays(30))));
+        Path recent = Files.writeString(tempDir.resolve("recent.png"), "new");
+        when(runArtifactRepo.findByCreatedAtBefore(any())).thenReturn(List.of());
+        when(artifactRepo.findUnreferenced()).thenReturn(List.of());
+
+        compactor.compact();
+
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(recent));
+    }
+
+    private Artifact artifact (Long id, Long size)
+    {
+        Artifact artifact = new Artifact();
+        artifact.setId(id);
+        artifact.setSha256("%064d".formatted(id));
+        artifact.setSizeBytes(size);
+        return artifact;
+    }
+}
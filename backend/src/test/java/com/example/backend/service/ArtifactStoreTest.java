@@ -0,0 +1,137 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.ArtifactProperties;
+import com.example.backend.models.Artifact;
+import com.example.backend.models.ReportAttachment;
+import com.example.backend.models.ReportTestResult;
+import com.example.backend.models.RunArtifact;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.ArtifactRepo;
+import com.example.backend.repo.RunArtifactRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class ArtifactStoreTest
+{
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ArtifactRepo artifactRepo;
+
+    @Mock
+    private RunArtifactRepo runArtifactRepo;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ArtifactStore store;
+
+    @BeforeEach
+    void setUp () throws Exception
+    {
+        ArtifactProperties properties = new ArtifactProperties();
+        properties.setStoreDir(tempDir.resolve("store").toString());
+        meterRegistry = new SimpleMeterRegistry();
+        store = new ArtifactStore(properties, artifactRepo, runArtifactRepo, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("store legt identische Dateien nur einmal als Blob ab")
+    void storeDeduplicatesIdenticalContent () throws Exception
+    {
+        Path first = Files.writeString(tempDir.resolve("a.png"), "same bytes");
+        Path second = Files.writeString(tempDir.resolve("b.png"), "same bytes");
+        Artifact existing = new Artifact();
+        existing.setId(1L);
+        when(artifactRepo.findBySha256(anyString())).thenReturn(Optional.empty(), Optional.of(existing));
+        when(artifactRepo.save(any(Artifact.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(runArtifactRepo.save(any(RunArtifact.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        RunArtifact firstLink = store.store(new TestRun(), first, "screenshot", "image/png", 0);
+        store.store(new TestRun(), second, "screenshot", "image/png", 0);
+
+        String sha256 = firstLink.getArtifact().getSha256();
+        assertEquals(64, sha256.length());
+        assertTrue(Files.exists(store.blobPath(sha256)));
+        try (Stream<Path> blobs = Files.walk(tempDir.resolve("store")))
+        {
+            assertEquals(1, blobs.filter(Files::isRegularFile).count());
+        }
+        assertEquals(1.0, meterRegistry.get("artifacts.deduplicated").counter().count());
+        assertEquals(10.0, meterRegistry.get("artifacts.store.bytes").gauge().value());
+        verify(runArtifactRepo, times(2)).save(any(RunArtifact.class));
+    }
+
+    @Test
+    @DisplayName("ingestAttachments überspringt und zählt fehlende Dateien, Inline-Anhänge werden ignoriert")
+    void ingestAttachmentsSkipsMissingFiles () throws Exception
+    {
+        Path trace = Files.writeString(tempDir.resolve("trace.zip"), "trace");
+        when(artifactRepo.findBySha256(anyString())).thenReturn(Optional.empty());
+        when(artifactRepo.save(any(Artifact.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(runArtifactRepo.save(any(RunArtifact.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ReportTestResult test = new ReportTestResult();
+        test.getAttachments().add(attachment("trace", trace.toAbsolutePath().toString()));
+        test.getAttachments().add(attachment("video", tempDir.resolve("gone.webm").toAbsolutePath().toString()));
+        test.getAttachments().add(attachment("inline", null));
+
+        List<RunArtifact> stored = store.ingestAttachments(new TestRun(), List.of(test));
+
+        assertThat(stored).singleElement().satisfies(link -> assertEquals("trace", link.getName()));
+        assertEquals(1.0, meterRegistry.get("artifacts.missing").counter().count());
+    }
+
+    @Test
+    @DisplayName("evict entfernt Blob, Verknüpfungen und Datensatz")
+    void evictRemovesBlobAndLinks () throws Exception
+    {
+        Path source = Files.writeString(tempDir.resolve("video.webm"), "video");
+        when(artifactRepo.findBySha256(anyString())).thenReturn(Optional.empty());
+        when(artifactRepo.save(any(Artifact.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(runArtifactRepo.save(any(RunArtifact.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Artifact artifact = store.store(new TestRun(), source, "video", "video/webm", 0).getArtifact();
+        artifact.setId(7L);
+        when(runArtifactRepo.findByArtifact_Id(7L)).thenReturn(List.of(new RunArtifact()));
+
+        store.evict(artifact);
+
+        assertFalse(Files.exists(store.blobPath(artifact.getSha256())));
+        verify(runArtifactRepo).deleteAll(anyList());
+        verify(artifactRepo).delete(artifact);
+        assertEquals(0.0, meterRegistry.get("artifacts.store.bytes").gauge().value());
+        assertEquals(1.0, meterRegistry.get("artifacts.evicted").counter().count());
+    }
+
+    private ReportAttachment attachment (String name, String path)
+    {
+        ReportAttachment attachment = new ReportAttachment();
+        attachment.setName(name);
+        attachment.setPath(path);
+        return attachment;
+    }
+}
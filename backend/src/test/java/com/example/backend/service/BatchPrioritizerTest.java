@@ -0,0 +1,92 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.dto.TestDurationDto;
+import com.example.backend.dto.TestFailureRateDto;
+import com.example.backend.models.TestModel;
+import com.example.backend.repo.SpecResultRepo;
+import com.example.backend.repo.TestRunRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+
+@ExtendWith(MockitoExtension.class)
+class BatchPrioritizerTest
+{
+
+    @Mock
+    private TestRunRepo testRunRepo;
+
+    @Mock
+    private SpecResultRepo specResultRepo;
+
+    private BatchPrioritizer prioritizer;
+
+    @BeforeEach
+    void setUp ()
+    {
+        prioritizer = new BatchPrioritizer(testRunRepo, specResultRepo, new TestRunnerProperties());
+    }
+
+    @Test
+    @DisplayName("prioritize stellt häufig fehlschlagende und kurze Tests nach vorne")
+    void prioritizeOrdersByFailureProbabilityPerDuration ()
+    {
+        TestModel stable = test(1L);
+        TestModel broken = test(2L);
+        TestModel slowBroken = test(3L);
+        TestModel unknown = test(4L);
+        when(testRunRepo.findFailureRates(anyCollection(), any(LocalDateTime.class))).thenReturn(List.of(
+                new TestFailureRateDto(1L, 20L, 0L),
+                new TestFailureRateDto(2L, 10L, 8L),
+                new TestFailureRateDto(3L, 10L, 8L)));
+        when(specResultRepo.findDurations(anyCollection(), any(LocalDateTime.class))).thenReturn(List.of(
+                new TestDurationDto(1L, 200_000L, 20L),
+                new TestDurationDto(2L, 100_000L, 10L),
+                new TestDurationDto(3L, 1_200_000L, 10L)));
+
+        List<TestModel> ordered = prioritizer.prioritize(List.of(stable, broken, slowBroken, unknown));
+
+        // unknown: p = 0.5 at the average known duration of ~47s, slowBroken: p = 0.75 at 120s
+        assertThat(ordered).extracting(TestModel::getId).containsExactly(2L, 4L, 3L, 1L);
+    }
+
+    @Test
+    @DisplayName("prioritize lässt einzelne Tests unverändert")
+    void prioritizeKeepsSingleTest ()
+    {
+        List<TestModel> tests = List.of(test(1L));
+
+        assertThat(prioritizer.prioritize(tests)).isSameAs(tests);
+        verifyNoInteractions(testRunRepo, specResultRepo);
+    }
+
+    @Test
+    @DisplayName("score glättet die Fehlerwahrscheinlichkeit für Tests ohne Historie")
+    void scoreSmoothsFailureProbability ()
+    {
+        assertThat(BatchPrioritizer.score(0, 0, 1000)).isEqualTo(0.5 / 1000);
+        assertThat(BatchPrioritizer.score(8, 8, 1000)).isEqualTo(0.9 / 1000);
+    }
+
+    private static TestModel test (Long id)
+    {
+        TestModel test = new TestModel();
+        test.setId(id);
+        return test;
+    }
+}
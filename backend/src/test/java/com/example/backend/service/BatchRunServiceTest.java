@@ -0,0 +1,113 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.EFileType;
+import com.example.backend.models.TestBatch;
+import com.example.backend.models.TestModel;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRepo;
+import com.example.backend.repo.TestRunRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class BatchRunServiceTest
+{
+
+    @Mock
+    private TestRepo testRepo;
+
+    @Mock
+    private TestRunRepo testRunRepo;
+
+    @Mock
+    private TestBatchRepo testBatchRepo;
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private TestRunDispatcher testRunDispatcher;
+
+    @Mock
+    private FlakinessService flakinessService;
+
+    @Mock
+    private BatchPrioritizer batchPrioritizer;
+
+    @Mock
+    private ExecutionProfileService executionProfileService;
+
+    @Mock
+    private SpecFingerprinter specFingerprinter;
+
+    private BatchRunService batchRunService;
+
+    @BeforeEach
+    void setUp () throws Exception
+    {
+        batchRunService = new BatchRunService(testRepo, testRunRepo, testBatchRepo, fileService, testRunDispatcher, new TestRunnerProperties(),
+                flakinessService, batchPrioritizer, executionProfileService, specFingerprinter);
+        when(fileService.listFiles(EFileType.SPEC_TS)).thenReturn(Set.of("11.spec.ts", "12.spec.ts"));
+        when(testBatchRepo.save(any(TestBatch.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(testRunRepo.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(specFingerprinter.fingerprint(11L, null)).thenReturn(new SpecFingerprinter.Fingerprint(11L, "s11", null, "h11"));
+        when(specFingerprinter.fingerprint(12L, null)).thenReturn(new SpecFingerprinter.Fingerprint(12L, "s12", null, "h12"));
+    }
+
+    @Test
+    @DisplayName("submitForStory versieht jeden Batch-Run mit dem Ergebnis-Hash seines Tests")
+    void submitForStorySetsResultHashOfEveryRun ()
+    {
+        when(testRepo.findByStoryID(5L)).thenReturn(List.of(test(11L), test(12L)));
+
+        batchRunService.submitForStory(5L, null, false, false, null, null);
+
+        assertThat(submittedRuns()).extracting(TestRun::getResultHash).containsExactly("h11", "h12");
+    }
+
+    @Test
+    @DisplayName("submitForBrowser bildet den Ergebnis-Hash pro Browser wie einzelne Matrix-Runs")
+    void submitForBrowserSetsBrowserResultHash ()
+    {
+        when(testRepo.findByStoryID(5L)).thenReturn(List.of(test(11L), test(12L)));
+
+        batchRunService.submitForBrowser(BatchScope.STORY, 5L, null, false, null, Browser.FIREFOX, 4L);
+
+        assertThat(submittedRuns()).extracting(TestRun::getResultHash).containsExactly(
+                SpecFingerprinter.resultHash("h11", Browser.FIREFOX), SpecFingerprinter.resultHash("h12", Browser.FIREFOX));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TestRun> submittedRuns ()
+    {
+        ArgumentCaptor<List<TestRun>> runs = ArgumentCaptor.forClass(List.class);
+        verify(testRunDispatcher).submitBatch(any(TestBatch.class), runs.capture());
+        return runs.getValue();
+    }
+
+    private TestModel test (Long id)
+    {
+        TestModel test = new TestModel();
+        test.setId(id);
+        return test;
+    }
+}
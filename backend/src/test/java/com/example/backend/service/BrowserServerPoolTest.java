@@ -0,0 +1,168 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.BrowserPoolProperties;
+import com.example.backend.constants.Browser;
+import com.example.backend.service.BrowserServerPool.BrowserServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+@DisabledOnOs(OS.WINDOWS)
+class BrowserServerPoolTest
+{
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProcessSupervisor processSupervisor = new ProcessSupervisor(meterRegistry);
+    private final List<BrowserServer> launched = new CopyOnWriteArrayList<>();
+    private final Map<String, ServerSocket> sockets = new ConcurrentHashMap<>();
+
+    private BrowserPoolProperties properties;
+    private BrowserServerPool pool;
+
+    @BeforeEach
+    void setUp ()
+    {
+        properties = new BrowserPoolProperties();
+        properties.setSize(1);
+        properties.setMaxUses(2);
+        pool = new BrowserServerPool(properties, processSupervisor, this::launchFake, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown () throws IOException
+    {
+        pool.shutdown();
+        processSupervisor.shutdown();
+        for (ServerSocket socket : sockets.values())
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    @DisplayName("lease verbindet Läufe mit einem freien Server und startet ohne freien Server keinen eigenen")
+    void leaseHandsOutIdleServerAndMissesWhenAllAreLeased ()
+    {
+        startPool();
+
+        try (BrowserServerPool.Lease first = pool.lease(Browser.CHROMIUM, false);
+             BrowserServerPool.Lease second = pool.lease(Browser.CHROMIUM, false))
+        {
+            assertEquals(launched.get(0).endpoint(), first.getEndpoint());
+            assertNull(second.getEndpoint());
+            assertEquals(1.0, pool.getUtilization());
+        }
+
+        assertEquals(0, pool.getLeasedCount());
+        assertEquals(1, launched.size());
+        assertEquals(1.0, meterRegistry.get("browser.pool.leases").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("browser.pool.leases").tag("result", "miss").counter().count());
+        assertTrue(meterRegistry.get("browser.pool.launch.saved").counter().count() > 0);
+    }
+
+    @Test
+    @DisplayName("Server werden nach maxUses Läufen ersetzt")
+    void serverIsReplacedAfterMaxUses ()
+    {
+        startPool();
+        BrowserServer first = launched.get(0);
+
+        pool.lease(Browser.CHROMIUM, false).close();
+        pool.lease(Browser.CHROMIUM, false).close();
+
+        await(() -> launched.size() == 2 && pool.getServerCount() == 1);
+        await(() -> !first.process().isAlive());
+        try (BrowserServerPool.Lease lease = pool.lease(Browser.CHROMIUM, false))
+        {
+            assertEquals(launched.get(1).endpoint(), lease.getEndpoint());
+        }
+        assertEquals(1.0, meterRegistry.get("browser.pool.recycled").tag("reason", "uses").counter().count());
+    }
+
+    @Test
+    @DisplayName("checkHealth ersetzt Server, die keine Verbindungen mehr annehmen")
+    void checkHealthReplacesUnreachableServer () throws IOException
+    {
+        startPool();
+        BrowserServer first = launched.get(0);
+        sockets.get(first.endpoint()).close();
+
+        pool.checkHealth();
+
+        await(() -> launched.size() == 2 && pool.getServerCount() == 1);
+        try (BrowserServerPool.Lease lease = pool.lease(Browser.CHROMIUM, false))
+        {
+            assertNotEquals(first.endpoint(), lease.getEndpoint());
+            assertNotNull(lease.getEndpoint());
+        }
+        assertEquals(1.0, meterRegistry.get("browser.pool.recycled").tag("reason", "unhealthy").counter().count());
+    }
+
+    @Test
+    @DisplayName("sichtbare Browser und Browser ohne Pool starten ihren Browser selbst")
+    void headedAndUnpooledBrowsersGetNoServer ()
+    {
+        startPool();
+
+        try (BrowserServerPool.Lease headed = pool.lease(Browser.CHROMIUM, true);
+             BrowserServerPool.Lease firefox = pool.lease(Browser.FIREFOX, false))
+        {
+            assertNull(headed.getEndpoint());
+            assertNull(firefox.getEndpoint());
+            assertEquals(0, pool.getLeasedCount());
+        }
+    }
+
+    private void startPool ()
+    {
+        pool.start();
+        await(() -> pool.getServerCount() == 1);
+    }
+
+    /**
+     * Stands in for a browser server: a long-running process and a socket that accepts connections.
+     */
+    private BrowserServer launchFake (Browser browser) throws IOException
+    {
+        Process process = new ProcessBuilder("sleep", "60").start();
+        ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        String endpoint = "ws://127.0.0.1:" + socket.getLocalPort() + "/" + launched.size();
+        sockets.put(endpoint, socket);
+        BrowserServer server = new BrowserServer(browser, process, endpoint, socket.getLocalPort(), Duration.ofMillis(800), BrowserServerPool.residentBytes(process));
+        launched.add(server);
+        return server;
+    }
+
+    private static void await (BooleanSupplier condition)
+    {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean())
+        {
+            assertTrue(System.nanoTime() - deadline < 0, "condition not met within 10s");
+            LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.FlakinessProperties;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.mapper.TestFlakinessMapper;
+import com.example.backend.models.ReportTestResult;
+import com.example.backend.models.TestBatch;
+import com.example.backend.models.TestFlakiness;
+import com.example.backend.models.TestModel;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestFlakinessRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class FlakinessServiceTest
+{
+
+    @Mock
+    private TestFlakinessRepo testFlakinessRepo;
+
+    private FlakinessService flakinessService;
+
+    private TestModel test;
+
+    @BeforeEach
+    void setUp ()
+    {
+        flakinessService = new FlakinessService(testFlakinessRepo, new TestFlakinessMapper(), new FlakinessProperties());
+        test = new TestModel();
+        test.setId(11L);
+        lenient().when(testFlakinessRepo.save(any(TestFlakiness.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("record zählt einen erst im Retry bestandenen Test als flaky")
+    void recordCountsPassOnRetryAsFlaky ()
+    {
+        when(testFlakinessRepo.findByTest_Id(11L)).thenReturn(Optional.empty());
+
+        TestFlakiness flakiness = flakinessService.record(run(TestStatus.PASSED, "h1"), List.of(result("flaky")));
+
+        assertThat(flakiness.getScore()).isEqualTo(1.0);
+        assertThat(flakiness.getRuns()).isEqualTo(1);
+        assertThat(flakiness.getFlakyRuns()).isEqualTo(1);
+        assertThat(flakiness.isQuarantined()).isFalse();
+    }
+
+    @Test
+    @DisplayName("record wertet Statuswechsel bei unverändertem Spec als flaky, bei geändertem nicht")
+    void recordCountsFlipOnlyForUnchangedSpec ()
+    {
+        TestFlakiness existing = existing(0.0, 3, TestStatus.PASSED, "h1");
+        when(testFlakinessRepo.findByTest_Id(11L)).thenReturn(Optional.of(existing));
+
+        flakinessService.record(run(TestStatus.FAILED, "h1"), List.of(result("unexpected")));
+        assertThat(existing.getScore()).isCloseTo(0.2, within(1e-9));
+
+        flakinessService.record(run(TestStatus.PASSED, "h2"), List.of(result("expected")));
+        assertThat(existing.getScore()).isCloseTo(0.16, within(1e-9));
+        assertThat(existing.getFlakyRuns()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("record wertet den Statuswechsel eines Batch-Runs nach einem einzelnen Run mit gleichem Hash als flaky")
+    void recordCountsFlipOfBatchRun ()
+    {
+        when(testFlakinessRepo.findByTest_Id(11L)).thenReturn(Optional.empty());
+        TestFlakiness flakiness = flakinessService.record(run(TestStatus.PASSED, "h1"), List.of(result("expected")));
+        when(testFlakinessRepo.findByTest_Id(11L)).thenReturn(Optional.of(flakiness));
+
+        TestRun batchRun = run(TestStatus.FAILED, "h1");
+        batchRun.setBatch(new TestBatch());
+        flakinessService.record(batchRun, List.of(result("unexpected")));
+
+        assertThat(flakiness.getFlakyRuns()).isEqualTo(1);
+        assertThat(flakiness.getLastResultHash()).isEqualTo("h1");
+    }
+
+    @Test
+    @DisplayName("record setzt Test ab Schwellwert in Quarantäne und gibt ihn später wieder frei")
+    void recordQuarantinesAndReleases ()
+    {
+        TestFlakiness existing = existing(0.2, 4, TestStatus.PASSED, "h1");
+        when(testFlakinessRepo.findByTest_Id(11L)).thenReturn(Optional.of(existing));
+
+        flakinessService.record(run(TestStatus.PASSED, "h1"), List.of(result("flaky")));
+        assertThat(existing.getScore()).isCloseTo(0.36, within(1e-9));
+        assertThat(existing.isQuarantined()).isTrue();
+        assertThat(existing.getQuarantinedAt()).isNotNull();
+
+        for (int i = 0; i < 6; i++)
+        {
+            flakinessService.record(run(TestStatus.PASSED, "h1"), List.of(result("expected")));
+        }
+        assertThat(existing.getScore()).isLessThan(0.1);
+        assertThat(existing.isQuarantined()).isFalse();
+    }
+
+    @Test
+    @DisplayName("record ignoriert abgebrochene Runs")
+    void recordIgnoresCancelledRuns ()
+    {
+        assertThat(flakinessService.record(run(TestStatus.CANCELLED, "h1"), List.of())).isNull();
+
+        verify(testFlakinessRepo, never()).save(any());
+    }
+
+    private TestRun run (TestStatus status, String resultHash)
+    {
+        TestRun run = new TestRun();
+        run.setTest(test);
+        run.setStatus(status);
+        run.setResultHash(resultHash);
+        return run;
+    }
+
+    private TestFlakiness existing (double score, int runs, TestStatus lastStatus, String lastResultHash)
+    {
+        TestFlakiness flakiness = new TestFlakiness();
+        flakiness.setTest(test);
+        flakiness.setScore(score);
+        flakiness.setRuns(runs);
+        flakiness.setLastStatus(lastStatus);
+        flakiness.setLastResultHash(lastResultHash);
+        return flakiness;
+    }
+
+    private static ReportTestResult result (String status)
+    {
+        ReportTestResult result = new ReportTestResult();
+        result.setStatus(status);
+        return result;
+    }
+}
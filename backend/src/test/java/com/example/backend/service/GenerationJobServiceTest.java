@@ -0,0 +1,401 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.AiRetryProperties;
+import com.example.backend.config.GenerationProperties;
+import com.example.backend.constants.EFileType;
+import com.example.backend.constants.GenerationEventType;
+import com.example.backend.dto.GenerationEventDto;
+import com.example.backend.exceptions.GenerationException;
+import com.example.backend.exceptions.RunQueueFullException;
+import com.example.backend.models.GenerationCacheEntry;
+import com.example.backend.models.GenerationJob;
+import com.example.backend.models.GenerationState;
+import com.example.backend.models.TestModel;
+import com.example.backend.models.TestStep;
+import com.example.backend.repo.GenerationJobRepo;
+import com.example.backend.repo.TestRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class GenerationJobServiceTest
+{
+
+    @Mock
+    private GenerationJobRepo generationJobRepo;
+
+    @Mock
+    private TestRepo testRepo;
+
+    @Mock
+    private AiService aiService;
+
+    @Mock
+    private GenerationCache generationCache;
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private ThreadPoolTaskExecutor generationExecutor;
+
+    @Mock
+    private RunLeaseService runLeaseService;
+
+    private final GenerationProperties properties = new GenerationProperties();
+    private final AiRetryProperties retryProperties = new AiRetryProperties();
+    private final GenerationEventPublisher eventPublisher = new GenerationEventPublisher();
+    private GenerationJobService service;
+    private TestModel test;
+
+    @BeforeEach
+    void setUp ()
+    {
+        when(runLeaseService.getInstanceId()).thenReturn("self");
+        service = new GenerationJobService(generationJobRepo, testRepo, aiService, generationCache, fileService, generationExecutor, eventPublisher, properties, retryProperties, runLeaseService, new SimpleMeterRegistry());
+        retryProperties.getBackoff().setInitialInterval(Duration.ofMillis(1));
+        test = new TestModel();
+        test.setId(11L);
+    }
+
+    @Test
+    @DisplayName("submit hängt sich an eine laufende Generierung desselben Tests an")
+    void submitCoalescesOntoActiveJob ()
+    {
+        GenerationJob active = job(GenerationState.IN_PROGRESS);
+        when(testRepo.findForGeneration(11L)).thenReturn(Optional.of(test));
+        when(generationJobRepo.findFirstByTest_IdAndStateInOrderByIdDesc(11L, GenerationJobService.ACTIVE)).thenReturn(Optional.of(active));
+
+        GenerationJob job = service.submit(11L);
+
+        assertSame(active, job);
+        assertThat(job.isCoalesced()).isTrue();
+        verify(generationJobRepo, never()).save(any());
+        verifyNoInteractions(generationExecutor);
+    }
+
+    @Test
+    @DisplayName("submit markiert den Job als FAILED, wenn die Warteschlange voll ist")
+    void submitFailsJobWhenQueueIsFull ()
+    {
+        when(testRepo.findForGeneration(11L)).thenReturn(Optional.of(test));
+        when(generationJobRepo.findFirstByTest_IdAndStateInOrderByIdDesc(11L, GenerationJobService.ACTIVE)).thenReturn(Optional.empty());
+        when(generationJobRepo.save(any(GenerationJob.class))).thenAnswer(invocation ->
+        {
+            GenerationJob job = invocation.getArgument(0);
+            job.setId(5L);
+            return job;
+        });
+        doThrow(new TaskRejectedException("full")).when(generationExecutor).execute(any(Runnable.class));
+
+        assertThrows(RunQueueFullException.class, () -> service.submit(11L));
+
+        verify(testRepo).updateGenerationState(11L, GenerationState.QUEUED);
+        verify(testRepo).updateGenerationState(11L, GenerationState.FAILED);
+    }
+
+    @Test
+    @DisplayName("execute zählt Tool-Aufrufe, schreibt die Spec und schließt den Job ab")
+    void executeTracksToolCallsAndWritesSpec () throws Exception
+    {
+        GenerationJob job = job(GenerationState.QUEUED);
+        when(generationJobRepo.findById(5L)).thenReturn(Optional.of(job));
+        when(testRepo.findForGeneration(11L)).thenReturn(Optional.of(test));
+        when(aiService.generateAndRunTests(eq(test), any())).thenAnswer(invocation ->
+        {
+            AiService.GenerationListener listener = invocation.getArgument(1);
+            listener.onToolCall("browser_navigate", "{}");
+            listener.onToolCall("browser_click", "{}");
+            return "generated code";
+        });
+
+        service.execute(5L);
+
+        assertThat(job.getState()).isEqualTo(GenerationState.COMPLETED);
+        assertThat(job.getToolCalls()).isEqualTo(2);
+        assertThat(job.getStartedAt()).isNotNull();
+        assertThat(job.getFinishedAt()).isNotNull();
+        verify(fileService).writeFile("11", "generated code", EFileType.SPEC_TS);
+        verify(testRepo).updateGenerationState(11L, GenerationState.IN_PROGRESS);
+        verify(testRepo).updateGenerationState(11L, GenerationState.COMPLETED);
+        verify(generationCache).store(any(), eq(11L), eq("generated code"), eq(2), any());
+    }
+
+    @Test
+    @DisplayName("submit schreibt eine gecachte Spec sofort, force umgeht den Cache")
+    void submitAnswersFromCacheUnlessForced () throws Exception
+    {
+        GenerationCacheEntry entry = new GenerationCacheEntry();
+        entry.setSpec("cached code");
+        entry.setToolCalls(12);
+        entry.setCreatedAt(LocalDateTime.now());
+        when(testRepo.findForGeneration(11L)).thenReturn(Optional.of(test));
+        when(generationJobRepo.findFirstByTest_IdAndStateInOrderByIdDesc(11L, GenerationJobService.ACTIVE)).thenReturn(Optional.empty());
+        when(aiService.cacheKey(test)).thenReturn("key");
+        when(generationCache.lookup("key")).thenReturn(Optional.of(entry));
+        when(generationJobRepo.save(any(GenerationJob.class))).thenAnswer(invocation ->
+        {
+            GenerationJob job = invocation.getArgument(0);
+            job.setId(5L);
+            return job;
+        });
+
+        GenerationJob cached = service.submit(11L, false);
+        GenerationJob forced = service.submit(11L, true);
+
+        assertThat(cached.isCacheHit()).isTrue();
+        assertThat(cached.getState()).isEqualTo(GenerationState.COMPLETED);
+        verify(fileService).writeFile("11", "cached code", EFileType.SPEC_TS);
+        verify(testRepo).updateGenerationState(11L, GenerationState.COMPLETED);
+        assertThat(forced.isCacheHit()).isFalse();
+        assertThat(forced.getState()).isEqualTo(GenerationState.QUEUED);
+        verify(generationCache, times(1)).lookup("key");
+        verify(generationExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("execute bricht die Generierung nach dem Budget an Tool-Aufrufen ab")
+    void executeAbortsAfterToolCallBudget () throws Exception
+    {
+        GenerationJob job = job(GenerationState.QUEUED);
+        job.setMaxToolCalls(1);
+        when(generationJobRepo.findById(5L)).thenReturn(Optional.of(job));
+        when(testRepo.findForGeneration(11L)).thenReturn(Optional.of(test));
+        when(aiService.generateAndRunTests(eq(test), any())).thenAnswer(invocation ->
+        {
+            AiService.GenerationListener listener = invocation.getArgument(1);
+            listener.onToolCall("browser_navigate", "{}");
+            listener.onToolCall("browser_click", "{}");
+            return "generated code";
+        });
+
+        service.execute(5L);
+
+        assertThat(job.getState()).isEqualTo(GenerationState.FAILED);
+        assertThat(job.getToolCalls()).isEqualTo(1);
+        assertThat(job.getMessage()).contains("Aborted after 1 tool calls");
+        verify(fileService, never()).writeFile(any(), any(), any());
+        verify(testRepo).updateGenerationState(11L, GenerationState.FAILED);
+    }
+
+    @Test
+    @DisplayName("execute leitet gestreamte Tokens an die Abonnenten weiter")
+    void executePublishesStreamedTokens () throws Exception
+    {
+        GenerationJob job = job(GenerationState.QUEUED);
+        when(generationJobRepo.findById(5L)).thenReturn(Optional.of(job));
+        when(testRepo.findForGeneration(11L)).thenReturn(Optional.of(test));
+        when(aiService.generateAndRunTests(eq(test), any())).thenAnswer(invocation ->
+        {
+            AiService.GenerationListener listener = invocation.getArgument(1);
+            listener.onToken("test('login', ");
+            listener.onToken("async () => {});");
+            return "test('login', async () => {});";
+        });
+        List<GenerationEventDto> events = new CopyOnWriteArrayList<>();
+        eventPublisher.open(5L);
+        service.subscribe(5L).subscribe(events::add);
+
+        service.execute(5L);
+
+        assertThat(events).filteredOn(event -> event.getType() == GenerationEventType.TOKEN)
+                .extracting(GenerationEventDto::getMessage)
+                .containsExactly("test('login', ", "async () => {});");
+        assertThat(events.get(events.size() - 1).getState()).isEqualTo(GenerationState.COMPLETED);
+        verify(fileService).writeFile("11", "test('login', async () => {});", EFileType.SPEC_TS);
+    }
+
+    @Test
+    @DisplayName("execute wiederholt die Generierung nach einem Rate Limit des Modells")
+    void executeRetriesTransientModelErrors () throws Exception
+    {
+        GenerationJob job = job(GenerationState.QUEUED);
+        when(generationJobRepo.findById(5L)).thenReturn(Optional.of(job));
+        when(testRepo.findForGeneration(11L)).thenReturn(Optional.of(test));
+        when(aiService.generateAndRunTests(eq(test), any()))
+                .thenThrow(new GenerationException("Failed to generate and run tests", new RuntimeException("Status code 429, Too Many Requests")))
+                .thenReturn("generated code");
+
+        service.execute(5L);
+
+        assertThat(job.getState()).isEqualTo(GenerationState.COMPLETED);
+        verify(aiService, times(2)).generateAndRunTests(eq(test), any());
+        verify(fileService).writeFile("11", "generated code", EFileType.SPEC_TS);
+    }
+
+    @Test
+    @DisplayName("execute generiert nur den geänderten Step neu und übernimmt den Code der anderen")
+    void executeRegeneratesOnlyChangedSteps () throws Exception
+    {
+        test.setSteps(List.of(step(1, "open"), step(2, "login as admin"), step(3, "check title")));
+        GenerationJob previous = job(GenerationState.COMPLETED);
+        previous.setStepKeys(String.join(",", SpecSegments.stepKeys(List.of(step(1, "open"), step(2, "login"), step(3, "check title")))));
+        GenerationJob job = job(GenerationState.QUEUED);
+        when(generationJobRepo.findById(5L)).thenReturn(Optional.of(job));
+        when(testRepo.findForGeneration(11L)).thenReturn(Optional.of(test));
+        when(generationJobRepo.findFirstByTest_IdAndStateOrderByIdDesc(11L, GenerationState.COMPLETED)).thenReturn(Optional.of(previous));
+        when(fileService.readFile("11.spec.ts")).thenReturn("""
+                test('login', async ({ page }) => {
+                  // @step 1
+                  await page.goto('/');
+                  // @step 2
+                  await page.fill('#user', 'demo');
+                  // @step 3
+                  await expect(page).toHaveTitle('Home');
+                  // @end-steps
+                });
+                """);
+        when(aiService.regenerateSteps(eq(test), any(), eq(List.of(2)), any()))
+                .thenReturn(Map.of(2, "  // @step 2\n  await page.fill('#user', 'admin');\n"));
+
+        service.execute(5L);
+
+        assertThat(job.getState()).isEqualTo(GenerationState.COMPLETED);
+        assertThat(job.getMessage()).startsWith("Regenerated step(s) 2 of 3");
+        assertThat(job.getStepKeys()).isEqualTo(String.join(",", SpecSegments.stepKeys(test.getSteps())));
+        verify(fileService).writeFile("11", """
+                test('login', async ({ page }) => {
+                  // @step 1
+                  await page.goto('/');
+                  // @step 2
+                  await page.fill('#user', 'admin');
+                  // @step 3
+                  await expect(page).toHaveTitle('Home');
+                  // @end-steps
+                });
+                """, EFileType.SPEC_TS);
+        verify(aiService, never()).generateAndRunTests(any(), any());
+    }
+
+    @Test
+    @DisplayName("execute generiert nach einem gelöschten Step den folgenden Step neu, statt die Spec nur zusammenzusetzen")
+    void executeRegeneratesStepAfterRemovedStep () throws Exception
+    {
+        test.setSteps(List.of(step(1, "open"), step(2, "check title")));
+        GenerationJob previous = job(GenerationState.COMPLETED);
+        previous.setStepKeys(String.join(",", SpecSegments.stepKeys(List.of(step(1, "open"), step(2, "login"), step(3, "check title")))));
+        GenerationJob job = job(GenerationState.QUEUED);
+        when(generationJobRepo.findById(5L)).thenReturn(Optional.of(job));
+        when(testRepo.findForGeneration(11L)).thenReturn(Optional.of(test));
+        when(generationJobRepo.findFirstByTest_IdAndStateOrderByIdDesc(11L, GenerationState.COMPLETED)).thenReturn(Optional.of(previous));
+        when(fileService.readFile("11.spec.ts")).thenReturn("""
+                test('login', async ({ page }) => {
+                  // @step 1
+                  await page.goto('/');
+                  // @step 2
+                  await page.fill('#user', 'demo');
+                  // @step 3
+                  await expect(page).toHaveTitle('Home');
+                  // @end-steps
+                });
+                """);
+        when(aiService.regenerateSteps(eq(test), any(), eq(List.of(2)), any()))
+                .thenReturn(Map.of(2, "  // @step 2\n  await expect(page).toHaveTitle('Login');\n"));
+
+        service.execute(5L);
+
+        assertThat(job.getState()).isEqualTo(GenerationState.COMPLETED);
+        assertThat(job.getMessage()).startsWith("Regenerated step(s) 2 of 2");
+        verify(aiService).regenerateSteps(eq(test), any(), eq(List.of(2)), any());
+        verify(fileService).writeFile("11", """
+                test('login', async ({ page }) => {
+                  // @step 1
+                  await page.goto('/');
+                  // @step 2
+                  await expect(page).toHaveTitle('Login');
+                  // @end-steps
+                });
+                """, EFileType.SPEC_TS);
+    }
+
+    @Test
+    @DisplayName("dispatch reicht Bulk-Jobs nacheinander ein und wartet bei voller Warteschlange")
+    void dispatchWaitsForQueueAndSlots ()
+    {
+        doThrow(new TaskRejectedException("full"))
+                .doAnswer(invocation ->
+                {
+                    ((Runnable) invocation.getArgument(0)).run();
+                    return null;
+                })
+                .when(generationExecutor).execute(any(Runnable.class));
+
+        service.dispatch(List.of(5L, 6L), 1);
+
+        verify(generationExecutor, times(3)).execute(any(Runnable.class));
+        verify(generationJobRepo).findById(5L);
+        verify(generationJobRepo).findById(6L);
+    }
+
+    @Test
+    @DisplayName("isTransient erkennt Rate Limits in der Ursachenkette, nicht aber andere Fehler")
+    void isTransientChecksCauseChain ()
+    {
+        assertThat(GenerationJobService.isTransient(new GenerationException("x", new RuntimeException("429 Too Many Requests")))).isTrue();
+        assertThat(GenerationJobService.isTransient(new GenerationException("Aborted after 150 tool calls"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("failExpired beendet nur Jobs ohne Heartbeat, die diese Instanz übernehmen konnte")
+    void failExpiredFailsOnlyClaimedJobs ()
+    {
+        GenerationJob lost = job(GenerationState.IN_PROGRESS);
+        lost.setOwner("other");
+        GenerationJob claimedElsewhere = job(GenerationState.QUEUED);
+        claimedElsewhere.setId(6L);
+        claimedElsewhere.setOwner("other");
+        when(generationJobRepo.findExpired(eq(GenerationJobService.ACTIVE), any(LocalDateTime.class))).thenReturn(List.of(lost, claimedElsewhere));
+        when(generationJobRepo.claimExpired(eq(5L), eq("self"), any(LocalDateTime.class), eq(GenerationJobService.ACTIVE), any(LocalDateTime.class))).thenReturn(1);
+        when(generationJobRepo.claimExpired(eq(6L), eq("self"), any(LocalDateTime.class), eq(GenerationJobService.ACTIVE), any(LocalDateTime.class))).thenReturn(0);
+
+        service.failExpired();
+
+        assertThat(lost.getState()).isEqualTo(GenerationState.FAILED);
+        assertThat(lost.getOwner()).isEqualTo("self");
+        assertThat(claimedElsewhere.getState()).isEqualTo(GenerationState.QUEUED);
+        verify(generationJobRepo).save(lost);
+        verify(generationJobRepo, never()).save(claimedElsewhere);
+        verify(testRepo).updateGenerationState(11L, GenerationState.FAILED);
+    }
+
+    private static TestStep step (int index, String action)
+    {
+        TestStep step = new TestStep();
+        step.setIndex(index);
+        step.setAction(action);
+        return step;
+    }
+
+    private GenerationJob job (GenerationState state)
+    {
+        GenerationJob job = new GenerationJob();
+        job.setId(5L);
+        job.setTest(test);
+        job.setState(state);
+        job.setMaxToolCalls(properties.getMaxToolCalls());
+        return job;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.GenerationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+
+class GenerationRateLimiterTest
+{
+
+    private final GenerationProperties properties = new GenerationProperties();
+    private final GenerationRateLimiter limiter = new GenerationRateLimiter(properties, new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("ohne Limits wird nicht gewartet")
+    void unlimitedDoesNotWait () throws InterruptedException
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++)
+        {
+            limiter.acquire();
+        }
+
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    @DisplayName("der Abstand der Anfragen folgt nur den Anfragen pro Minute")
+    void intervalFollowsRequestsPerMinute ()
+    {
+        properties.setRequestsPerMinute(60);
+        properties.setTokensPerMinute(60_000);
+        properties.setTokensPerRequest(2_000);
+
+        assertThat(limiter.interval()).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    @DisplayName("acquire reserviert die Schätzung, settle bucht stattdessen die gemeldeten Tokens ab")
+    void settleReplacesEstimateWithReportedUsage () throws InterruptedException
+    {
+        properties.setTokensPerMinute(60_000);
+        properties.setTokensPerRequest(2_000);
+
+        limiter.acquire();
+        assertThat(limiter.availableTokens()).isCloseTo(58_000, within(100.0));
+
+        limiter.settle(1, 500);
+        assertThat(limiter.availableTokens()).isCloseTo(59_500, within(100.0));
+
+        limiter.settle(1, 0);
+        assertThat(limiter.availableTokens()).isCloseTo(59_500, within(100.0));
+    }
+
+    @Test
+    @DisplayName("acquire wartet, bis der Bucket die Schätzung wieder deckt")
+    void acquireWaitsForTokens () throws InterruptedException
+    {
+        properties.setTokensPerMinute(60_000);
+        properties.setTokensPerRequest(1_000);
+        limiter.acquire();
+        limiter.settle(1, 60_000);
+
+        long start = System.nanoTime();
+        limiter.acquire();
+
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(900));
+    }
+
+    @Test
+    @DisplayName("acquire verteilt Anfragen gleichmäßig über die Minute")
+    void acquirePacesRequests () throws InterruptedException
+    {
+        properties.setRequestsPerMinute(600);
+
+        long start = System.nanoTime();
+        limiter.acquire();
+        limiter.acquire();
+        limiter.acquire();
+
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+}
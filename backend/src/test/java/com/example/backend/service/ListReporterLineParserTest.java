@@ -0,0 +1,49 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.TestStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class ListReporterLineParserTest
+{
+
+    @Test
+    @DisplayName("parse erkennt bestandene Tests inklusive Projekt und Dauer")
+    void parseRecognizesPassedLine ()
+    {
+        Optional<ListReporterLineParser.ResultLine> result =
+                ListReporterLineParser.parse("  ✓  1 [chromium] › 3.spec.ts:4:5 › login works (1.2s)");
+
+        assertThat(result).isPresent();
+        assertEquals(TestStatus.PASSED, result.get().status());
+        assertEquals("chromium", result.get().project());
+        assertEquals("3.spec.ts", result.get().file());
+        assertEquals("login works", result.get().title());
+    }
+
+    @Test
+    @DisplayName("parse erkennt fehlgeschlagene und übersprungene Tests")
+    void parseRecognizesFailedAndSkippedLines ()
+    {
+        assertEquals(TestStatus.FAILED,
+                ListReporterLineParser.parse("  ✘  2 [chromium] › 4.spec.ts:10:5 › logout (5.0s)").orElseThrow().status());
+        assertEquals(TestStatus.SKIPPED,
+                ListReporterLineParser.parse("  -  3 [chromium] › 5.spec.ts:3:5 › later").orElseThrow().status());
+    }
+
+    @Test
+    @DisplayName("parse ignoriert ANSI-Farben und sonstige Ausgaben")
+    void parseIgnoresColorsAndOtherOutput ()
+    {
+        assertThat(ListReporterLineParser.parse("\u001B[32m  ✓  1 [chromium] › 3.spec.ts:4:5 › login\u001B[39m")).isPresent();
+        assertThat(ListReporterLineParser.parse("Running 2 tests using 1 worker")).isEmpty();
+        assertThat(ListReporterLineParser.parse("  1 passed (3.4s)")).isEmpty();
+    }
+}
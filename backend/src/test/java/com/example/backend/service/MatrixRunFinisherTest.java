@@ -0,0 +1,141 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.models.MatrixRun;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.MatrixRunRepo;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRunRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class MatrixRunFinisherTest
+{
+
+    @Mock
+    private MatrixRunRepo matrixRunRepo;
+
+    @Mock
+    private TestRunRepo testRunRepo;
+
+    @Mock
+    private TestBatchRepo testBatchRepo;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MatrixRunFinisher finisher;
+
+    @BeforeEach
+    void setUp ()
+    {
+        meterRegistry = new SimpleMeterRegistry();
+        finisher = new MatrixRunFinisher(matrixRunRepo, testRunRepo, testBatchRepo, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("finishIfDone schließt die Matrix ab, sobald alle Browser fertig sind, mit Wall-Clock- und Summenzeit")
+    void finishIfDoneFinishesMatrixWithWallClockAndSummedTime ()
+    {
+        MatrixRun matrix = matrix("chromium,firefox");
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0, 0);
+        when(matrixRunRepo.findById(4L)).thenReturn(Optional.of(matrix));
+        when(testRunRepo.findByMatrixRunIdOrderById(4L)).thenReturn(List.of(
+                run(Browser.CHROMIUM, TestStatus.PASSED, start, start.plusSeconds(20)),
+                run(Browser.FIREFOX, TestStatus.FAILED, start.plusSeconds(2), start.plusSeconds(32))));
+        when(matrixRunRepo.finish(eq(4L), eq(TestStatus.FAILED), startsWith("chromium passed, firefox failed"), eq(32_000L), eq(50_000L),
+                eq(start.plusSeconds(32)), eq(TestStatus.PENDING))).thenReturn(1);
+
+        finisher.finishIfDone(4L);
+
+        assertThat(matrix.getStatus()).isEqualTo(TestStatus.FAILED);
+        assertThat(matrix.getWallClockMs()).isEqualTo(32_000L);
+        assertThat(matrix.getSummedMs()).isEqualTo(50_000L);
+        assertThat(meterRegistry.summary("testrun.matrix.speedup").mean()).isCloseTo(1.5625, within(0.001));
+        verify(matrixRunRepo, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("finishIfDone lässt die Matrix offen, solange ein Browser noch läuft oder noch nicht gestartet ist")
+    void finishIfDoneKeepsMatrixPendingUntilAllBrowsersFinished ()
+    {
+        LocalDateTime start = LocalDateTime.now();
+        when(matrixRunRepo.findById(4L)).thenAnswer(invocation -> Optional.of(matrix("chromium,firefox,webkit")));
+        when(testRunRepo.findByMatrixRunIdOrderById(4L)).thenReturn(
+                List.of(run(Browser.CHROMIUM, TestStatus.PASSED, start, start.plusSeconds(5)),
+                        run(Browser.FIREFOX, TestStatus.PENDING, start, null),
+                        run(Browser.WEBKIT, TestStatus.PASSED, start, start.plusSeconds(5))),
+                List.of(run(Browser.CHROMIUM, TestStatus.PASSED, start, start.plusSeconds(5)),
+                        run(Browser.FIREFOX, TestStatus.PASSED, start, start.plusSeconds(5))));
+
+        finisher.finishIfDone(4L);
+        finisher.finishIfDone(4L);
+
+        verify(matrixRunRepo, never()).finish(anyLong(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("finishIfDone zählt die Beschleunigung nur einmal, wenn zwei Browser gleichzeitig fertig werden")
+    void finishIfDoneRecordsSpeedupOnlyForTheWinningUpdate ()
+    {
+        LocalDateTime start = LocalDateTime.now();
+        when(matrixRunRepo.findById(4L)).thenAnswer(invocation -> Optional.of(matrix("chromium")));
+        when(testRunRepo.findByMatrixRunIdOrderById(4L)).thenReturn(List.of(run(Browser.CHROMIUM, TestStatus.PASSED, start, start.plusSeconds(5))));
+        when(matrixRunRepo.finish(eq(4L), any(), any(), any(), any(), any(), eq(TestStatus.PENDING))).thenReturn(1, 0);
+
+        finisher.finishIfDone(4L);
+        finisher.finishIfDone(4L);
+
+        assertThat(meterRegistry.summary("testrun.matrix.speedup").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("finishIfDone übergeht Runs, die zu keiner Matrix gehören")
+    void finishIfDoneIgnoresRunsWithoutMatrix ()
+    {
+        finisher.finishIfDone(null);
+
+        verifyNoInteractions(matrixRunRepo, testRunRepo, testBatchRepo);
+    }
+
+    private MatrixRun matrix (String browsers)
+    {
+        MatrixRun matrix = new MatrixRun();
+        matrix.setId(4L);
+        matrix.setScope(BatchScope.TEST);
+        matrix.setScopeId(11L);
+        matrix.setBrowsers(browsers);
+        matrix.setStatus(TestStatus.PENDING);
+        return matrix;
+    }
+
+    private TestRun run (Browser browser, TestStatus status, LocalDateTime startedAt, LocalDateTime finishedAt)
+    {
+        TestRun run = new TestRun();
+        run.setBrowser(browser);
+        run.setStatus(status);
+        run.setStartedAt(startedAt);
+        run.setFinishedAt(finishedAt);
+        return run;
+    }
+}
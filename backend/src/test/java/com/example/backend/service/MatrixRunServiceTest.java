@@ -0,0 +1,118 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.Browser;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.MatrixBrowserResultDto;
+import com.example.backend.dto.MatrixRunDto;
+import com.example.backend.exceptions.ValidationException;
+import com.example.backend.mapper.MatrixRunMapper;
+import com.example.backend.models.MatrixRun;
+import com.example.backend.repo.MatrixRunRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class MatrixRunServiceTest
+{
+
+    @Mock
+    private MatrixRunRepo matrixRunRepo;
+
+    @Mock
+    private TestRunDispatcher testRunDispatcher;
+
+    @Mock
+    private BatchRunService batchRunService;
+
+    @Mock
+    private ExecutionProfileService executionProfileService;
+
+    @Mock
+    private MatrixRunFinisher matrixRunFinisher;
+
+    private MatrixRunService matrixRunService;
+
+    @BeforeEach
+    void setUp ()
+    {
+        matrixRunService = new MatrixRunService(matrixRunRepo, testRunDispatcher, batchRunService, executionProfileService, matrixRunFinisher, new MatrixRunMapper());
+    }
+
+    @Test
+    @DisplayName("submitForTest startet einen Run pro ausgewähltem Browser")
+    void submitForTestQueuesOneRunPerBrowser ()
+    {
+        when(matrixRunRepo.save(any(MatrixRun.class))).thenAnswer(invocation ->
+        {
+            MatrixRun matrix = invocation.getArgument(0);
+            matrix.setId(4L);
+            return matrix;
+        });
+        when(matrixRunRepo.findById(4L)).thenAnswer(invocation -> Optional.of(matrix(TestStatus.PENDING, "firefox,webkit")));
+
+        MatrixRunDto result = matrixRunService.submitForTest(11L, List.of("WebKit", "firefox", "webkit"), null);
+
+        verify(testRunDispatcher).submitForBrowser(eq(11L), isNull(), eq(Browser.FIREFOX), eq(4L));
+        verify(testRunDispatcher).submitForBrowser(eq(11L), isNull(), eq(Browser.WEBKIT), eq(4L));
+        verifyNoMoreInteractions(testRunDispatcher);
+        verify(matrixRunFinisher).finishIfDone(4L);
+        assertThat(result.getBrowsers()).containsExactly(Browser.FIREFOX, Browser.WEBKIT);
+        assertThat(result.getStatus()).isEqualTo(TestStatus.PENDING);
+    }
+
+    @Test
+    @DisplayName("parseBrowsers wählt ohne Angabe alle Browser und lehnt unbekannte ab")
+    void parseBrowsersDefaultsToAllAndRejectsUnknown ()
+    {
+        assertThat(MatrixRunService.parseBrowsers(null)).containsExactly(Browser.CHROMIUM, Browser.FIREFOX, Browser.WEBKIT);
+        assertThatThrownBy(() -> MatrixRunService.parseBrowsers(List.of("chromium", "edge")))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("edge");
+    }
+
+    @Test
+    @DisplayName("get liest die Matrix nur und schließt sie nicht ab")
+    void getDoesNotFinishMatrix ()
+    {
+        MatrixRun matrix = matrix(TestStatus.PENDING, "chromium");
+        LocalDateTime start = LocalDateTime.now();
+        when(matrixRunRepo.findById(4L)).thenReturn(Optional.of(matrix));
+        when(matrixRunFinisher.results(matrix)).thenReturn(List.of(new MatrixBrowserResultDto(
+                Browser.CHROMIUM, TestStatus.PASSED, null, 1L, null, start, start.plusSeconds(5), 5_000L)));
+
+        MatrixRunDto result = matrixRunService.get(4L);
+
+        assertThat(result.getStatus()).isEqualTo(TestStatus.PENDING);
+        verify(matrixRunFinisher, never()).finishIfDone(any());
+        verify(matrixRunRepo, never()).save(any());
+    }
+
+    private MatrixRun matrix (TestStatus status, String browsers)
+    {
+        MatrixRun matrix = new MatrixRun();
+        matrix.setId(4L);
+        matrix.setScope(BatchScope.TEST);
+        matrix.setScopeId(11L);
+        matrix.setBrowsers(browsers);
+        matrix.setStatus(status);
+        return matrix;
+    }
+}
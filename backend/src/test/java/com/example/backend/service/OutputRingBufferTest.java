@@ -0,0 +1,58 @@
+package com.example.backend.service;
+
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class OutputRingBufferTest
+{
+
+    @Test
+    @DisplayName("toString liefert kurze Ausgaben unverändert")
+    void keepsShortOutputUnchanged ()
+    {
+        OutputRingBuffer buffer = new OutputRingBuffer(8, 8);
+
+        buffer.append("abc\n");
+        buffer.append("defg\n");
+
+        assertEquals("abc\ndefg\n", buffer.toString());
+        assertEquals(0, buffer.getOmittedChars());
+    }
+
+    @Test
+    @DisplayName("append behält Anfang und Ende und zählt den ausgelassenen Teil")
+    void keepsHeadAndTailOfLongOutput ()
+    {
+        OutputRingBuffer buffer = new OutputRingBuffer(4, 6);
+
+        for (int i = 0; i < 10; i++)
+        {
+            buffer.append("line" + i + "\n");
+        }
+
+        assertEquals(60, buffer.getTotalChars());
+        assertEquals(50, buffer.getOmittedChars());
+        assertThat(buffer.toString())
+                .startsWith("line")
+                .contains("50 character(s) omitted")
+                .endsWith("line9\n");
+    }
+
+    @Test
+    @DisplayName("append hält bei Text länger als der Ringpuffer nur dessen Ende")
+    void keepsEndOfTextLongerThanTail ()
+    {
+        OutputRingBuffer buffer = new OutputRingBuffer(0, 5);
+
+        buffer.append("abc");
+        buffer.append("0123456789");
+
+        assertThat(buffer.toString()).endsWith("56789");
+        assertEquals(8, buffer.getOmittedChars());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.TracePolicy;
+import com.example.backend.models.ExecutionProfile;
+import com.example.backend.repo.ExecutionProfileRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+
+@ExtendWith(MockitoExtension.class)
+class PlaywrightConfigWriterTest
+{
+
+    @Mock
+    private ExecutionProfileRepo executionProfileRepo;
+
+    @TempDir
+    Path tempDir;
+
+    private PlaywrightConfigWriter writer;
+
+    @BeforeEach
+    void setUp ()
+    {
+        writer = new PlaywrightConfigWriter(executionProfileRepo, tempDir);
+    }
+
+    @Test
+    @DisplayName("render übernimmt die Einstellungen des Profils und behält list und json Reporter")
+    void renderAppliesProfileSettings ()
+    {
+        ExecutionProfile profile = profile();
+        profile.setHeadless(false);
+        profile.setWorkers(4);
+        profile.setRetries(2);
+        profile.setReporters("html");
+        profile.setActionTimeoutMs(10000);
+        profile.setTrace(TracePolicy.RETAIN_ON_FAILURE);
+
+        String config = PlaywrightConfigWriter.render(profile);
+
+        assertThat(config).contains("testDir: '../playwright_tests'");
+        assertThat(config).contains("retries: 2,");
+        assertThat(config).contains("workers: 4,");
+        assertThat(config).contains("headless: false,");
+        assertThat(config).contains("trace: 'retain-on-failure',");
+        assertThat(config).contains("actionTimeout: 10000,");
+        assertThat(config).contains("['list'],", "['json'],", "['html', {outputFolder: process.env.PLAYWRIGHT_HTML_OUTPUT_DIR");
+        assertThat(config).doesNotContain("timeout: 5000", "junit");
+    }
+
+    @Test
+    @DisplayName("materialize schreibt gleiche Einstellungen nur einmal und neue Einstellungen in eine neue Datei")
+    void materializeIsContentAddressed () throws Exception
+    {
+        ExecutionProfile profile = profile();
+        when(executionProfileRepo.findById(3L)).thenReturn(Optional.of(profile));
+
+        String first = writer.materialize(3L);
+        String second = writer.materialize(3L);
+        profile.setRetries(1);
+        String changed = writer.materialize(3L);
+
+        assertThat(first).startsWith("playwright-configs/profile-").endsWith(".config.ts");
+        assertThat(second).isEqualTo(first);
+        assertThat(changed).isNotEqualTo(first);
+        assertThat(Files.readString(tempDir.resolve(first))).contains("retries: 0,");
+        assertThat(Files.readString(tempDir.resolve(changed))).contains("retries: 1,");
+    }
+
+    @Test
+    @DisplayName("materialize fällt ohne Profil auf die statische Konfiguration zurück")
+    void materializeWithoutProfileUsesStaticConfig ()
+    {
+        when(executionProfileRepo.findById(9L)).thenReturn(Optional.empty());
+
+        assertThat(writer.materialize(null)).isNull();
+        assertThat(writer.materialize(9L)).isNull();
+    }
+
+    private ExecutionProfile profile ()
+    {
+        ExecutionProfile profile = new ExecutionProfile();
+        profile.setId(3L);
+        profile.setName("ci");
+        return profile;
+    }
+}
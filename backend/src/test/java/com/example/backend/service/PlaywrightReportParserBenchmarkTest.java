@@ -0,0 +1,100 @@
+package com.example.backend.service;
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/**
+ * Compares the former stdout extraction (regex over the whole output plus readTree) with the
+ * streaming report parser on multi-megabyte reports. Run with {@code -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+class PlaywrightReportParserBenchmarkTest
+{
+
+    private static final int ITERATIONS = 10;
+
+    private final PlaywrightReportParser parser = new PlaywrightReportParser();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Streaming-Parser gegen Regex-Extraktion auf großen Reports")
+    void compareRegexExtractionWithStreamingParser (@TempDir Path tempDir) throws Exception
+    {
+        for (int specs : new int[]{1_000, 5_000, 20_000})
+        {
+            String json = buildReport(specs);
+            String output = "Running " + specs + " tests using 4 workers\n" + json + "\n";
+            Path reportFile = Files.writeString(tempDir.resolve("report-" + specs + ".json"), json);
+
+            // warm-up
+            assertEquals(specs, legacyExtract(output).path("stats").path("expected").asInt());
+            assertEquals(specs, parser.parse(reportFile).getStats().getExpected());
+
+            long legacyNanos = measure(() -> legacyExtract(output));
+            long streamingNanos = measure(() -> parser.parse(reportFile));
+
+            log.info("{} specs ({} MB): regex+readTree {} ms, streaming {} ms", specs,
+                    String.format("%.1f", json.length() / 1_048_576.0),
+                    String.format("%.1f", legacyNanos / 1e6 / ITERATIONS), String.format("%.1f", streamingNanos / 1e6 / ITERATIONS));
+        }
+    }
+
+    private JsonNode legacyExtract (String output) throws Exception
+    {
+        Pattern jsonPattern = Pattern.compile("\\{[\\s\\S]*\"stats\"[\\s\\S]*}");
+        Matcher matcher = jsonPattern.matcher(output);
+        return matcher.find() ? objectMapper.readTree(matcher.group()) : null;
+    }
+
+    private long measure (Task task) throws Exception
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+        {
+            task.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private String buildReport (int specs)
+    {
+        StringBuilder json = new StringBuilder(specs * 600);
+        json.append("{\"config\":{\"workers\":4,\"projects\":[{\"name\":\"chromium\"}]},\"suites\":[");
+        for (int i = 0; i < specs; i++)
+        {
+            if (i > 0)
+            {
+                json.append(',');
+            }
+            json.append("{\"title\":\"").append(i).append(".spec.ts\",\"file\":\"").append(i).append(".spec.ts\",\"specs\":[")
+                    .append("{\"title\":\"spec ").append(i).append("\",\"ok\":true,\"tests\":[{\"projectName\":\"chromium\",\"status\":\"expected\",")
+                    .append("\"results\":[{\"retry\":0,\"duration\":").append(i % 997).append(",\"status\":\"passed\",")
+                    .append("\"stdout\":[{\"text\":\"").append("log line ".repeat(30)).append("\"}],\"errors\":[],\"attachments\":[]}]}],")
+                    .append("\"file\":\"").append(i).append(".spec.ts\"}],\"suites\":[]}");
+        }
+        json.append("],\"errors\":[],\"stats\":{\"expected\":").append(specs)
+                .append(",\"unexpected\":0,\"skipped\":0,\"flaky\":0}}");
+        return json.toString();
+    }
+
+    @FunctionalInterface
+    private interface Task
+    {
+        Object run () throws Exception;
+    }
+}
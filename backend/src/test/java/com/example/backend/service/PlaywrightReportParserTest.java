@@ -0,0 +1,151 @@
+package com.example.backend.service;
+
+
+import com.example.backend.models.PlaywrightReport;
+import com.example.backend.models.ReportAttempt;
+import com.example.backend.models.ReportStats;
+import com.example.backend.models.ReportTestResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class PlaywrightReportParserTest
+{
+
+    private static final String REPORT = """
+            {
+              "suites": [
+                {
+                  "title": "3.spec.ts",
+                  "file": "3.spec.ts",
+                  "specs": [
+                    {"title": "login", "file": "3.spec.ts", "tests": [{"status": "expected"}]},
+                    {"title": "logout", "file": "3.spec.ts", "tests": [{"status": "unexpected"}]}
+                  ],
+                  "suites": []
+                },
+                {
+                  "title": "4.spec.ts",
+                  "file": "4.spec.ts",
+                  "specs": [],
+                  "suites": [
+                    {
+                      "title": "nested",
+                      "file": "4.spec.ts",
+                      "specs": [{"title": "search", "file": "4.spec.ts", "tests": [{"status": "flaky"}, {"status": "skipped"}]}]
+                    }
+                  ]
+                }
+              ],
+              "stats": {"expected": 1, "unexpected": 1, "skipped": 1, "flaky": 1}
+            }
+            """;
+
+    private final PlaywrightReportParser parser = new PlaywrightReportParser();
+
+    @Test
+    @DisplayName("parse liest Gesamtstatistik aus dem Report")
+    void parseReadsOverallStats () throws Exception
+    {
+        PlaywrightReport report = parser.parse(REPORT);
+
+        ReportStats stats = report.getStats();
+        assertEquals(1, stats.getExpected());
+        assertEquals(1, stats.getUnexpected());
+        assertEquals(1, stats.getSkipped());
+        assertEquals(1, stats.getFlaky());
+    }
+
+    @Test
+    @DisplayName("parse verteilt Ergebnisse auf die einzelnen Spec-Dateien")
+    void parseGroupsResultsBySpecFile () throws Exception
+    {
+        PlaywrightReport report = parser.parse(REPORT);
+
+        assertThat(report.getFiles()).containsOnlyKeys("3.spec.ts", "4.spec.ts");
+        assertEquals(1, report.getFiles().get("3.spec.ts").getExpected());
+        assertEquals(1, report.getFiles().get("3.spec.ts").getUnexpected());
+        assertEquals(1, report.getFiles().get("4.spec.ts").getFlaky());
+        assertEquals(1, report.getFiles().get("4.spec.ts").getSkipped());
+    }
+
+    @Test
+    @DisplayName("parse liest einzelne Tests samt Dauer, Retries, Fehlern und Anhängen")
+    void parseReadsIndividualTests (@TempDir Path tempDir) throws Exception
+    {
+        String json = """
+                {
+                  "config": {"projects": [{"name": "chromium", "use": {"headless": true}}]},
+                  "suites": [
+                    {
+                      "title": "7.spec.ts",
+                      "specs": [
+                        {
+                          "title": "checkout",
+                          "tests": [
+                            {
+                              "projectName": "chromium",
+                              "status": "flaky",
+                              "results": [
+                                {
+                                  "retry": 0, "duration": 120, "status": "failed", "stdout": [{"text": "noise"}],
+                                  "errors": [{"message": "\\u001b[31mTimeout\\u001b[39m exceeded", "stack": "...", "location": {"file": "/work/e2e/7.spec.ts", "line": 12, "column": 5}}],
+                                  "attachments": [{"name": "screenshot", "contentType": "image/png", "path": "/work/test-results/7/shot.png", "body": "iVBORw0KGgo="}]
+                                },
+                                {"retry": 1, "duration": 80, "status": "passed", "stdout": []}
+                              ]
+                            }
+                          ],
+                          "file": "e2e/7.spec.ts"
+                        }
+                      ]
+                    }
+                  ],
+                  "errors": [],
+                  "stats": {"expected": 0, "unexpected": 0, "skipped": 0, "flaky": 1}
+                }
+                """;
+        Path reportFile = Files.writeString(tempDir.resolve("report.json"), json);
+
+        PlaywrightReport report = parser.parse(reportFile);
+
+        assertThat(report.getTests()).hasSize(1);
+        ReportTestResult test = report.getTests().get(0);
+        assertEquals("7.spec.ts", test.getFile());
+        assertEquals("checkout", test.getTitle());
+        assertEquals("chromium", test.getProjectName());
+        assertEquals("flaky", test.getStatus());
+        assertEquals(200, test.getDurationMs());
+        assertEquals(1, test.getRetries());
+        assertEquals(1, report.getFiles().get("7.spec.ts").getFlaky());
+
+        assertThat(test.getAttempts()).extracting(ReportAttempt::getStatus).containsExactly("failed", "passed");
+        assertThat(test.getAttempts()).extracting(ReportAttempt::getRetry).containsExactly(0, 1);
+        assertEquals(80, test.getAttempts().get(1).getDurationMs());
+
+        assertThat(test.getErrors()).hasSize(1);
+        assertEquals("Timeout exceeded", test.getErrors().get(0).getMessage());
+        assertEquals("7.spec.ts", test.getErrors().get(0).getFile());
+        assertEquals(12, test.getErrors().get(0).getLine());
+        assertEquals(0, test.getErrors().get(0).getRetry());
+        assertThat(test.getAttachments()).hasSize(1);
+        assertEquals("screenshot", test.getAttachments().get(0).getName());
+        assertEquals("/work/test-results/7/shot.png", test.getAttachments().get(0).getPath());
+    }
+
+    @Test
+    @DisplayName("parse wirft IOException bei ungültigem JSON")
+    void parseRejectsInvalidJson ()
+    {
+        assertThrows(IOException.class, () -> parser.parse("{\"stats\": invalid}"));
+    }
+}
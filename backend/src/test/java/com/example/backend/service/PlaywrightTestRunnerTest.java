@@ -1,8 +1,11 @@
 package com.example.backend.service;
 
 
+import com.example.backend.config.TestRunnerProperties;
 import com.example.backend.constants.TestStatus;
+import com.example.backend.models.TestBatch;
 import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestBatchRepo;
 import com.example.backend.repo.TestRepo;
 import com.example.backend.repo.TestRunRepo;
 import org.junit.jupiter.api.AfterEach;
@@ -10,12 +13,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -25,24 +33,64 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 class PlaywrightTestRunnerTest
 {
 
+    private final TestRunnerProperties properties = new TestRunnerProperties();
     private PlaywrightTestRunner runner;
     private Method parseMethod;
     private Method buildCommandMethod;
     private String originalOsName;
 
+    @TempDir
+    Path tempDir;
+
     @Mock
     private TestRepo testRepository;
 
     @Mock
     private TestRunRepo testRunRepository;
 
+    @Mock
+    private TestBatchRepo testBatchRepository;
+
+    @Mock
+    private SpecResultService specResultService;
+
+    @Mock
+    private ArtifactStore artifactStore;
+
+    @Mock
+    private RunLogStore runLogStore;
+
+    @Mock
+    private ProcessSupervisor processSupervisor;
+
+    @Mock
+    private RunRegistry runRegistry;
+
+    @Mock
+    private RunLeaseService runLeaseService;
+
+    @Mock
+    private FlakinessService flakinessService;
+
+    @Mock
+    private MatrixRunFinisher matrixRunFinisher;
+
+    @Mock
+    private PlaywrightConfigWriter configWriter;
+
+    @Mock
+    private BrowserServerPool browserServerPool;
+
+    @Mock
+    private RunnerDaemon runnerDaemon;
+
     @BeforeEach
     void setUp () throws Exception
     {
-        runner = new PlaywrightTestRunner(testRepository, testRunRepository);
-        parseMethod = PlaywrightTestRunner.class.getDeclaredMethod("parseTestResults", TestRun.class, String.class, int.class);
+        runner = new PlaywrightTestRunner(testRepository, testRunRepository, testBatchRepository, new PlaywrightReportParser(), new TestRunEventPublisher(), specResultService, artifactStore, runLogStore, processSupervisor, runRegistry, runLeaseService, flakinessService, matrixRunFinisher, configWriter, browserServerPool, runnerDaemon, properties);
+        parseMethod = PlaywrightTestRunner.class.getDeclaredMethod("parseTestResults", TestRun.class, Path.class, int.class);
         parseMethod.setAccessible(true);
-        buildCommandMethod = PlaywrightTestRunner.class.getDeclaredMethod("buildCommand", String.class);
+        buildCommandMethod = PlaywrightTestRunner.class.getDeclaredMethod("buildCommand", String.class, String.class);
         buildCommandMethod.setAccessible(true);
         originalOsName = System.getProperty("os.name");
     }
@@ -107,6 +155,18 @@ class PlaywrightTestRunnerTest
         assertThat(run.getDescription()).contains("exit code 0");
     }
 
+    @Test
+    @DisplayName("parseTestResults setzt Status FAILED wenn kein Report geschrieben wurde")
+    void parseTestResultsMarksFailedWhenReportMissing () throws Exception
+    {
+        TestRun run = new TestRun();
+
+        parseMethod.invoke(runner, run, tempDir.resolve("missing.json"), 1);
+
+        assertEquals(TestStatus.FAILED, run.getStatus());
+        assertThat(run.getDescription()).contains("exit code: 1");
+    }
+
     @Test
     @DisplayName("buildCommand nutzt Windows Aufruf mit cmd.exe")
     void buildCommandUsesWindowsSyntax () throws Exception
@@ -114,20 +174,87 @@ class PlaywrightTestRunnerTest
         System.setProperty("os.name", "Windows 11");
 
         @SuppressWarnings("unchecked")
-        List<String> command = (List<String>) buildCommandMethod.invoke(runner, "login.spec.ts");
+        List<String> command = (List<String>) buildCommandMethod.invoke(runner, "login.spec.ts", null);
 
         assertThat(command).hasSizeGreaterThanOrEqualTo(3);
         assertThat(command.get(0)).isEqualTo("cmd.exe");
         assertThat(command.get(1)).isEqualTo("/c");
         assertThat(command.get(2)).contains("cd backend");
         assertThat(command.get(2)).contains("npx playwright test login.spec.ts");
+        assertThat(command.get(2)).doesNotContain("--retries");
+    }
+
+    @Test
+    @DisplayName("buildCommand übergibt Retries nur, wenn sie konfiguriert sind")
+    void buildCommandPassesConfiguredRetries () throws Exception
+    {
+        System.setProperty("os.name", "Linux");
+        properties.setRetries(2);
+
+        @SuppressWarnings("unchecked")
+        List<String> command = (List<String>) buildCommandMethod.invoke(runner, "login.spec.ts", null);
+
+        assertThat(command.get(2)).contains("npx playwright test login.spec.ts --retries=2");
+    }
+
+    @Test
+    @DisplayName("buildCommand nutzt die generierte Konfiguration eines Ausführungsprofils")
+    void buildCommandUsesProfileConfig () throws Exception
+    {
+        System.setProperty("os.name", "Linux");
+
+        @SuppressWarnings("unchecked")
+        List<String> command = (List<String>) buildCommandMethod.invoke(runner, "login.spec.ts", "playwright-configs/profile-abc.config.ts");
+
+        assertThat(command.get(2)).contains("npx playwright test login.spec.ts --config=playwright-configs/profile-abc.config.ts");
+        assertThat(command.get(2)).doesNotContain("--retries");
+    }
+
+    @Test
+    @DisplayName("fileFilter wählt bei den Tests 1 und 2 nicht die Spec von Test 11 aus")
+    void fileFilterDoesNotSelectOtherSpecs ()
+    {
+        List<Pattern> filters = Stream.of("1.spec.ts", "2.spec.ts")
+                .map(file -> Pattern.compile(PlaywrightTestRunner.fileFilter(file), Pattern.CASE_INSENSITIVE))
+                .toList();
+
+        assertThat(filters).anyMatch(filter -> filter.matcher("/app/backend/playwright_tests/1.spec.ts").find());
+        assertThat(filters).anyMatch(filter -> filter.matcher("/app/backend/playwright_tests/2.spec.ts").find());
+        assertThat(filters).noneMatch(filter -> filter.matcher("/app/backend/playwright_tests/11.spec.ts").find());
+        assertThat(filters).noneMatch(filter -> filter.matcher("/app/backend/playwright_tests/21.spec.ts").find());
+    }
+
+    @Test
+    @DisplayName("outputArgument gibt jedem Aufruf ein eigenes Ausgabeverzeichnis")
+    void outputArgumentSeparatesInvocations ()
+    {
+        assertEquals(" --output=test-results/run-5", PlaywrightTestRunner.outputArgument("run-5"));
+        assertThat(PlaywrightTestRunner.outputArgument("batch-3-0")).isNotEqualTo(PlaywrightTestRunner.outputArgument("batch-3-1"));
+    }
+
+    @Test
+    @DisplayName("planWaves startet bei priorisierten Batches zuerst eine Welle pro Worker")
+    void planWavesSplitsPrioritizedBatch ()
+    {
+        TestBatch batch = new TestBatch();
+        List<TestRun> runs = List.of(new TestRun(), new TestRun(), new TestRun(), new TestRun(), new TestRun());
+
+        assertThat(PlaywrightTestRunner.planWaves(batch, runs, 2)).containsExactly(runs);
+
+        batch.setPrioritized(true);
+        List<List<TestRun>> waves = PlaywrightTestRunner.planWaves(batch, runs, 2);
+        assertThat(waves).hasSize(2);
+        assertThat(waves.get(0)).hasSize(2);
+        assertThat(waves.get(1)).hasSize(3);
+        assertThat(PlaywrightTestRunner.planWaves(batch, runs, 8)).containsExactly(runs);
     }
 
-    private void invokeParse (TestRun run, String output, int exitCode) throws Exception
+    private void invokeParse (TestRun run, String json, int exitCode) throws Exception
     {
+        Path reportFile = Files.writeString(tempDir.resolve("report.json"), json);
         try
         {
-            parseMethod.invoke(runner, run, output, exitCode);
+            parseMethod.invoke(runner, run, reportFile, exitCode);
         } catch (InvocationTargetException ex)
         {
             if (ex.getCause() instanceof Exception cause)
@@ -0,0 +1,193 @@
+package com.example.backend.service;
+
+
+import com.example.backend.service.ProcessSupervisor.ProcessOutcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+@DisabledOnOs(OS.WINDOWS)
+class ProcessSupervisorTest
+{
+
+    @TempDir
+    Path tempDir;
+
+    private ProcessSupervisor supervisor;
+
+    @BeforeEach
+    void setUp ()
+    {
+        supervisor = new ProcessSupervisor(new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown ()
+    {
+        supervisor.shutdown();
+    }
+
+    @Test
+    @DisplayName("start liefert Ausgabe zeilenweise und den Exit-Code")
+    void startStreamsLinesAndReportsExitCode () throws Exception
+    {
+        List<String> lines = new CopyOnWriteArrayList<>();
+
+        ProcessOutcome outcome = supervisor.start(fakeRun("echo first; echo second >&2; printf last; exit 3"), Duration.ofSeconds(10), lines::add)
+                .outcome().get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("first", "second", "last"), lines);
+        assertEquals("first\nsecond\nlast\n", outcome.output());
+        assertEquals(3, outcome.exitCode());
+        assertFalse(outcome.timedOut());
+        assertEquals(0, supervisor.getActiveProcesses());
+    }
+
+    @Test
+    @DisplayName("start hält nur Anfang und Ende im Speicher und schreibt die volle Ausgabe komprimiert")
+    void startBoundsOutputAndSpillsCompleteLog () throws Exception
+    {
+        Path spillFile = tempDir.resolve("logs/run-1.log.gz");
+
+        ProcessOutcome outcome = supervisor.start(fakeRun("i=0; while [ $i -lt 20000 ]; do echo \"line $i\"; i=$((i+1)); done"),
+                        Duration.ofSeconds(30), line -> { }, spillFile)
+                .outcome().get(30, TimeUnit.SECONDS);
+
+        String complete;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(spillFile)))
+        {
+            complete = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals(spillFile, outcome.logFile());
+        assertEquals(20000, complete.lines().count());
+        assertEquals(complete.length(), outcome.outputBytes());
+        assertThat(outcome.output())
+                .startsWith("line 0\n")
+                .contains("character(s) omitted")
+                .endsWith("line 19999\n")
+                .hasSizeLessThan(ProcessSupervisor.HEAD_CHARS + ProcessSupervisor.TAIL_CHARS + 100);
+    }
+
+    @Test
+    @DisplayName("start kürzt eine mehrere MB lange Zeile ohne Zeilenumbruch, bevor sie in den Speicher gelangt")
+    void startTruncatesLineWithoutNewline () throws Exception
+    {
+        List<String> lines = new CopyOnWriteArrayList<>();
+
+        ProcessOutcome outcome = supervisor.start(fakeRun("head -c 4000000 /dev/zero | tr '\\0' 'x'"), Duration.ofSeconds(30), lines::add)
+                .outcome().get(30, TimeUnit.SECONDS);
+
+        assertEquals(4_000_000, outcome.outputBytes());
+        assertThat(lines).hasSize(1);
+        assertThat(lines.get(0))
+                .startsWith("xxxx")
+                .endsWith("[" + (4_000_000 - ProcessSupervisor.MAX_LINE_BYTES) + " byte(s) of this line truncated]")
+                .hasSizeLessThan(ProcessSupervisor.MAX_LINE_BYTES + 100);
+        assertThat(outcome.output()).hasSizeLessThan(ProcessSupervisor.HEAD_CHARS + ProcessSupervisor.TAIL_CHARS + 100);
+    }
+
+    @Test
+    @DisplayName("start beendet Prozess samt Kindprozessen nach Timeout")
+    void startKillsProcessTreeAfterTimeout () throws Exception
+    {
+        ProcessSupervisor.SupervisedProcess supervised = supervisor.start(fakeRun("echo started; sleep 30 & wait"), Duration.ofMillis(300), line -> { });
+        List<ProcessHandle> children = new ArrayList<>();
+        Thread.sleep(100);
+        supervised.process().descendants().forEach(children::add);
+
+        ProcessOutcome outcome = supervised.outcome().get(10, TimeUnit.SECONDS);
+
+        assertTrue(outcome.timedOut());
+        assertEquals(-1, outcome.exitCode());
+        assertThat(outcome.output()).contains("started");
+        assertThat(children).isNotEmpty().noneMatch(ProcessHandle::isAlive);
+        assertEquals(children.size(), outcome.reapedProcesses());
+    }
+
+    @Test
+    @DisplayName("Lasttest: 250 gleichzeitige Läufe ohne Thread pro Lauf")
+    void superviseManyConcurrentRunsWithoutThreadPerRun () throws Exception
+    {
+        int runs = 250;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int baseline = threads.getThreadCount();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger lines = new AtomicInteger();
+
+        List<Future<ProcessOutcome>> outcomes = new ArrayList<>();
+        // workers wait on their run from virtual threads, as the test-run executor does
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            for (int i = 0; i < runs; i++)
+            {
+                outcomes.add(workers.submit(() -> supervisor.start(
+                        fakeRun("for i in 1 2 3; do echo line $i; sleep 0.5; done"),
+                        Duration.ofSeconds(60), line -> lines.incrementAndGet()).outcome().get()));
+            }
+            while (outcomes.stream().anyMatch(outcome -> !outcome.isDone()))
+            {
+                peak.accumulateAndGet(threads.getThreadCount(), Math::max);
+                Thread.sleep(20);
+            }
+        }
+
+        for (Future<ProcessOutcome> outcome : outcomes)
+        {
+            assertEquals(0, outcome.get().exitCode());
+            assertEquals(3, outcome.get().output().lines().count());
+        }
+        assertEquals(runs * 3, lines.get());
+        // the JDK keeps one small reaper thread per child process; everything else is shared
+        assertThat(peak.get() - baseline).isLessThan(runs + 64);
+    }
+
+    @Test
+    @DisplayName("kill beendet den gesamten Prozessbaum und zählt die Kindprozesse")
+    void killTerminatesWholeTree () throws Exception
+    {
+        ProcessSupervisor.SupervisedProcess supervised = supervisor.start(
+                fakeRun("sleep 30 & sleep 30 & (sleep 30 & wait) & wait"), Duration.ofSeconds(30), line -> { });
+        Thread.sleep(200);
+        List<ProcessHandle> tree = supervised.process().descendants().toList();
+
+        int reaped = supervisor.kill(supervised.process());
+
+        assertEquals(tree.size(), reaped);
+        assertThat(tree).hasSizeGreaterThanOrEqualTo(4).noneMatch(ProcessHandle::isAlive);
+        assertFalse(supervised.process().isAlive());
+        assertFalse(supervised.outcome().get(10, TimeUnit.SECONDS).timedOut());
+    }
+
+    private ProcessBuilder fakeRun (String script)
+    {
+        return new ProcessBuilder("/bin/sh", "-c", script);
+    }
+}
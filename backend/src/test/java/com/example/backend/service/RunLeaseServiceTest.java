@@ -0,0 +1,102 @@
+package com.example.backend.service;
+
+
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestRunRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class RunLeaseServiceTest
+{
+
+    @Mock
+    private TestRunRepo testRunRepository;
+
+    @Mock
+    private RunRegistry runRegistry;
+
+    private RunLeaseService leaseService;
+
+    @BeforeEach
+    void setUp ()
+    {
+        leaseService = new RunLeaseService(testRunRepository, runRegistry);
+    }
+
+    @Test
+    @DisplayName("acquire setzt Lease-Inhaber und Heartbeat und erneuert ihn bis zum release")
+    void acquireRenewsUntilRelease ()
+    {
+        TestRun run = new TestRun();
+        run.setId(7L);
+
+        leaseService.acquire(List.of(run));
+
+        assertThat(run.getLeaseOwner()).isEqualTo(leaseService.getInstanceId());
+        assertThat(run.getHeartbeatAt()).isNotNull();
+        assertThat(leaseService.isLeased(7L)).isTrue();
+
+        leaseService.heartbeat();
+        verify(testRunRepository).renewLeases(eq(List.of(7L)), eq(leaseService.getInstanceId()), any(LocalDateTime.class));
+
+        leaseService.release(List.of(7L));
+        leaseService.heartbeat();
+        assertThat(leaseService.isLeased(7L)).isFalse();
+        verify(testRunRepository, times(1)).renewLeases(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("heartbeat bricht Runs ab, deren Abbruch eine andere Instanz angefordert hat")
+    void heartbeatCancelsRunsRequestedElsewhere ()
+    {
+        TestRun running = new TestRun();
+        running.setId(7L);
+        TestRun other = new TestRun();
+        other.setId(8L);
+        leaseService.acquire(List.of(running, other));
+        when(testRunRepository.findCancelRequested(any())).thenReturn(List.of(7L));
+        when(runRegistry.cancel(List.of(7L))).thenReturn(new RunRegistry.Cancellation(true, false, 2));
+
+        leaseService.heartbeat();
+
+        verify(runRegistry).cancel(List.of(7L));
+        verify(runRegistry, never()).cancel(List.of(8L));
+    }
+
+    @Test
+    @DisplayName("claim übernimmt einen abgelaufenen Lease nur, wenn die bedingte Aktualisierung greift")
+    void claimTakesLeaseOnlyOnce ()
+    {
+        TestRun won = new TestRun();
+        won.setId(7L);
+        won.setLeaseOwner("other");
+        TestRun lost = new TestRun();
+        lost.setId(8L);
+        lost.setLeaseOwner("other");
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(1);
+        when(testRunRepository.claimExpired(eq(7L), eq(leaseService.getInstanceId()), any(LocalDateTime.class), eq(cutoff))).thenReturn(1);
+        when(testRunRepository.claimExpired(eq(8L), eq(leaseService.getInstanceId()), any(LocalDateTime.class), eq(cutoff))).thenReturn(0);
+
+        assertThat(leaseService.claim(won, cutoff)).isTrue();
+        assertThat(leaseService.claim(lost, cutoff)).isFalse();
+
+        assertThat(won.getLeaseOwner()).isEqualTo(leaseService.getInstanceId());
+        assertThat(leaseService.isLeased(7L)).isTrue();
+        assertThat(lost.getLeaseOwner()).isEqualTo("other");
+        assertThat(leaseService.isLeased(8L)).isFalse();
+    }
+}
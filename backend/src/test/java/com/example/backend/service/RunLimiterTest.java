@@ -0,0 +1,114 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.dto.EnvironmentRunCountDto;
+import com.example.backend.models.Environment;
+import com.example.backend.repo.EnvironmentRepo;
+import com.example.backend.repo.TestRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class RunLimiterTest
+{
+
+    @Mock
+    private TestRepo testRepo;
+
+    @Mock
+    private EnvironmentRepo environmentRepo;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("tryAcquire hält die maximale Anzahl gleichzeitiger Runs einer Umgebung ein")
+    void tryAcquireEnforcesEnvironmentConcurrency ()
+    {
+        RunLimiter limiter = limiter(new TestRunnerProperties(), environment(1L, 1, null));
+
+        RunLimiter.Permit first = limiter.tryAcquire(List.of(11L), 1);
+        RunLimiter.Permit second = limiter.tryAcquire(List.of(11L), 1);
+        first.close();
+        RunLimiter.Permit third = limiter.tryAcquire(List.of(11L), 1);
+
+        assertThat(first).isNotNull();
+        assertThat(second).isNull();
+        assertThat(third).isNotNull();
+    }
+
+    @Test
+    @DisplayName("tryAcquire begrenzt die Worker eines Batches auf das Limit der Umgebung")
+    void tryAcquireLimitsBatchParallelism ()
+    {
+        RunLimiter limiter = limiter(new TestRunnerProperties(), environment(1L, 2, null));
+        when(testRepo.countByEnvironment(any())).thenReturn(List.of(new EnvironmentRunCountDto(1L, 6L)));
+
+        RunLimiter.Permit permit = limiter.tryAcquire(List.of(11L, 12L, 13L, 14L, 15L, 16L), 4);
+
+        assertThat(permit.getParallelism()).isEqualTo(2);
+        assertThat(limiter.getLimits(environment(1L, 2, null)).getActiveRuns()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("acquire verteilt Starts gleichmäßig gemäß Runs pro Minute")
+    void acquirePacesStartsByRunsPerMinute () throws Exception
+    {
+        RunLimiter limiter = limiter(new TestRunnerProperties(), environment(1L, null, 600));
+
+        assertThat(limiter.tryAcquire(List.of(11L), 1)).isNotNull();
+        assertThat(limiter.tryAcquire(List.of(11L), 1)).isNull();
+
+        long start = System.nanoTime();
+        limiter.acquire(List.of(11L), 1);
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 600 runs per minute leave 100 ms between two starts
+        assertThat(waitedMillis).isBetween(50L, 1000L);
+        assertThat(meterRegistry.get("testrun.limit.wait").tag("limit", "rate").tag("environment", "1").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("tryAcquire wendet das globale Limit auch auf Tests ohne Umgebung an")
+    void tryAcquireEnforcesGlobalLimit ()
+    {
+        TestRunnerProperties properties = new TestRunnerProperties();
+        properties.setMaxConcurrentRuns(1);
+        RunLimiter limiter = new RunLimiter(testRepo, environmentRepo, properties, meterRegistry);
+        when(testRepo.countByEnvironment(any())).thenReturn(List.of());
+
+        RunLimiter.Permit first = limiter.tryAcquire(List.of(11L), 1);
+
+        assertThat(first).isNotNull();
+        assertThat(limiter.tryAcquire(List.of(12L), 1)).isNull();
+        verifyNoInteractions(environmentRepo);
+    }
+
+    private RunLimiter limiter (TestRunnerProperties properties, Environment environment)
+    {
+        lenient().when(testRepo.countByEnvironment(any())).thenReturn(List.of(new EnvironmentRunCountDto(environment.getId(), 1L)));
+        lenient().when(environmentRepo.findById(environment.getId())).thenReturn(Optional.of(environment));
+        return new RunLimiter(testRepo, environmentRepo, properties, meterRegistry);
+    }
+
+    private static Environment environment (Long id, Integer maxConcurrentRuns, Integer runsPerMinute)
+    {
+        Environment environment = new Environment();
+        environment.setId(id);
+        environment.setMaxConcurrentRuns(maxConcurrentRuns);
+        environment.setRunsPerMinute(runsPerMinute);
+        return environment;
+    }
+}
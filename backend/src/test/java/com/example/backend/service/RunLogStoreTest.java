@@ -0,0 +1,83 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.ArtifactProperties;
+import com.example.backend.dto.RunLogDto;
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.models.TestRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class RunLogStoreTest
+{
+
+    @TempDir
+    Path tempDir;
+
+    private RunLogStore runLogStore;
+    private TestRun run;
+
+    @BeforeEach
+    void setUp () throws Exception
+    {
+        ArtifactProperties properties = new ArtifactProperties();
+        properties.setLogDir(tempDir.toString());
+        runLogStore = new RunLogStore(properties);
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempDir.resolve("run-1.log.gz"))))
+        {
+            out.write("0123456789".getBytes(StandardCharsets.UTF_8));
+        }
+        run = new TestRun();
+        run.setId(1L);
+        run.setLogFile("run-1.log.gz");
+        run.setLogSizeBytes(10L);
+    }
+
+    @Test
+    @DisplayName("read liefert den angefragten Bereich des entpackten Logs")
+    void readReturnsRequestedRange ()
+    {
+        RunLogDto page = runLogStore.read(run, 2, 4);
+
+        assertEquals("2345", page.getContent());
+        assertEquals(6, page.getNextOffset());
+        assertEquals(10, page.getTotalBytes());
+        assertFalse(page.isComplete());
+    }
+
+    @Test
+    @DisplayName("read zählt einen negativen Offset vom Ende des Logs")
+    void readCountsNegativeOffsetFromEnd ()
+    {
+        RunLogDto page = runLogStore.read(run, -3, 100);
+
+        assertEquals("789", page.getContent());
+        assertEquals(7, page.getOffset());
+        assertTrue(page.isComplete());
+    }
+
+    @Test
+    @DisplayName("read meldet fehlende Logs als nicht gefunden")
+    void readFailsForMissingLog ()
+    {
+        run.setLogFile("run-2.log.gz");
+
+        assertThatThrownBy(() -> runLogStore.read(run, 0, 10))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.models.TestBatch;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRunRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class RunRecoveryServiceTest
+{
+
+    @Mock
+    private TestRunRepo testRunRepository;
+
+    @Mock
+    private TestBatchRepo testBatchRepository;
+
+    @Mock
+    private TestRunDispatcher testRunDispatcher;
+
+    @Mock
+    private RunLeaseService runLeaseService;
+
+    @Mock
+    private MatrixRunFinisher matrixRunFinisher;
+
+    private RunRecoveryService recoveryService;
+
+    @BeforeEach
+    void setUp ()
+    {
+        recoveryService = new RunRecoveryService(testRunRepository, testBatchRepository, testRunDispatcher, runLeaseService, matrixRunFinisher, new TestRunEventPublisher(), new TestRunnerProperties());
+    }
+
+    @Test
+    @DisplayName("recoverOnStartup übernimmt verwaiste Runs über ihren abgelaufenen Lease")
+    void recoverOnStartupRequeuesOrphanedRuns ()
+    {
+        TestRun queued = run(1L, null);
+        when(testRunRepository.findExpiredLeases(eq(TestStatus.PENDING), any(LocalDateTime.class))).thenReturn(List.of(queued));
+        when(runLeaseService.claim(eq(queued), any(LocalDateTime.class))).thenReturn(true);
+
+        recoveryService.recoverOnStartup();
+
+        assertThat(queued.getRecoveries()).isEqualTo(1);
+        verify(testRunDispatcher).requeue(queued);
+    }
+
+    @Test
+    @DisplayName("recoverExpiredLeases übernimmt Runs mit abgelaufenem Lease, nicht aber eigene")
+    void recoverExpiredLeasesSkipsOwnRuns ()
+    {
+        TestRun orphaned = run(1L, "other");
+        TestRun own = run(2L, "self");
+        when(testRunRepository.findExpiredLeases(eq(TestStatus.PENDING), any(LocalDateTime.class))).thenReturn(List.of(orphaned, own));
+        when(runLeaseService.isLeased(1L)).thenReturn(false);
+        when(runLeaseService.isLeased(2L)).thenReturn(true);
+        when(runLeaseService.claim(eq(orphaned), any(LocalDateTime.class))).thenReturn(true);
+
+        recoveryService.recoverExpiredLeases();
+
+        verify(testRunDispatcher).requeue(orphaned);
+        verify(testRunDispatcher, never()).requeue(own);
+        verify(runLeaseService, never()).claim(eq(own), any());
+    }
+
+    @Test
+    @DisplayName("recoverExpiredLeases übergeht Runs, die eine andere Instanz zuerst übernommen hat")
+    void recoverExpiredLeasesSkipsRunsClaimedElsewhere ()
+    {
+        TestRun orphaned = run(1L, "other");
+        when(testRunRepository.findExpiredLeases(eq(TestStatus.PENDING), any(LocalDateTime.class))).thenReturn(List.of(orphaned));
+        when(runLeaseService.claim(eq(orphaned), any(LocalDateTime.class))).thenReturn(false);
+
+        recoveryService.recoverExpiredLeases();
+
+        verifyNoInteractions(testRunDispatcher);
+        verify(testRunRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("recover markiert Runs nach ausgeschöpften Wiederholungen als FAILED")
+    void recoverFailsRunAfterMaxRecoveries ()
+    {
+        TestRun orphaned = run(1L, "other");
+        orphaned.setRecoveries(1);
+
+        recoveryService.recover(List.of(orphaned), "Worker lost");
+
+        assertThat(orphaned.getStatus()).isEqualTo(TestStatus.FAILED);
+        assertThat(orphaned.getDescription()).startsWith("Worker lost");
+        verify(testRunRepository).saveAll(List.of(orphaned));
+        verifyNoInteractions(testRunDispatcher);
+    }
+
+    @Test
+    @DisplayName("recover reiht einen Batch als Ganzes erneut ein")
+    void recoverRequeuesWholeBatch ()
+    {
+        TestBatch batch = new TestBatch();
+        batch.setId(4L);
+        TestRun orphaned = run(1L, "other");
+        orphaned.setBatch(batch);
+        TestRun sibling = run(2L, "other");
+        sibling.setBatch(batch);
+        TestRun finished = run(3L, "other");
+        finished.setStatus(TestStatus.PASSED);
+        when(testBatchRepository.findById(4L)).thenReturn(Optional.of(batch));
+        when(testRunRepository.findByBatch_Id(4L)).thenReturn(List.of(orphaned, sibling, finished));
+
+        recoveryService.recover(List.of(orphaned), "Worker lost");
+
+        verify(testRunDispatcher).submitBatch(batch, List.of(orphaned, sibling));
+        assertThat(sibling.getRecoveries()).isEqualTo(1);
+        assertThat(finished.getRecoveries()).isNull();
+    }
+
+    private static TestRun run (Long id, String leaseOwner)
+    {
+        TestRun run = new TestRun();
+        run.setId(id);
+        run.setStatus(TestStatus.PENDING);
+        run.setLeaseOwner(leaseOwner);
+        return run;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.backend.service;
+
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class RunRegistryTest
+{
+
+    @Mock
+    private ProcessSupervisor processSupervisor;
+
+    @Mock
+    private Process process;
+
+    private RunRegistry registry;
+
+    @BeforeEach
+    void setUp ()
+    {
+        registry = new RunRegistry(processSupervisor);
+    }
+
+    @Test
+    @DisplayName("cancel vor dem Start hinterlässt keinen Eintrag, den Abbruch sieht der Worker in der Datenbank")
+    void cancelBeforeStartLeavesNoHandle ()
+    {
+        RunRegistry.Cancellation cancellation = registry.cancel(List.of(1L));
+
+        assertFalse(cancellation.wasRunning());
+        assertFalse(cancellation.pending());
+        assertFalse(registry.register(List.of(1L)).isCancelled());
+        verifyNoInteractions(processSupervisor);
+    }
+
+    @Test
+    @DisplayName("cancel nach der Registrierung, aber vor dem Start überlässt den Run dem Worker")
+    void cancelAfterRegisterIsPending ()
+    {
+        RunRegistry.RunHandle handle = registry.register(List.of(7L));
+
+        RunRegistry.Cancellation cancellation = registry.cancel(List.of(7L));
+
+        assertFalse(cancellation.wasRunning());
+        assertTrue(cancellation.pending());
+        assertTrue(handle.isCancelled());
+        assertEquals(0, handle.getReapedProcesses());
+        verifyNoInteractions(processSupervisor);
+    }
+
+    @Test
+    @DisplayName("cancel beendet den Prozess eines laufenden Batches über jede Run-ID")
+    void cancelKillsProcessSharedByBatch ()
+    {
+        RunRegistry.RunHandle handle = registry.register(List.of(2L, 3L));
+        registry.attach(handle, process);
+        when(processSupervisor.kill(process)).thenReturn(5);
+
+        RunRegistry.Cancellation cancellation = registry.cancel(List.of(3L));
+
+        assertTrue(cancellation.wasRunning());
+        assertEquals(5, cancellation.reapedProcesses());
+        assertTrue(handle.isCancelled());
+        assertEquals(5, handle.getReapedProcesses());
+    }
+
+    @Test
+    @DisplayName("wiederholtes cancel beendet den Prozess nicht erneut")
+    void repeatedCancelKillsProcessOnce ()
+    {
+        RunRegistry.RunHandle handle = registry.register(List.of(5L));
+        registry.attach(handle, process);
+        when(processSupervisor.kill(process)).thenReturn(3);
+
+        registry.cancel(List.of(5L));
+        RunRegistry.Cancellation repeated = registry.cancel(List.of(5L));
+
+        assertTrue(repeated.wasRunning());
+        assertEquals(0, repeated.reapedProcesses());
+        verify(processSupervisor, times(1)).kill(process);
+    }
+
+    @Test
+    @DisplayName("attach beendet Prozess sofort, wenn der Run zwischenzeitlich abgebrochen wurde")
+    void attachKillsProcessOfCancelledRun ()
+    {
+        RunRegistry.RunHandle handle = registry.register(List.of(4L));
+        registry.cancel(List.of(4L));
+        when(processSupervisor.kill(process)).thenReturn(2);
+
+        registry.attach(handle, process);
+
+        verify(processSupervisor).kill(process);
+        assertEquals(2, handle.getReapedProcesses());
+    }
+
+    @Test
+    @DisplayName("release entfernt Runs, sodass spätere Abbrüche nichts mehr beenden")
+    void releaseForgetsFinishedRuns ()
+    {
+        RunRegistry.RunHandle handle = registry.register(List.of(6L));
+        registry.attach(handle, process);
+
+        registry.release(List.of(6L));
+
+        assertFalse(registry.cancel(List.of(6L)).wasRunning());
+        verify(processSupervisor, never()).kill(any());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.service.ProcessSupervisor.ProcessOutcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+/**
+ * Runs the real daemon script against a stub of the Playwright CLI.
+ */
+@DisabledOnOs(OS.WINDOWS)
+class RunnerDaemonTest
+{
+
+    private static final String STUB_PROGRAM = """
+            exports.program = {
+                parse: argv => {
+                    console.log('args ' + argv.slice(2).join(' '));
+                    console.error('marker ' + process.env.RUN_MARKER);
+                    process.exit(Number(process.env.EXIT_CODE || 0));
+                },
+            };
+            """;
+
+    @TempDir
+    Path workingDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProcessSupervisor processSupervisor = new ProcessSupervisor(meterRegistry);
+    private final TestRunnerProperties properties = new TestRunnerProperties();
+    private RunnerDaemon daemon;
+
+    @BeforeEach
+    void setUp () throws Exception
+    {
+        assumeTrue(nodeAvailable(), "node is not installed");
+        Files.copy(Path.of(RunnerDaemon.SCRIPT), workingDir.resolve(RunnerDaemon.SCRIPT));
+        Path program = workingDir.resolve("node_modules/playwright/lib/program.js");
+        Files.createDirectories(program.getParent());
+        Files.writeString(program, STUB_PROGRAM);
+
+        properties.setDaemonRestartBackoff(Duration.ZERO);
+        daemon = new RunnerDaemon(processSupervisor, properties, meterRegistry, workingDir);
+    }
+
+    @AfterEach
+    void tearDown ()
+    {
+        if (daemon != null)
+        {
+            daemon.shutdown();
+        }
+        processSupervisor.shutdown();
+    }
+
+    @Test
+    @DisplayName("start führt Playwright im Daemon aus und liefert Ausgabe und Exit-Code")
+    void startRunsPlaywrightInDaemon () throws Exception
+    {
+        List<String> lines = new CopyOnWriteArrayList<>();
+
+        ProcessOutcome outcome = processSupervisor.start(
+                        logFile -> daemon.start(List.of("test", "12.spec.ts", "--retries=1"), Map.of("RUN_MARKER", "first", "EXIT_CODE", "3"), logFile),
+                        Duration.ofSeconds(20), lines::add, null)
+                .outcome().get(20, TimeUnit.SECONDS);
+
+        assertEquals(List.of("args test 12.spec.ts --retries=1", "marker first"), lines);
+        assertEquals(3, outcome.exitCode());
+        assertTrue(daemon.isAlive());
+        assertEquals(1.0, meterRegistry.get("testrun.daemon.runs").tag("result", "started").counter().count());
+    }
+
+    @Test
+    @DisplayName("der Daemon wird nach einem Absturz für den nächsten Lauf neu gestartet")
+    void daemonIsRestartedAfterExit () throws Exception
+    {
+        daemon.warmUp();
+        assertTrue(daemon.isAlive());
+        ProcessHandle.current().descendants()
+                .filter(process -> process.info().commandLine().orElse("").contains(RunnerDaemon.SCRIPT))
+                .forEach(ProcessHandle::destroyForcibly);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (daemon.isAlive() && System.nanoTime() - deadline < 0)
+        {
+            Thread.sleep(20);
+        }
+
+        ProcessOutcome outcome = processSupervisor.start(
+                        logFile -> daemon.start(List.of("test", "13.spec.ts"), Map.of("RUN_MARKER", "second"), logFile),
+                        Duration.ofSeconds(20), line -> { }, null)
+                .outcome().get(20, TimeUnit.SECONDS);
+
+        assertEquals(0, outcome.exitCode());
+        assertTrue(outcome.output().contains("marker second"));
+    }
+
+    @Test
+    @DisplayName("ein abgeschalteter Daemon lehnt Läufe ab, damit sie wie bisher gestartet werden")
+    void disabledDaemonRejectsRuns ()
+    {
+        properties.setDaemon(false);
+
+        assertThrows(IOException.class, () -> daemon.start(List.of("test", "14.spec.ts"), Map.of(), workingDir.resolve("run.log")));
+    }
+
+    private static boolean nodeAvailable ()
+    {
+        try
+        {
+            return new ProcessBuilder("node", "--version").start().waitFor() == 0;
+        } catch (IOException e)
+        {
+            return false;
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.constants.BatchScope;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.exceptions.ValidationException;
+import com.example.backend.mapper.ScheduledRunMapper;
+import com.example.backend.models.ScheduledRun;
+import com.example.backend.models.TestBatch;
+import com.example.backend.repo.EnvironmentRepo;
+import com.example.backend.repo.ProjectRepo;
+import com.example.backend.repo.ScheduledRunRepo;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRepo;
+import com.example.backend.repo.UserStoryRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledRunServiceTest
+{
+
+    @Mock
+    private ScheduledRunRepo scheduledRunRepo;
+
+    @Mock
+    private TestBatchRepo testBatchRepo;
+
+    @Mock
+    private TestRepo testRepo;
+
+    @Mock
+    private UserStoryRepo userStoryRepo;
+
+    @Mock
+    private ProjectRepo projectRepo;
+
+    @Mock
+    private EnvironmentRepo environmentRepo;
+
+    @Mock
+    private BatchRunService batchRunService;
+
+    private TestRunnerProperties properties;
+    private ScheduledRunService scheduledRunService;
+
+    @BeforeEach
+    void setUp ()
+    {
+        properties = new TestRunnerProperties();
+        properties.setScheduledWorkers(6);
+        scheduledRunService = new ScheduledRunService(scheduledRunRepo, testBatchRepo, testRepo, userStoryRepo, projectRepo, environmentRepo, batchRunService, new ScheduledRunMapper(), properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("tick startet nur fällige Zeitpläne")
+    void tickStartsOnlyDueSchedules ()
+    {
+        ScheduledRun due = schedule(1L, "0 0 * * * *");
+        due.setLastTriggeredAt(LocalDateTime.now().minusHours(2));
+        ScheduledRun notDue = schedule(2L, "0 0 0 1 1 *");
+        notDue.setLastTriggeredAt(LocalDateTime.now());
+        when(scheduledRunRepo.findByEnabledTrue()).thenReturn(List.of(due, notDue));
+        when(scheduledRunRepo.claimTick(eq(1L), any(), eq(due.getLastTriggeredAt()))).thenReturn(1);
+        when(batchRunService.submitForSchedule(any(), anyInt())).thenReturn(batch(10L, 4, TestStatus.PENDING));
+
+        scheduledRunService.tick();
+
+        verify(batchRunService).submitForSchedule(due, 4);
+        verify(batchRunService, never()).submitForSchedule(eq(notDue), anyInt());
+        assertThat(due.getLastBatchId()).isEqualTo(10L);
+        assertThat(due.getLastOutcome()).isEqualTo("Started batch 10 with 4 worker(s)");
+    }
+
+    @Test
+    @DisplayName("fire überspringt den Tick, solange der vorherige Batch noch läuft")
+    void fireSkipsWhilePreviousBatchRuns ()
+    {
+        ScheduledRun schedule = schedule(1L, "0 0 * * * *");
+        schedule.setLastBatchId(10L);
+        LocalDateTime now = LocalDateTime.now();
+        when(testBatchRepo.findById(10L)).thenReturn(Optional.of(batch(10L, 4, TestStatus.PENDING)));
+        when(scheduledRunRepo.claimTick(1L, now, null)).thenReturn(1);
+
+        scheduledRunService.fire(schedule, now);
+
+        verifyNoInteractions(batchRunService);
+        assertThat(schedule.getLastTriggeredAt()).isEqualTo(now);
+        assertThat(schedule.getLastOutcome()).startsWith("Skipped");
+    }
+
+    @Test
+    @DisplayName("fire begrenzt die Worker auf das verbleibende Budget")
+    void fireClampsWorkersToRemainingBudget ()
+    {
+        ScheduledRun schedule = schedule(1L, "0 0 * * * *");
+        schedule.setMaxParallelism(4);
+        when(testBatchRepo.sumScheduledWorkers(TestStatus.PENDING)).thenReturn(4L);
+        when(scheduledRunRepo.claimTick(eq(1L), any(), isNull())).thenReturn(1);
+        when(batchRunService.submitForSchedule(schedule, 2)).thenReturn(batch(11L, 2, TestStatus.PENDING));
+
+        scheduledRunService.fire(schedule, LocalDateTime.now());
+
+        verify(batchRunService).submitForSchedule(schedule, 2);
+        assertThat(schedule.getLastBatchId()).isEqualTo(11L);
+    }
+
+    @Test
+    @DisplayName("fire stellt den Zeitplan bei ausgeschöpftem Budget zurück")
+    void fireDefersWhenBudgetIsUsedUp ()
+    {
+        ScheduledRun schedule = schedule(1L, "0 0 * * * *");
+        when(testBatchRepo.sumScheduledWorkers(TestStatus.PENDING)).thenReturn(6L);
+
+        scheduledRunService.fire(schedule, LocalDateTime.now());
+
+        verifyNoInteractions(batchRunService);
+        verify(scheduledRunRepo, never()).claimTick(any(), any(), any());
+        verify(scheduledRunRepo, never()).save(any());
+        verify(scheduledRunRepo).updateLastOutcome(eq(1L), startsWith("Deferred"));
+        assertThat(schedule.getLastTriggeredAt()).isNull();
+        assertThat(schedule.getLastOutcome()).startsWith("Deferred");
+    }
+
+    @Test
+    @DisplayName("fire startet keinen Batch, wenn eine andere Instanz den Tick bereits übernommen hat")
+    void fireDoesNothingWhenTickIsClaimedElsewhere ()
+    {
+        ScheduledRun schedule = schedule(1L, "0 0 * * * *");
+        LocalDateTime previous = LocalDateTime.now().minusHours(2);
+        schedule.setLastTriggeredAt(previous);
+        LocalDateTime now = LocalDateTime.now();
+        when(scheduledRunRepo.claimTick(1L, now, previous)).thenReturn(0);
+
+        scheduledRunService.fire(schedule, now);
+
+        verifyNoInteractions(batchRunService);
+        verify(scheduledRunRepo, never()).save(any());
+        assertThat(schedule.getLastTriggeredAt()).isEqualTo(previous);
+    }
+
+    @Test
+    @DisplayName("normalizeCron ergänzt fünfteilige Ausdrücke um Sekunden und lehnt ungültige ab")
+    void normalizeCronAcceptsFiveFieldExpressions ()
+    {
+        assertThat(ScheduledRunService.normalizeCron("30 2 * * MON-FRI")).isEqualTo("0 30 2 * * MON-FRI");
+        assertThat(ScheduledRunService.normalizeCron("0 0 * * * *")).isEqualTo("0 0 * * * *");
+        assertThatThrownBy(() -> ScheduledRunService.normalizeCron("every hour"))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    private static ScheduledRun schedule (Long id, String cron)
+    {
+        ScheduledRun schedule = new ScheduledRun();
+        schedule.setId(id);
+        schedule.setScope(BatchScope.PROJECT);
+        schedule.setScopeId(1L);
+        schedule.setCron(cron);
+        schedule.setCreatedAt(LocalDateTime.now().minusDays(1));
+        return schedule;
+    }
+
+    private static TestBatch batch (Long id, int workers, TestStatus status)
+    {
+        TestBatch batch = new TestBatch();
+        batch.setId(id);
+        batch.setWorkers(workers);
+        batch.setStatus(status);
+        return batch;
+    }
+}
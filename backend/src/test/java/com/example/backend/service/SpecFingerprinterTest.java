@@ -0,0 +1,126 @@
+package com.example.backend.service;
+
+
+import com.example.backend.exceptions.ResourceNotFoundException;
+import com.example.backend.models.Environment;
+import com.example.backend.models.TestModel;
+import com.example.backend.repo.TestRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+
+@ExtendWith(MockitoExtension.class)
+class SpecFingerprinterTest
+{
+
+    @Mock
+    private TestRepo testRepo;
+
+    @Mock
+    private FileService fileService;
+
+    @TempDir
+    Path tempDir;
+
+    private Path configFile;
+
+    private SpecFingerprinter fingerprinter;
+
+    @BeforeEach
+    void setUp ()
+    {
+        configFile = tempDir.resolve("playwright.config.ts");
+        fingerprinter = new SpecFingerprinter(testRepo, fileService, configFile);
+    }
+
+    @Test
+    @DisplayName("fingerprint kombiniert Test-ID, Spec-Hash und Umgebung")
+    void fingerprintCombinesTestSpecAndEnvironment () throws Exception
+    {
+        Environment environment = new Environment();
+        environment.setId(3L);
+        TestModel test = new TestModel();
+        test.setId(11L);
+        test.setEnvironment(environment);
+        when(testRepo.findById(11L)).thenReturn(Optional.of(test));
+        when(fileService.readFile("11.spec.ts")).thenReturn("test('a', async () => {});");
+
+        SpecFingerprinter.Fingerprint fingerprint = fingerprinter.fingerprint(11L);
+
+        assertThat(fingerprint.environmentId()).isEqualTo(3L);
+        assertThat(fingerprint.specHash()).hasSize(64);
+        assertThat(fingerprint.key()).isEqualTo("11:" + fingerprint.specHash() + ":3");
+    }
+
+    @Test
+    @DisplayName("specHash ändert sich mit dem Inhalt der Spec-Datei")
+    void specHashFollowsFileContent () throws Exception
+    {
+        when(fileService.readFile("11.spec.ts")).thenReturn("a", "b");
+
+        assertThat(fingerprinter.specHash(11L)).isNotEqualTo(fingerprinter.specHash(11L));
+    }
+
+    @Test
+    @DisplayName("specHash liefert Platzhalter wenn noch keine Spec-Datei existiert")
+    void specHashOfMissingFile () throws Exception
+    {
+        when(fileService.readFile("11.spec.ts")).thenThrow(new NoSuchFileException("11.spec.ts"));
+
+        assertThat(fingerprinter.specHash(11L)).isEqualTo(SpecFingerprinter.MISSING_SPEC);
+    }
+
+    @Test
+    @DisplayName("fingerprint wirft ResourceNotFoundException für unbekannte Tests")
+    void fingerprintOfUnknownTest ()
+    {
+        when(testRepo.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> fingerprinter.fingerprint(99L));
+    }
+
+    @Test
+    @DisplayName("Ergebnis-Hash ändert sich mit der Umgebungs-URL")
+    void resultHashFollowsEnvironmentUrl () throws Exception
+    {
+        TestModel test = new TestModel();
+        test.setId(11L);
+        when(testRepo.findById(11L)).thenReturn(Optional.of(test));
+        when(fileService.readFile("11.spec.ts")).thenReturn("test('a', async () => {});");
+        when(testRepo.findEnvironmentUrl(11L)).thenReturn("https://staging.example.com", "https://prod.example.com");
+
+        SpecFingerprinter.Fingerprint staging = fingerprinter.fingerprint(11L);
+        SpecFingerprinter.Fingerprint prod = fingerprinter.fingerprint(11L);
+
+        assertThat(staging.key()).isEqualTo(prod.key());
+        assertThat(staging.resultHash()).isNotEqualTo(prod.resultHash());
+    }
+
+    @Test
+    @DisplayName("configHash ignoriert Kommentare und Formatierung, aber keine Einstellungen")
+    void configHashIgnoresCommentsAndFormatting () throws Exception
+    {
+        Files.writeString(configFile, "export default defineConfig({\n    retries: 0,\n    baseURL: 'https://a.example.com',\n});\n");
+        String original = fingerprinter.configHash();
+
+        Files.writeString(configFile, "export default defineConfig({\n  retries: 0, // no retries\n  baseURL: 'https://a.example.com',\n});");
+        assertThat(fingerprinter.configHash()).isEqualTo(original);
+
+        Files.writeString(configFile, "export default defineConfig({\n    retries: 2,\n    baseURL: 'https://a.example.com',\n});\n");
+        assertThat(fingerprinter.configHash()).isNotEqualTo(original);
+    }
+}
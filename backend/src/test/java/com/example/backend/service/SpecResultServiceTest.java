@@ -0,0 +1,150 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.TestStatus;
+import com.example.backend.mapper.SpecResultMapper;
+import com.example.backend.models.ReportAttachment;
+import com.example.backend.models.ReportAttempt;
+import com.example.backend.models.ReportError;
+import com.example.backend.models.ReportTestResult;
+import com.example.backend.models.ResultAttachment;
+import com.example.backend.models.SpecResult;
+import com.example.backend.models.TestAttempt;
+import com.example.backend.models.TestError;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.ResultAttachmentRepo;
+import com.example.backend.repo.SpecResultRepo;
+import com.example.backend.repo.TestAttemptRepo;
+import com.example.backend.repo.TestErrorRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class SpecResultServiceTest
+{
+
+    @Mock
+    private SpecResultRepo specResultRepo;
+
+    @Mock
+    private TestAttemptRepo testAttemptRepo;
+
+    @Mock
+    private TestErrorRepo testErrorRepo;
+
+    @Mock
+    private ResultAttachmentRepo resultAttachmentRepo;
+
+    private SpecResultService service;
+
+    @BeforeEach
+    void setUp ()
+    {
+        service = new SpecResultService(specResultRepo, testAttemptRepo, testErrorRepo, resultAttachmentRepo, new SpecResultMapper());
+    }
+
+    @Test
+    @DisplayName("record speichert Spec-Ergebnisse mit Fehlern und Anhängen")
+    @SuppressWarnings("unchecked")
+    void recordPersistsSpecResultsWithErrorsAndAttachments ()
+    {
+        TestRun run = new TestRun();
+        run.setId(3L);
+
+        ReportError error = new ReportError();
+        error.setRetry(1);
+        error.setMessage("expect(locator).toBeVisible() failed");
+        error.setFile("3.spec.ts");
+        error.setLine(17);
+        ReportAttachment attachment = new ReportAttachment();
+        attachment.setName("trace");
+        attachment.setContentType("application/zip");
+        attachment.setPath("test-results/trace.zip");
+
+        ReportTestResult flaky = new ReportTestResult();
+        flaky.setFile("3.spec.ts");
+        flaky.setTitle("login");
+        flaky.setStatus("flaky");
+        flaky.setDurationMs(900);
+        flaky.setRetries(1);
+        flaky.getErrors().add(error);
+        flaky.getAttachments().add(attachment);
+        ReportAttempt failedAttempt = new ReportAttempt();
+        failedAttempt.setRetry(0);
+        failedAttempt.setStatus("timedOut");
+        failedAttempt.setDurationMs(600);
+        ReportAttempt passedAttempt = new ReportAttempt();
+        passedAttempt.setRetry(1);
+        passedAttempt.setStatus("passed");
+        passedAttempt.setDurationMs(300);
+        flaky.getAttempts().addAll(List.of(failedAttempt, passedAttempt));
+
+        ReportTestResult skipped = new ReportTestResult();
+        skipped.setFile("3.spec.ts");
+        skipped.setTitle("logout");
+        skipped.setStatus("skipped");
+
+        when(specResultRepo.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<SpecResult> results = service.record(run, List.of(flaky, skipped));
+
+        assertThat(results).hasSize(2);
+        assertEquals(TestStatus.PASSED, results.get(0).getStatus());
+        assertTrue(results.get(0).isFlaky());
+        assertEquals(900L, results.get(0).getDurationMs());
+        assertEquals(TestStatus.SKIPPED, results.get(1).getStatus());
+        assertThat(results).allMatch(result -> result.getTestRun() == run);
+
+        ArgumentCaptor<List<TestAttempt>> attempts = ArgumentCaptor.forClass(List.class);
+        verify(testAttemptRepo).saveAll(attempts.capture());
+        assertThat(attempts.getValue()).extracting(TestAttempt::getStatus).containsExactly(TestStatus.FAILED, TestStatus.PASSED);
+        assertThat(attempts.getValue()).extracting(TestAttempt::getOutcome).containsExactly("timedOut", "passed");
+
+        ArgumentCaptor<List<TestError>> errors = ArgumentCaptor.forClass(List.class);
+        verify(testErrorRepo).saveAll(errors.capture());
+        assertThat(errors.getValue()).singleElement().satisfies(saved ->
+        {
+            assertEquals(17, saved.getLocationLine());
+            assertEquals(1, saved.getRetry());
+            assertThat(saved.getSpecResult()).isSameAs(results.get(0));
+        });
+
+        ArgumentCaptor<List<ResultAttachment>> attachments = ArgumentCaptor.forClass(List.class);
+        verify(resultAttachmentRepo).saveAll(attachments.capture());
+        assertThat(attachments.getValue()).singleElement()
+                .satisfies(saved -> assertEquals("test-results/trace.zip", saved.getPath()));
+    }
+
+    @Test
+    @DisplayName("record speichert nichts ohne Testergebnisse")
+    void recordSkipsEmptyReports ()
+    {
+        assertThat(service.record(new TestRun(), List.of())).isEmpty();
+
+        verifyNoInteractions(specResultRepo, testAttemptRepo, testErrorRepo, resultAttachmentRepo);
+    }
+
+    @Test
+    @DisplayName("toStatus bildet Playwright-Ergebnisse auf TestStatus ab")
+    void toStatusMapsPlaywrightOutcomes ()
+    {
+        assertEquals(TestStatus.PASSED, SpecResultService.toStatus("expected"));
+        assertEquals(TestStatus.PASSED, SpecResultService.toStatus("flaky"));
+        assertEquals(TestStatus.FAILED, SpecResultService.toStatus("unexpected"));
+        assertEquals(TestStatus.SKIPPED, SpecResultService.toStatus("skipped"));
+    }
+}
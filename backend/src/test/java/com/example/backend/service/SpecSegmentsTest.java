@@ -0,0 +1,95 @@
+package com.example.backend.service;
+
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+class SpecSegmentsTest
+{
+
+    private static final String SPEC = """
+            import { test, expect } from '@playwright/test';
+
+            test('login', async ({ page }) => {
+              // @step 1
+              await page.goto('https://example.com');
+              // @step 2 - enter the credentials
+              await page.fill('#user', 'demo');
+              // @step 3
+              await expect(page.locator('h1')).toHaveText('Welcome');
+              // @end-steps
+            });
+            """;
+
+    @Test
+    @DisplayName("parse teilt die Spec an den Step-Markern und behält Anfang und Ende")
+    void parseSplitsAtStepMarkers ()
+    {
+        SpecSegments.Parsed parsed = SpecSegments.parse(SPEC);
+
+        assertThat(parsed).isNotNull();
+        assertThat(parsed.segments()).hasSize(3);
+        assertThat(parsed.prefix()).endsWith("async ({ page }) => {\n");
+        assertThat(parsed.segments().get(1)).startsWith("  // @step 2 - enter the credentials\n").contains("#user");
+        assertThat(parsed.suffix()).startsWith("  // @end-steps");
+        assertThat(parsed.indent()).isEqualTo("  ");
+        assertThat(parsed.prefix() + String.join("", parsed.segments()) + parsed.suffix()).isEqualTo(SPEC);
+    }
+
+    @Test
+    @DisplayName("parse lehnt Specs ohne vollständige oder geordnete Marker ab")
+    void parseRejectsIncompleteMarkers ()
+    {
+        assertThat(SpecSegments.parse("test('x', async () => {});")).isNull();
+        assertThat(SpecSegments.parse(SPEC.replace("// @end-steps", ""))).isNull();
+        assertThat(SpecSegments.parse(SPEC.replace("// @step 2", "// @step 4"))).isNull();
+    }
+
+    @Test
+    @DisplayName("match ordnet unveränderte Steps trotz eingefügter und gelöschter Steps zu")
+    void matchKeepsUnchangedStepsAcrossInsertions ()
+    {
+        int[] match = SpecSegments.match(List.of("a", "b", "c", "d"), List.of("a", "x", "b", "d", "e"));
+
+        assertThat(match).containsExactly(0, -1, 1, 3, -1);
+    }
+
+    @Test
+    @DisplayName("followsRemoval erkennt Steps nach gelöschten oder verschobenen Steps, nicht aber nach ersetzten")
+    void followsRemovalDetectsStepsAfterRemovedSteps ()
+    {
+        int[] removed = SpecSegments.match(List.of("a", "b", "c", "d"), List.of("a", "c", "d"));
+        int[] replaced = SpecSegments.match(List.of("a", "b", "c"), List.of("a", "x", "c"));
+        int[] moved = SpecSegments.match(List.of("a", "b", "c"), List.of("b", "c", "a"));
+
+        assertThat(SpecSegments.followsRemoval(removed, 1)).isTrue();
+        assertThat(SpecSegments.followsRemoval(removed, 2)).isFalse();
+        assertThat(SpecSegments.followsRemoval(replaced, 2)).isFalse();
+        assertThat(SpecSegments.followsRemoval(moved, 0)).isTrue();
+        assertThat(SpecSegments.followsRemoval(moved, 1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("segments liest die Steps einer Antwort ohne Code-Fences")
+    void segmentsReadsAnswer ()
+    {
+        Map<Integer, String> segments = SpecSegments.segments("""
+                ```typescript
+                // @step 2
+                await page.fill('#user', 'admin');
+                // @step 5
+                await page.click('#logout');
+                ```
+                """);
+
+        assertThat(segments).containsOnlyKeys(2, 5);
+        assertThat(segments.get(2)).isEqualTo("// @step 2\nawait page.fill('#user', 'admin');\n");
+        assertThat(SpecSegments.renumber(segments.get(5), 4)).startsWith("// @step 4\n");
+    }
+}
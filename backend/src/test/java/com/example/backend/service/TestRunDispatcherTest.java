@@ -0,0 +1,449 @@
+package com.example.backend.service;
+
+
+import com.example.backend.config.TestRunnerProperties;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.RunCancellationDto;
+import com.example.backend.dto.RunQueueStatusDto;
+import com.example.backend.exceptions.RunQueueFullException;
+import com.example.backend.exceptions.ValidationException;
+import com.example.backend.models.ExecutionProfile;
+import com.example.backend.models.TestBatch;
+import com.example.backend.models.TestModel;
+import com.example.backend.models.TestRun;
+import com.example.backend.repo.TestBatchRepo;
+import com.example.backend.repo.TestRunRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+class TestRunDispatcherTest
+{
+
+    @Mock
+    private PlaywrightTestRunner playwrightTestRunner;
+
+    @Mock
+    private TestRunRepo testRunRepository;
+
+    @Mock
+    private TestBatchRepo testBatchRepository;
+
+    @Mock
+    private ThreadPoolTaskExecutor testRunExecutor;
+
+    @Mock
+    private RunRegistry runRegistry;
+
+    @Mock
+    private RunLeaseService runLeaseService;
+
+    @Mock
+    private SpecFingerprinter specFingerprinter;
+
+    @Mock
+    private RunLimiter runLimiter;
+
+    @Mock
+    private ExecutionProfileService executionProfileService;
+
+    @Mock
+    private MatrixRunFinisher matrixRunFinisher;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TestRunDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp ()
+    {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(runLimiter.tryAcquire(any(), anyInt())).thenAnswer(invocation -> RunLimiter.Permit.unlimited(invocation.getArgument(1)));
+        dispatcher = new TestRunDispatcher(playwrightTestRunner, testRunRepository, testBatchRepository, testRunExecutor, new TestRunEventPublisher(), runRegistry, runLeaseService, specFingerprinter, runLimiter, executionProfileService, matrixRunFinisher, new TestRunnerProperties(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("submit legt PENDING-Run an und übergibt ihn an den Worker-Pool")
+    void submitPersistsPendingRunAndEnqueues ()
+    {
+        TestRun pending = new TestRun();
+        pending.setId(5L);
+        pending.setStatus(TestStatus.PENDING);
+        when(specFingerprinter.fingerprint(11L, null)).thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r1"));
+        when(playwrightTestRunner.createPendingRun(eq(11L), any(), any())).thenReturn(pending);
+
+        TestRun result = dispatcher.submit(11L);
+
+        assertEquals(5L, result.getId());
+        assertEquals(TestStatus.PENDING, result.getStatus());
+        verify(runLeaseService).hold(List.of(pending));
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(testRunExecutor).execute(task.capture());
+        verify(playwrightTestRunner, never()).executeRun(any(), any());
+
+        task.getValue().run();
+        verify(playwrightTestRunner).executeRun(pending, "11.spec.ts");
+    }
+
+    @Test
+    @DisplayName("submit lässt Runs ohne freies Limit außerhalb des Worker-Pools warten")
+    void submitWaitsForRunLimitsOutsideWorkerPool () throws Exception
+    {
+        TestRun pending = new TestRun();
+        pending.setId(5L);
+        pending.setStatus(TestStatus.PENDING);
+        when(specFingerprinter.fingerprint(11L, null)).thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r1"));
+        when(playwrightTestRunner.createPendingRun(eq(11L), any(), any())).thenReturn(pending);
+        when(runLimiter.tryAcquire(List.of(11L), 1)).thenReturn(null);
+        when(runLimiter.acquire(List.of(11L), 1)).thenReturn(RunLimiter.Permit.unlimited(1));
+        when(testRunExecutor.getQueueCapacity()).thenReturn(50);
+
+        dispatcher.submit(11L);
+
+        verify(runLimiter, timeout(1000)).acquire(List.of(11L), 1);
+        verify(testRunExecutor, timeout(1000)).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("submit lehnt wartende Runs über der Kapazität der Warteschlange ab")
+    void submitRejectsWaitersBeyondQueueCapacity () throws Exception
+    {
+        TestRun waiting = new TestRun();
+        waiting.setId(5L);
+        TestRun rejected = new TestRun();
+        rejected.setId(6L);
+        CountDownLatch release = new CountDownLatch(1);
+        when(specFingerprinter.fingerprint(eq(11L), any())).thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r1"));
+        when(specFingerprinter.fingerprint(eq(12L), any())).thenReturn(new SpecFingerprinter.Fingerprint(12L, "def", 1L, "r2"));
+        when(playwrightTestRunner.createPendingRun(eq(11L), any(), any())).thenReturn(waiting);
+        when(playwrightTestRunner.createPendingRun(eq(12L), any(), any())).thenReturn(rejected);
+        when(runLimiter.tryAcquire(any(), anyInt())).thenReturn(null);
+        when(runLimiter.acquire(List.of(11L), 1)).thenAnswer(invocation ->
+        {
+            release.await();
+            return RunLimiter.Permit.unlimited(1);
+        });
+        when(testRunExecutor.getQueueCapacity()).thenReturn(1);
+
+        dispatcher.submit(11L);
+        assertThrows(RunQueueFullException.class, () -> dispatcher.submit(12L));
+        release.countDown();
+
+        assertEquals(TestStatus.FAILED, rejected.getStatus());
+        verify(testRunExecutor, timeout(1000)).execute(any(Runnable.class));
+        verify(runLimiter, never()).acquire(List.of(12L), 1);
+    }
+
+    @Test
+    @DisplayName("submitBatch markiert Batch und Runs als FAILED, wenn das Warten auf Limits unterbrochen wird")
+    void submitBatchFailsBatchWhenWaitIsInterrupted () throws Exception
+    {
+        TestModel test = new TestModel();
+        test.setId(11L);
+        TestRun run = new TestRun();
+        run.setId(5L);
+        run.setTest(test);
+        run.setStatus(TestStatus.PENDING);
+        TestBatch batch = new TestBatch();
+        batch.setId(3L);
+        when(runLimiter.tryAcquire(List.of(11L), 1)).thenReturn(null);
+        when(runLimiter.acquire(List.of(11L), 1)).thenThrow(new InterruptedException());
+        when(testRunExecutor.getQueueCapacity()).thenReturn(50);
+
+        dispatcher.submitBatch(batch, List.of(run));
+
+        verify(testBatchRepository, timeout(1000)).save(batch);
+        assertEquals(TestStatus.FAILED, batch.getStatus());
+        assertEquals(TestStatus.FAILED, run.getStatus());
+        verify(runLeaseService).release(List.of(5L));
+        verifyNoInteractions(playwrightTestRunner);
+    }
+
+    @Test
+    @DisplayName("submit markiert Run als FAILED wenn die Warteschlange voll ist")
+    void submitFailsRunWhenQueueIsFull ()
+    {
+        TestRun pending = new TestRun();
+        pending.setId(6L);
+        when(specFingerprinter.fingerprint(11L, null)).thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r1"));
+        when(playwrightTestRunner.createPendingRun(eq(11L), any(), any())).thenReturn(pending);
+        doThrow(new TaskRejectedException("full")).when(testRunExecutor).execute(any(Runnable.class));
+
+        assertThrows(RunQueueFullException.class, () -> dispatcher.submit(11L));
+
+        assertEquals(TestStatus.FAILED, pending.getStatus());
+        verify(testRunRepository).save(pending);
+    }
+
+    @Test
+    @DisplayName("submit hängt sich an einen laufenden Run mit gleichem Spec und gleicher Umgebung an")
+    void submitCoalescesIdenticalRunInFlight ()
+    {
+        TestRun pending = new TestRun();
+        pending.setId(5L);
+        pending.setStatus(TestStatus.PENDING);
+        when(specFingerprinter.fingerprint(11L, null)).thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r1"));
+        when(playwrightTestRunner.createPendingRun(eq(11L), any(), any())).thenReturn(pending);
+        when(testRunRepository.findById(5L)).thenReturn(Optional.of(pending));
+
+        TestRun first = dispatcher.submit(11L);
+        TestRun second = dispatcher.submit(11L);
+
+        assertThat(first.getId()).isEqualTo(5L);
+        assertThat(second.getId()).isEqualTo(5L);
+        assertThat(second.isCoalesced()).isTrue();
+        verify(playwrightTestRunner, times(1)).createPendingRun(eq(11L), any(), any());
+        verify(testRunExecutor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("submit startet neuen Run wenn sich Spec-Inhalt oder Umgebung unterscheiden")
+    void submitStartsNewRunForDifferentFingerprint ()
+    {
+        TestRun first = new TestRun();
+        first.setId(5L);
+        first.setStatus(TestStatus.PENDING);
+        TestRun second = new TestRun();
+        second.setId(6L);
+        second.setStatus(TestStatus.PENDING);
+        when(specFingerprinter.fingerprint(11L, null))
+                .thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r1"))
+                .thenReturn(new SpecFingerprinter.Fingerprint(11L, "def", 1L, "r2"));
+        when(playwrightTestRunner.createPendingRun(eq(11L), any(), any())).thenReturn(first, second);
+
+        dispatcher.submit(11L);
+        TestRun result = dispatcher.submit(11L);
+
+        assertThat(result.getId()).isEqualTo(6L);
+        assertThat(result.isCoalesced()).isFalse();
+        verify(testRunExecutor, times(2)).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("submit mit Ausführungsprofil hängt sich nicht an einen Run ohne Profil an")
+    void submitWithProfileDoesNotCoalesceWithDefaultRun ()
+    {
+        ExecutionProfile profile = new ExecutionProfile();
+        profile.setId(3L);
+        TestRun first = new TestRun();
+        first.setId(5L);
+        first.setStatus(TestStatus.PENDING);
+        TestRun second = new TestRun();
+        second.setId(6L);
+        second.setStatus(TestStatus.PENDING);
+        when(executionProfileService.resolve(11L, "ci")).thenReturn(profile);
+        when(specFingerprinter.fingerprint(11L, null)).thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r1"));
+        when(specFingerprinter.fingerprint(11L, profile)).thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r2"));
+        when(playwrightTestRunner.createPendingRun(11L, "r1", null)).thenReturn(first);
+        when(playwrightTestRunner.createPendingRun(11L, "r2", 3L)).thenReturn(second);
+
+        dispatcher.submit(11L);
+        TestRun result = dispatcher.submit(11L, false, "ci");
+
+        assertThat(result.getId()).isEqualTo(6L);
+        assertThat(result.isCoalesced()).isFalse();
+        verify(testRunExecutor, times(2)).execute(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("submit startet nach Abschluss des laufenden Runs wieder einen neuen Run")
+    void submitStartsNewRunAfterInFlightRunFinished ()
+    {
+        TestRun first = new TestRun();
+        first.setId(5L);
+        first.setStatus(TestStatus.PENDING);
+        TestRun second = new TestRun();
+        second.setId(6L);
+        second.setStatus(TestStatus.PENDING);
+        when(specFingerprinter.fingerprint(11L, null)).thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r1"));
+        when(playwrightTestRunner.createPendingRun(eq(11L), any(), any())).thenReturn(first, second);
+
+        dispatcher.submit(11L);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(testRunExecutor).execute(task.capture());
+        task.getValue().run();
+
+        TestRun result = dispatcher.submit(11L);
+
+        assertThat(result.getId()).isEqualTo(6L);
+        assertThat(result.isCoalesced()).isFalse();
+    }
+
+    @Test
+    @DisplayName("submit mit cached liefert passenden bestandenen Run ohne neue Ausführung")
+    void submitCachedReturnsPassingRun ()
+    {
+        TestRun passed = new TestRun();
+        passed.setId(3L);
+        passed.setStatus(TestStatus.PASSED);
+        when(specFingerprinter.fingerprint(11L, null)).thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r1"));
+        when(playwrightTestRunner.findCachedRun(eq("r1"), any())).thenReturn(Optional.of(passed));
+
+        TestRun result = dispatcher.submit(11L, true);
+
+        assertThat(result.getId()).isEqualTo(3L);
+        assertThat(result.isCacheHit()).isTrue();
+        verify(playwrightTestRunner, never()).createPendingRun(any(), any(), any());
+        verifyNoInteractions(testRunExecutor);
+        assertThat(meterRegistry.get("testrun.cache").tag("result", "hit").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("submit mit cached führt den Test bei Cache-Miss aus und speichert den Ergebnis-Hash")
+    void submitCachedRunsTestOnMiss ()
+    {
+        TestRun pending = new TestRun();
+        pending.setId(5L);
+        pending.setStatus(TestStatus.PENDING);
+        when(specFingerprinter.fingerprint(11L, null)).thenReturn(new SpecFingerprinter.Fingerprint(11L, "abc", 1L, "r1"));
+        when(playwrightTestRunner.findCachedRun(eq("r1"), any())).thenReturn(Optional.empty());
+        when(playwrightTestRunner.createPendingRun(11L, "r1")).thenReturn(pending);
+
+        TestRun result = dispatcher.submit(11L, true);
+
+        assertThat(result.isCacheHit()).isFalse();
+        verify(testRunExecutor).execute(any(Runnable.class));
+        assertThat(meterRegistry.get("testrun.cache").tag("result", "miss").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("getQueueStatus liefert Warteschlangen- und Worker-Auslastung")
+    void getQueueStatusReportsExecutorState ()
+    {
+        when(testRunExecutor.getQueueSize()).thenReturn(3);
+        when(testRunExecutor.getQueueCapacity()).thenReturn(50);
+        when(testRunExecutor.getActiveCount()).thenReturn(2);
+        when(testRunExecutor.getMaxPoolSize()).thenReturn(2);
+
+        RunQueueStatusDto status = dispatcher.getQueueStatus();
+
+        assertThat(status.getQueueDepth()).isEqualTo(3);
+        assertThat(status.getQueueCapacity()).isEqualTo(50);
+        assertThat(status.getActiveWorkers()).isEqualTo(2);
+        assertThat(status.getMaxWorkers()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("cancel markiert wartenden Run direkt als CANCELLED")
+    void cancelMarksQueuedRunCancelled ()
+    {
+        TestRun pending = new TestRun();
+        pending.setId(8L);
+        pending.setStatus(TestStatus.PENDING);
+        when(testRunRepository.findById(8L)).thenReturn(Optional.of(pending));
+        when(runRegistry.cancel(List.of(8L))).thenReturn(new RunRegistry.Cancellation(false, false, 0));
+        when(testRunRepository.finish(eq(8L), eq(TestStatus.CANCELLED), eq("Cancelled before start"), any())).thenReturn(1);
+
+        RunCancellationDto result = dispatcher.cancel(8L);
+
+        assertThat(result.getCancelledRunIds()).containsExactly(8L);
+        assertThat(result.isWasRunning()).isFalse();
+        assertEquals(TestStatus.CANCELLED, pending.getStatus());
+        verify(testRunRepository).requestCancel(List.of(8L));
+        verify(testRunRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("cancel fordert den Abbruch eines Runs auf einer anderen Instanz über die Datenbank an")
+    void cancelRequestsStopOfRunOnAnotherInstance ()
+    {
+        TestRun remote = new TestRun();
+        remote.setId(11L);
+        remote.setStatus(TestStatus.PENDING);
+        remote.setLeaseOwner("other-instance");
+        when(testRunRepository.findById(11L)).thenReturn(Optional.of(remote));
+        when(runRegistry.cancel(List.of(11L))).thenReturn(new RunRegistry.Cancellation(false, false, 0));
+        when(runLeaseService.getInstanceId()).thenReturn("self");
+        when(testRunRepository.finish(eq(11L), eq(TestStatus.CANCELLED), eq("Cancelled, stopped by instance other-instance"), any())).thenReturn(1);
+
+        dispatcher.cancel(11L);
+
+        verify(testRunRepository).requestCancel(List.of(11L));
+        assertEquals(TestStatus.CANCELLED, remote.getStatus());
+    }
+
+    @Test
+    @DisplayName("cancel lässt Runs unverändert, die inzwischen anderweitig beendet wurden")
+    void cancelKeepsRunFinishedMeanwhile ()
+    {
+        TestRun finishing = new TestRun();
+        finishing.setId(12L);
+        finishing.setStatus(TestStatus.PENDING);
+        when(testRunRepository.findById(12L)).thenReturn(Optional.of(finishing));
+        when(runRegistry.cancel(List.of(12L))).thenReturn(new RunRegistry.Cancellation(false, false, 0));
+        when(testRunRepository.finish(eq(12L), eq(TestStatus.CANCELLED), any(), any())).thenReturn(0);
+
+        dispatcher.cancel(12L);
+
+        assertEquals(TestStatus.PENDING, finishing.getStatus());
+    }
+
+    @Test
+    @DisplayName("cancel überlässt laufende Runs dem Worker und meldet beendete Prozesse")
+    void cancelReportsReapedProcessesOfRunningRun ()
+    {
+        TestRun running = new TestRun();
+        running.setId(9L);
+        running.setStatus(TestStatus.PENDING);
+        when(testRunRepository.findById(9L)).thenReturn(Optional.of(running));
+        when(runRegistry.cancel(List.of(9L))).thenReturn(new RunRegistry.Cancellation(true, false, 4));
+
+        RunCancellationDto result = dispatcher.cancel(9L);
+
+        assertThat(result.isWasRunning()).isTrue();
+        assertEquals(4, result.getReapedProcesses());
+        verify(testRunRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("cancel überlässt Runs, deren Prozess noch nicht gestartet ist, dem Worker")
+    void cancelLeavesStartingRunToWorker ()
+    {
+        TestRun starting = new TestRun();
+        starting.setId(9L);
+        starting.setStatus(TestStatus.PENDING);
+        when(testRunRepository.findById(9L)).thenReturn(Optional.of(starting));
+        when(runRegistry.cancel(List.of(9L))).thenReturn(new RunRegistry.Cancellation(false, true, 0));
+
+        dispatcher.cancel(9L);
+
+        assertEquals(TestStatus.PENDING, starting.getStatus());
+        verify(testRunRepository, never()).saveAll(any());
+        verify(runLeaseService, never()).release(any());
+    }
+
+    @Test
+    @DisplayName("cancel lehnt bereits beendete Runs ab")
+    void cancelRejectsFinishedRun ()
+    {
+        TestRun finished = new TestRun();
+        finished.setId(10L);
+        finished.setStatus(TestStatus.PASSED);
+        when(testRunRepository.findById(10L)).thenReturn(Optional.of(finished));
+
+        assertThrows(ValidationException.class, () -> dispatcher.cancel(10L));
+        verifyNoInteractions(runRegistry);
+    }
+}
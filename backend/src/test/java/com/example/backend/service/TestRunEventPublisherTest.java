@@ -0,0 +1,98 @@
+package com.example.backend.service;
+
+
+import com.example.backend.constants.RunEventType;
+import com.example.backend.constants.TestStatus;
+import com.example.backend.dto.TestRunEventDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+class TestRunEventPublisherTest
+{
+
+    private final TestRunEventPublisher publisher = new TestRunEventPublisher();
+
+    @Test
+    @DisplayName("subscribe liefert null wenn der Run nicht läuft")
+    void subscribeReturnsNullForUnknownRun ()
+    {
+        assertNull(publisher.subscribe(1L));
+    }
+
+    @Test
+    @DisplayName("Späte Abonnenten erhalten die letzten Ereignisse und den Abschluss")
+    void lateSubscriberReceivesReplayAndCompletion ()
+    {
+        publisher.open(1L);
+        publisher.publishLine(1L, "Running 1 test using 1 worker");
+        publisher.publishLine(1L, "  ✓  1 [chromium] › 3.spec.ts:4:5 › login");
+
+        Flux<TestRunEventDto> events = publisher.subscribe(1L);
+        publisher.complete(1L, TestStatus.PASSED, "All tests passed");
+
+        List<TestRunEventDto> received = events.collectList().block(Duration.ofSeconds(5));
+
+        assertThat(received).hasSize(3);
+        assertEquals(RunEventType.OUTPUT, received.get(0).getType());
+        assertEquals(RunEventType.STATUS, received.get(2).getType());
+        assertEquals(TestStatus.PASSED, received.get(2).getStatus());
+        assertThat(publisher.isOpen(1L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Replay ist auf eine feste Anzahl Ereignisse begrenzt")
+    void replayIsBounded ()
+    {
+        publisher.open(2L);
+        for (int i = 0; i < TestRunEventPublisher.REPLAY_SIZE * 3; i++)
+        {
+            publisher.publishLine(2L, "line " + i);
+        }
+
+        Flux<TestRunEventDto> events = publisher.subscribe(2L);
+        publisher.complete(2L, TestStatus.FAILED, "failed");
+
+        List<TestRunEventDto> received = events.collectList().block(Duration.ofSeconds(5));
+
+        assertThat(received).hasSize(TestRunEventPublisher.REPLAY_SIZE);
+        assertEquals("line " + (TestRunEventPublisher.REPLAY_SIZE * 2 + 1), received.get(0).getMessage());
+        assertEquals(RunEventType.STATUS, received.get(received.size() - 1).getType());
+    }
+
+    @Test
+    @DisplayName("Abonnenten verpassen keine Ereignisse zwischen Replay und Live-Stream")
+    void subscriberDuringPublishingMissesNoEvents () throws InterruptedException
+    {
+        publisher.open(3L);
+        Flux<TestRunEventDto> events = publisher.subscribe(3L);
+        Thread pump = new Thread(() ->
+        {
+            for (int i = 0; i < 10_000; i++)
+            {
+                publisher.publishLine(3L, String.valueOf(i));
+            }
+            publisher.complete(3L, TestStatus.PASSED, "passed");
+        });
+        pump.start();
+
+        List<TestRunEventDto> received = events.collectList().block(Duration.ofSeconds(10));
+        pump.join();
+
+        List<TestRunEventDto> lines = received.stream().filter(event -> event.getType() == RunEventType.OUTPUT).toList();
+        int first = Integer.parseInt(lines.get(0).getMessage());
+        for (int i = 0; i < lines.size(); i++)
+        {
+            assertEquals(String.valueOf(first + i), lines.get(i).getMessage());
+        }
+        assertEquals("9999", lines.get(lines.size() - 1).getMessage());
+    }
+}
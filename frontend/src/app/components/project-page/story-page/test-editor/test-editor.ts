@@ -18,6 +18,7 @@ import {Dialog} from 'primeng/dialog';
 import {DrawerModule} from 'primeng/drawer';
 import {MonacoEditorComponent} from '../monaco-editor/monaco-editor.component';
 import Papa from 'papaparse';
+import {filter, switchMap, takeWhile, timer} from 'rxjs';
 
 interface TestStep {
   aktion: string;
@@ -75,6 +76,8 @@ export class TestEditor implements OnInit, OnChanges {
   showTestRunsDrawer = signal<boolean>(false);
   readonly testStatusEnum = TestStatus;
 
+  private readonly runPollIntervalMs = 2000;
+
   cols = [
     {field: 'aktion', header: 'Aktion'},
     {field: 'daten', header: 'Daten'},
@@ -83,7 +86,8 @@ export class TestEditor implements OnInit, OnChanges {
 
   ngOnInit(): void {
     this.loadTestData();
-    this.isGenerating.set(this.test().generationState === generationState.IN_PROGRESS);
+    this.isGenerating.set(this.test().generationState === generationState.QUEUED
+      || this.test().generationState === generationState.IN_PROGRESS);
   }
 
   ngOnChanges(changes: SimpleChanges): void {
@@ -223,7 +227,7 @@ export class TestEditor implements OnInit, OnChanges {
   }
 
   generateTest() {
-    this.test().generationState = generationState.IN_PROGRESS;
+    this.test().generationState = generationState.QUEUED;
     this.isGenerating.set(true);
     this.pollingService.addTest(this.test());
     this.testService.generateTest(this.test().id).subscribe({
@@ -406,6 +410,8 @@ export class TestEditor implements OnInit, OnChanges {
         return 'Test fehlgeschlagen';
       case TestStatus.SKIPPED:
         return 'Test übersprungen';
+      case TestStatus.CANCELLED:
+        return 'Test abgebrochen';
       case TestStatus.PENDING:
         return 'Test in Warteschlange';
       case TestStatus.GENERATING:
@@ -433,18 +439,20 @@ export class TestEditor implements OnInit, OnChanges {
 
     this.testService.executeTest(this.test().id).subscribe({
       next: (response: HttpResponse<TestRun>) => {
-        this.isRunningTest.set(false);
         const testRun = response.body as TestRun | null;
 
-        if (testRun) {
-          this.mergeLatestTestRun(testRun);
-          const severity = this.resolveSeverity(testRun.status);
-          this.messageService.add({
-            severity,
-            summary: this.resolveSummary(testRun.status),
-            detail: testRun.description
-          });
+        if (!testRun) {
+          this.isRunningTest.set(false);
+          return;
         }
+
+        this.mergeLatestTestRun(testRun);
+        this.messageService.add({
+          severity: this.resolveSeverity(testRun.status),
+          summary: this.resolveSummary(testRun.status),
+          detail: testRun.description
+        });
+        this.awaitTestRun(testRun.id);
       },
       error: (error: unknown) => {
         this.isRunningTest.set(false);
@@ -458,4 +466,29 @@ export class TestEditor implements OnInit, OnChanges {
       }
     });
   }
+
+  private awaitTestRun(runId: number): void {
+    timer(this.runPollIntervalMs, this.runPollIntervalMs).pipe(
+      switchMap(() => this.testRunService.getTestRun(runId)),
+      filter(response => !!response.body),
+      takeWhile(response => response.body!.status === TestStatus.PENDING, true)
+    ).subscribe({
+      next: response => {
+        const testRun = response.body!;
+        this.mergeLatestTestRun(testRun);
+        if (testRun.status !== TestStatus.PENDING) {
+          this.isRunningTest.set(false);
+          this.messageService.add({
+            severity: this.resolveSeverity(testRun.status),
+            summary: this.resolveSummary(testRun.status),
+            detail: testRun.description
+          });
+        }
+      },
+      error: (error: unknown) => {
+        this.isRunningTest.set(false);
+        console.error('Error polling test run:', error);
+      }
+    });
+  }
 }
@@ -6,3 +6,11 @@ export interface Environment {
   password: string;
   projectID: number;
 }
+
+export interface EnvironmentLimits {
+  environmentId: number;
+  maxConcurrentRuns?: number | null;
+  runsPerMinute?: number | null;
+  activeRuns: number;
+  waitingRuns: number;
+}
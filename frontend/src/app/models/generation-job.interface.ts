@@ -0,0 +1,16 @@
+import {generationState} from './generationState.interface';
+
+export interface GenerationJob {
+  id: number;
+  testId: number;
+  state: generationState;
+  currentStep?: string;
+  toolCalls: number;
+  maxToolCalls: number;
+  message?: string;
+  createdAt: string;
+  startedAt?: string;
+  finishedAt?: string;
+  coalesced?: boolean;
+  cacheHit?: boolean;
+}
@@ -1,5 +1,6 @@
 export enum generationState {
   NOT_STARTED = 'NOT_STARTED',
+  QUEUED = 'QUEUED',
   IN_PROGRESS = 'IN_PROGRESS',
   COMPLETED = 'COMPLETED',
   FAILED = 'FAILED',
@@ -1,6 +1,7 @@
 export type {Project} from './project.interface';
-export type {Environment} from './environment.interface';
+export type {Environment, EnvironmentLimits} from './environment.interface';
+export type {GenerationJob} from './generation-job.interface';
 export type {Test} from './test.interface';
-export type {TestRun} from './test-run.interface';
+export type {RunCancellation, RunLog, TestFlakiness, TestRun} from './test-run.interface';
 export type {UserStory} from './user-story.interface';
 export {TestStatus} from './test-status.enum';
@@ -7,4 +7,34 @@ export interface TestRun {
   testJson?: string;
   testId: number;
   executedAt: string;
+  coalesced?: boolean;
+  cacheHit?: boolean;
+  logSizeBytes?: number;
+}
+
+export interface RunLog {
+  runId: number;
+  offset: number;
+  nextOffset: number;
+  totalBytes: number;
+  complete: boolean;
+  content: string;
+}
+
+export interface RunCancellation {
+  runId: number;
+  cancelledRunIds: number[];
+  wasRunning: boolean;
+  reapedProcesses: number;
+}
+
+export interface TestFlakiness {
+  testId: number;
+  score: number;
+  runs: number;
+  flakyRuns: number;
+  lastStatus?: TestStatus;
+  quarantined: boolean;
+  quarantinedAt?: string;
+  updatedAt?: string;
 }
@@ -4,5 +4,6 @@ export enum TestStatus {
   FIXING = 'FIXING',
   FAILED = 'FAILED',
   PASSED = 'PASSED',
-  SKIPPED = 'SKIPPED'
+  SKIPPED = 'SKIPPED',
+  CANCELLED = 'CANCELLED'
 }
\ No newline at end of file
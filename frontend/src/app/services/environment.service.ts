@@ -1,7 +1,7 @@
 import {Injectable} from '@angular/core';
 import {HttpClient, HttpResponse} from '@angular/common/http';
 import {Observable} from 'rxjs';
-import {Environment} from '../models';
+import {Environment, EnvironmentLimits} from '../models';
 
 
 @Injectable({
@@ -25,6 +25,14 @@ export class EnvironmentService {
     return this.http.patch<Environment>(`${this.baseUrl}/updateEnvironment/${id}`, environment, {observe: 'response'});
   }
 
+  getEnvironmentLimits(id: number): Observable<HttpResponse<EnvironmentLimits>> {
+    return this.http.get<EnvironmentLimits>(`${this.baseUrl}/getEnvironmentLimits/${id}`, {observe: 'response'});
+  }
+
+  updateEnvironmentLimits(id: number, limits: EnvironmentLimits): Observable<HttpResponse<EnvironmentLimits>> {
+    return this.http.patch<EnvironmentLimits>(`${this.baseUrl}/updateEnvironmentLimits/${id}`, limits, {observe: 'response'});
+  }
+
   deleteEnvironment(id: number): Observable<HttpResponse<void>> {
     return this.http.delete<void>(`${this.baseUrl}/deleteEnvironment/${id}`, {observe: 'response'});
   }
@@ -1,7 +1,7 @@
 import {Injectable} from '@angular/core';
 import {HttpClient, HttpResponse} from '@angular/common/http';
 import {Observable} from 'rxjs';
-import {TestRun} from '../models';
+import {RunCancellation, RunLog, TestFlakiness, TestRun} from '../models';
 
 @Injectable({
   providedIn: 'root'
@@ -16,4 +16,24 @@ export class TestRunService {
   getTestRuns(testId: number): Observable<HttpResponse<TestRun[]>> {
     return this.http.get<TestRun[]>(`${this.backendUrl}/test/${testId}/runs`, {observe: 'response'});
   }
+
+  getTestRun(runId: number): Observable<HttpResponse<TestRun>> {
+    return this.http.get<TestRun>(`${this.backendUrl}/test/run/${runId}`, {observe: 'response'});
+  }
+
+  getFlakiness(testId: number): Observable<HttpResponse<TestFlakiness>> {
+    return this.http.get<TestFlakiness>(`${this.backendUrl}/test/${testId}/flakiness`, {observe: 'response'});
+  }
+
+  getQuarantinedTests(): Observable<HttpResponse<TestFlakiness[]>> {
+    return this.http.get<TestFlakiness[]>(`${this.backendUrl}/test/flakiness`, {params: {quarantined: true}, observe: 'response'});
+  }
+
+  getRunLog(runId: number, offset = 0, limit = 65536): Observable<HttpResponse<RunLog>> {
+    return this.http.get<RunLog>(`${this.backendUrl}/test/run/${runId}/log`, {params: {offset, limit}, observe: 'response'});
+  }
+
+  cancelTestRun(runId: number): Observable<HttpResponse<RunCancellation>> {
+    return this.http.delete<RunCancellation>(`${this.backendUrl}/test/run/${runId}`, {observe: 'response'});
+  }
 }
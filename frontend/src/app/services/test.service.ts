@@ -1,7 +1,7 @@
 import {Injectable} from '@angular/core';
 import {HttpClient, HttpHeaders, HttpResponse} from '@angular/common/http';
 import {Observable} from 'rxjs';
-import {Test, TestRun} from '../models';
+import {GenerationJob, Test, TestRun} from '../models';
 
 @Injectable({
   providedIn: 'root'
@@ -45,8 +45,27 @@ export class TestService {
   }
 
   /** Trigger test generation for a given test ID */
-  generateTest(id: number) {
-    return this.http.post<void>(`${this.backendUrl}/generate/${id}`, {}, {observe: 'response'});
+  /**
+   * Queue the AI generation of a test; the generation runs in the background.
+   * A cached spec of unchanged steps is returned right away unless `force` is set.
+   */
+  generateTest(id: number, force = false): Observable<HttpResponse<GenerationJob>> {
+    return this.http.post<GenerationJob>(`${this.backendUrl}/generate/${id}`, {}, {params: {force}, observe: 'response'});
+  }
+
+  /** Queue the AI generation of all tests of a user story */
+  generateStory(storyId: number, force = false): Observable<HttpResponse<GenerationJob[]>> {
+    return this.http.post<GenerationJob[]>(`${this.backendUrl}/generate/story/${storyId}`, {}, {params: {force}, observe: 'response'});
+  }
+
+  /** Queue the AI generation of all tests of a project */
+  generateProject(projectId: number, force = false): Observable<HttpResponse<GenerationJob[]>> {
+    return this.http.post<GenerationJob[]>(`${this.backendUrl}/generate/project/${projectId}`, {}, {params: {force}, observe: 'response'});
+  }
+
+  /** Get the progress of a generation job */
+  getGenerationJob(jobId: number): Observable<HttpResponse<GenerationJob>> {
+    return this.http.get<GenerationJob>(`${this.backendUrl}/generate/job/${jobId}`, {observe: 'response'});
   }
 
   /** Get the generated test code for a given test ID */
@@ -63,10 +82,11 @@ export class TestService {
     });
   }
 
-  /** Execute Playwright test for a given test ID */
-  executeTest(id: number): Observable<HttpResponse<TestRun>> {
+  /** Execute Playwright test for a given test ID; cached reuses a recent passing run of the unchanged test */
+  executeTest(id: number, cached = false): Observable<HttpResponse<TestRun>> {
     return this.http.post<TestRun>(`${this.backendUrl}/test/execute/${id}`, {}, {
       headers: new HttpHeaders({'Content-Type': 'application/json'}),
+      params: {cached},
       observe: 'response'
     });
   }